@@ -0,0 +1,118 @@
+/**
+ * Copyright (C) 2013
+ * by 52 North Initiative for Geospatial Open Source Software GmbH
+ *
+ * Contact: Andreas Wytzisk
+ * 52 North Initiative for Geospatial Open Source Software GmbH
+ * Martin-Luther-King-Weg 24
+ * 48155 Muenster, Germany
+ * info@52north.org
+ *
+ * This program is free software; you can redistribute and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the
+ * Free Software Foundation.
+ *
+ * This program is distributed WITHOUT ANY WARRANTY; even without the implied
+ * WARRANTY OF MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program (see gnu-gpl v2.txt). If not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA or
+ * visit the Free Software Foundation web page, http://www.fsf.org.
+ */
+package org.n52.sos.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.n52.sos.cache.ContentCache;
+import org.n52.sos.cache.WritableCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Reads a populated cache from 32 threads at once and compares the read throughput of a published snapshot with the
+ * one of a modifiable (synchronized) copy.
+ *
+ * @since 4.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(32)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+public class CacheReadBenchmark {
+    private static final int OFFERINGS = 100;
+
+    private static final int PROCEDURES_PER_OFFERING = 20;
+
+    @Param({ "snapshot", "copy" })
+    private String mode;
+
+    private final String[] offerings = new String[OFFERINGS];
+
+    private final String[] procedures = new String[OFFERINGS];
+
+    private ContentCache cache;
+
+    @Setup(Level.Trial)
+    public void createCache() {
+        WritableCache source = new WritableCache();
+        for (int i = 0; i < OFFERINGS; ++i) {
+            String offering = "offering" + i;
+            offerings[i] = offering;
+            procedures[i] = "procedure" + i + "_0";
+            source.addOffering(offering);
+            for (int j = 0; j < PROCEDURES_PER_OFFERING; ++j) {
+                String procedure = "procedure" + i + "_" + j;
+                source.addProcedure(procedure);
+                source.addProcedureForOffering(offering, procedure);
+                source.addOfferingForProcedure(procedure, offering);
+                source.addObservablePropertyForOffering(offering, "observableProperty" + j);
+            }
+        }
+        this.cache = "snapshot".equals(mode) ? source.snapshot() : source.copy();
+    }
+
+    @Benchmark
+    public int read(Reader reader) {
+        int i = reader.next();
+        String offering = offerings[i];
+        int result = 0;
+        if (cache.hasOffering(offering)) {
+            ++result;
+        }
+        if (cache.hasProcedure(procedures[i])) {
+            ++result;
+        }
+        result += cache.getProceduresForOffering(offering).size();
+        result += cache.getObservablePropertiesForOffering(offering).size();
+        return result;
+    }
+
+    /**
+     * Per thread cursor over the offerings, so that the threads do not contend on a shared counter.
+     */
+    @State(Scope.Thread)
+    public static class Reader {
+        private int offering;
+
+        int next() {
+            offering = (offering + 1) % OFFERINGS;
+            return offering;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/**
+ * Copyright (C) 2013
+ * by 52 North Initiative for Geospatial Open Source Software GmbH
+ *
+ * Contact: Andreas Wytzisk
+ * 52 North Initiative for Geospatial Open Source Software GmbH
+ * Martin-Luther-King-Weg 24
+ * 48155 Muenster, Germany
+ * info@52north.org
+ *
+ * This program is free software; you can redistribute and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the
+ * Free Software Foundation.
+ *
+ * This program is distributed WITHOUT ANY WARRANTY; even without the implied
+ * WARRANTY OF MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program (see gnu-gpl v2.txt). If not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA or
+ * visit the Free Software Foundation web page, http://www.fsf.org.
+ */
+package org.n52.sos.benchmark;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.n52.sos.ogc.gml.CodeWithAuthority;
+import org.n52.sos.ogc.gml.time.TimeInstant;
+import org.n52.sos.ogc.om.OmObservableProperty;
+import org.n52.sos.ogc.om.OmObservation;
+import org.n52.sos.ogc.om.OmObservationConstellation;
+import org.n52.sos.ogc.om.SingleObservationValue;
+import org.n52.sos.ogc.om.features.samplingFeatures.SamplingFeature;
+import org.n52.sos.ogc.om.values.QuantityValue;
+import org.n52.sos.ogc.sos.SosProcedureDescriptionUnknowType;
+import org.n52.sos.response.GetObservationResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link GetObservationResponse#mergeObservationsWithSameX()} for responses of up to one million
+ * observations. The observations of the constellations are interleaved, and the observations of one constellation
+ * share their constellation instance like the ones created by the DAOs.
+ * <p/>
+ * The merge modifies the response, so every measurement merges a freshly created response once.
+ *
+ * @since 4.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+public class MergeObservationsBenchmark {
+    private static final DateTime TIME = new DateTime(2013, 1, 1, 0, 0, DateTimeZone.UTC);
+
+    @Param({ "10000", "100000", "1000000" })
+    private int observations;
+
+    @Param({ "10", "1000" })
+    private int constellations;
+
+    private GetObservationResponse response;
+
+    @Setup(Level.Iteration)
+    public void createResponse() {
+        OmObservationConstellation[] observationConstellations = new OmObservationConstellation[constellations];
+        for (int i = 0; i < constellations; i++) {
+            observationConstellations[i] = new OmObservationConstellation(
+                    new SosProcedureDescriptionUnknowType("procedure" + i, null, null),
+                    new OmObservableProperty("observableProperty"),
+                    new SamplingFeature(new CodeWithAuthority("feature" + i)));
+        }
+        List<OmObservation> observationCollection = new ArrayList<OmObservation>(observations);
+        for (int i = 0; i < observations; i++) {
+            OmObservation observation = new OmObservation();
+            observation.setObservationConstellation(observationConstellations[i % constellations]);
+            observation.setValue(new SingleObservationValue<BigDecimal>(new TimeInstant(TIME.plusSeconds(i)),
+                    new QuantityValue(BigDecimal.valueOf(i))));
+            observationCollection.add(observation);
+        }
+        response = new GetObservationResponse();
+        response.setObservationCollection(observationCollection);
+    }
+
+    @Benchmark
+    public List<OmObservation> merge() {
+        response.mergeObservationsWithSameX();
+        return response.getObservationCollection();
+    }
+}
@@ -0,0 +1,200 @@
+/**
+ * Copyright (C) 2013
+ * by 52 North Initiative for Geospatial Open Source Software GmbH
+ *
+ * Contact: Andreas Wytzisk
+ * 52 North Initiative for Geospatial Open Source Software GmbH
+ * Martin-Luther-King-Weg 24
+ * 48155 Muenster, Germany
+ * info@52north.org
+ *
+ * This program is free software; you can redistribute and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the
+ * Free Software Foundation.
+ *
+ * This program is distributed WITHOUT ANY WARRANTY; even without the implied
+ * WARRANTY OF MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program (see gnu-gpl v2.txt). If not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA or
+ * visit the Free Software Foundation web page, http://www.fsf.org.
+ */
+package org.n52.sos.ds.hibernate;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.n52.sos.ds.hibernate.entities.CategoryObservation;
+import org.n52.sos.ds.hibernate.entities.CountObservation;
+import org.n52.sos.ds.hibernate.entities.NumericObservation;
+import org.n52.sos.ds.hibernate.entities.Observation;
+import org.n52.sos.ds.hibernate.entities.Offering;
+import org.n52.sos.ds.hibernate.entities.TextObservation;
+import org.n52.sos.ds.hibernate.util.HibernateObservationBuilder;
+import org.n52.sos.ogc.om.OMConstants;
+import org.n52.sos.ogc.om.OmObservation;
+import org.n52.sos.ogc.ows.OwsExceptionReport;
+import org.n52.sos.ogc.sos.Sos2Constants;
+import org.n52.sos.ogc.sos.SosConstants;
+import org.n52.sos.request.GetObservationRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the GetObservation query paths on an in memory database of one
+ * million observations: the projection query of {@link ObservationRow}s
+ * ({@link GetObservationDAO#queryObservationRows}) with loading
+ * {@link Observation} entities and converting them
+ * ({@link GetObservationDAO#toSosObservation}).
+ * <p/>
+ * Both paths run against the joined and the single table observation mapping,
+ * for all observations (a polymorphic query) and for the numeric observations
+ * only. Half of the observations are numeric. The database is filled once per
+ * trial, which takes a while for a million observations.
+ * 
+ * @since 4.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class ObservationQueryBenchmark {
+    private static final DateTime TIME = new DateTime(2013, 1, 1, 0, 0, DateTimeZone.UTC);
+
+    private static final int BATCH_SIZE = 1000;
+
+    @Param({ "1000000" })
+    private int observations;
+
+    @Param({ "joined", "single" })
+    private String mapping;
+
+    @Param({ "all", "numeric" })
+    private String values;
+
+    private final GetObservationDAO dao = new GetObservationDAO();
+
+    private SessionFactory sessionFactory;
+
+    private GetObservationRequest request;
+
+    @Setup(Level.Trial)
+    public void createDatabase() {
+        // the Configurator provides cache, profile and feature query handler
+        H2Configuration.assertInitialized();
+        sessionFactory =
+                H2Configuration.createSessionFactory("benchmark", "single".equals(mapping)
+                        ? H2Configuration.SINGLE_TABLE_OBSERVATION_MAPPING
+                        : H2Configuration.JOINED_OBSERVATION_MAPPING);
+        Session session = sessionFactory.openSession();
+        try {
+            session.beginTransaction();
+            HibernateObservationBuilder builder = new HibernateObservationBuilder(session);
+            builder.createObservationConstellation();
+            Observation template = builder.createObservation(createObservation(0), "0", TIME);
+            for (int i = 1; i < observations; i++) {
+                Observation observation = createObservation(i);
+                Date time = TIME.plusSeconds(i).toDate();
+                observation.setDeleted(false);
+                observation.setIdentifier(Integer.toString(i));
+                observation.setPhenomenonTimeStart(time);
+                observation.setPhenomenonTimeEnd(time);
+                observation.setResultTime(time);
+                observation.setProcedure(template.getProcedure());
+                observation.setObservableProperty(template.getObservableProperty());
+                observation.setFeatureOfInterest(template.getFeatureOfInterest());
+                observation.setOfferings(new HashSet<Offering>(template.getOfferings()));
+                observation.setUnit(template.getUnit());
+                observation.setCodespace(template.getCodespace());
+                session.save(observation);
+                if (i % BATCH_SIZE == 0) {
+                    session.flush();
+                    session.clear();
+                }
+            }
+            session.getTransaction().commit();
+        } finally {
+            session.close();
+        }
+        request = new GetObservationRequest();
+        request.setService(SosConstants.SOS);
+        request.setVersion(Sos2Constants.SERVICEVERSION);
+        if ("numeric".equals(values)) {
+            request.setResultModel(OMConstants.OBS_TYPE_MEASUREMENT);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void closeDatabase() {
+        sessionFactory.close();
+    }
+
+    @Benchmark
+    public List<OmObservation> rows() throws OwsExceptionReport {
+        Session session = sessionFactory.openSession();
+        try {
+            return dao.queryObservationRows(request, null, null, null, session);
+        } finally {
+            session.close();
+        }
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public List<OmObservation> entities() throws OwsExceptionReport {
+        Session session = sessionFactory.openSession();
+        try {
+            List<Collection<?>> chunks = Arrays.<Collection<?>> asList(null, null, null, null);
+            List<Observation> entities = dao.createTemporalFilterLessCriteria(session, request, chunks, null).list();
+            return dao.toSosObservation(entities, request.getVersion(), request.getResultModel(), session);
+        } finally {
+            session.close();
+        }
+    }
+
+    private Observation createObservation(int i) {
+        switch (i % 8) {
+        case 1:
+            CountObservation count = new CountObservation();
+            count.setValue(i);
+            return count;
+        case 3:
+            CategoryObservation category = new CategoryObservation();
+            category.setValue("category" + i % 10);
+            return category;
+        case 5:
+        case 7:
+            TextObservation text = new TextObservation();
+            text.setValue("text" + i);
+            return text;
+        default:
+            NumericObservation numeric = new NumericObservation();
+            numeric.setValue(BigDecimal.valueOf(i, 2));
+            return numeric;
+        }
+    }
+}
@@ -25,8 +25,8 @@
 package org.n52.sos.encode;
 
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.Collections;
 import java.util.Map;
 import java.util.Set;
@@ -42,6 +42,7 @@ import org.n52.sos.exception.ows.concrete.UnsupportedEncoderInputException;
 import org.n52.sos.ogc.ows.OwsExceptionReport;
 import org.n52.sos.ogc.sos.SosConstants;
 import org.n52.sos.ogc.sos.SosConstants.HelperValues;
+import org.n52.sos.response.ResponseWriter;
 import org.n52.sos.response.ServiceResponse;
 import org.n52.sos.service.CodingRepository;
 import org.n52.sos.service.SoapHeader;
@@ -128,19 +129,35 @@ public class Soap11Encoder extends AbstractSoapEncoder {
                 soapResponseMessage.getSOAPHeader().detachNode();
             }
             soapResponseMessage.setProperty(SOAPMessage.WRITE_XML_DECLARATION, String.valueOf(true));
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            soapResponseMessage.writeTo(baos);
             boolean applicationZip = false;
             if (soapResponse.getSoapBodyContent() != null) {
                 applicationZip = soapResponse.getSoapBodyContent().getApplyGzipCompression();
             }
-            return new ServiceResponse(baos, SosConstants.CONTENT_TYPE_XML, applicationZip, true);
+            return new ServiceResponse(new SoapMessageResponseWriter(soapResponseMessage), SosConstants.CONTENT_TYPE_XML,
+                                       applicationZip, true);
         } catch (SOAPException soape) {
             throw new NoApplicableCodeException().causedBy(soape)
                     .withMessage("Error while encoding SOAPMessage!");
-        } catch (IOException ioe) {
-            throw new NoApplicableCodeException().causedBy(ioe)
-                    .withMessage("Error while encoding SOAPMessage!");
+        }
+    }
+
+    /**
+     * Writes the {@link SOAPMessage} directly to the output stream.
+     */
+    private static class SoapMessageResponseWriter implements ResponseWriter {
+        private final SOAPMessage soapMessage;
+
+        SoapMessageResponseWriter(SOAPMessage soapMessage) {
+            this.soapMessage = soapMessage;
+        }
+
+        @Override
+        public void write(OutputStream outputStream) throws IOException {
+            try {
+                soapMessage.writeTo(outputStream);
+            } catch (SOAPException soape) {
+                throw new IOException("Error while writing SOAPMessage!", soape);
+            }
         }
     }
 
@@ -23,8 +23,6 @@
  */
 package org.n52.sos.encode;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.util.AbstractMap;
 import java.util.ArrayList;
@@ -49,6 +47,7 @@ import org.n52.sos.ogc.ows.OwsExceptionReport;
 import org.n52.sos.ogc.sos.SosConstants;
 import org.n52.sos.ogc.sos.SosConstants.HelperValues;
 import org.n52.sos.response.ServiceResponse;
+import org.n52.sos.response.XmlObjectResponseWriter;
 import org.n52.sos.service.ServiceConfiguration;
 import org.n52.sos.soap.SoapFault;
 import org.n52.sos.soap.SoapHelper;
@@ -171,19 +170,12 @@ public class Soap12Encoder extends AbstractSoapEncoder {
         // TODO for testing an validating
         // checkAndValidateSoapMessage(envelopeDoc);
 
-        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        try {
-            envelopeDoc.save(baos, XmlOptionsHelper.getInstance().getXmlOptions());
-
-            boolean applicationZip = false;
-            if (response.getSoapBodyContent() != null) {
-                applicationZip = response.getSoapBodyContent().getApplyGzipCompression();
-            }
-            return new ServiceResponse(baos, SosConstants.CONTENT_TYPE_XML, applicationZip, true);
-        } catch (final IOException e) {
-            throw new NoApplicableCodeException().causedBy(e)
-                    .withMessage("Error while encoding SOAPMessage!");
+        boolean applicationZip = false;
+        if (response.getSoapBodyContent() != null) {
+            applicationZip = response.getSoapBodyContent().getApplyGzipCompression();
         }
+        return new ServiceResponse(new XmlObjectResponseWriter(envelopeDoc), SosConstants.CONTENT_TYPE_XML,
+                applicationZip, true);
     }
 
     private XmlObject createSOAP12Body(final ServiceResponse response) throws OwsExceptionReport {
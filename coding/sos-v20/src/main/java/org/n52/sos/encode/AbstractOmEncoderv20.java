@@ -30,6 +30,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import net.opengis.gml.x32.FeaturePropertyType;
 import net.opengis.om.x20.NamedValueType;
 import net.opengis.om.x20.OMObservationType;
 import net.opengis.om.x20.OMProcessPropertyType;
@@ -177,15 +178,15 @@ public abstract class AbstractOmEncoderv20 implements ObservationEncoder<XmlObje
             throws OwsExceptionReport {
         OMObservationType xbObservation =
                 OMObservationType.Factory.newInstance(XmlOptionsHelper.getInstance().getXmlOptions());
-        // set a unique gml:id
-        xbObservation.setId("o_" + Long.toString(System.currentTimeMillis()));
         String observationID;
         if (sosObservation.isSetObservationID()) {
             observationID = sosObservation.getObservationID();
         } else {
-            observationID = xbObservation.getId().replace("o_", "");
+            observationID = Long.toString(System.currentTimeMillis());
             sosObservation.setObservationID(observationID);
         }
+        // set a unique gml:id
+        xbObservation.setId("o_" + observationID);
         // set observation identifier if available
         if (sosObservation.isSetIdentifier()) {
             Encoder<?, CodeWithAuthority> encoder =
@@ -215,7 +216,7 @@ public abstract class AbstractOmEncoderv20 implements ObservationEncoder<XmlObje
 
         // set procedure
         addProcedure(xbObservation.addNewProcedure(), sosObservation.getObservationConstellation().getProcedure(),
-                observationID);
+                observationID, additionalValues);
         // set observedProperty (phenomenon)
         List<OmObservableProperty> phenComponents;
         if (sosObservation.getObservationConstellation().getObservableProperty() instanceof OmObservableProperty) {
@@ -232,7 +233,8 @@ public abstract class AbstractOmEncoderv20 implements ObservationEncoder<XmlObje
         }
         // set feature
         xbObservation.addNewFeatureOfInterest().set(
-                addFeatureOfInterest(sosObservation.getObservationConstellation().getFeatureOfInterest()));
+                addFeatureOfInterest(sosObservation.getObservationConstellation().getFeatureOfInterest(),
+                        additionalValues));
         // set result
         XmlObject createResult = createResult(sosObservation);
         XmlObject addNewResult = xbObservation.addNewResult();
@@ -252,12 +254,15 @@ public abstract class AbstractOmEncoderv20 implements ObservationEncoder<XmlObje
      *            SosProcedureDescription to be encoded
      * @param observationID
      *            GML observation id.
+     * @param additionalValues
+     *            Additional values of the observation, the procedure is only
+     *            referenced if it is already encoded in the document
      * @throws OwsExceptionReport
      *             If an error occurs
      */
     private void addProcedure(OMProcessPropertyType procedure, SosProcedureDescription procedureDescription,
-            String observationID) throws OwsExceptionReport {
-        if (checkEncodProcedureForEncoderKeys()) {
+            String observationID, Map<HelperValues, String> additionalValues) throws OwsExceptionReport {
+        if (checkEncodProcedureForEncoderKeys() && !isTrue(additionalValues, HelperValues.EXIST_PROCEDURE_IN_DOC)) {
             SosProcedureDescription procedureToEncode = null;
             // should the procedure be converted
             if (convertEncodedProcedure()) {
@@ -350,6 +355,9 @@ public abstract class AbstractOmEncoderv20 implements ObservationEncoder<XmlObje
             if (resultTime.equals(phenomenonTime)) {
                 xbObs.addNewResultTime().setHref("#" + phenomenonTime.getGmlId());
             } else {
+                if (resultTime.getGmlId() == null) {
+                    resultTime.setGmlId(OMConstants.RESULT_TIME_NAME + "_" + sosObservation.getObservationID());
+                }
                 addResultTime(xbObs, resultTime);
             }
         }
@@ -360,6 +368,7 @@ public abstract class AbstractOmEncoderv20 implements ObservationEncoder<XmlObje
                 xbObs.addNewResultTime().setHref("#" + phenomenonTime.getGmlId());
             } else if (phenomenonTime instanceof TimePeriod) {
                 TimeInstant rsTime = new TimeInstant(((TimePeriod) sosObservation.getPhenomenonTime()).getEnd());
+                rsTime.setGmlId(OMConstants.RESULT_TIME_NAME + "_" + sosObservation.getObservationID());
                 addResultTime(xbObs, rsTime);
             }
         }
@@ -385,18 +394,36 @@ public abstract class AbstractOmEncoderv20 implements ObservationEncoder<XmlObje
     }
 
     /**
-     * Method to add the featureOfInterest to the XML observation object
+     * Method to add the featureOfInterest to the XML observation object. If
+     * the observation values contain a gml:id for the feature and the feature
+     * is already encoded in the document, only a reference to this gml:id is
+     * created.
      * 
      * @param feature
      *            SOS feature representation
+     * @param observationValues
+     *            Additional values of the observation
      * @return Encoded featureOfInterest
      * @throws OwsExceptionReport
      *             If an error occurs.
      */
-    private XmlObject addFeatureOfInterest(AbstractFeature feature) throws OwsExceptionReport {
+    private XmlObject addFeatureOfInterest(AbstractFeature feature, Map<HelperValues, String> observationValues)
+            throws OwsExceptionReport {
         Map<HelperValues, String> additionalValues =
                 new EnumMap<SosConstants.HelperValues, String>(HelperValues.class);
         Profile activeProfile = Configurator.getInstance().getProfileHandler().getActiveProfile();
+        String gmlId = observationValues != null ? observationValues.get(HelperValues.GMLID) : null;
+        if (gmlId != null && isTrue(observationValues, HelperValues.EXIST_FOI_IN_DOC)
+                && ObservationFragmentRegistry.isEncodedInline(feature,
+                        activeProfile.isEncodeFeatureOfInterestInObservations())) {
+            FeaturePropertyType featurePropertyType =
+                    FeaturePropertyType.Factory.newInstance(XmlOptionsHelper.getInstance().getXmlOptions());
+            featurePropertyType.setHref("#" + gmlId);
+            return featurePropertyType;
+        }
+        if (gmlId != null) {
+            additionalValues.put(HelperValues.GMLID, gmlId);
+        }
         additionalValues.put(HelperValues.ENCODE,
                 Boolean.toString(activeProfile.isEncodeFeatureOfInterestInObservations()));
         if (StringHelper.isNotEmpty(activeProfile.getEncodingNamespaceForFeatureOfInterest())) {
@@ -408,6 +435,10 @@ public abstract class AbstractOmEncoderv20 implements ObservationEncoder<XmlObje
         return CodingHelper.encodeObjectToXml(GMLConstants.NS_GML_32, feature, additionalValues);
     }
 
+    private boolean isTrue(Map<HelperValues, String> additionalValues, HelperValues key) {
+        return additionalValues != null && Boolean.parseBoolean(additionalValues.get(key));
+    }
+
     /**
      * Method to encode a SOS NamedValue to an XmlBeans representation
      * 
@@ -201,8 +201,15 @@ public class GmlEncoderv321 implements Encoder<XmlObject, Object> {
         final FeatureCollectionType featureCollection = featureCollectionDoc.addNewFeatureCollection();
         featureCollection.setId(element.getGmlId());
         if (element.isSetMembers()) {
+            // members get gml:ids derived from the given one, if any
+            final String gmlId = additionalValues.get(HelperValues.GMLID);
+            int memberCounter = 0;
             for (final AbstractFeature abstractFeature : element.getMembers().values()) {
-                featureCollection.addNewFeatureMember().set(createFeaturePropertyType(abstractFeature, new HashMap<HelperValues, String>(0)));
+                final Map<HelperValues, String> memberValues = new HashMap<HelperValues, String>(1);
+                if (gmlId != null) {
+                    memberValues.put(HelperValues.GMLID, gmlId + "_" + ++memberCounter);
+                }
+                featureCollection.addNewFeatureMember().set(createFeaturePropertyType(abstractFeature, memberValues));
             }
         } 
         if (additionalValues.containsKey(HelperValues.DOCUMENT)) {
@@ -252,7 +259,13 @@ public class GmlEncoderv321 implements Encoder<XmlObject, Object> {
                     } else {
                         namespace = OMHelper.getNamespaceForFeatureType(samplingFeature.getFeatureType());
                     }
-                    final XmlObject encodedXmlObject = CodingHelper.encodeObjectToXml(namespace, samplingFeature);
+                    final Map<HelperValues, String> featureValues =
+                            new EnumMap<HelperValues, String>(HelperValues.class);
+                    if (additionalValues.containsKey(HelperValues.GMLID)) {
+                        featureValues.put(HelperValues.GMLID, additionalValues.get(HelperValues.GMLID));
+                    }
+                    final XmlObject encodedXmlObject =
+                            CodingHelper.encodeObjectToXml(namespace, samplingFeature, featureValues);
     
                     if (encodedXmlObject != null) {
                         return encodedXmlObject;
@@ -0,0 +1,246 @@
+/**
+ * Copyright (C) 2013
+ * by 52 North Initiative for Geospatial Open Source Software GmbH
+ *
+ * Contact: Andreas Wytzisk
+ * 52 North Initiative for Geospatial Open Source Software GmbH
+ * Martin-Luther-King-Weg 24
+ * 48155 Muenster, Germany
+ * info@52north.org
+ *
+ * This program is free software; you can redistribute and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the
+ * Free Software Foundation.
+ *
+ * This program is distributed WITHOUT ANY WARRANTY; even without the implied
+ * WARRANTY OF MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program (see gnu-gpl v2.txt). If not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA or
+ * visit the Free Software Foundation web page, http://www.fsf.org.
+ */
+package org.n52.sos.encode;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.n52.sos.ogc.gml.time.Time;
+import org.n52.sos.ogc.gml.time.TimeInstant;
+import org.n52.sos.ogc.gml.time.TimePeriod;
+import org.n52.sos.ogc.om.OMConstants;
+import org.n52.sos.ogc.om.OmObservation;
+import org.n52.sos.ogc.om.features.AbstractFeature;
+import org.n52.sos.ogc.om.features.samplingFeatures.SamplingFeature;
+import org.n52.sos.ogc.sos.SosConstants;
+import org.n52.sos.ogc.sos.SosConstants.HelperValues;
+import org.n52.sos.ogc.sos.SosProcedureDescription;
+
+/**
+ * Registry of the features of interest and procedures that are already
+ * encoded in a single response. It creates the additional values for the
+ * {@link ObservationEncoder}, so that each feature of interest that is encoded
+ * inline is encoded once with a gml:id that is unique within the response and
+ * referenced by <code>xlink:href="#gmlId"</code> by all following
+ * observations. All other features get a new gml:id for each observation, as
+ * they may be encoded completely more than once. Procedures are encoded once
+ * and referenced by their identifier afterwards.
+ * <p/>
+ * The registry has to be consulted in document order and is not thread safe.
+ * It assigns all ids the encoders would otherwise set on the possibly shared
+ * observation objects, so the returned additional values can be used to
+ * encode the observations concurrently.
+ * <p/>
+ * The gml:ids of the observations, their times and the inline features are
+ * unique within the response: times that are shared with an already
+ * registered observation or whose gml:id is already used are replaced by a
+ * copy with a new gml:id. All other gml:ids the encoders create, e.g. of
+ * geometries or sampled features, are derived from these ids with a distinct
+ * prefix.
+ *
+ * @since 4.0.0
+ */
+class ObservationFragmentRegistry {
+
+    private static final String FEATURE_GML_ID_PREFIX = "sf_";
+
+    private final Map<String, String> featureGmlIds = new HashMap<String, String>();
+
+    private final Set<String> procedures = new HashSet<String>();
+
+    private final Set<String> gmlIds = new HashSet<String>();
+
+    private final boolean encodeFeatureOfInterest;
+
+    private int featureCounter;
+
+    private int observationCounter;
+
+    /**
+     * @param encodeFeatureOfInterest
+     *            Indicator whether the features of interest are encoded in
+     *            the observations, see
+     *            {@link org.n52.sos.service.profile.Profile#isEncodeFeatureOfInterestInObservations()}
+     */
+    ObservationFragmentRegistry(final boolean encodeFeatureOfInterest) {
+        this.encodeFeatureOfInterest = encodeFeatureOfInterest;
+    }
+
+    /**
+     * Registers the feature of interest and the procedure of the observation.
+     * Observations without id or with an id that is already used in the
+     * response, e.g. after merging observations, get a new id, as the gml:ids
+     * of the encoded observation are derived from it. Times without gml:id
+     * get the one the encoder would derive from it, times with a gml:id that
+     * is already used are replaced by a copy with a new one.
+     *
+     * @param observation
+     *            the next observation of the response
+     * @return the additional values to encode the observation with
+     */
+    Map<HelperValues, String> register(final OmObservation observation) {
+        final Map<HelperValues, String> additionalValues = new EnumMap<HelperValues, String>(HelperValues.class);
+        if (!observation.isSetObservationID()
+                || !gmlIds.add(SosConstants.OBS_ID_PREFIX + observation.getObservationID())) {
+            String observationId;
+            do {
+                observationId = Integer.toString(++observationCounter);
+            } while (!gmlIds.add(SosConstants.OBS_ID_PREFIX + observationId));
+            observation.setObservationID(observationId);
+        }
+        assignTimeGmlIds(observation);
+        final AbstractFeature feature = observation.getObservationConstellation().getFeatureOfInterest();
+        if (feature != null && feature.isSetIdentifier()) {
+            if (isEncodedInline(feature, encodeFeatureOfInterest)) {
+                final String identifier = feature.getIdentifier().getValue();
+                String gmlId = featureGmlIds.get(identifier);
+                if (gmlId == null) {
+                    gmlId = nextFeatureGmlId();
+                    featureGmlIds.put(identifier, gmlId);
+                    additionalValues.put(HelperValues.EXIST_FOI_IN_DOC, Boolean.toString(false));
+                } else {
+                    additionalValues.put(HelperValues.EXIST_FOI_IN_DOC, Boolean.toString(true));
+                }
+                additionalValues.put(HelperValues.GMLID, gmlId);
+            } else {
+                additionalValues.put(HelperValues.EXIST_FOI_IN_DOC, Boolean.toString(false));
+                additionalValues.put(HelperValues.GMLID, nextFeatureGmlId());
+            }
+        }
+        final SosProcedureDescription procedure = observation.getObservationConstellation().getProcedure();
+        if (procedure != null && procedure.getIdentifier() != null) {
+            additionalValues.put(HelperValues.EXIST_PROCEDURE_IN_DOC,
+                    Boolean.toString(!procedures.add(procedure.getIdentifier())));
+        }
+        return additionalValues;
+    }
+
+    /**
+     * Checks whether the feature is encoded with the gml:id of the additional
+     * values and can be referenced by it, or whether it is only referenced by
+     * its identifier or URL or encoded by other means.
+     * 
+     * @param feature
+     *            SOS feature representation
+     * @param encode
+     *            Indicator whether features should be encoded in observations
+     * @return <code>true</code>, if the feature is encoded with its gml:id
+     */
+    static boolean isEncodedInline(final AbstractFeature feature, final boolean encode) {
+        if (encode && feature instanceof SamplingFeature) {
+            final SamplingFeature samplingFeature = (SamplingFeature) feature;
+            return samplingFeature.isEncode() && !samplingFeature.isSetGmlID() && samplingFeature.isSetGeometry()
+                    && samplingFeature.getUrl() == null;
+        }
+        return false;
+    }
+
+    private String nextFeatureGmlId() {
+        String gmlId;
+        do {
+            gmlId = FEATURE_GML_ID_PREFIX + ++featureCounter;
+        } while (!gmlIds.add(gmlId));
+        return gmlId;
+    }
+
+    private void assignTimeGmlIds(final OmObservation observation) {
+        Time phenomenonTime = observation.getValue() != null ? observation.getPhenomenonTime() : null;
+        if (phenomenonTime != null && !isUniqueTimeGmlId(phenomenonTime, OMConstants.PHENOMENON_TIME_NAME,
+                observation.getObservationID())) {
+            phenomenonTime = copy(phenomenonTime, OMConstants.PHENOMENON_TIME_NAME, observation.getObservationID());
+            observation.getValue().setPhenomenonTime(phenomenonTime);
+        }
+        final TimeInstant resultTime = observation.getResultTime();
+        if (resultTime != null) {
+            // referenced by the gml:id of the phenomenon time
+            if (!resultTime.equals(phenomenonTime)
+                    && !isUniqueTimeGmlId(resultTime, OMConstants.RESULT_TIME_NAME, observation.getObservationID())) {
+                observation.setResultTime((TimeInstant) copy(resultTime, OMConstants.RESULT_TIME_NAME,
+                        observation.getObservationID()));
+            }
+        } else if (phenomenonTime instanceof TimePeriod) {
+            // the encoder would create the result time from the end with a
+            // gml:id that may be used already
+            final TimeInstant endTime = new TimeInstant(((TimePeriod) phenomenonTime).getEnd());
+            endTime.setGmlId(nextTimeGmlId(OMConstants.RESULT_TIME_NAME, observation.getObservationID()));
+            observation.setResultTime(endTime);
+        }
+    }
+
+    /**
+     * Assigns the gml:id derived from the observation id if the time has none
+     * and checks whether the gml:id of the time is not used by another
+     * element of the response.
+     */
+    private boolean isUniqueTimeGmlId(final Time time, final String prefix, final String observationId) {
+        if (time.isReferenced()) {
+            return true;
+        }
+        if (!time.isSetGmlId()) {
+            time.setGmlId(nextTimeGmlId(prefix, observationId));
+            return true;
+        }
+        return gmlIds.add(time.getGmlId());
+    }
+
+    private String nextTimeGmlId(final String prefix, final String observationId) {
+        final String gmlId = prefix + "_" + observationId;
+        String uniqueGmlId = gmlId;
+        for (int i = 1; !gmlIds.add(uniqueGmlId); ++i) {
+            uniqueGmlId = gmlId + "_" + i;
+        }
+        return uniqueGmlId;
+    }
+
+    /**
+     * Copies the time, as the original may be shared with other observations
+     * and is encoded with its gml:id there.
+     */
+    private Time copy(final Time time, final String prefix, final String observationId) {
+        Time copy;
+        if (time instanceof TimeInstant) {
+            final TimeInstant timeInstant = (TimeInstant) time;
+            final TimeInstant instantCopy = new TimeInstant(timeInstant.getValue());
+            instantCopy.setRequestedTimeLength(timeInstant.getRequestedTimeLength());
+            copy = instantCopy;
+        } else if (time instanceof TimePeriod) {
+            final TimePeriod timePeriod = (TimePeriod) time;
+            final TimePeriod periodCopy =
+                    new TimePeriod(timePeriod.getStart(), timePeriod.getStartIndet(), timePeriod.getEnd(),
+                            timePeriod.getEndIndet());
+            periodCopy.setDuration(timePeriod.getDuration());
+            periodCopy.setInterval(timePeriod.getInterval());
+            copy = periodCopy;
+        } else {
+            throw new IllegalArgumentException("Unsupported time type: " + time.getClass().getName());
+        }
+        copy.setIndeterminateValue(time.getIndeterminateValue());
+        copy.setTimeFormat(time.getTimeFormat());
+        copy.setGmlId(nextTimeGmlId(prefix, observationId));
+        return copy;
+    }
+}
@@ -134,19 +134,29 @@ public class SamplingEncoderv20 implements Encoder<XmlObject, AbstractFeature> {
     @Override
     public XmlObject encode(AbstractFeature abstractFeature, Map<HelperValues, String> additionalValues)
             throws OwsExceptionReport {
-        XmlObject encodedObject = createFeature(abstractFeature);
+        String gmlId = additionalValues != null ? additionalValues.get(HelperValues.GMLID) : null;
+        XmlObject encodedObject = createFeature(abstractFeature, gmlId);
 //        LOGGER.debug("Encoded object {} is valid: {}", encodedObject.schemaType().toString(),
 //                XmlHelper.validateDocument(encodedObject));
         return encodedObject;
     }
 
     private XmlObject createFeature(AbstractFeature absFeature) throws OwsExceptionReport {
+        return createFeature(absFeature, null);
+    }
+
+    /**
+     * @param gmlId
+     *            gml:id of the feature, if <code>null</code> a new one is
+     *            generated. The feature itself is not changed, as it may be
+     *            shared with other observations or responses.
+     */
+    private XmlObject createFeature(AbstractFeature absFeature, String gmlId) throws OwsExceptionReport {
         if (absFeature instanceof SamplingFeature) {
             SamplingFeature sampFeat = (SamplingFeature) absFeature;
-            StringBuilder builder = new StringBuilder();
-            builder.append("ssf_");
-            builder.append(JavaHelper.generateID(absFeature.getIdentifier().getValue()));
-            absFeature.setGmlId(builder.toString());
+            if (gmlId == null) {
+                gmlId = "ssf_" + JavaHelper.generateID(absFeature.getIdentifier().getValue());
+            }
 
             SFSpatialSamplingFeatureDocument xbSampFeatDoc =
                     SFSpatialSamplingFeatureDocument.Factory.newInstance(XmlOptionsHelper.getInstance()
@@ -154,7 +164,7 @@ public class SamplingEncoderv20 implements Encoder<XmlObject, AbstractFeature> {
             if (sampFeat.getXmlDescription() != null) {
                 try {
                     XmlObject feature = XmlObject.Factory.parse(sampFeat.getXmlDescription(), XmlOptionsHelper.getInstance().getXmlOptions());
-                    XmlHelper.updateGmlIDs(feature.getDomNode().getFirstChild(), absFeature.getGmlId(), null);
+                    XmlHelper.updateGmlIDs(feature.getDomNode().getFirstChild(), gmlId, null);
                     if (XmlHelper.getNamespace(feature).equals(SFConstants.NS_SAMS)) {
                         if (feature instanceof SFSpatialSamplingFeatureType) {
                            
@@ -173,7 +183,7 @@ public class SamplingEncoderv20 implements Encoder<XmlObject, AbstractFeature> {
             SFSpatialSamplingFeatureType xbSampFeature = xbSampFeatDoc.addNewSFSpatialSamplingFeature();
             // TODO: CHECK for all fields
             // set gml:id
-            xbSampFeature.setId(absFeature.getGmlId());
+            xbSampFeature.setId(gmlId);
 
             if (sampFeat.isSetIdentifier()
                     && SosHelper.checkFeatureOfInterestIdentifierForSosV2(sampFeat.getIdentifier().getValue(),
@@ -194,19 +204,25 @@ public class SamplingEncoderv20 implements Encoder<XmlObject, AbstractFeature> {
             // set sampledFeatures
             // TODO: CHECK
             if (sampFeat.getSampledFeatures() != null && !sampFeat.getSampledFeatures().isEmpty()) {
+                // derive the gml:ids from the feature's one, as sampled
+                // features are shared by the features of a response
+                Map<HelperValues, String> sampledFeatureValues =
+                        new EnumMap<HelperValues, String>(HelperValues.class);
+                sampledFeatureValues.put(HelperValues.GMLID, "sampledFeature_" + gmlId);
                 if (sampFeat.getSampledFeatures().size() == 1) {
                     XmlObject encodeObjectToXml =
                             CodingHelper.encodeObjectToXml(GMLConstants.NS_GML_32, sampFeat.getSampledFeatures()
-                                    .get(0));
+                                    .get(0), sampledFeatureValues);
                     xbSampFeature.addNewSampledFeature().set(encodeObjectToXml);
                 } else {
                     FeatureCollection featureCollection = new FeatureCollection();
-                    featureCollection.setGmlId("sampledFeatures_" + absFeature.getGmlId());
+                    featureCollection.setGmlId("sampledFeatures_" + gmlId);
                     for (AbstractFeature sampledFeature : sampFeat.getSampledFeatures()) {
                         featureCollection.addMember(sampledFeature);
                     }
                     XmlObject encodeObjectToXml =
-                            CodingHelper.encodeObjectToXml(GMLConstants.NS_GML_32, featureCollection);
+                            CodingHelper.encodeObjectToXml(GMLConstants.NS_GML_32, featureCollection,
+                                    sampledFeatureValues);
                     xbSampFeature.addNewSampledFeature().set(encodeObjectToXml);
                 }
 
@@ -225,7 +241,7 @@ public class SamplingEncoderv20 implements Encoder<XmlObject, AbstractFeature> {
                             CodingHelper.getEncoderKey(GMLConstants.NS_GML_32, sampFeat.getGeometry()));
             if (encoder != null) {
                 Map<HelperValues, String> gmlAdditionalValues = new EnumMap<HelperValues, String>(HelperValues.class);
-                gmlAdditionalValues.put(HelperValues.GMLID, absFeature.getGmlId());
+                gmlAdditionalValues.put(HelperValues.GMLID, gmlId);
                 XmlObject xmlObject = encoder.encode(sampFeat.getGeometry(), gmlAdditionalValues);
                 xbShape.addNewAbstractGeometry().set(xmlObject);
                 XmlHelper.substituteElement(xbShape.getAbstractGeometry(), xmlObject);
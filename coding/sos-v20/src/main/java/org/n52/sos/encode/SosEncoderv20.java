@@ -23,13 +23,23 @@
  */
 package org.n52.sos.encode;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.EnumMap;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import javax.xml.namespace.QName;
 
@@ -69,6 +79,7 @@ import net.opengis.swes.x20.FeatureRelationshipType;
 import org.apache.xmlbeans.XmlCursor;
 import org.apache.xmlbeans.XmlException;
 import org.apache.xmlbeans.XmlObject;
+import org.apache.xmlbeans.XmlOptions;
 import org.apache.xmlbeans.XmlString;
 import org.n52.sos.exception.CodedException;
 import org.n52.sos.exception.ows.NoApplicableCodeException;
@@ -78,6 +89,7 @@ import org.n52.sos.ogc.filter.FilterConstants;
 import org.n52.sos.ogc.filter.TemporalFilter;
 import org.n52.sos.ogc.gml.GMLConstants;
 import org.n52.sos.ogc.gml.time.TimePeriod;
+import org.n52.sos.ogc.om.ObservationStream;
 import org.n52.sos.ogc.om.OmObservation;
 import org.n52.sos.ogc.om.features.AbstractFeature;
 import org.n52.sos.ogc.om.features.FeatureCollection;
@@ -111,10 +123,13 @@ import org.n52.sos.response.InsertResultTemplateResponse;
 import org.n52.sos.service.AbstractServiceCommunicationObject;
 import org.n52.sos.service.CodingRepository;
 import org.n52.sos.service.Configurator;
+import org.n52.sos.service.ServiceConfiguration;
 import org.n52.sos.service.ServiceConstants.SupportedTypeKey;
 import org.n52.sos.service.profile.Profile;
+import org.n52.sos.util.Cleanupable;
 import org.n52.sos.util.CodingHelper;
 import org.n52.sos.util.CollectionHelper;
+import org.n52.sos.util.GroupedAndNamedThreadFactory;
 import org.n52.sos.util.N52XmlHelper;
 import org.n52.sos.util.NcNameResolver;
 import org.n52.sos.util.SchemaLocation;
@@ -125,7 +140,7 @@ import org.n52.sos.util.XmlOptionsHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-public class SosEncoderv20 implements Encoder<XmlObject, AbstractServiceCommunicationObject> {
+public class SosEncoderv20 implements StreamingEncoder<XmlObject, AbstractServiceCommunicationObject>, Cleanupable {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(SosEncoderv20.class);
 
@@ -136,6 +151,15 @@ public class SosEncoderv20 implements Encoder<XmlObject, AbstractServiceCommunic
             GetCapabilitiesResponse.class, AbstractServiceRequest.class, GetCapabilitiesRequest.class,
             GetResultTemplateRequest.class, GetResultRequest.class);
 
+    private static final String ENCODING_THREAD_GROUP_NAME = "observation-encoder";
+
+    /**
+     * Threads that encode the observations of large GetObservation responses.
+     * Idle threads are terminated, so no threads are kept if parallel
+     * encoding is disabled.
+     */
+    private ThreadPoolExecutor encodingExecutor;
+
     public SosEncoderv20() {
         LOGGER.debug("Encoder for the following keys initialized successfully: {}!",
                 StringHelper.join(", ", ENCODER_KEYS));
@@ -194,6 +218,17 @@ public class SosEncoderv20 implements Encoder<XmlObject, AbstractServiceCommunic
         return encodedObject;
     }
 
+    @Override
+    public void encodeToStream(final AbstractServiceCommunicationObject communicationObject,
+            final OutputStream outputStream) throws OwsExceptionReport, IOException {
+        if (communicationObject instanceof GetObservationResponse
+                && ((GetObservationResponse) communicationObject).isStreaming()) {
+            writeGetObservationResponse((GetObservationResponse) communicationObject, outputStream);
+        } else {
+            throw new UnsupportedEncoderInputException(this, communicationObject);
+        }
+    }
+
     private XmlObject encodeRequests(final AbstractServiceRequest request) throws OwsExceptionReport {
         if (request instanceof GetResultTemplateRequest) {
             return createGetResultTemplateRequest((GetResultTemplateRequest) request);
@@ -277,27 +312,36 @@ public class SosEncoderv20 implements Encoder<XmlObject, AbstractServiceCommunic
         return xbCapsDoc;
     }
 
+    /**
+     * Creates the GetObservation response document from the serialized
+     * <code>sos:observationData</code> fragments, so the encoded observations
+     * are not copied into the response document one after another.
+     */
     private XmlObject createGetObservationResponseDocument(final GetObservationResponse response)
             throws OwsExceptionReport {
-        final GetObservationResponseDocument xbGetObsRespDoc =
-                GetObservationResponseDocument.Factory.newInstance(XmlOptionsHelper.getInstance().getXmlOptions());
-        final GetObservationResponseType xbGetObsResp = xbGetObsRespDoc.addNewGetObservationResponse();
-        final Encoder<XmlObject, OmObservation> encoder =
-                CodingHelper.getEncoder(response.getResponseFormat(), new OmObservation());
-        if (!(encoder instanceof ObservationEncoder)) {
-            throw new NoApplicableCodeException()
-                    .withMessage("Error while encoding GetObservation response, encoder is not of type ObservationEncoder!");
-        }
-        final ObservationEncoder<XmlObject, OmObservation> iObservationEncoder =
-                (ObservationEncoder<XmlObject, OmObservation>) encoder;
-        if (iObservationEncoder.shouldObservationsWithSameXBeMerged()) {
+        final ObservationEncoder<XmlObject, OmObservation> encoder = getObservationEncoder(response);
+        if (encoder.shouldObservationsWithSameXBeMerged()) {
             response.mergeObservationsWithSameX();
         }
-        for (final OmObservation sosObservation : response.getObservationCollection()) {
-            xbGetObsResp.addNewObservationData().addNewOMObservation().set(encoder.encode(sosObservation, null));
+        final List<String> observationData = encodeObservations(encoder, response.getObservationCollection());
+        final QName root = Sos2Constants.QN_GET_OBSERVATION_RESPONSE;
+        final StringBuilder builder = new StringBuilder();
+        builder.append(String.format("<%s:%s xmlns:%s=\"%s\">", root.getPrefix(), root.getLocalPart(),
+                root.getPrefix(), root.getNamespaceURI()));
+        for (final String fragment : observationData) {
+            builder.append(fragment);
+        }
+        builder.append(String.format("</%s:%s>", root.getPrefix(), root.getLocalPart()));
+        final GetObservationResponseDocument xbGetObsRespDoc;
+        try {
+            xbGetObsRespDoc =
+                    GetObservationResponseDocument.Factory.parse(builder.toString(), XmlOptionsHelper.getInstance()
+                            .getXmlOptions());
+        } catch (final XmlException xmle) {
+            throw new NoApplicableCodeException().causedBy(xmle).withMessage(
+                    "Error while creating GetObservation response from the encoded observations!");
         }
         // set schema location
-        XmlHelper.makeGmlIdsUnique(xbGetObsRespDoc.getDomNode());
         final Set<SchemaLocation> schemaLocations = CollectionHelper.set();
         schemaLocations.add(Sos2Constants.SOS_GET_OBSERVATION_SCHEMA_LOCATION);
         N52XmlHelper.addSchemaLocationsForTo(xbGetObsRespDoc, schemaLocations);
@@ -305,6 +349,180 @@ public class SosEncoderv20 implements Encoder<XmlObject, AbstractServiceCommunic
         return xbGetObsRespDoc;
     }
 
+    /**
+     * Writes the GetObservation response element by element to the stream.
+     * Each observation is taken from the {@link ObservationStream} of the
+     * response, encoded and written as <code>sos:observationData</code>
+     * fragment, so only one observation is held in memory at a time.
+     * Observations are not merged. Features of interest and procedures are
+     * encoded only in the first fragment they occur in.
+     * <p/>
+     * The first observation is fetched before anything is written, so errors
+     * while opening the stream leave the output untouched. Errors while
+     * reading further observations abort the response after the already
+     * written fragments.
+     */
+    private void writeGetObservationResponse(final GetObservationResponse response, final OutputStream outputStream)
+            throws OwsExceptionReport, IOException {
+        final ObservationStream observations = response.getObservationStream();
+        try {
+            boolean hasNext = observations.hasNext();
+            final ObservationEncoder<XmlObject, OmObservation> encoder = getObservationEncoder(response);
+            final XmlOptions fragmentOptions = XmlOptionsHelper.getInstance().getXmlFragmentOptions();
+            final String characterEncoding = XmlOptionsHelper.getInstance().getCharacterEncoding();
+            final Writer writer = new OutputStreamWriter(outputStream, characterEncoding);
+            final QName root = Sos2Constants.QN_GET_OBSERVATION_RESPONSE;
+            writer.write(String.format("<?xml version=\"1.0\" encoding=\"%s\"?>\n", characterEncoding));
+            writer.write(String.format("<%s:%s xmlns:%s=\"%s\" xmlns:%s=\"%s\" %s:%s=\"%s\">\n", root.getPrefix(),
+                    root.getLocalPart(), root.getPrefix(), root.getNamespaceURI(), W3CConstants.NS_XSI_PREFIX,
+                    W3CConstants.NS_XSI, W3CConstants.NS_XSI_PREFIX, W3CConstants.AN_SCHEMA_LOCATION,
+                    Sos2Constants.SOS_GET_OBSERVATION_SCHEMA_LOCATION.getSchemaLocationString()));
+            writer.flush();
+            // gml:ids have to be unique over all written fragments
+            final ObservationFragmentRegistry registry = createObservationFragmentRegistry();
+            while (hasNext) {
+                final OmObservation observation = observations.next();
+                createObservationData(encoder, observation, registry.register(observation)).save(outputStream,
+                        fragmentOptions);
+                outputStream.flush();
+                hasNext = observations.hasNext();
+            }
+            writer.write(String.format("\n</%s:%s>\n", root.getPrefix(), root.getLocalPart()));
+            writer.flush();
+        } finally {
+            observations.close();
+        }
+    }
+
+    /**
+     * Encodes the observations to serialized <code>sos:observationData</code>
+     * fragments in their original order. If there are at least as many
+     * observations as configured by
+     * {@link ServiceConfiguration#getParallelObservationEncodingThreshold()}
+     * and more than one encoding thread is configured, the observations are
+     * encoded and serialized concurrently, each into an independent XmlBeans
+     * document.
+     * <p/>
+     * The features of interest and procedures are registered in document
+     * order before the observations are encoded, so they are encoded in the
+     * first observation they occur in and referenced by all following ones.
+     */
+    private List<String> encodeObservations(final ObservationEncoder<XmlObject, OmObservation> encoder,
+            final List<OmObservation> observations) throws OwsExceptionReport {
+        final int threads = ServiceConfiguration.getInstance().getObservationEncodingThreads();
+        final int threshold = ServiceConfiguration.getInstance().getParallelObservationEncodingThreshold();
+        final ObservationFragmentRegistry registry = createObservationFragmentRegistry();
+        final List<Map<HelperValues, String>> additionalValues =
+                new ArrayList<Map<HelperValues, String>>(observations.size());
+        for (final OmObservation observation : observations) {
+            additionalValues.add(registry.register(observation));
+        }
+        final XmlOptions fragmentOptions = XmlOptionsHelper.getInstance().getXmlFragmentOptions();
+        final List<String> encodedObservations = new ArrayList<String>(observations.size());
+        if (threads <= 1 || observations.size() < Math.max(threshold, 2)) {
+            for (int i = 0; i < observations.size(); ++i) {
+                encodedObservations.add(createObservationData(encoder, observations.get(i), additionalValues.get(i))
+                        .xmlText(fragmentOptions));
+            }
+            return encodedObservations;
+        }
+        LOGGER.debug("Encoding {} observations using {} threads", observations.size(), threads);
+        final ThreadPoolExecutor executor = getEncodingExecutor(threads);
+        final List<Future<String>> futures = new ArrayList<Future<String>>(observations.size());
+        try {
+            for (int i = 0; i < observations.size(); ++i) {
+                final OmObservation observation = observations.get(i);
+                final Map<HelperValues, String> observationValues = additionalValues.get(i);
+                futures.add(executor.submit(new Callable<String>() {
+                    @Override
+                    public String call() throws OwsExceptionReport {
+                        return createObservationData(encoder, observation, observationValues).xmlText(
+                                fragmentOptions);
+                    }
+                }));
+            }
+            for (final Future<String> future : futures) {
+                encodedObservations.add(future.get());
+            }
+        } catch (final InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new NoApplicableCodeException().causedBy(ie).withMessage(
+                    "Interrupted while encoding observations!");
+        } catch (final ExecutionException ee) {
+            if (ee.getCause() instanceof OwsExceptionReport) {
+                throw (OwsExceptionReport) ee.getCause();
+            }
+            throw new NoApplicableCodeException().causedBy(ee.getCause()).withMessage(
+                    "Error while encoding observations!");
+        } finally {
+            // stop the remaining tasks of failed requests
+            for (final Future<String> future : futures) {
+                future.cancel(true);
+            }
+        }
+        return encodedObservations;
+    }
+
+    /**
+     * Encodes the observation into the <code>sos:observationData</code>
+     * element of a new document, so it can be serialized independently of the
+     * other observations of the response.
+     */
+    private GetObservationResponseType.ObservationData createObservationData(
+            final ObservationEncoder<XmlObject, OmObservation> encoder, final OmObservation observation,
+            final Map<HelperValues, String> additionalValues) throws OwsExceptionReport {
+        final GetObservationResponseType.ObservationData xbObservationData =
+                GetObservationResponseDocument.Factory.newInstance(XmlOptionsHelper.getInstance().getXmlOptions())
+                        .addNewGetObservationResponse().addNewObservationData();
+        xbObservationData.addNewOMObservation().set(encoder.encode(observation, additionalValues));
+        return xbObservationData;
+    }
+
+    private ObservationFragmentRegistry createObservationFragmentRegistry() {
+        return new ObservationFragmentRegistry(Configurator.getInstance().getProfileHandler().getActiveProfile()
+                .isEncodeFeatureOfInterestInObservations());
+    }
+
+    private synchronized ThreadPoolExecutor getEncodingExecutor(final int threads) {
+        if (encodingExecutor == null) {
+            encodingExecutor =
+                    new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                            new LinkedBlockingQueue<Runnable>(), new GroupedAndNamedThreadFactory(
+                                    ENCODING_THREAD_GROUP_NAME));
+            encodingExecutor.allowCoreThreadTimeOut(true);
+        } else if (threads > encodingExecutor.getMaximumPoolSize()) {
+            encodingExecutor.setMaximumPoolSize(threads);
+            encodingExecutor.setCorePoolSize(threads);
+        } else if (threads < encodingExecutor.getMaximumPoolSize()) {
+            encodingExecutor.setCorePoolSize(threads);
+            encodingExecutor.setMaximumPoolSize(threads);
+        }
+        return encodingExecutor;
+    }
+
+    /**
+     * Stops the encoding threads, e.g. if the web application is stopped.
+     */
+    @Override
+    public synchronized void cleanup() {
+        if (encodingExecutor != null) {
+            encodingExecutor.shutdownNow();
+            encodingExecutor = null;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private ObservationEncoder<XmlObject, OmObservation> getObservationEncoder(final GetObservationResponse response)
+            throws OwsExceptionReport {
+        final Encoder<XmlObject, OmObservation> encoder =
+                CodingHelper.getEncoder(response.getResponseFormat(), new OmObservation());
+        if (!(encoder instanceof ObservationEncoder)) {
+            throw new NoApplicableCodeException()
+                    .withMessage("Error while encoding GetObservation response, encoder is not of type ObservationEncoder!");
+        }
+        return (ObservationEncoder<XmlObject, OmObservation>) encoder;
+    }
+
     private XmlObject createGetFeatureOfInterestResponse(final GetFeatureOfInterestResponse response)
             throws OwsExceptionReport {
         final GetFeatureOfInterestResponseDocument xbGetFoiResponseDoc =
@@ -353,29 +571,11 @@ public class SosEncoderv20 implements Encoder<XmlObject, AbstractServiceCommunic
         final List<OmObservation> observationCollection = response.getObservationCollection();
         final Encoder<XmlObject, OmObservation> encoder =
                 CodingHelper.getEncoder(response.getResponseFormat(), new OmObservation());
-        final HashMap<String, String> gmlID4sfIdentifier = new HashMap<String, String>(observationCollection.size());
-        final int sfIdCounter = 1;
+        final ObservationFragmentRegistry registry = createObservationFragmentRegistry();
         for (final OmObservation sosObservation : observationCollection) {
-            final Map<HelperValues, String> foiHelper =
-                    new EnumMap<SosConstants.HelperValues, String>(SosConstants.HelperValues.class);
-            String gmlId;
-            // FIXME CodeWithAuthority in Map<String,String>
-            if (gmlID4sfIdentifier.containsKey(sosObservation.getObservationConstellation().getFeatureOfInterest()
-                    .getIdentifier())) {
-                gmlId =
-                        gmlID4sfIdentifier.get(sosObservation.getObservationConstellation().getFeatureOfInterest()
-                                .getIdentifier());
-                foiHelper.put(HelperValues.EXIST_FOI_IN_DOC, Boolean.toString(true));
-            } else {
-                gmlId = "sf_" + sfIdCounter;
-                gmlID4sfIdentifier.put(sosObservation.getObservationConstellation().getFeatureOfInterest()
-                        .getIdentifier().getValue(), gmlId);
-                foiHelper.put(HelperValues.EXIST_FOI_IN_DOC, Boolean.toString(false));
-            }
-            foiHelper.put(HelperValues.GMLID, gmlId);
-            xbGetObsByIdResp.addNewObservation().addNewOMObservation().set(encoder.encode(sosObservation, foiHelper));
+            xbGetObsByIdResp.addNewObservation().addNewOMObservation()
+                    .set(encoder.encode(sosObservation, registry.register(sosObservation)));
         }
-        XmlHelper.makeGmlIdsUnique(xbGetObsByIdResp.getDomNode());
         // set schema location
         final Set<SchemaLocation> schemaLocations = CollectionHelper.set();
         schemaLocations.add(Sos2Constants.SOS_GET_OBSERVATION_BY_ID_SCHEMA_LOCATION);
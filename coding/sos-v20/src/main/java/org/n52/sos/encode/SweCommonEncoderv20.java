@@ -327,24 +327,25 @@ public class SweCommonEncoderv20 implements Encoder<XmlObject, Object> {
         final SweTextEncoding textEncoding = (SweTextEncoding) encoding;
         final String tokenSeparator = textEncoding.getTokenSeparator();
         final String blockSeparator = textEncoding.getBlockSeparator();
+        // append the tokens directly, the blocks may be created on demand
+        boolean firstBlock = true;
         for (final List<String> block : values) {
-            final StringBuilder blockStringBuilder = new StringBuilder();
+            if (!firstBlock) {
+                valueStringBuilder.append(blockSeparator);
+            }
+            firstBlock = false;
+            boolean firstToken = true;
             for (final String token : block) {
-                blockStringBuilder.append(token);
-                blockStringBuilder.append(tokenSeparator);
+                if (!firstToken) {
+                    valueStringBuilder.append(tokenSeparator);
+                }
+                firstToken = false;
+                valueStringBuilder.append(token);
             }
-            String blockString = blockStringBuilder.toString();
-            // remove last token sep
-            blockString = blockString.substring(0, blockString.lastIndexOf(tokenSeparator));
-            valueStringBuilder.append(blockString);
-            valueStringBuilder.append(blockSeparator);
-        }
-        String valueString = valueStringBuilder.toString();
-        // remove last block sep
-        valueString = valueString.substring(0, valueString.lastIndexOf(blockSeparator));
+        }
         // create XB result object
         final XmlString xbValueString = XmlString.Factory.newInstance();
-        xbValueString.setStringValue(valueString);
+        xbValueString.setStringValue(valueStringBuilder.toString());
         return xbValueString;
     }
 
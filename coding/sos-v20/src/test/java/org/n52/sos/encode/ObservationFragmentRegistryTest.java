@@ -0,0 +1,211 @@
+/**
+ * Copyright (C) 2013
+ * by 52 North Initiative for Geospatial Open Source Software GmbH
+ *
+ * Contact: Andreas Wytzisk
+ * 52 North Initiative for Geospatial Open Source Software GmbH
+ * Martin-Luther-King-Weg 24
+ * 48155 Muenster, Germany
+ * info@52north.org
+ *
+ * This program is free software; you can redistribute and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the
+ * Free Software Foundation.
+ *
+ * This program is distributed WITHOUT ANY WARRANTY; even without the implied
+ * WARRANTY OF MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program (see gnu-gpl v2.txt). If not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA or
+ * visit the Free Software Foundation web page, http://www.fsf.org.
+ */
+package org.n52.sos.encode;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+import java.util.Map;
+
+import org.joda.time.DateTime;
+import org.junit.Test;
+import org.n52.sos.ogc.gml.CodeWithAuthority;
+import org.n52.sos.ogc.gml.time.Time;
+import org.n52.sos.ogc.gml.time.TimeInstant;
+import org.n52.sos.ogc.gml.time.TimePeriod;
+import org.n52.sos.ogc.om.OmObservation;
+import org.n52.sos.ogc.om.OmObservationConstellation;
+import org.n52.sos.ogc.om.SingleObservationValue;
+import org.n52.sos.ogc.om.features.samplingFeatures.SamplingFeature;
+import org.n52.sos.ogc.sos.SosConstants.HelperValues;
+import org.n52.sos.ogc.om.values.TextValue;
+import org.n52.sos.ogc.ows.OwsExceptionReport;
+import org.n52.sos.ogc.sos.SosProcedureDescriptionUnknowType;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.PrecisionModel;
+
+/**
+ * @since 4.0.0
+ */
+public class ObservationFragmentRegistryTest {
+
+    private final ObservationFragmentRegistry registry = new ObservationFragmentRegistry(true);
+
+    @Test
+    public void shouldReferenceRepeatedFeatureByGmlId() {
+        final Map<HelperValues, String> first = registry.register(createObservation("feature", "procedure"));
+        final Map<HelperValues, String> second = registry.register(createObservation("feature", "procedure"));
+        assertThat(first.get(HelperValues.EXIST_FOI_IN_DOC), is("false"));
+        assertThat(second.get(HelperValues.EXIST_FOI_IN_DOC), is("true"));
+        assertThat(second.get(HelperValues.GMLID), is(first.get(HelperValues.GMLID)));
+    }
+
+    @Test
+    public void shouldAssignUniqueGmlIdsToDistinctFeatures() {
+        final Map<HelperValues, String> first = registry.register(createObservation("feature1", "procedure"));
+        final Map<HelperValues, String> second = registry.register(createObservation("feature2", "procedure"));
+        assertThat(second.get(HelperValues.EXIST_FOI_IN_DOC), is("false"));
+        assertThat(second.get(HelperValues.GMLID), is(not(first.get(HelperValues.GMLID))));
+    }
+
+    @Test
+    public void shouldNotReferenceFeatureWithoutGeometry() {
+        final OmObservation first = createObservation("feature", "procedure");
+        final OmObservation second = createObservation("feature", "procedure");
+        final SamplingFeature feature = new SamplingFeature(new CodeWithAuthority("feature"));
+        first.getObservationConstellation().setFeatureOfInterest(feature);
+        second.getObservationConstellation().setFeatureOfInterest(feature);
+        final Map<HelperValues, String> firstValues = registry.register(first);
+        final Map<HelperValues, String> secondValues = registry.register(second);
+        assertThat(secondValues.get(HelperValues.EXIST_FOI_IN_DOC), is("false"));
+        assertThat(secondValues.get(HelperValues.GMLID), is(not(firstValues.get(HelperValues.GMLID))));
+    }
+
+    @Test
+    public void shouldNotReferenceFeatureWithUrl() {
+        final Map<HelperValues, String> first = registry.register(createObservation("feature", "procedure"));
+        final OmObservation observation = createObservation("feature", "procedure");
+        ((SamplingFeature) observation.getObservationConstellation().getFeatureOfInterest())
+                .setUrl("http://example.org/feature");
+        final Map<HelperValues, String> second = registry.register(observation);
+        assertThat(second.get(HelperValues.EXIST_FOI_IN_DOC), is("false"));
+        assertThat(second.get(HelperValues.GMLID), is(not(first.get(HelperValues.GMLID))));
+    }
+
+    @Test
+    public void shouldNotReferenceFeaturesIfNotEncoded() {
+        final ObservationFragmentRegistry notEncoding = new ObservationFragmentRegistry(false);
+        final Map<HelperValues, String> first = notEncoding.register(createObservation("feature", "procedure"));
+        final Map<HelperValues, String> second = notEncoding.register(createObservation("feature", "procedure"));
+        assertThat(second.get(HelperValues.EXIST_FOI_IN_DOC), is("false"));
+        assertThat(second.get(HelperValues.GMLID), is(not(first.get(HelperValues.GMLID))));
+    }
+
+    @Test
+    public void shouldEncodeProcedureOnce() {
+        final Map<HelperValues, String> first = registry.register(createObservation("feature1", "procedure"));
+        final Map<HelperValues, String> second = registry.register(createObservation("feature2", "procedure"));
+        final Map<HelperValues, String> third = registry.register(createObservation("feature2", "procedure2"));
+        assertThat(first.get(HelperValues.EXIST_PROCEDURE_IN_DOC), is("false"));
+        assertThat(second.get(HelperValues.EXIST_PROCEDURE_IN_DOC), is("true"));
+        assertThat(third.get(HelperValues.EXIST_PROCEDURE_IN_DOC), is("false"));
+    }
+
+    @Test
+    public void shouldSetMissingObservationIds() {
+        final OmObservation first = createObservation("feature", "procedure");
+        final OmObservation second = createObservation("feature", "procedure");
+        registry.register(first);
+        registry.register(second);
+        assertThat(first.isSetObservationID(), is(true));
+        assertThat(second.getObservationID(), is(not(first.getObservationID())));
+    }
+
+    @Test
+    public void shouldReplaceDuplicateObservationIds() {
+        final OmObservation merged = createObservation("feature", "procedure");
+        final OmObservation fromDatabase = createObservation("feature", "procedure");
+        merged.setObservationID("1");
+        fromDatabase.setObservationID("1");
+        registry.register(merged);
+        registry.register(fromDatabase);
+        assertThat(merged.getObservationID(), is("1"));
+        assertThat(fromDatabase.getObservationID(), is(not("1")));
+    }
+
+    @Test
+    public void shouldAssignTimeGmlIdsBeforeEncoding() {
+        final OmObservation observation = createObservation("feature", "procedure");
+        final TimeInstant phenomenonTime = new TimeInstant(new DateTime());
+        final TimeInstant resultTime = new TimeInstant(phenomenonTime.getValue().plusHours(1));
+        observation.setValue(new SingleObservationValue<String>(phenomenonTime, new TextValue("value")));
+        observation.setResultTime(resultTime);
+        registry.register(observation);
+        assertThat(phenomenonTime.getGmlId(), is("phenomenonTime_" + observation.getObservationID()));
+        assertThat(resultTime.getGmlId(), is("resultTime_" + observation.getObservationID()));
+    }
+
+    @Test
+    public void shouldCopySharedTimes() {
+        final TimeInstant phenomenonTime = new TimeInstant(new DateTime());
+        final OmObservation first = createObservation("feature", "procedure");
+        final OmObservation second = createObservation("feature", "procedure");
+        first.setValue(new SingleObservationValue<String>(phenomenonTime, new TextValue("value")));
+        second.setValue(new SingleObservationValue<String>(phenomenonTime, new TextValue("value")));
+        registry.register(first);
+        registry.register(second);
+        assertThat(first.getPhenomenonTime(), is(sameInstance((Time) phenomenonTime)));
+        assertThat(second.getPhenomenonTime(), is(not(sameInstance((Time) phenomenonTime))));
+        assertThat(second.getPhenomenonTime(), is((Time) phenomenonTime));
+        assertThat(second.getPhenomenonTime().getGmlId(), is(not(phenomenonTime.getGmlId())));
+    }
+
+    @Test
+    public void shouldReplaceUsedTimeGmlIds() {
+        final OmObservation first = createObservation("feature", "procedure");
+        final OmObservation second = createObservation("feature", "procedure");
+        final TimePeriod phenomenonTime = new TimePeriod(new DateTime(), new DateTime().plusHours(1));
+        phenomenonTime.setGmlId("sf_1");
+        first.setValue(new SingleObservationValue<String>(new TimeInstant(new DateTime()), new TextValue("value")));
+        second.setValue(new SingleObservationValue<String>(phenomenonTime, new TextValue("value")));
+        final TimeInstant resultTime = new TimeInstant(new DateTime().plusDays(1));
+        resultTime.setGmlId("phenomenonTime_1");
+        second.setResultTime(resultTime);
+        final String featureGmlId = registry.register(first).get(HelperValues.GMLID);
+        registry.register(second);
+        assertThat(first.getPhenomenonTime().getGmlId(), is("phenomenonTime_1"));
+        assertThat(featureGmlId, is("sf_1"));
+        assertThat(second.getPhenomenonTime().getGmlId(), is(not("sf_1")));
+        assertThat(second.getPhenomenonTime(), is(instanceOf(TimePeriod.class)));
+        assertThat(second.getResultTime().getGmlId(), is(not(first.getPhenomenonTime().getGmlId())));
+    }
+
+    @Test
+    public void shouldAssignResultTimeOfTimePeriods() {
+        final OmObservation observation = createObservation("feature", "procedure");
+        final TimePeriod phenomenonTime = new TimePeriod(new DateTime(), new DateTime().plusHours(1));
+        observation.setValue(new SingleObservationValue<String>(phenomenonTime, new TextValue("value")));
+        registry.register(observation);
+        assertThat(observation.getResultTime().getValue(), is(phenomenonTime.getEnd()));
+        assertThat(observation.getResultTime().getGmlId(), is("resultTime_" + observation.getObservationID()));
+    }
+
+    private OmObservation createObservation(final String feature, final String procedure) {
+        final SamplingFeature samplingFeature = new SamplingFeature(new CodeWithAuthority(feature));
+        try {
+            samplingFeature.setGeometry(new GeometryFactory(new PrecisionModel(), 4326).createPoint(new Coordinate(
+                    52.0, 7.0)));
+        } catch (final OwsExceptionReport owse) {
+            throw new IllegalStateException(owse);
+        }
+        final OmObservationConstellation observationConstellation = new OmObservationConstellation();
+        observationConstellation.setFeatureOfInterest(samplingFeature);
+        observationConstellation.setProcedure(new SosProcedureDescriptionUnknowType(procedure, null, null));
+        final OmObservation observation = new OmObservation();
+        observation.setObservationConstellation(observationConstellation);
+        return observation;
+    }
+}
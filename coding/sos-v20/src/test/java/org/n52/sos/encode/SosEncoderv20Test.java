@@ -0,0 +1,234 @@
+/**
+ * Copyright (C) 2013
+ * by 52 North Initiative for Geospatial Open Source Software GmbH
+ *
+ * Contact: Andreas Wytzisk
+ * 52 North Initiative for Geospatial Open Source Software GmbH
+ * Martin-Luther-King-Weg 24
+ * 48155 Muenster, Germany
+ * info@52north.org
+ *
+ * This program is free software; you can redistribute and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the
+ * Free Software Foundation.
+ *
+ * This program is distributed WITHOUT ANY WARRANTY; even without the implied
+ * WARRANTY OF MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program (see gnu-gpl v2.txt). If not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA or
+ * visit the Free Software Foundation web page, http://www.fsf.org.
+ */
+package org.n52.sos.encode;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.*;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.xmlbeans.XmlObject;
+import org.joda.time.DateTime;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.n52.sos.config.SettingsManager;
+import org.n52.sos.ogc.gml.CodeWithAuthority;
+import org.n52.sos.ogc.gml.GMLConstants;
+import org.n52.sos.ogc.gml.time.Time;
+import org.n52.sos.ogc.gml.time.TimeInstant;
+import org.n52.sos.ogc.gml.time.TimePeriod;
+import org.n52.sos.ogc.om.OMConstants;
+import org.n52.sos.ogc.om.OmObservableProperty;
+import org.n52.sos.ogc.om.OmObservation;
+import org.n52.sos.ogc.om.OmObservationConstellation;
+import org.n52.sos.ogc.om.SingleObservationValue;
+import org.n52.sos.ogc.om.features.SFConstants;
+import org.n52.sos.ogc.om.features.samplingFeatures.SamplingFeature;
+import org.n52.sos.ogc.om.values.TextValue;
+import org.n52.sos.ogc.ows.OwsExceptionReport;
+import org.n52.sos.ogc.sos.SosProcedureDescriptionUnknowType;
+import org.n52.sos.response.GetObservationByIdResponse;
+import org.n52.sos.response.GetObservationResponse;
+import org.n52.sos.service.CodingRepository;
+import org.n52.sos.service.Configurator;
+import org.n52.sos.service.ServiceConfiguration;
+import org.n52.sos.service.profile.Profile;
+import org.n52.sos.service.profile.ProfileHandler;
+import org.n52.sos.util.W3CConstants;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.PrecisionModel;
+
+/**
+ * Encodes complete responses and checks that the gml:ids are unique without
+ * any post processing of the document.
+ *
+ * @since 4.0.0
+ */
+public class SosEncoderv20Test {
+
+    private static final int OBSERVATIONS = 20;
+
+    private final SosEncoderv20 encoder = new SosEncoderv20();
+
+    private int observationEncodingThreads;
+
+    private int parallelObservationEncodingThreshold;
+
+    @BeforeClass
+    public static void initConfigurator() throws Exception {
+        final Profile profile = mock(Profile.class);
+        when(profile.isEncodeFeatureOfInterestInObservations()).thenReturn(true);
+        final ProfileHandler profileHandler = mock(ProfileHandler.class);
+        when(profileHandler.getActiveProfile()).thenReturn(profile);
+        final Configurator configurator = mock(Configurator.class);
+        when(configurator.getProfileHandler()).thenReturn(profileHandler);
+        setConfiguratorInstance(configurator);
+        CodingRepository.getInstance();
+    }
+
+    @AfterClass
+    public static void cleanUp() throws Exception {
+        setConfiguratorInstance(null);
+        SettingsManager.getInstance().cleanup();
+    }
+
+    private static void setConfiguratorInstance(final Configurator configurator) throws Exception {
+        final Field instance = Configurator.class.getDeclaredField("instance");
+        instance.setAccessible(true);
+        instance.set(null, configurator);
+    }
+
+    @Before
+    public void rememberEncodingSettings() {
+        observationEncodingThreads = ServiceConfiguration.getInstance().getObservationEncodingThreads();
+        parallelObservationEncodingThreshold =
+                ServiceConfiguration.getInstance().getParallelObservationEncodingThreshold();
+    }
+
+    @After
+    public void restoreEncodingSettings() {
+        ServiceConfiguration.getInstance().setObservationEncodingThreads(observationEncodingThreads);
+        ServiceConfiguration.getInstance().setParallelObservationEncodingThreshold(
+                parallelObservationEncodingThreshold);
+    }
+
+    @Test
+    public void shouldEncodeGetObservationResponseWithUniqueGmlIds() throws OwsExceptionReport {
+        ServiceConfiguration.getInstance().setObservationEncodingThreads(1);
+        final GetObservationResponse response = new GetObservationResponse();
+        response.setResponseFormat(OMConstants.NS_OM_2);
+        response.setObservationCollection(createObservations());
+        assertUniqueGmlIds(encoder.encode(response));
+    }
+
+    @Test
+    public void shouldEncodeGetObservationResponseConcurrentlyWithUniqueGmlIds() throws OwsExceptionReport {
+        ServiceConfiguration.getInstance().setObservationEncodingThreads(4);
+        ServiceConfiguration.getInstance().setParallelObservationEncodingThreshold(2);
+        final GetObservationResponse response = new GetObservationResponse();
+        response.setResponseFormat(OMConstants.NS_OM_2);
+        response.setObservationCollection(createObservations());
+        assertUniqueGmlIds(encoder.encode(response));
+    }
+
+    @Test
+    public void shouldEncodeGetObservationByIdResponseWithUniqueGmlIds() throws OwsExceptionReport {
+        final GetObservationByIdResponse response = new GetObservationByIdResponse();
+        response.setResponseFormat(OMConstants.NS_OM_2);
+        response.setObservationCollection(createObservations());
+        assertUniqueGmlIds(encoder.encode(response));
+    }
+
+    /**
+     * Creates observations that share features, procedures and time objects,
+     * have the same ids or times with the same gml:ids, like observations
+     * that are merged or created from the same database rows.
+     */
+    private List<OmObservation> createObservations() {
+        final DateTime start = new DateTime(2013, 1, 1, 0, 0, 0, 0);
+        final TimeInstant sharedInstant = new TimeInstant(start);
+        final TimePeriod sharedPeriod = new TimePeriod(start, start.plusHours(1));
+        final List<OmObservation> observations = new ArrayList<OmObservation>(OBSERVATIONS);
+        for (int i = 0; i < OBSERVATIONS; ++i) {
+            final Time phenomenonTime;
+            if (i % 4 == 0) {
+                phenomenonTime = sharedInstant;
+            } else if (i % 4 == 1) {
+                phenomenonTime = sharedPeriod;
+            } else {
+                phenomenonTime = new TimeInstant(start.plusMinutes(i));
+                phenomenonTime.setGmlId("time");
+            }
+            final OmObservation observation = createObservation("feature" + i % 3, "procedure" + i % 2, phenomenonTime);
+            observation.setObservationID(Integer.toString(i % 5));
+            if (i % 3 == 0) {
+                final TimeInstant resultTime = new TimeInstant(start.plusDays(1));
+                resultTime.setGmlId("time");
+                observation.setResultTime(resultTime);
+            }
+            observations.add(observation);
+        }
+        return observations;
+    }
+
+    private OmObservation createObservation(final String feature, final String procedure, final Time phenomenonTime) {
+        final SamplingFeature samplingFeature = new SamplingFeature(new CodeWithAuthority(feature));
+        samplingFeature.setFeatureType(SFConstants.SAMPLING_FEAT_TYPE_SF_SAMPLING_POINT);
+        try {
+            samplingFeature.setGeometry(new GeometryFactory(new PrecisionModel(), 4326).createPoint(new Coordinate(
+                    52.0, 7.0)));
+        } catch (final OwsExceptionReport owse) {
+            throw new IllegalStateException(owse);
+        }
+        final OmObservationConstellation observationConstellation = new OmObservationConstellation();
+        observationConstellation.setFeatureOfInterest(samplingFeature);
+        observationConstellation.setProcedure(new SosProcedureDescriptionUnknowType(procedure, null, null));
+        observationConstellation.setObservableProperty(new OmObservableProperty("property"));
+        observationConstellation.setObservationType(OMConstants.OBS_TYPE_TEXT_OBSERVATION);
+        final OmObservation observation = new OmObservation();
+        observation.setObservationConstellation(observationConstellation);
+        observation.setValue(new SingleObservationValue<String>(phenomenonTime, new TextValue("value")));
+        return observation;
+    }
+
+    private void assertUniqueGmlIds(final XmlObject response) {
+        final Set<String> gmlIds = new HashSet<String>();
+        final Set<String> references = new HashSet<String>();
+        collectGmlIds(response.getDomNode(), gmlIds, references);
+        assertThat(gmlIds, is(not(empty())));
+        // all local references have to point to an encoded element
+        assertThat(gmlIds, hasItems(references.toArray(new String[references.size()])));
+    }
+
+    private void collectGmlIds(final Node node, final Set<String> gmlIds, final Set<String> references) {
+        if (node instanceof Element) {
+            final Element element = (Element) node;
+            final String gmlId = element.getAttributeNS(GMLConstants.NS_GML_32, "id");
+            if (!gmlId.isEmpty()) {
+                assertThat("duplicate gml:id", gmlIds.add(gmlId), is(true));
+            }
+            final String href = element.getAttributeNS(W3CConstants.NS_XLINK, "href");
+            if (href.startsWith("#")) {
+                references.add(href.substring(1));
+            }
+        }
+        final NodeList children = node.getChildNodes();
+        for (int i = 0; i < children.getLength(); ++i) {
+            collectGmlIds(children.item(i), gmlIds, references);
+        }
+    }
+}
@@ -57,13 +57,13 @@ import org.n52.sos.ogc.sos.SosConstants;
 import org.n52.sos.request.operator.RequestOperatorRepository;
 import org.n52.sos.response.GetCapabilitiesResponse;
 import org.n52.sos.response.ServiceResponse;
+import org.n52.sos.response.XmlObjectResponseWriter;
 import org.n52.sos.service.CodingRepository;
 import org.n52.sos.service.ServiceConfiguration;
 import org.n52.sos.service.admin.AdministratorConstants.AdministratorParams;
 import org.n52.sos.service.admin.request.AdminRequest;
 import org.n52.sos.service.operator.ServiceOperatorRepository;
 import org.n52.sos.util.CollectionHelper;
-import org.n52.sos.util.XmlOptionsHelper;
 
 public class SosAdminRequestOperator implements AdminRequestOperator {
 
@@ -202,26 +202,20 @@ public class SosAdminRequestOperator implements AdminRequestOperator {
 
     private ServiceResponse createServiceResponse(GetCapabilitiesResponse response) throws OwsExceptionReport {
         String contentType = SosConstants.CONTENT_TYPE_XML;
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        try {
-            EncoderKey key = new XmlEncoderKey(Sos2Constants.NS_SOS_20, GetCapabilitiesResponse.class);
-            Encoder<?, GetCapabilitiesResponse> encoder = CodingRepository.getInstance().getEncoder(key);
-            if (encoder != null) {
-                Object encodedObject = encoder.encode(response);
-                if (encodedObject instanceof XmlObject) {
-                    ((XmlObject) encodedObject).save(baos, XmlOptionsHelper.getInstance().getXmlOptions());
-                    return new ServiceResponse(baos, contentType, false, true);
-                } else if (encodedObject instanceof ServiceResponse) {
-                    return (ServiceResponse) encodedObject;
-                } else {
-                    throw new EncoderResponseUnsupportedException();
-                }
+        EncoderKey key = new XmlEncoderKey(Sos2Constants.NS_SOS_20, GetCapabilitiesResponse.class);
+        Encoder<?, GetCapabilitiesResponse> encoder = CodingRepository.getInstance().getEncoder(key);
+        if (encoder != null) {
+            Object encodedObject = encoder.encode(response);
+            if (encodedObject instanceof XmlObject) {
+                return new ServiceResponse(new XmlObjectResponseWriter((XmlObject) encodedObject), contentType, false,
+                        true);
+            } else if (encodedObject instanceof ServiceResponse) {
+                return (ServiceResponse) encodedObject;
             } else {
-                throw new NoEncoderForResponseException();
+                throw new EncoderResponseUnsupportedException();
             }
-
-        } catch (IOException ioe) {
-            throw new ErrorWhileSavingResponseToOutputStreamException(ioe);
+        } else {
+            throw new NoEncoderForResponseException();
         }
     }
 }
@@ -23,8 +23,6 @@
  */
 package org.n52.sos.binding;
 
-import java.io.ByteArrayOutputStream;
-
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
@@ -50,12 +48,12 @@ import org.n52.sos.ogc.sos.SosConstants;
 import org.n52.sos.request.AbstractServiceRequest;
 import org.n52.sos.request.GetCapabilitiesRequest;
 import org.n52.sos.response.ServiceResponse;
+import org.n52.sos.response.XmlObjectResponseWriter;
 import org.n52.sos.service.CodingRepository;
 import org.n52.sos.service.ConformanceClass;
 import org.n52.sos.service.ServiceConfiguration;
 import org.n52.sos.service.operator.ServiceOperatorKeyType;
 import org.n52.sos.service.operator.ServiceOperatorRepository;
-import org.n52.sos.util.XmlOptionsHelper;
 
 /**
  * Abstract Super class for binding implementations<br />
@@ -311,9 +309,8 @@ public abstract class Binding implements ConformanceClass {
                 final Object encodedObject = encoder.encode(oer);
                 if (encodedObject instanceof XmlObject)
                 {
-                    final ByteArrayOutputStream baos = new ByteArrayOutputStream();
-                    ((XmlObject) encodedObject).save(baos, XmlOptionsHelper.getInstance().getXmlOptions());
-                    serviceResponse = new ServiceResponse(baos, SosConstants.CONTENT_TYPE_XML, false, true);
+                    serviceResponse = new ServiceResponse(new XmlObjectResponseWriter((XmlObject) encodedObject),
+                            SosConstants.CONTENT_TYPE_XML, false, true);
                 }
                 else if (encodedObject instanceof ServiceResponse)
                 {
@@ -94,4 +94,20 @@ public abstract class ContentCacheUpdate implements Action {
         return false;
     }
 
+    /**
+     * @return if this update only adds content to the cache, so that it may be delayed and applied together with
+     *         other updates
+     */
+    public boolean isCoalescable() {
+        return false;
+    }
+
+    /**
+     * @return if the data source changed in a way this update can not reflect completely, e.g. because content was
+     *         deleted, so the next scheduled update has to be a complete update
+     */
+    public boolean isCompleteUpdateRequired() {
+        return false;
+    }
+
 }
@@ -153,4 +153,26 @@ public abstract class AbstractGetObservationDAO extends AbstractOperationDAO {
      */
     public abstract GetObservationResponse getObservation(GetObservationRequest request) throws OwsExceptionReport;
 
+    /**
+     * process the GetObservation query and provide the observations as
+     * {@link org.n52.sos.ogc.om.ObservationStream}, so that they can be
+     * encoded without loading all of them into memory. Data sources not
+     * supporting streaming return the result of
+     * {@link #getObservation(GetObservationRequest)}.
+     * 
+     * @param request
+     *            GetObservation object which represents the getObservation
+     *            request
+     * 
+     * @return the response, streamed if supported for the request
+     * 
+     * @throws OwsExceptionReport
+     *             if query of the database failed
+     * @see GetObservationResponse#isStreaming()
+     */
+    public GetObservationResponse getObservationAsStream(final GetObservationRequest request)
+            throws OwsExceptionReport {
+        return getObservation(request);
+    }
+
 }
@@ -33,4 +33,17 @@ import org.n52.sos.ogc.ows.OwsExceptionReport;
  */
 public interface CacheFeederDAO {
     void updateCache(WritableContentCache capabilitiesCache) throws OwsExceptionReport;
+
+    /**
+     * Updates the cache with the changes of the data source since the last
+     * (complete or incremental) update.
+     * 
+     * @param capabilitiesCache
+     *            the cache to update
+     * @return {@code false} if the changes can not be determined and a
+     *         complete update is required
+     * @throws OwsExceptionReport
+     *             if the update fails
+     */
+    boolean updateCacheIncrementally(WritableContentCache capabilitiesCache) throws OwsExceptionReport;
 }
\ No newline at end of file
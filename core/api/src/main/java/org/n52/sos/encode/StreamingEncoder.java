@@ -0,0 +1,62 @@
+/**
+ * Copyright (C) 2013
+ * by 52 North Initiative for Geospatial Open Source Software GmbH
+ *
+ * Contact: Andreas Wytzisk
+ * 52 North Initiative for Geospatial Open Source Software GmbH
+ * Martin-Luther-King-Weg 24
+ * 48155 Muenster, Germany
+ * info@52north.org
+ *
+ * This program is free software; you can redistribute and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the
+ * Free Software Foundation.
+ *
+ * This program is distributed WITHOUT ANY WARRANTY; even without the implied
+ * WARRANTY OF MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program (see gnu-gpl v2.txt). If not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA or
+ * visit the Free Software Foundation web page, http://www.fsf.org.
+ */
+package org.n52.sos.encode;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.n52.sos.exception.ows.concrete.UnsupportedEncoderInputException;
+import org.n52.sos.ogc.ows.OwsExceptionReport;
+
+/**
+ * {@link Encoder} that is able to write the encoded object directly to a
+ * stream instead of creating the complete document in memory.
+ * 
+ * @param <T>
+ *            the resulting type, the "Target"
+ * @param <S>
+ *            the input type, the "Source"
+ * 
+ * @since 4.0.0
+ */
+public interface StreamingEncoder<T, S> extends Encoder<T, S> {
+
+    /**
+     * Encodes the specified object to the output stream.
+     * 
+     * @param objectToEncode
+     *            the object to encode
+     * @param outputStream
+     *            the stream to write to
+     * 
+     * @throws OwsExceptionReport
+     *             if an error occurs
+     * @throws UnsupportedEncoderInputException
+     *             if the supplied object can not be encoded as stream
+     * @throws IOException
+     *             if writing to the stream fails
+     */
+    void encodeToStream(S objectToEncode, OutputStream outputStream) throws OwsExceptionReport,
+            UnsupportedEncoderInputException, IOException;
+}
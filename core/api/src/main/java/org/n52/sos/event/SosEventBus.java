@@ -23,39 +23,69 @@
  */
 package org.n52.sos.event;
 
-import java.util.HashSet;
+import static org.n52.sos.event.SosEventBusSettings.EVENT_BUS_ASYNCHRONOUS;
+import static org.n52.sos.event.SosEventBusSettings.EVENT_BUS_BATCH_SIZE;
+import static org.n52.sos.event.SosEventBusSettings.EVENT_BUS_BLOCK_WHEN_FULL;
+import static org.n52.sos.event.SosEventBusSettings.EVENT_BUS_QUEUE_CAPACITY;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Queue;
 import java.util.ServiceConfigurationError;
 import java.util.ServiceLoader;
 import java.util.Set;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
+import org.n52.sos.config.annotation.Configurable;
+import org.n52.sos.config.annotation.Setting;
+import org.n52.sos.exception.ConfigurationException;
 import org.n52.sos.util.ClassHelper;
 import org.n52.sos.util.GroupedAndNamedThreadFactory;
 import org.n52.sos.util.MultiMaps;
 import org.n52.sos.util.SetMultiMap;
+import org.n52.sos.util.Validation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
+ * Dispatches {@link SosEvent}s to the registered {@link SosEventListener}s.
+ * <p/>
+ * The listeners of an event class (including the listeners of its super
+ * classes) are computed once and cached until a listener is registered or
+ * unregistered. Events are either handled on the submitting thread or, if
+ * configured, queued in a bounded queue per listener that is drained by a
+ * worker pool. A listener never handles two events concurrently and receives
+ * its events in submission order; {@link SosEventBatchListener}s receive the
+ * pending events as a batch. If a queue is full, the submitting thread either
+ * blocks or the event is discarded. Events of a
+ * {@link ReliableSosEventListener} are never discarded, they are queued beyond
+ * the capacity instead.
+ *
  * @author Christian Autermann <c.autermann@52north.org>
  */
+@Configurable
 public class SosEventBus {
     private static final Logger LOG = LoggerFactory.getLogger(SosEventBus.class);
-    private static final boolean ASYNCHRONOUS_EXECUTION = false;
     private static final int THREAD_POOL_SIZE = 3;
     private static final String THREAD_GROUP_NAME = "SosEventBus-Worker";
 
     public static SosEventBus getInstance() {
         return InstanceHolder.INSTANCE;
-	}
-    
+    }
+
     public static void fire(SosEvent event) {
         getInstance().submit(event);
     }
@@ -64,9 +94,9 @@ public class SosEventBus {
         if (event == null) {
             LOG.warn("Submitted event is null!");
             return false;
-		}
+        }
         return true;
-	}
+    }
 
     private static boolean checkListener(SosEventListener listener) {
         if (listener == null) {
@@ -79,12 +109,19 @@ public class SosEventBus {
         }
         return true;
     }
-    private final ClassCache classCache = new ClassCache();
+
     private final ReadWriteLock lock = new ReentrantReadWriteLock();
     private final Executor executor = Executors
             .newFixedThreadPool(THREAD_POOL_SIZE, new GroupedAndNamedThreadFactory(THREAD_GROUP_NAME));
     private final SetMultiMap<Class<? extends SosEvent>, SosEventListener> listeners = MultiMaps.newSetMultiMap();
-    private final Queue<HandlerExecution> queue = new ConcurrentLinkedQueue<HandlerExecution>();
+    private final ConcurrentMap<Class<? extends SosEvent>, Set<SosEventListener>> listenerTable =
+            new ConcurrentHashMap<Class<? extends SosEvent>, Set<SosEventListener>>();
+    private final ConcurrentMap<SosEventListener, ListenerQueue> queues =
+            new ConcurrentHashMap<SosEventListener, ListenerQueue>();
+    private volatile boolean asynchronous = false;
+    private volatile boolean blockWhenFull = true;
+    private volatile int queueCapacity = 10000;
+    private volatile int batchSize = 100;
 
     private SosEventBus() {
         loadListenerImplementations();
@@ -102,57 +139,104 @@ public class SosEventBus {
         }
     }
 
+    @Setting(EVENT_BUS_ASYNCHRONOUS)
+    public void setAsynchronous(boolean asynchronous) {
+        this.asynchronous = asynchronous;
+    }
+
+    @Setting(EVENT_BUS_BLOCK_WHEN_FULL)
+    public void setBlockWhenFull(boolean blockWhenFull) {
+        this.blockWhenFull = blockWhenFull;
+    }
+
+    /**
+     * Sets the capacity of the listener queues. The queues keep their pending
+     * events, a smaller capacity only applies to new events once enough
+     * pending events were handled.
+     *
+     * @param queueCapacity
+     *            the maximum number of pending events per listener
+     *
+     * @throws ConfigurationException
+     *             if the capacity is not positive
+     */
+    @Setting(EVENT_BUS_QUEUE_CAPACITY)
+    public void setQueueCapacity(int queueCapacity) throws ConfigurationException {
+        Validation.greaterZero("Event queue capacity", queueCapacity);
+        if (this.queueCapacity != queueCapacity) {
+            this.queueCapacity = queueCapacity;
+            for (ListenerQueue queue : this.queues.values()) {
+                queue.capacityChanged();
+            }
+        }
+    }
+
+    @Setting(EVENT_BUS_BATCH_SIZE)
+    public void setBatchSize(int batchSize) throws ConfigurationException {
+        Validation.greaterZero("Event batch size", batchSize);
+        this.batchSize = batchSize;
+    }
+
     private Set<SosEventListener> getListenersForEvent(SosEvent event) {
-        LinkedList<SosEventListener> result = new LinkedList<SosEventListener>();
+        Set<SosEventListener> result = this.listenerTable.get(event.getClass());
+        if (result != null) {
+            return result;
+        }
         this.lock.readLock().lock();
         try {
-            for (Class<? extends SosEvent> eventType : this.classCache.getClasses(event.getClass())) {
+            Set<SosEventListener> listenersForEvent = new LinkedHashSet<SosEventListener>();
+            for (Class<? extends SosEvent> eventType : ClassHelper.flattenPartialHierachy(SosEvent.class,
+                                                                                           event.getClass())) {
                 Set<SosEventListener> listenersForClass = this.listeners.get(eventType);
-                
                 if (listenersForClass != null) {
                     LOG.trace("Adding {} Listeners for event {} (eventType={})",
                               listenersForClass.size(), event, eventType);
-                    result.addAll(listenersForClass);
+                    listenersForEvent.addAll(listenersForClass);
                 } else {
                     LOG.trace("Adding 0 Listeners for event {} (eventType={})", event, eventType);
                 }
-                
             }
+            result = Collections.unmodifiableSet(listenersForEvent);
+            // the table is cleared while holding the write lock
+            this.listenerTable.put(event.getClass(), result);
+            return result;
         } finally {
             this.lock.readLock().unlock();
         }
-        return new HashSet<SosEventListener>(result);
     }
 
-	public void submit(SosEvent event) {
-        boolean submittedEvent = false;
+    private ListenerQueue getQueue(SosEventListener listener) {
+        ListenerQueue queue = this.queues.get(listener);
+        if (queue == null) {
+            ListenerQueue newQueue = new ListenerQueue(listener);
+            queue = this.queues.putIfAbsent(listener, newQueue);
+            if (queue == null) {
+                queue = newQueue;
+            }
+        }
+        return queue;
+    }
+
+    public void submit(SosEvent event) {
         if (!checkEvent(event)) {
             return;
         }
-        this.lock.readLock().lock();
-        try {
-            for (SosEventListener listener : getListenersForEvent(event)) {
-                submittedEvent = true;
-                LOG.debug("Queueing Event {} for Listener {}", event, listener);
-                this.queue.offer(new HandlerExecution(event, listener));
-            }
-        } finally {
-            this.lock.readLock().unlock();
+        Set<SosEventListener> listenersForEvent = getListenersForEvent(event);
+        if (listenersForEvent.isEmpty()) {
+            LOG.info("No Listeners for SosEvent {}", event);
+            return;
         }
-        HandlerExecution r;
-        while ((r = this.queue.poll()) != null) {
-            if (ASYNCHRONOUS_EXECUTION) {
-                this.executor.execute(r);
+        for (SosEventListener listener : listenersForEvent) {
+            if (this.asynchronous) {
+                LOG.debug("Queueing Event {} for Listener {}", event, listener);
+                getQueue(listener).offer(event);
             } else {
-                r.run();
+                handle(listener, event);
             }
         }
-        if (!submittedEvent) {
-            LOG.info("No Listeners for SosEvent {}", event);
-        }
     }
 
-	public void register(SosEventListener listener) {
+    public void register(SosEventListener listener) {
         if (!checkListener(listener)) {
             return;
         }
@@ -162,12 +246,13 @@ public class SosEventBus {
                 LOG.debug("Subscibing Listener {} to EventType {}", listener, eventType);
                 this.listeners.add(eventType, listener);
             }
+            this.listenerTable.clear();
         } finally {
             this.lock.writeLock().unlock();
         }
     }
 
-	public void unregister(SosEventListener listener) {
+    public void unregister(SosEventListener listener) {
         if (!checkListener(listener)) {
             return;
         }
@@ -175,68 +260,156 @@ public class SosEventBus {
         try {
             for (Class<? extends SosEvent> eventType : listener.getTypes()) {
                 Set<SosEventListener> listenersForKey = this.listeners.get(eventType);
-                if (listenersForKey.contains(listener)) {
+                if (listenersForKey != null && listenersForKey.contains(listener)) {
                     LOG.debug("Unsubscibing Listener {} from EventType {}", listener, eventType);
                     listenersForKey.remove(listener);
                 } else {
                     LOG.warn("Listener {} was not registered for SosEvent Type {}", listener, eventType);
                 }
             }
+            this.listenerTable.clear();
         } finally {
             this.lock.writeLock().unlock();
         }
     }
 
+    private static void handle(SosEventListener listener, SosEvent event) {
+        try {
+            LOG.debug("Submitting Event {} to Listener {}", event, listener);
+            listener.handle(event);
+        } catch (Throwable t) {
+            LOG.error(String.format("Error handling event %s by handler %s", event, listener), t);
+        }
+    }
+
+    private static void handle(SosEventListener listener, List<SosEvent> events) {
+        if (events.size() > 1 && listener instanceof SosEventBatchListener) {
+            try {
+                LOG.debug("Submitting {} Events to Listener {}", events.size(), listener);
+                ((SosEventBatchListener) listener).handle(events);
+            } catch (Throwable t) {
+                LOG.error(String.format("Error handling %d events by handler %s", events.size(), listener), t);
+            }
+        } else {
+            for (SosEvent event : events) {
+                handle(listener, event);
+            }
+        }
+    }
+
     private static class InstanceHolder {
         private static final SosEventBus INSTANCE = new SosEventBus();
         private InstanceHolder() {
         }
     }
 
-	private class ClassCache {
-		private ReadWriteLock lock = new ReentrantReadWriteLock();
-        private SetMultiMap<Class<? extends SosEvent>, Class<? extends SosEvent>> cache = MultiMaps.newSetMultiMap();
-
-		public Set<Class<? extends SosEvent>> getClasses(Class<? extends SosEvent> eventClass)  {
-			lock.readLock().lock();
-			try {
-				Set<Class<? extends SosEvent>> r = cache.get(eventClass);
-				if (r != null) { return r; }
-			} finally {
-				lock.readLock().unlock();
-			}
-			lock.writeLock().lock();
-			try {
-                Set<Class<? extends SosEvent>> r = cache.get(eventClass);
-				if (r != null) { return r; }
-				cache.put(eventClass, r = flatten(eventClass));
-				return r;
-			} finally {
-				lock.writeLock().unlock();
-			}
-		}
-
-		private Set<Class<? extends SosEvent>> flatten(Class<? extends SosEvent> eventClass) {
-			return ClassHelper.flattenPartialHierachy(SosEvent.class, eventClass);
-		}
-	}
-    
-	private class HandlerExecution implements Runnable {
-		private SosEvent event;
-		private SosEventListener listener;
-
-		HandlerExecution(SosEvent event, SosEventListener listener) {
-			this.event = event;
-			this.listener = listener;
-		}
-
-		@Override public void run() {
-			try {
-				LOG.debug("Submitting Event {} to Listener {}", event, listener);
-				listener.handle(event);
-			} catch (Throwable t) {
-				LOG.error(String.format("Error handling event %s by handler %s", event, listener), t);
-			}
-		}
-	}
+    /**
+     * Queue of the pending events of a listener, bounded by the current queue
+     * capacity. At most one worker drains the queue at a time, so the listener
+     * receives the events sequentially and in order.
+     */
+    private class ListenerQueue implements Runnable {
+        private final SosEventListener listener;
+        private final Queue<SosEvent> events = new ArrayDeque<SosEvent>();
+        private final Lock queueLock = new ReentrantLock();
+        private final Condition notFull = this.queueLock.newCondition();
+        private final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+        ListenerQueue(SosEventListener listener) {
+            this.listener = listener;
+        }
+
+        void offer(SosEvent event) {
+            boolean reliable = this.listener instanceof ReliableSosEventListener;
+            this.queueLock.lock();
+            try {
+                if (this.events.size() >= queueCapacity) {
+                    if (blockWhenFull) {
+                        LOG.debug("Event queue of Listener {} is full, waiting", this.listener);
+                        if (!awaitNotFull() && !reliable) {
+                            LOG.warn("Interrupted while waiting for the event queue of Listener {}, "
+                                     + "discarding Event {}", this.listener, event);
+                            return;
+                        }
+                    } else if (!reliable) {
+                        LOG.warn("Event queue of Listener {} is full, discarding Event {}", this.listener, event);
+                        return;
+                    }
+                    if (this.events.size() >= queueCapacity) {
+                        LOG.warn("Event queue of Listener {} is full, queueing Event {} beyond its capacity",
+                                 this.listener, event);
+                    }
+                }
+                this.events.add(event);
+            } finally {
+                this.queueLock.unlock();
+            }
+            schedule();
+        }
+
+        /**
+         * @return <code>false</code> if the thread was interrupted before the
+         *         queue had room for another event
+         */
+        private boolean awaitNotFull() {
+            try {
+                while (this.events.size() >= queueCapacity) {
+                    this.notFull.await();
+                }
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+        void capacityChanged() {
+            this.queueLock.lock();
+            try {
+                this.notFull.signalAll();
+            } finally {
+                this.queueLock.unlock();
+            }
+        }
+
+        private boolean isEmpty() {
+            this.queueLock.lock();
+            try {
+                return this.events.isEmpty();
+            } finally {
+                this.queueLock.unlock();
+            }
+        }
+
+        private void schedule() {
+            if (this.scheduled.compareAndSet(false, true)) {
+                executor.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                List<SosEvent> batch;
+                this.queueLock.lock();
+                try {
+                    batch = new ArrayList<SosEvent>(Math.min(batchSize, this.events.size()));
+                    while (batch.size() < batchSize && !this.events.isEmpty()) {
+                        batch.add(this.events.poll());
+                    }
+                    this.notFull.signalAll();
+                } finally {
+                    this.queueLock.unlock();
+                }
+                if (!batch.isEmpty()) {
+                    handle(this.listener, batch);
+                }
+            } finally {
+                this.scheduled.set(false);
+                if (!isEmpty()) {
+                    schedule();
+                }
+            }
+        }
+    }
 }
@@ -0,0 +1,98 @@
+/**
+ * Copyright (C) 2013
+ * by 52 North Initiative for Geospatial Open Source Software GmbH
+ *
+ * Contact: Andreas Wytzisk
+ * 52 North Initiative for Geospatial Open Source Software GmbH
+ * Martin-Luther-King-Weg 24
+ * 48155 Muenster, Germany
+ * info@52north.org
+ *
+ * This program is free software; you can redistribute and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the
+ * Free Software Foundation.
+ *
+ * This program is distributed WITHOUT ANY WARRANTY; even without the implied
+ * WARRANTY OF MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program (see gnu-gpl v2.txt). If not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA or
+ * visit the Free Software Foundation web page, http://www.fsf.org.
+ */
+package org.n52.sos.event;
+
+import java.util.Collections;
+import java.util.Set;
+
+import org.n52.sos.config.SettingDefinition;
+import org.n52.sos.config.SettingDefinitionProvider;
+import org.n52.sos.config.settings.BooleanSettingDefinition;
+import org.n52.sos.config.settings.IntegerSettingDefinition;
+import org.n52.sos.service.ServiceSettings;
+import org.n52.sos.util.CollectionHelper;
+
+/**
+ * Settings for the {@link SosEventBus}.
+ *
+ * @since 4.0.0
+ */
+public class SosEventBusSettings implements SettingDefinitionProvider {
+    public static final String EVENT_BUS_ASYNCHRONOUS = "service.eventBusAsynchronous";
+
+    public static final String EVENT_BUS_QUEUE_CAPACITY = "service.eventBusQueueCapacity";
+
+    public static final String EVENT_BUS_BLOCK_WHEN_FULL = "service.eventBusBlockWhenFull";
+
+    public static final String EVENT_BUS_BATCH_SIZE = "service.eventBusBatchSize";
+
+    public static final BooleanSettingDefinition EVENT_BUS_ASYNCHRONOUS_DEFINITION = new BooleanSettingDefinition()
+            .setGroup(ServiceSettings.GROUP)
+            .setOrder(13)
+            .setKey(EVENT_BUS_ASYNCHRONOUS)
+            .setDefaultValue(false)
+            .setTitle("Asynchronous event processing")
+            .setDescription("Should events (e.g. inserted observations) be handled by a background thread? If "
+                            + "enabled, requests return without waiting for the content cache to be updated.");
+
+    public static final IntegerSettingDefinition EVENT_BUS_QUEUE_CAPACITY_DEFINITION = new IntegerSettingDefinition()
+            .setGroup(ServiceSettings.GROUP)
+            .setOrder(14)
+            .setKey(EVENT_BUS_QUEUE_CAPACITY)
+            .setDefaultValue(10000)
+            .setMinimum(1)
+            .setTitle("Event queue capacity")
+            .setDescription("The maximum number of pending events per listener if events are processed "
+                            + "asynchronously.");
+
+    public static final BooleanSettingDefinition EVENT_BUS_BLOCK_WHEN_FULL_DEFINITION = new BooleanSettingDefinition()
+            .setGroup(ServiceSettings.GROUP)
+            .setOrder(15)
+            .setKey(EVENT_BUS_BLOCK_WHEN_FULL)
+            .setDefaultValue(true)
+            .setTitle("Block when event queue is full")
+            .setDescription("Should a request wait until the event queue has free capacity? If disabled, events "
+                            + "that do not fit into the queue are discarded.");
+
+    public static final IntegerSettingDefinition EVENT_BUS_BATCH_SIZE_DEFINITION = new IntegerSettingDefinition()
+            .setGroup(ServiceSettings.GROUP)
+            .setOrder(16)
+            .setKey(EVENT_BUS_BATCH_SIZE)
+            .setDefaultValue(100)
+            .setMinimum(1)
+            .setTitle("Event batch size")
+            .setDescription("The maximum number of pending events that are passed to a listener at once if events "
+                            + "are processed asynchronously.");
+
+    private static final Set<SettingDefinition<?, ?>> DEFINITIONS = CollectionHelper.<SettingDefinition<?, ?>>set(
+            EVENT_BUS_ASYNCHRONOUS_DEFINITION,
+            EVENT_BUS_QUEUE_CAPACITY_DEFINITION,
+            EVENT_BUS_BLOCK_WHEN_FULL_DEFINITION,
+            EVENT_BUS_BATCH_SIZE_DEFINITION);
+
+    @Override
+    public Set<SettingDefinition<?, ?>> getSettingDefinitions() {
+        return Collections.unmodifiableSet(DEFINITIONS);
+    }
+}
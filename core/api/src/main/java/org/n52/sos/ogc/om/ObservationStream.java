@@ -0,0 +1,66 @@
+/**
+ * Copyright (C) 2013
+ * by 52 North Initiative for Geospatial Open Source Software GmbH
+ *
+ * Contact: Andreas Wytzisk
+ * 52 North Initiative for Geospatial Open Source Software GmbH
+ * Martin-Luther-King-Weg 24
+ * 48155 Muenster, Germany
+ * info@52north.org
+ *
+ * This program is free software; you can redistribute and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the
+ * Free Software Foundation.
+ *
+ * This program is distributed WITHOUT ANY WARRANTY; even without the implied
+ * WARRANTY OF MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program (see gnu-gpl v2.txt). If not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA or
+ * visit the Free Software Foundation web page, http://www.fsf.org.
+ */
+package org.n52.sos.ogc.om;
+
+import java.io.Closeable;
+
+import org.n52.sos.ogc.ows.OwsExceptionReport;
+
+/**
+ * One time, forward only sequence of {@link OmObservation}s that are created
+ * on demand, e.g. from an open database cursor. Used to encode large
+ * GetObservation responses without holding all observations in memory.
+ * <p/>
+ * Implementations may hold resources (like a database session) until
+ * {@link #close()} is called, so consumers have to close the stream in any
+ * case.
+ * 
+ * @since 4.0.0
+ */
+public interface ObservationStream extends Closeable {
+
+    /**
+     * @return <code>true</code>, if there is another observation
+     * 
+     * @throws OwsExceptionReport
+     *             If an error occurs while fetching the next observation
+     */
+    boolean hasNext() throws OwsExceptionReport;
+
+    /**
+     * @return the next observation
+     * 
+     * @throws OwsExceptionReport
+     *             If an error occurs while creating the next observation
+     * @throws java.util.NoSuchElementException
+     *             if there are no more observations
+     */
+    OmObservation next() throws OwsExceptionReport;
+
+    /**
+     * Releases all resources held by this stream.
+     */
+    @Override
+    void close();
+}
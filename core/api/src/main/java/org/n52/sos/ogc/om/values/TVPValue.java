@@ -23,39 +23,89 @@
  */
 package org.n52.sos.ogc.om.values;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.RandomAccess;
 
 import org.n52.sos.ogc.gml.time.Time;
 import org.n52.sos.ogc.gml.time.TimePeriod;
 import org.n52.sos.ogc.om.TimeValuePair;
 
+/**
+ * Time value pair series. As long as all pairs are supported by
+ * {@link TimeValueColumns} they are stored column oriented and
+ * {@link TimeValuePair} objects are only created on access, otherwise as a list
+ * of {@link TimeValuePair}s.
+ */
 public class TVPValue implements IMultiValue<List<TimeValuePair>> {
 
     private static final long serialVersionUID = -5156098026027119423L;
 
-    private List<TimeValuePair> value = new ArrayList<TimeValuePair>(0);
+    private TimeValueColumns columns = new TimeValueColumns();
+
+    private List<TimeValuePair> value;
     
     private String unit;
     
     @Override
     public void setValue(List<TimeValuePair> value) {
         this.value = value;
+        this.columns = null;
     }
 
+    /**
+     * @return the pairs ordered by time, a read-only view if the pairs are
+     *         stored column oriented
+     */
     @Override
     public List<TimeValuePair> getValue() {
+        if (columns != null) {
+            return new TimeValuePairList(columns);
+        }
         Collections.sort(value);
         return value;
     }
+
+    /**
+     * @return the column oriented storage or <code>null</code> if the pairs are
+     *         stored as {@link TimeValuePair} objects
+     */
+    public TimeValueColumns getTimeValueColumns() {
+        return columns;
+    }
     
     public void addValue(TimeValuePair value) {
+        if (columns != null) {
+            if (columns.add(value.getTime(), value.getValue())) {
+                return;
+            }
+            this.value = new ArrayList<TimeValuePair>(new TimeValuePairList(columns));
+            this.columns = null;
+        }
         this.value.add(value);
     }
     
     public void addValues(List<TimeValuePair> values) {
-        this.value.addAll(values);
+        for (TimeValuePair timeValuePair : values) {
+            addValue(timeValuePair);
+        }
+    }
+
+    /**
+     * Increase the capacity, if necessary, to hold at least the given number of
+     * pairs without reallocation.
+     * 
+     * @param capacity
+     *            the expected number of pairs
+     */
+    public void ensureCapacity(int capacity) {
+        if (columns != null) {
+            columns.ensureCapacity(capacity);
+        } else if (value instanceof ArrayList) {
+            ((ArrayList<TimeValuePair>) value).ensureCapacity(capacity);
+        }
     }
 
     @Override
@@ -71,7 +121,12 @@ public class TVPValue implements IMultiValue<List<TimeValuePair>> {
     @Override
     public Time getPhenomenonTime() {
         TimePeriod timePeriod = new TimePeriod();
-        if (value != null && !value.isEmpty()) {
+        if (columns != null) {
+            if (columns.size() > 0) {
+                timePeriod.extendToContain(columns.getMinTime());
+                timePeriod.extendToContain(columns.getMaxTime());
+            }
+        } else if (value != null && !value.isEmpty()) {
             for (TimeValuePair timeValuePair : value) {
                 timePeriod.extendToContain(timeValuePair.getTime());
             }
@@ -81,6 +136,9 @@ public class TVPValue implements IMultiValue<List<TimeValuePair>> {
 
     @Override
     public boolean isSetValue() {
+        if (columns != null) {
+            return columns.size() > 0;
+        }
         return value != null && !value.isEmpty();
     }
 
@@ -89,4 +147,26 @@ public class TVPValue implements IMultiValue<List<TimeValuePair>> {
         return unit != null && !unit.isEmpty();
     }
 
+    /**
+     * Read-only view of {@link TimeValueColumns} that creates the
+     * {@link TimeValuePair}s on access.
+     */
+    private static class TimeValuePairList extends AbstractList<TimeValuePair> implements RandomAccess {
+        private final TimeValueColumns columns;
+
+        TimeValuePairList(TimeValueColumns columns) {
+            this.columns = columns;
+        }
+
+        @Override
+        public TimeValuePair get(int index) {
+            return new TimeValuePair(columns.getTime(index), columns.getValue(index));
+        }
+
+        @Override
+        public int size() {
+            return columns.size();
+        }
+    }
+
 }
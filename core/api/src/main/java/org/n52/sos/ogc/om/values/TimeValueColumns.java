@@ -0,0 +1,361 @@
+/**
+ * Copyright (C) 2013
+ * by 52 North Initiative for Geospatial Open Source Software GmbH
+ *
+ * Contact: Andreas Wytzisk
+ * 52 North Initiative for Geospatial Open Source Software GmbH
+ * Martin-Luther-King-Weg 24
+ * 48155 Muenster, Germany
+ * info@52north.org
+ *
+ * This program is free software; you can redistribute and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the
+ * Free Software Foundation.
+ *
+ * This program is distributed WITHOUT ANY WARRANTY; even without the implied
+ * WARRANTY OF MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program (see gnu-gpl v2.txt). If not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA or
+ * visit the Free Software Foundation web page, http://www.fsf.org.
+ */
+package org.n52.sos.ogc.om.values;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.joda.time.chrono.ISOChronology;
+import org.n52.sos.ogc.gml.time.Time;
+import org.n52.sos.ogc.gml.time.Time.TimeFormat;
+import org.n52.sos.ogc.gml.time.TimeInstant;
+import org.n52.sos.util.DateTimeHelper;
+
+/**
+ * Column oriented storage for the time value pairs of a {@link TVPValue}. The
+ * phenomenon times are stored as epoch milliseconds in a <code>long[]</code>,
+ * the values in a primitive column: quantities as unscaled value and scale (so
+ * the {@link BigDecimal} is restored exactly), counts and booleans as numbers
+ * and category and text values as codes into a dictionary.
+ * <p/>
+ * Only homogeneous series are supported: plain {@link TimeInstant}s of one time
+ * zone and values of one type and unit. {@link #add(Time, Value)} rejects
+ * everything else without modifying the columns, so the caller can fall back
+ * to a list of objects.
+ * <p/>
+ * All accessors take the index in the order of the phenomenon times. Pairs
+ * with equal times keep their insertion order.
+ *
+ * @since 4.0.0
+ */
+public class TimeValueColumns implements Serializable {
+
+    private static final long serialVersionUID = -2650476335937186826L;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private static final int MAX_UNSCALED_BITS = 63;
+
+    private enum ValueType {
+        QUANTITY, COUNT, BOOLEAN, CATEGORY, TEXT
+    }
+
+    private ValueType type;
+
+    private String unit;
+
+    private DateTimeZone zone;
+
+    private int size;
+
+    private long[] times = new long[INITIAL_CAPACITY];
+
+    private long[] values = new long[INITIAL_CAPACITY];
+
+    private int[] scales;
+
+    private List<String> dictionary;
+
+    private Map<String, Integer> codes;
+
+    private boolean sorted = true;
+
+    /**
+     * insertion index for each sorted index, only used if the pairs were not
+     * added in time order
+     */
+    private transient int[] order;
+
+    /**
+     * Add a time value pair at the end of the columns.
+     *
+     * @param time
+     *            the phenomenon time
+     * @param value
+     *            the value
+     * @return <code>true</code> if the pair was added, <code>false</code> if it
+     *         is not supported by the columns
+     */
+    public boolean add(final Time time, final Value<?> value) {
+        if (!isSupported(time) || value == null || !value.isSetValue()) {
+            return false;
+        }
+        final DateTime dateTime = ((TimeInstant) time).getValue();
+        final ValueType valueType = getValueType(value);
+        if (valueType == null) {
+            return false;
+        }
+        if (size > 0
+                && (valueType != type || !dateTime.getZone().equals(zone) || !equal(unit, value.getUnit()))) {
+            return false;
+        }
+        long number = 0;
+        int scale = 0;
+        switch (valueType) {
+        case QUANTITY:
+            final BigDecimal decimal = ((QuantityValue) value).getValue();
+            final BigInteger unscaled = decimal.unscaledValue();
+            if (unscaled.bitLength() > MAX_UNSCALED_BITS) {
+                return false;
+            }
+            number = unscaled.longValue();
+            scale = decimal.scale();
+            break;
+        case COUNT:
+            number = ((CountValue) value).getValue().intValue();
+            break;
+        case BOOLEAN:
+            number = ((BooleanValue) value).getValue().booleanValue() ? 1 : 0;
+            break;
+        default:
+            number = encode((String) value.getValue());
+            break;
+        }
+        if (size == 0) {
+            type = valueType;
+            zone = dateTime.getZone();
+            unit = value.getUnit();
+        }
+        ensureCapacity(size + 1);
+        final long millis = dateTime.getMillis();
+        if (size > 0 && millis < times[size - 1]) {
+            sorted = false;
+        }
+        order = null;
+        times[size] = millis;
+        values[size] = number;
+        if (type == ValueType.QUANTITY) {
+            scales[size] = scale;
+        }
+        size++;
+        return true;
+    }
+
+    /**
+     * @return the number of stored pairs
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Increase the capacity of the columns, if necessary, to hold at least the
+     * given number of pairs without reallocation.
+     *
+     * @param capacity
+     *            the number of pairs
+     */
+    public void ensureCapacity(final int capacity) {
+        if (capacity > times.length) {
+            final int newCapacity = Math.max(capacity, times.length + (times.length >> 1));
+            times = Arrays.copyOf(times, newCapacity);
+            values = Arrays.copyOf(values, newCapacity);
+            if (scales != null) {
+                scales = Arrays.copyOf(scales, newCapacity);
+            }
+        }
+        if (type == ValueType.QUANTITY && scales == null) {
+            scales = new int[times.length];
+        }
+    }
+
+    /**
+     * @return the earliest phenomenon time or <code>null</code> if empty
+     */
+    public DateTime getMinTime() {
+        if (size == 0) {
+            return null;
+        }
+        return toDateTime(times[index(0)]);
+    }
+
+    /**
+     * @return the latest phenomenon time or <code>null</code> if empty
+     */
+    public DateTime getMaxTime() {
+        if (size == 0) {
+            return null;
+        }
+        return toDateTime(times[index(size - 1)]);
+    }
+
+    /**
+     * @param index
+     *            the index in time order
+     * @return a new {@link TimeInstant} for the phenomenon time
+     */
+    public Time getTime(final int index) {
+        return new TimeInstant(toDateTime(times[index(index)]));
+    }
+
+    /**
+     * @param index
+     *            the index in time order
+     * @return a new {@link Value} object for the value
+     */
+    public Value<?> getValue(final int index) {
+        final int i = index(index);
+        final Value<?> value;
+        switch (type) {
+        case QUANTITY:
+            value = new QuantityValue(BigDecimal.valueOf(values[i], scales[i]));
+            break;
+        case COUNT:
+            value = new CountValue(Integer.valueOf((int) values[i]));
+            break;
+        case BOOLEAN:
+            value = new BooleanValue(Boolean.valueOf(values[i] != 0));
+            break;
+        case CATEGORY:
+            value = new CategoryValue(dictionary.get((int) values[i]));
+            break;
+        default:
+            value = new TextValue(dictionary.get((int) values[i]));
+            break;
+        }
+        value.setUnit(unit);
+        return value;
+    }
+
+    /**
+     * @param index
+     *            the index in time order
+     * @return the ISO 8601 representation of the phenomenon time, equal to
+     *         <code>DateTimeHelper.format(getTime(index))</code>
+     */
+    public String formatTime(final int index) {
+        return DateTimeHelper.formatDateTime2IsoString(toDateTime(times[index(index)]));
+    }
+
+    /**
+     * @param index
+     *            the index in time order
+     * @return the string representation of the value, equal to
+     *         <code>getValue(index).getValue().toString()</code>
+     */
+    public String formatValue(final int index) {
+        final int i = index(index);
+        switch (type) {
+        case QUANTITY:
+            return BigDecimal.valueOf(values[i], scales[i]).toString();
+        case COUNT:
+            return Integer.toString((int) values[i]);
+        case BOOLEAN:
+            return Boolean.toString(values[i] != 0);
+        default:
+            return dictionary.get((int) values[i]);
+        }
+    }
+
+    private boolean isSupported(final Time time) {
+        if (time == null || time.getClass() != TimeInstant.class) {
+            return false;
+        }
+        final TimeInstant instant = (TimeInstant) time;
+        return instant.isSetValue() && !instant.isSetGmlId() && !instant.isSetIndeterminateValue()
+                && instant.getTimeFormat() == TimeFormat.NOT_SET && instant.getRequestedTimeLength() == 0
+                && instant.getValue().getChronology().equals(ISOChronology.getInstance(instant.getValue().getZone()));
+    }
+
+    private ValueType getValueType(final Value<?> value) {
+        final Class<?> valueClass = value.getClass();
+        if (valueClass == QuantityValue.class) {
+            return ValueType.QUANTITY;
+        } else if (valueClass == CountValue.class) {
+            return ValueType.COUNT;
+        } else if (valueClass == BooleanValue.class) {
+            return ValueType.BOOLEAN;
+        } else if (valueClass == CategoryValue.class) {
+            return ValueType.CATEGORY;
+        } else if (valueClass == TextValue.class) {
+            return ValueType.TEXT;
+        }
+        return null;
+    }
+
+    private int encode(final String value) {
+        if (dictionary == null) {
+            dictionary = new ArrayList<String>();
+            codes = new HashMap<String, Integer>();
+        }
+        Integer code = codes.get(value);
+        if (code == null) {
+            code = Integer.valueOf(dictionary.size());
+            dictionary.add(value);
+            codes.put(value, code);
+        }
+        return code.intValue();
+    }
+
+    private int index(final int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(String.format("Index: %d, Size: %d", index, size));
+        }
+        if (sorted) {
+            return index;
+        }
+        if (order == null) {
+            order = createOrder();
+        }
+        return order[index];
+    }
+
+    private int[] createOrder() {
+        final Integer[] indices = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            indices[i] = Integer.valueOf(i);
+        }
+        // stable sort, pairs with equal times keep their insertion order
+        Arrays.sort(indices, new Comparator<Integer>() {
+            @Override
+            public int compare(final Integer o1, final Integer o2) {
+                final long t1 = times[o1.intValue()];
+                final long t2 = times[o2.intValue()];
+                return t1 < t2 ? -1 : (t1 == t2 ? 0 : 1);
+            }
+        });
+        final int[] sortedOrder = new int[size];
+        for (int i = 0; i < size; i++) {
+            sortedOrder[i] = indices[i].intValue();
+        }
+        return sortedOrder;
+    }
+
+    private DateTime toDateTime(final long millis) {
+        return new DateTime(millis, zone);
+    }
+
+    private static boolean equal(final String s1, final String s2) {
+        return s1 == null ? s2 == null : s1.equals(s2);
+    }
+}
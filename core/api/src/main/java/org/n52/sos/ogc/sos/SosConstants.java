@@ -220,6 +220,10 @@ public interface SosConstants {
     enum HelperValues {
         GMLID,
         EXIST_FOI_IN_DOC,
+        /**
+         * The procedure is already encoded in the document and should only be referenced.
+         */
+        EXIST_PROCEDURE_IN_DOC,
         VERSION,
         TYPE,
         /**
@@ -24,7 +24,6 @@
 package org.n52.sos.ogc.swe;
 
 import java.util.Collection;
-import java.util.LinkedList;
 import java.util.List;
 
 import org.n52.sos.ogc.swe.SWEConstants.SweDataComponentType;
@@ -133,7 +132,8 @@ public class SweDataArray extends SweAbstractDataComponent{
     }
 
     /**
-     * Adds the given block - a {@link List}<{@link String}> - add the end of the current list of blocks
+     * Adds the given block - a {@link List}<{@link String}> - add the end of the current list of blocks.
+     * If no values are set, the blocks are copied into a compact storage and returned as read-only lists.
      * @param blockOfTokensToAddAtTheEnd
      * @return <tt>true</tt> (as specified by {@link Collection#add}) <br />
      *          <tt>false</tt> if block could not be added
@@ -142,7 +142,7 @@ public class SweDataArray extends SweAbstractDataComponent{
     {
         if (values == null)
         {
-            values = new LinkedList<List<String>>();
+            values = new SweDataArrayBlockList();
         }
         return values.add(blockOfTokensToAddAtTheEnd);
     }
@@ -0,0 +1,100 @@
+/**
+ * Copyright (C) 2013
+ * by 52 North Initiative for Geospatial Open Source Software GmbH
+ *
+ * Contact: Andreas Wytzisk
+ * 52 North Initiative for Geospatial Open Source Software GmbH
+ * Martin-Luther-King-Weg 24
+ * 48155 Muenster, Germany
+ * info@52north.org
+ *
+ * This program is free software; you can redistribute and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the
+ * Free Software Foundation.
+ *
+ * This program is distributed WITHOUT ANY WARRANTY; even without the implied
+ * WARRANTY OF MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program (see gnu-gpl v2.txt). If not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA or
+ * visit the Free Software Foundation web page, http://www.fsf.org.
+ */
+package org.n52.sos.ogc.swe;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Compact storage for the blocks of a {@link SweDataArray}: the tokens of all
+ * blocks are kept in one array with the block boundaries in an
+ * <code>int[]</code> instead of one list per block. A token equal to the token
+ * at the same position of the previous block (e.g. a repeated procedure,
+ * feature or time) shares the string instance of the previous block.
+ * <p/>
+ * Blocks are copied on {@link #add(List)} and returned as read-only views.
+ *
+ * @since 4.0.0
+ */
+class SweDataArrayBlockList extends AbstractList<List<String>> implements RandomAccess {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private String[] tokens = new String[INITIAL_CAPACITY];
+
+    private int tokenCount;
+
+    /**
+     * end index (exclusive) in {@link #tokens} for each block
+     */
+    private int[] blockEnds = new int[INITIAL_CAPACITY];
+
+    private int blockCount;
+
+    @Override
+    public boolean add(final List<String> block) {
+        final int blockSize = block.size();
+        ensureCapacity(tokenCount + blockSize, blockCount + 1);
+        final int previousStart = getStart(blockCount - 1);
+        final int previousSize = blockCount > 0 ? blockEnds[blockCount - 1] - previousStart : 0;
+        int i = 0;
+        for (final String token : block) {
+            String previous = i < previousSize ? tokens[previousStart + i] : null;
+            tokens[tokenCount++] = previous != null && previous.equals(token) ? previous : token;
+            i++;
+        }
+        blockEnds[blockCount++] = tokenCount;
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public List<String> get(final int index) {
+        if (index < 0 || index >= blockCount) {
+            throw new IndexOutOfBoundsException(String.format("Index: %d, Size: %d", index, blockCount));
+        }
+        return Collections.unmodifiableList(Arrays.asList(tokens).subList(getStart(index), blockEnds[index]));
+    }
+
+    @Override
+    public int size() {
+        return blockCount;
+    }
+
+    private int getStart(final int index) {
+        return index > 0 ? blockEnds[index - 1] : 0;
+    }
+
+    private void ensureCapacity(final int tokenCapacity, final int blockCapacity) {
+        if (tokenCapacity > tokens.length) {
+            tokens = Arrays.copyOf(tokens, Math.max(tokenCapacity, tokens.length + (tokens.length >> 1)));
+        }
+        if (blockCapacity > blockEnds.length) {
+            blockEnds = Arrays.copyOf(blockEnds, Math.max(blockCapacity, blockEnds.length + (blockEnds.length >> 1)));
+        }
+    }
+}
@@ -24,9 +24,17 @@
 package org.n52.sos.response;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
+import org.n52.sos.ogc.om.MultiObservationValues;
+import org.n52.sos.ogc.om.ObservationStream;
 import org.n52.sos.ogc.om.OmObservation;
+import org.n52.sos.ogc.om.OmObservationConstellation;
+import org.n52.sos.ogc.om.values.TVPValue;
 
 public class GetObservationResponse extends AbstractServiceResponse {
 
@@ -36,6 +44,8 @@ public class GetObservationResponse extends AbstractServiceResponse {
 
     private String resultModel;
 
+    private ObservationStream observationStream;
+
     public String getResponseFormat() {
         return responseFormat;
     }
@@ -52,37 +62,96 @@ public class GetObservationResponse extends AbstractServiceResponse {
         this.observationCollection = observationCollection;
     }
 
+    /**
+     * @return the observations to encode one by one, if this response is
+     *         streamed, else <code>null</code>
+     */
+    public ObservationStream getObservationStream() {
+        return observationStream;
+    }
+
+    public void setObservationStream(ObservationStream observationStream) {
+        this.observationStream = observationStream;
+    }
+
+    /**
+     * @return <code>true</code>, if the observations of this response are
+     *         provided by an {@link ObservationStream} instead of the
+     *         observation collection
+     */
+    public boolean isStreaming() {
+        return observationStream != null;
+    }
+
     public void mergeObservationsWithSameX() {
         // TODO merge all observations with the same observationContellation
         // (proc, obsProp, foi)
         if (observationCollection != null) {
-            List<OmObservation> mergedObservations = new ArrayList<OmObservation>(0);
+            // first pass: merge keys and number of observations per key
+            Map<OmObservationConstellation, Integer> keysByConstellation =
+                    new IdentityHashMap<OmObservationConstellation, Integer>();
+            List<Integer> keys = new ArrayList<Integer>(observationCollection.size());
+            Map<Integer, Integer> counts = new HashMap<Integer, Integer>();
+            for (OmObservation sosObservation : observationCollection) {
+                Integer key = getMergeKey(sosObservation.getObservationConstellation(), keysByConstellation);
+                keys.add(key);
+                Integer count = counts.get(key);
+                counts.put(key, count == null ? 1 : count + 1);
+            }
+            // second pass: merge into the first observation of each key
+            List<OmObservation> mergedObservations = new ArrayList<OmObservation>(counts.size());
+            Map<Integer, OmObservation> combinedByKey = new HashMap<Integer, OmObservation>(counts.size());
             int obsIdCounter = 1;
-                for (OmObservation sosObservation : observationCollection) {
+            Iterator<Integer> keyIterator = keys.iterator();
+            for (OmObservation sosObservation : observationCollection) {
+                Integer key = keyIterator.next();
+                OmObservation combinedSosObs = combinedByKey.get(key);
+                if (combinedSosObs == null) {
                     if (mergedObservations.isEmpty()) {
                         sosObservation.setObservationID(Integer.toString(obsIdCounter++));
-                        mergedObservations.add(sosObservation);
-                    } else {
-                        boolean combined = false;
-                        for (OmObservation combinedSosObs : mergedObservations) {
-                            if (combinedSosObs.getObservationConstellation().equals(
-                                    sosObservation.getObservationConstellation())) {
-                                combinedSosObs.setResultTime(null);
-                                combinedSosObs.mergeWithObservation(sosObservation);
-                                combined = true;
-                                break;
-                            }
-                        }
-                        if (!combined) {
-                            mergedObservations.add(sosObservation);
-                        }
+                    }
+                    combinedByKey.put(key, sosObservation);
+                    mergedObservations.add(sosObservation);
+                } else {
+                    combinedSosObs.setResultTime(null);
+                    combinedSosObs.mergeWithObservation(sosObservation);
+                    // the first merge creates the multi value, size it for all observations of the key
+                    Integer count = counts.remove(key);
+                    if (count != null) {
+                        ensureCapacity(combinedSosObs, count);
                     }
                 }
-            
+            }
             this.observationCollection = mergedObservations;
         }
     }
 
+    /**
+     * {@link OmObservationConstellation#equals(Object)} compares the hash
+     * codes, so the hash code is the merge key. It is calculated once per
+     * constellation instance, as the observations of a response usually share
+     * their constellations.
+     */
+    private Integer getMergeKey(OmObservationConstellation observationConstellation,
+            Map<OmObservationConstellation, Integer> keysByConstellation) {
+        if (observationConstellation == null) {
+            return null;
+        }
+        Integer key = keysByConstellation.get(observationConstellation);
+        if (key == null) {
+            key = observationConstellation.hashCode();
+            keysByConstellation.put(observationConstellation, key);
+        }
+        return key;
+    }
+
+    private void ensureCapacity(OmObservation observation, int capacity) {
+        if (observation.getValue() instanceof MultiObservationValues
+                && observation.getValue().getValue() instanceof TVPValue) {
+            ((TVPValue) observation.getValue().getValue()).ensureCapacity(capacity);
+        }
+    }
+
     public void setResultModel(String resultModel) {
         this.resultModel = resultModel;
     }
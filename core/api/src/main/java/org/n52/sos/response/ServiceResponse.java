@@ -52,9 +52,16 @@ public class ServiceResponse implements CommunicationObjectWithSoapHeader {
     private static final Logger LOGGER = LoggerFactory.getLogger(ServiceResponse.class);
 
     /**
-     * output stream of document
+     * writer of the document, <code>null</code> if this response is content
+     * less
      */
-    private ByteArrayOutputStream byteArrayOutputStream;
+    private ResponseWriter responseWriter;
+
+    /**
+     * number of bytes written by the writer or <code>-1</code>, if not known
+     * in advance
+     */
+    private int contentLength = -1;
     
     /**
      * the HTTP response code as specified in {@link HttpServletResponse}
@@ -103,7 +110,10 @@ public class ServiceResponse implements CommunicationObjectWithSoapHeader {
             boolean isXmlResponse,
             int httpResponseCode) {
         super();
-        this.byteArrayOutputStream = byteArrayOutputStream;
+        if (byteArrayOutputStream != null) {
+            this.responseWriter = new ByteArrayResponseWriter(byteArrayOutputStream);
+            this.contentLength = byteArrayOutputStream.size();
+        }
         this.contentType = contentType;
         this.applyZipCompression = applyZipCompression;
         this.xmlResponse = isXmlResponse;
@@ -129,6 +139,28 @@ public class ServiceResponse implements CommunicationObjectWithSoapHeader {
     	this(byteArrayOutputStream, contentType, applyZipCompression, isXmlResponse, -1);
     }
     
+    /**
+     * constructor with deferred content, the content is written to the output
+     * stream when the response is send to the client. The length of the
+     * content is not known in advance.
+     * 
+     * @param responseWriter
+     *          Writer of the SOS response
+     * @param contentType
+     *          Content type
+     * @param applyZipCompression
+     *          indicator for compressing the output
+     * @param isXmlResponse
+     * 			indicator for being XML encoded or not
+     */
+    public ServiceResponse(ResponseWriter responseWriter,
+            String contentType,
+            boolean applyZipCompression,
+            boolean isXmlResponse) {
+        this((ByteArrayOutputStream) null, contentType, applyZipCompression, isXmlResponse, -1);
+        this.responseWriter = responseWriter;
+    }
+    
     /**
      * constructor without content type but with specified response code
      * 
@@ -138,7 +170,7 @@ public class ServiceResponse implements CommunicationObjectWithSoapHeader {
      * 			the HTTP response code as specified in {@link HttpServletResponse}
      */
     public ServiceResponse(String contentType, int httpResponseCode) {
-    	this(null, contentType, false, false, httpResponseCode);
+    	this((ByteArrayOutputStream) null, contentType, false, false, httpResponseCode);
     }
 
     /**
@@ -153,15 +185,14 @@ public class ServiceResponse implements CommunicationObjectWithSoapHeader {
 
     /**
      * @return Returns the number of valid bytes in the content or<br />
-     * 		<code>-1</code>, if this response is content less
+     * 		<code>-1</code>, if this response is content less or the content
+     * 		is streamed and the length is not known in advance
      * @see {@link #isContentLess()} 
+     * @see {@link #isStreaming()} 
      * @see {@link ByteArrayOutputStream#size()}
      */
     public int getContentLength() {
-    	if (byteArrayOutputStream != null) {
-    		return byteArrayOutputStream.size();
-    	}
-    	return -1;
+        return contentLength;
     }
     
     /**
@@ -188,44 +219,31 @@ public class ServiceResponse implements CommunicationObjectWithSoapHeader {
     /**
      * @param outputStream
      * 			The stream the content of this response is written to
+     * @throws IOException
+     *          If the content can not be written completely
      * @see {@link #isContentLess()}
      */
-    public void writeToOutputStream(OutputStream outputStream) {
-        GZIPOutputStream gzip = null;
-        if (byteArrayOutputStream == null ) {
+    public void writeToOutputStream(OutputStream outputStream) throws IOException {
+        if (responseWriter == null) {
         	LOGGER.error("no response to write to.");
         	return;
         }
-        try {
-            if (applyZipCompression) {
-
-                gzip = new GZIPOutputStream(outputStream);
-                byteArrayOutputStream.writeTo(gzip);
-                gzip.flush();
-                gzip.finish();
-
-            } else {
-            	
-                byteArrayOutputStream.writeTo(outputStream);
-                byteArrayOutputStream.flush();
-                
-            }
-        } catch (IOException ioe) {
-            LOGGER.error("doResponse", ioe);
-        } finally {
-            try {
-            	
-                if (gzip != null) {
-                    gzip.close();
-                }
-                if (byteArrayOutputStream != null) {
-                    byteArrayOutputStream.close();
-                }
-                
-            } catch (IOException ioe) {
-                LOGGER.error("doSoapResponse, close streams", ioe);
-            }
+        if (applyZipCompression) {
+            GZIPOutputStream gzip = new GZIPOutputStream(outputStream);
+            responseWriter.write(gzip);
+            gzip.finish();
+        } else {
+            responseWriter.write(outputStream);
         }
+        outputStream.flush();
+    }
+
+    /**
+     * @return <code>true</code>, if this response has content and the length
+     *          of the content is not known before it is written
+     */
+    public boolean isStreaming() {
+        return responseWriter != null && contentLength < 0;
     }
 
     /**
@@ -238,14 +256,29 @@ public class ServiceResponse implements CommunicationObjectWithSoapHeader {
 
     /**
      * @return the content of this response as <code>byte[]</code>, or<br />
-     * 			<code>null</code>, if this response is content less.
+     * 			<code>null</code>, if this response is content less.<br />
+     * 			The content is buffered in memory by calling this method and
+     * 			the buffer replaces the writer, so writers that can only be
+     * 			invoked once (e.g. streamed responses) are not invoked again.
      * @see {@link #isContentLess()}
      */
-    public byte[] getByteArray() {
-    	if (byteArrayOutputStream != null) {
-    		return byteArrayOutputStream.toByteArray();
-    	}
-    	return null;
+    public synchronized byte[] getByteArray() {
+        if (responseWriter == null) {
+            return null;
+        }
+        if (!(responseWriter instanceof ByteArrayResponseWriter)) {
+            final ByteArrayOutputStream buffer =
+                    new ByteArrayOutputStream(contentLength > 0 ? contentLength : 32);
+            try {
+                responseWriter.write(buffer);
+            } catch (IOException ioe) {
+                LOGGER.error("Error while buffering response", ioe);
+                return null;
+            }
+            responseWriter = new ByteArrayResponseWriter(buffer);
+            contentLength = buffer.size();
+        }
+        return ((ByteArrayResponseWriter) responseWriter).toByteArray();
     }
 
     /**
@@ -266,7 +299,7 @@ public class ServiceResponse implements CommunicationObjectWithSoapHeader {
      * @see {@link #writeToOutputStream(OutputStream)}.
      */
     public boolean isContentLess() {
-    	return byteArrayOutputStream == null;
+    	return responseWriter == null;
     }
 
 	/**
@@ -286,8 +319,9 @@ public class ServiceResponse implements CommunicationObjectWithSoapHeader {
 	@Override
 	public String toString()
 	{
-		return String.format("ServiceResponse [byteArrayOutputStream=%s, httpResponseCode=%s, contentType=%s, headerMap=%s, applyZipCompression=%s, xmlResponse=%s]", 
-				byteArrayOutputStream,
+		return String.format("ServiceResponse [responseWriter=%s, contentLength=%s, httpResponseCode=%s, contentType=%s, headerMap=%s, applyZipCompression=%s, xmlResponse=%s]", 
+				responseWriter,
+				contentLength,
 				httpResponseCode, 
 				contentType, 
 				headerMap, 
@@ -309,6 +343,31 @@ public class ServiceResponse implements CommunicationObjectWithSoapHeader {
 	public boolean isSetSoapHeader() {
 		return this.soapHeaderMap != null && !this.soapHeaderMap.isEmpty();
 	}
+
+    /**
+     * {@link ResponseWriter} for content that is already buffered.
+     */
+    private static class ByteArrayResponseWriter implements ResponseWriter {
+        private final ByteArrayOutputStream byteArrayOutputStream;
+
+        ByteArrayResponseWriter(ByteArrayOutputStream byteArrayOutputStream) {
+            this.byteArrayOutputStream = byteArrayOutputStream;
+        }
+
+        @Override
+        public void write(OutputStream outputStream) throws IOException {
+            byteArrayOutputStream.writeTo(outputStream);
+        }
+
+        byte[] toByteArray() {
+            return byteArrayOutputStream.toByteArray();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("ByteArrayResponseWriter [size=%s]", byteArrayOutputStream.size());
+        }
+    }
     
     
 }
@@ -28,6 +28,7 @@ import static org.n52.sos.util.CollectionHelper.set;
 import static org.n52.sos.util.MultiMaps.newSetMultiMap;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.LinkedList;
@@ -51,6 +52,7 @@ import org.n52.sos.service.ServiceConstants.SupportedTypeKey;
 import org.n52.sos.service.operator.ServiceOperatorKeyType;
 import org.n52.sos.service.operator.ServiceOperatorRepository;
 import org.n52.sos.util.Activatable;
+import org.n52.sos.util.Cleanupable;
 import org.n52.sos.util.CollectionHelper;
 import org.n52.sos.util.SchemaLocation;
 import org.n52.sos.util.SetMultiMap;
@@ -61,7 +63,7 @@ import org.slf4j.LoggerFactory;
 /**
  * @author Christian Autermann <c.autermann@52north.org>
  */
-public class CodingRepository {
+public class CodingRepository implements Cleanupable {
     private static final Logger LOG = LoggerFactory.getLogger(CodingRepository.class);
 
     private static CodingRepository instance;
@@ -154,6 +156,7 @@ public class CodingRepository {
 
     public void updateDecoders() {
         LOG.debug("Reloading Decoder implementations");
+        cleanup(this.decoders);
         this.decoders.clear();
         this.decoders.addAll(loadDecoders());
         initDecoderMap();
@@ -163,6 +166,7 @@ public class CodingRepository {
 
     public void updateEncoders() {
         LOG.debug("Reloading Encoder implementations");
+        cleanup(this.encoders);
         this.encoders.clear();
         this.encoders.addAll(loadEncoders());
         initEncoderMap();
@@ -172,6 +176,28 @@ public class CodingRepository {
         LOG.debug("Reloaded Encoder implementations");
     }
 
+    /**
+     * Cleans up the loaded decoders and encoders that hold resources, e.g.
+     * threads.
+     */
+    @Override
+    public void cleanup() {
+        cleanup(this.decoders);
+        cleanup(this.encoders);
+    }
+
+    private void cleanup(Collection<?> implementations) {
+        for (Object implementation : implementations) {
+            if (implementation instanceof Cleanupable) {
+                try {
+                    ((Cleanupable) implementation).cleanup();
+                } catch (RuntimeException e) {
+                    LOG.error("Error while cleaning up " + implementation, e);
+                }
+            }
+        }
+    }
+
     private void generateResponseFormatMaps() {
         this.responseFormatStatus.clear();
         this.responseFormats.clear();
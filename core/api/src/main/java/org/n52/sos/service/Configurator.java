@@ -41,6 +41,7 @@ import org.n52.sos.ds.DataConnectionProvider;
 import org.n52.sos.ds.FeatureQueryHandler;
 import org.n52.sos.ds.IFeatureConnectionProvider;
 import org.n52.sos.ds.OperationDAORepository;
+import org.n52.sos.event.SosEventBus;
 import org.n52.sos.exception.ConfigurationException;
 import org.n52.sos.exception.ows.NoApplicableCodeException;
 import org.n52.sos.ogc.ows.OwsExceptionReport;
@@ -216,6 +217,7 @@ public class Configurator implements Cleanupable {
 
         SettingsManager.getInstance();
         ServiceConfiguration.getInstance();
+        SettingsManager.getInstance().configure(SosEventBus.getInstance());
 
         initializeConnectionProviders();
         
@@ -493,6 +495,7 @@ public class Configurator implements Cleanupable {
         cleanup(featureConnectionProvider);
         cleanup(contentCacheController);
         cleanup(tasking);
+        CodingRepository.getInstance().cleanup();
         instance = null;
     }
 }
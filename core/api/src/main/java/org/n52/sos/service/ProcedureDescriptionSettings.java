@@ -35,6 +35,7 @@ import org.n52.sos.config.SettingsManager;
 import org.n52.sos.config.annotation.Configurable;
 import org.n52.sos.config.annotation.Setting;
 import org.n52.sos.config.settings.BooleanSettingDefinition;
+import org.n52.sos.config.settings.IntegerSettingDefinition;
 import org.n52.sos.config.settings.StringSettingDefinition;
 import org.n52.sos.util.CollectionHelper;
 import org.n52.sos.util.Validation;
@@ -69,6 +70,7 @@ public class ProcedureDescriptionSettings implements SettingDefinitionProvider {
 	public static final String ENRICH_WITH_OFFERINGS = "procedureDesc.ENRICH_WITH_OFFERINGS";
 	public static final String ENRICH_WITH_FEATURES = "procedureDesc.ENRICH_WITH_FEATURES";
 	public static final String ENRICH_WITH_DISCOVERY_INFORMATION = "procedureDesc.ENRICH_WITH_DISCOVERY_INFORMATION";
+	public static final String DESCRIPTION_CACHE_SIZE = "procedureDesc.DESCRIPTION_CACHE_SIZE";
 	
 	public static final BooleanSettingDefinition ENRICH_WITH_OFFERINGS_DEFINITION = new BooleanSettingDefinition()
 	.setGroup(GROUP)
@@ -208,6 +210,16 @@ public class ProcedureDescriptionSettings implements SettingDefinitionProvider {
 			" the second with a comma separated list of properties: e.g. <i>The procedure '%s' generates the following output(s): '%s'. The " +
 			"input(s) is/are unknown (this description is generated).</i>");
 
+	public static final IntegerSettingDefinition DESCRIPTION_CACHE_SIZE_DEFINITION = new IntegerSettingDefinition()
+	.setGroup(GROUP)
+	.setOrder(130)
+	.setKey(DESCRIPTION_CACHE_SIZE)
+	.setDefaultValue(256)
+	.setMinimum(0)
+	.setTitle("Procedure description cache size")
+	.setDescription("The maximum number of parsed stored procedure descriptions that are kept in memory for " +
+			"DescribeSensor and the encoding of observations. Set to <code>0</code> (zero) to disable the cache.");
+
 	private static final Set<? extends SettingDefinition<?, ?>> DEFINITIONS = CollectionHelper.<SettingDefinition<?,?>>set(
 			ENRICH_WITH_OFFERINGS_DEFINITION,
 			ENRICH_WITH_FEATURES_DEFINITION,
@@ -223,7 +235,8 @@ public class ProcedureDescriptionSettings implements SettingDefinitionProvider {
 			USE_SERVICE_CONTACT_AS_SENSOR_CONTACT_DEFINITION,
 			LAT_LONG_UOM_DEFINITION,
 			ALTITUDE_UOM_DEFINITION,
-			PROCESS_METHOD_RULES_DEFINITION_DESCRIPTION_TEMPLATE_DEFINITION
+			PROCESS_METHOD_RULES_DEFINITION_DESCRIPTION_TEMPLATE_DEFINITION,
+			DESCRIPTION_CACHE_SIZE_DEFINITION
 			);
 
 	private String descriptionTemplate;
@@ -241,6 +254,7 @@ public class ProcedureDescriptionSettings implements SettingDefinitionProvider {
 	private boolean enrichWithOfferings;
 	private boolean enrichWithFeatures;
 	private boolean enrichWithDiscoveryInformation;
+	private int descriptionCacheSize = DESCRIPTION_CACHE_SIZE_DEFINITION.getDefaultValue();
 
 	private static ProcedureDescriptionSettings instance = null;
 
@@ -445,4 +459,20 @@ public class ProcedureDescriptionSettings implements SettingDefinitionProvider {
 		return enrichWithDiscoveryInformation;
 	}
 
+	@Setting(DESCRIPTION_CACHE_SIZE)
+	public void setDescriptionCacheSize(final int descriptionCacheSize)
+	{
+		Validation.greaterEqualZero(DESCRIPTION_CACHE_SIZE, descriptionCacheSize);
+		this.descriptionCacheSize = descriptionCacheSize;
+	}
+
+	/**
+	 * @return the maximum number of cached parsed procedure descriptions,
+	 *         <code>0</code> disables the cache
+	 */
+	public int getDescriptionCacheSize()
+	{
+		return descriptionCacheSize;
+	}
+
 }
@@ -57,6 +57,10 @@ public class ServiceConfiguration {
     private boolean useDefaultPrefixes;
     private boolean encodeFullChildrenInDescribeSensor;
     private boolean useHttpStatusCodesInKvpAndPoxBinding;
+    private boolean streamingGetObservation;
+    private int streamingFetchSize;
+    private int observationEncodingThreads = 1;
+    private int parallelObservationEncodingThreshold = 100;
 
     /**
      * @return Returns a singleton instance of the ServiceConfiguration.
@@ -162,6 +166,56 @@ public class ServiceConfiguration {
         minimumGzipSize = size;
     }
 
+    /**
+     * @return <code>true</code>, if GetObservation responses should be
+     *         streamed from the data source to the client
+     */
+    public boolean isStreamingGetObservation() {
+        return streamingGetObservation;
+    }
+
+    @Setting(STREAMING_GET_OBSERVATION)
+    public void setStreamingGetObservation(final boolean streamingGetObservation) {
+        this.streamingGetObservation = streamingGetObservation;
+    }
+
+    /**
+     * @return the number of observations to fetch at once while streaming
+     */
+    public int getStreamingFetchSize() {
+        return streamingFetchSize;
+    }
+
+    @Setting(STREAMING_FETCH_SIZE)
+    public void setStreamingFetchSize(final int streamingFetchSize) {
+        this.streamingFetchSize = streamingFetchSize;
+    }
+
+    /**
+     * @return the number of threads that encode the observations of a
+     *         GetObservation response concurrently
+     */
+    public int getObservationEncodingThreads() {
+        return observationEncodingThreads;
+    }
+
+    @Setting(OBSERVATION_ENCODING_THREADS)
+    public void setObservationEncodingThreads(final int observationEncodingThreads) {
+        this.observationEncodingThreads = observationEncodingThreads;
+    }
+
+    /**
+     * @return the minimum number of observations to encode them concurrently
+     */
+    public int getParallelObservationEncodingThreshold() {
+        return parallelObservationEncodingThreshold;
+    }
+
+    @Setting(PARALLEL_OBSERVATION_ENCODING_THRESHOLD)
+    public void setParallelObservationEncodingThreshold(final int parallelObservationEncodingThreshold) {
+        this.parallelObservationEncodingThreshold = parallelObservationEncodingThreshold;
+    }
+
     public String getDefaultOfferingPrefix() {
         return defaultOfferingPrefix;
     }
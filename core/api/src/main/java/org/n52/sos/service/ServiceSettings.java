@@ -47,6 +47,10 @@ public class ServiceSettings implements SettingDefinitionProvider {
     public static final String USE_DEFAULT_PREFIXES = "service.useDefaultPrefixes";
     public static final String ENCODE_FULL_CHILDREN_IN_DESCRIBE_SENSOR = "service.encodeFullChildrenInDescribeSensor";
     public static final String MAX_GET_OBSERVATION_RESULTS = "service.maxGetObservationResults";
+    public static final String STREAMING_GET_OBSERVATION = "service.streamingGetObservation";
+    public static final String STREAMING_FETCH_SIZE = "service.streamingFetchSize";
+    public static final String OBSERVATION_ENCODING_THREADS = "service.observationEncodingThreads";
+    public static final String PARALLEL_OBSERVATION_ENCODING_THRESHOLD = "service.parallelObservationEncodingThreshold";
     
     public static final SettingDefinitionGroup GROUP = new SettingDefinitionGroup()
             .setTitle("Service").setOrder(2);
@@ -76,6 +80,42 @@ public class ServiceSettings implements SettingDefinitionProvider {
             .setTitle("Maximum number of observations")
             .setDescription("Maximum number of observation in GetObservation responses. "
                             + "Set to <code>0</code> (zero) for unlimited number of observations.");
+    public static final BooleanSettingDefinition STREAMING_GET_OBSERVATION_DEFINITION = new BooleanSettingDefinition()
+            .setGroup(GROUP)
+            .setOrder(5)
+            .setKey(STREAMING_GET_OBSERVATION)
+            .setDefaultValue(false)
+            .setTitle("Stream GetObservation responses")
+            .setDescription("Should the observations of unmerged SOS 2.0 GetObservation responses be read from the "
+                            + "database and written to the client one by one instead of loading the complete "
+                            + "response into memory.");
+    public static final IntegerSettingDefinition STREAMING_FETCH_SIZE_DEFINITION = new IntegerSettingDefinition()
+            .setMinimum(1)
+            .setGroup(GROUP)
+            .setOrder(6)
+            .setKey(STREAMING_FETCH_SIZE)
+            .setDefaultValue(1000)
+            .setTitle("Streaming fetch size")
+            .setDescription("The number of observations fetched from the database at once when streaming "
+                            + "GetObservation responses.");
+    public static final IntegerSettingDefinition OBSERVATION_ENCODING_THREADS_DEFINITION = new IntegerSettingDefinition()
+            .setMinimum(1)
+            .setGroup(GROUP)
+            .setOrder(8)
+            .setKey(OBSERVATION_ENCODING_THREADS)
+            .setDefaultValue(1)
+            .setTitle("Observation encoding threads")
+            .setDescription("The number of threads that encode the observations of a SOS 2.0 GetObservation "
+                            + "response concurrently. Set to <code>1</code> (one) to encode sequentially.");
+    public static final IntegerSettingDefinition PARALLEL_OBSERVATION_ENCODING_THRESHOLD_DEFINITION = new IntegerSettingDefinition()
+            .setMinimum(1)
+            .setGroup(GROUP)
+            .setOrder(9)
+            .setKey(PARALLEL_OBSERVATION_ENCODING_THRESHOLD)
+            .setDefaultValue(100)
+            .setTitle("Parallel observation encoding threshold")
+            .setDescription("The minimum number of observations in a GetObservation response to encode them "
+                            + "concurrently. Smaller responses are encoded sequentially.");
     // TODO quality is not yet supported
 //    public static final BooleanSettingDefinition SUPPORTS_QUALITY_DEFINITION = new BooleanSettingDefinition()
 //            .setGroup(GROUP)
@@ -117,6 +157,10 @@ public class ServiceSettings implements SettingDefinitionProvider {
             SERVICE_URL_DEFINITION,
             MINIMUM_GZIP_SIZE_DEFINITION,
             MAX_GET_OBSERVATION_RESULTS_DEFINITION,
+            STREAMING_GET_OBSERVATION_DEFINITION,
+            STREAMING_FETCH_SIZE_DEFINITION,
+            OBSERVATION_ENCODING_THREADS_DEFINITION,
+            PARALLEL_OBSERVATION_ENCODING_THRESHOLD_DEFINITION,
 //            SUPPORTS_QUALITY_DEFINITION,
             SENSOR_DIRECTORY_DEFINITION,
             USE_DEFAULT_PREFIXES_DEFINITION,
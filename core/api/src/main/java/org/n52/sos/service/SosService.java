@@ -23,6 +23,7 @@
  */
 package org.n52.sos.service;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.Enumeration;
@@ -186,7 +187,6 @@ public class SosService extends ConfiguratedHttpServlet {
 	private void doResponse(final HttpServletResponse resp, final ServiceResponse sosResponse, final boolean clientAcceptsGzip)
 			throws ServletException {
 		OutputStream out = null;
-		GZIPOutputStream gzip = null;
 
 		LOGGER.debug("SERVICE-RESPONSE: {}",sosResponse);
 
@@ -207,24 +207,31 @@ public class SosService extends ConfiguratedHttpServlet {
 			if (!sosResponse.isContentLess()) {
 				out = resp.getOutputStream();
 				final int contentLength = sosResponse.getContentLength();
-				resp.setContentType(contentType);
-				if (sosResponse.getApplyGzipCompression() || (clientAcceptsGzip
-						&& (contentLength > ServiceConfiguration.getInstance().getMinimumGzipSize()))) {
-					if (clientAcceptsGzip) {
-						resp.addHeader(CONTENT_ENCODING, GZIP);
-					}
-					if (sosResponse.getApplyGzipCompression()) {
-						resp.setContentType(SosConstants.CONTENT_TYPE_ZIP);
-					}
-					gzip = new GZIPOutputStream(out);
+				final int minimumGzipSize = ServiceConfiguration.getInstance().getMinimumGzipSize();
+				if (sosResponse.getApplyGzipCompression()) {
+					// the body is zipped by the response itself and is never
+					// compressed again, its length is not known in advance
+					resp.setContentType(SosConstants.CONTENT_TYPE_ZIP);
+					sosResponse.writeToOutputStream(out);
+				} else if (clientAcceptsGzip && contentLength > minimumGzipSize) {
+					resp.addHeader(CONTENT_ENCODING, GZIP);
+					final GZIPOutputStream gzip = new GZIPOutputStream(out);
+					sosResponse.writeToOutputStream(gzip);
+					gzip.finish();
+				} else if (clientAcceptsGzip && contentLength < 0) {
+					// responses without known length are written while they
+					// are encoded, they are compressed on the fly as soon as
+					// they exceed the minimum gzip size
+					final GzipThresholdOutputStream gzip = new GzipThresholdOutputStream(resp, out, minimumGzipSize);
 					sosResponse.writeToOutputStream(gzip);
-					gzip.flush();
 					gzip.finish();
 				} else {
-					resp.setContentLength(contentLength);
+					if (contentLength >= 0) {
+						resp.setContentLength(contentLength);
+					}
 					sosResponse.writeToOutputStream(out);
-					out.flush();
 				}
+				out.flush();
 			}
 
 		} catch (final IOException ioe) {
@@ -232,10 +239,9 @@ public class SosService extends ConfiguratedHttpServlet {
 			LOGGER.error(exceptionText, ioe);
 			throw new ServletException(exceptionText, ioe);
 		} finally {
+			// the gzip streams are only finished if the response was written
+			// completely, so aborted responses are not terminated properly
 			try {
-				if (gzip != null) {
-					gzip.close();
-				}
 				if (out != null) {
 					out.close();
 				}
@@ -245,6 +251,63 @@ public class SosService extends ConfiguratedHttpServlet {
 		}
 	}
 
+	/**
+	 * Buffers the written content up to the minimum gzip size. Content that
+	 * exceeds it is compressed and the <code>Content-Encoding</code> header
+	 * is added before the first byte is sent. Smaller content is sent
+	 * uncompressed with its length by {@link #finish()}.
+	 */
+	private static class GzipThresholdOutputStream extends OutputStream {
+		private final HttpServletResponse resp;
+		private final OutputStream out;
+		private final int threshold;
+		private ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		private GZIPOutputStream gzip;
+
+		GzipThresholdOutputStream(final HttpServletResponse resp, final OutputStream out, final int threshold) {
+			this.resp = resp;
+			this.out = out;
+			this.threshold = threshold;
+		}
+
+		@Override
+		public void write(final int b) throws IOException {
+			write(new byte[] { (byte) b }, 0, 1);
+		}
+
+		@Override
+		public void write(final byte[] b, final int off, final int len) throws IOException {
+			if (gzip == null) {
+				if (buffer.size() + len <= threshold) {
+					buffer.write(b, off, len);
+					return;
+				}
+				resp.addHeader(CONTENT_ENCODING, GZIP);
+				gzip = new GZIPOutputStream(out);
+				buffer.writeTo(gzip);
+				buffer = null;
+			}
+			gzip.write(b, off, len);
+		}
+
+		@Override
+		public void flush() throws IOException {
+			// buffered content is not flushed, it would commit the response
+			if (gzip != null) {
+				gzip.flush();
+			}
+		}
+
+		void finish() throws IOException {
+			if (gzip != null) {
+				gzip.finish();
+			} else {
+				resp.setContentLength(buffer.size());
+				buffer.writeTo(out);
+			}
+		}
+	}
+
 	private void setSpecifiedHeaders(final Map<String, String> headerMap, final HttpServletResponse resp) {
 		for (final String headerIdentifier : headerMap.keySet()) {
 			final String value = headerMap.get(headerIdentifier);
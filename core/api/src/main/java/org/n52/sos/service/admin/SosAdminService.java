@@ -23,7 +23,6 @@
  */
 package org.n52.sos.service.admin;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.zip.GZIPOutputStream;
@@ -41,10 +40,10 @@ import org.n52.sos.exception.ows.NoApplicableCodeException;
 import org.n52.sos.ogc.ows.OwsExceptionReport;
 import org.n52.sos.ogc.sos.SosConstants;
 import org.n52.sos.response.ServiceResponse;
+import org.n52.sos.response.XmlObjectResponseWriter;
 import org.n52.sos.service.CodingRepository;
 import org.n52.sos.service.ConfiguratedHttpServlet;
 import org.n52.sos.service.Configurator;
-import org.n52.sos.util.XmlOptionsHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -115,7 +114,9 @@ public class SosAdminService extends ConfiguratedHttpServlet {
         try {
             String contentType = sosResponse.getContentType();
             int contentLength = sosResponse.getContentLength();
-            resp.setContentLength(contentLength);
+            if (contentLength >= 0 && !sosResponse.getApplyGzipCompression()) {
+                resp.setContentLength(contentLength);
+            }
             out = resp.getOutputStream();
             resp.setContentType(contentType);
             sosResponse.writeToOutputStream(out);
@@ -170,9 +171,8 @@ public class SosAdminService extends ConfiguratedHttpServlet {
             if (encoder != null) {
                 Object encodedObject = encoder.encode(owsExceptionReport);
                 if (encodedObject instanceof XmlObject) {
-                    ByteArrayOutputStream baos = new ByteArrayOutputStream();
-                    ((XmlObject) encodedObject).save(baos, XmlOptionsHelper.getInstance().getXmlOptions());
-                    return new ServiceResponse(baos, SosConstants.CONTENT_TYPE_XML, false, true);
+                    return new ServiceResponse(new XmlObjectResponseWriter((XmlObject) encodedObject),
+                            SosConstants.CONTENT_TYPE_XML, false, true);
                 } else if (encodedObject instanceof ServiceResponse) {
                     return (ServiceResponse) encodedObject;
                 } else {
@@ -176,6 +176,30 @@ public final class CollectionHelper {
         return new ArrayList<T>(s1);
     }
 
+    /**
+     * Creates the intersection of two sets. Sets of interned identifiers are
+     * intersected without looking up the identifiers.
+     *
+     * @return a new, modifiable set containing the elements of both sets
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Set<T> intersection(final Set<T> s1, final Set<T> s2) {
+        if (s1 instanceof InternedSet) {
+            return (Set<T>) ((InternedSet) s1).intersection((Set<String>) s2);
+        } else if (s2 instanceof InternedSet) {
+            return (Set<T>) ((InternedSet) s2).intersection((Set<String>) s1);
+        }
+        final Set<T> smaller = s1.size() <= s2.size() ? s1 : s2;
+        final Set<T> larger = smaller == s1 ? s2 : s1;
+        final Set<T> intersection = new HashSet<T>(smaller.size());
+        for (final T t : smaller) {
+            if (larger.contains(t)) {
+                intersection.add(t);
+            }
+        }
+        return intersection;
+    }
+
     public static <K, V> Map<K, V> synchronizedInitialSizeMapWithLoadFactor1(final int capacity) {
         return CollectionHelper.synchronizedMap(capacity, 1.0F);
     }
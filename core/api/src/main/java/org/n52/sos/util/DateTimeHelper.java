@@ -29,6 +29,7 @@ import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
 import org.joda.time.Period;
 import org.joda.time.format.DateTimeFormat;
+import org.joda.time.format.DateTimeFormatter;
 import org.joda.time.format.ISODateTimeFormat;
 import org.joda.time.format.ISOPeriodFormat;
 import org.n52.sos.exception.ows.concrete.DateTimeException;
@@ -60,6 +61,14 @@ public final class DateTimeHelper {
 
     private static final String Y_RESPONSE_FORMAT = "yyyy";
 
+    private static final Pattern NEGATIVE_OFFSET = Pattern.compile("-\\d");
+
+    private static final DateTimeFormatter OFFSET_PARSER = ISODateTimeFormat.dateOptionalTimeParser()
+            .withOffsetParsed();
+
+    private static final DateTimeFormatter UTC_PARSER = ISODateTimeFormat.dateOptionalTimeParser().withZone(
+            DateTimeZone.UTC);
+
     /**
      * lease value
      */
@@ -80,11 +89,11 @@ public final class DateTimeHelper {
             return null;
         }
         try {
-            if (timeString.contains("+") || Pattern.matches("-\\d", timeString) || timeString.contains("Z")
+            if (timeString.contains("+") || NEGATIVE_OFFSET.matcher(timeString).matches() || timeString.contains("Z")
                     || timeString.contains("z")) {
-                return ISODateTimeFormat.dateOptionalTimeParser().withOffsetParsed().parseDateTime(timeString);
+                return OFFSET_PARSER.parseDateTime(timeString);
             } else {
-                return ISODateTimeFormat.dateOptionalTimeParser().withZone(DateTimeZone.UTC).parseDateTime(timeString);
+                return UTC_PARSER.parseDateTime(timeString);
             }
         } catch (final RuntimeException uoe) {
             throw new DateTimeParseException(timeString, uoe);
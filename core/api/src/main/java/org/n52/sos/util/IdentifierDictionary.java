@@ -0,0 +1,144 @@
+/**
+ * Copyright (C) 2013
+ * by 52 North Initiative for Geospatial Open Source Software GmbH
+ *
+ * Contact: Andreas Wytzisk
+ * 52 North Initiative for Geospatial Open Source Software GmbH
+ * Martin-Luther-King-Weg 24
+ * 48155 Muenster, Germany
+ * info@52north.org
+ *
+ * This program is free software; you can redistribute and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the
+ * Free Software Foundation.
+ *
+ * This program is distributed WITHOUT ANY WARRANTY; even without the implied
+ * WARRANTY OF MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program (see gnu-gpl v2.txt). If not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA or
+ * visit the Free Software Foundation web page, http://www.fsf.org.
+ */
+package org.n52.sos.util;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dictionary that interns identifiers into consecutive integers. Every
+ * identifier is stored only once, so collections that reference identifiers by
+ * their integer (see {@link InternedSet}) do not hold duplicated strings.
+ * <p/>
+ * Interning is not synchronized. A dictionary has to be filled by a single
+ * thread and may only be read concurrently after it has been safely published.
+ *
+ * @since 4.0.0
+ */
+public class IdentifierDictionary implements Serializable {
+    private static final long serialVersionUID = -1425384749206316338L;
+
+    private static final int[] EMPTY = new int[0];
+
+    private final List<String> identifiers = new ArrayList<String>();
+
+    private transient Map<String, Integer> ids = new HashMap<String, Integer>();
+
+    /**
+     * Interns the specified identifier.
+     *
+     * @param identifier
+     *            the identifier
+     * @return the integer of the identifier
+     */
+    public int intern(final String identifier) {
+        final Integer id = ids.get(identifier);
+        if (id != null) {
+            return id;
+        }
+        final int newId = identifiers.size();
+        identifiers.add(identifier);
+        ids.put(identifier, newId);
+        return newId;
+    }
+
+    /**
+     * Interns the specified identifiers.
+     *
+     * @param identifiers
+     *            the identifiers
+     * @return the sorted integers of the identifiers without duplicates
+     */
+    public int[] intern(final Collection<String> identifiers) {
+        if (identifiers == null || identifiers.isEmpty()) {
+            return EMPTY;
+        }
+        final int[] interned = new int[identifiers.size()];
+        int size = 0;
+        for (final String identifier : identifiers) {
+            interned[size++] = intern(identifier);
+        }
+        Arrays.sort(interned, 0, size);
+        int unique = 0;
+        for (int i = 0; i < size; ++i) {
+            if (unique == 0 || interned[unique - 1] != interned[i]) {
+                interned[unique++] = interned[i];
+            }
+        }
+        return unique == interned.length ? interned : Arrays.copyOf(interned, unique);
+    }
+
+    /**
+     * @param identifier
+     *            the identifier
+     * @return the integer of the identifier or {@code -1} if the identifier is
+     *         not part of this dictionary
+     */
+    public int lookup(final Object identifier) {
+        final Integer id = ids.get(identifier);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * @param id
+     *            the integer of an identifier
+     * @return the (canonical instance of the) identifier
+     */
+    public String get(final int id) {
+        return identifiers.get(id);
+    }
+
+    /**
+     * Interns the specified identifier and returns its canonical instance.
+     *
+     * @param identifier
+     *            the identifier
+     * @return the canonical instance
+     */
+    public String canonicalize(final String identifier) {
+        return get(intern(identifier));
+    }
+
+    /**
+     * @return the number of identifiers in this dictionary
+     */
+    public int size() {
+        return identifiers.size();
+    }
+
+    private void readObject(final ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        ids = new HashMap<String, Integer>(identifiers.size());
+        for (int i = 0; i < identifiers.size(); ++i) {
+            ids.put(identifiers.get(i), i);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+/**
+ * Copyright (C) 2013
+ * by 52 North Initiative for Geospatial Open Source Software GmbH
+ *
+ * Contact: Andreas Wytzisk
+ * 52 North Initiative for Geospatial Open Source Software GmbH
+ * Martin-Luther-King-Weg 24
+ * 48155 Muenster, Germany
+ * info@52north.org
+ *
+ * This program is free software; you can redistribute and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the
+ * Free Software Foundation.
+ *
+ * This program is distributed WITHOUT ANY WARRANTY; even without the implied
+ * WARRANTY OF MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program (see gnu-gpl v2.txt). If not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA or
+ * visit the Free Software Foundation web page, http://www.fsf.org.
+ */
+package org.n52.sos.util;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+/**
+ * Immutable {@link SetMultiMap} that is created as a copy of another map. The
+ * map is not synchronized as it can not be changed after creation, every
+ * modifying operation throws an {@link UnsupportedOperationException}.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ *
+ * @since 4.0.0
+ */
+public class ImmutableSetMultiMap<K, V> extends AbstractDelegatingMultiMap<K, V, Set<V>> implements SetMultiMap<K, V>,
+        Serializable {
+    private static final long serialVersionUID = -4208406476582432871L;
+    private final Map<K, Set<V>> delegate;
+
+    public ImmutableSetMultiMap(Map<? extends K, ? extends Set<V>> m) {
+        final Map<K, Set<V>> copy = new HashMap<K, Set<V>>(m.size());
+        for (Entry<? extends K, ? extends Set<V>> e : m.entrySet()) {
+            copy.put(e.getKey(), Collections.unmodifiableSet(new HashSet<V>(e.getValue())));
+        }
+        this.delegate = Collections.unmodifiableMap(copy);
+    }
+
+    @Override
+    protected Map<K, Set<V>> getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    protected Set<V> newCollection() {
+        return new HashSet<V>();
+    }
+}
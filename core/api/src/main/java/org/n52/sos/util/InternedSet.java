@@ -0,0 +1,173 @@
+/**
+ * Copyright (C) 2013
+ * by 52 North Initiative for Geospatial Open Source Software GmbH
+ *
+ * Contact: Andreas Wytzisk
+ * 52 North Initiative for Geospatial Open Source Software GmbH
+ * Martin-Luther-King-Weg 24
+ * 48155 Muenster, Germany
+ * info@52north.org
+ *
+ * This program is free software; you can redistribute and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the
+ * Free Software Foundation.
+ *
+ * This program is distributed WITHOUT ANY WARRANTY; even without the implied
+ * WARRANTY OF MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program (see gnu-gpl v2.txt). If not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA or
+ * visit the Free Software Foundation web page, http://www.fsf.org.
+ */
+package org.n52.sos.util;
+
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Immutable set of identifiers that is stored as a sorted array of the
+ * integers the identifiers are interned to in a {@link IdentifierDictionary}.
+ * Every modifying operation throws an {@link UnsupportedOperationException}.
+ *
+ * @since 4.0.0
+ */
+public class InternedSet extends AbstractSet<String> implements Serializable {
+    private static final long serialVersionUID = 6398221925386183185L;
+
+    private final IdentifierDictionary dictionary;
+
+    private final int[] ids;
+
+    /**
+     * Creates a new set that contains the specified identifiers.
+     *
+     * @param identifiers
+     *            the identifiers
+     * @param dictionary
+     *            the dictionary to intern the identifiers with
+     */
+    public InternedSet(final Collection<String> identifiers, final IdentifierDictionary dictionary) {
+        this(dictionary.intern(identifiers), dictionary);
+    }
+
+    private InternedSet(final int[] ids, final IdentifierDictionary dictionary) {
+        this.ids = ids;
+        this.dictionary = dictionary;
+    }
+
+    @Override
+    public int size() {
+        return ids.length;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return ids.length == 0;
+    }
+
+    @Override
+    public boolean contains(final Object o) {
+        final int id = dictionary.lookup(o);
+        return id >= 0 && Arrays.binarySearch(ids, id) >= 0;
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        return new Iterator<String>() {
+            private int i = 0;
+
+            @Override
+            public boolean hasNext() {
+                return i < ids.length;
+            }
+
+            @Override
+            public String next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return dictionary.get(ids[i++]);
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    @Override
+    public boolean add(final String e) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean remove(final Object o) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean addAll(final Collection<? extends String> c) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean removeAll(final Collection<?> c) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean retainAll(final Collection<?> c) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void clear() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Creates the intersection of this and the specified set. If both sets
+     * share the same dictionary the sorted integers are merged without looking
+     * up any identifier.
+     *
+     * @param other
+     *            the other set
+     * @return a new, modifiable set containing the common identifiers
+     */
+    public Set<String> intersection(final Set<String> other) {
+        if (other instanceof InternedSet && ((InternedSet) other).dictionary == dictionary) {
+            final int[] others = ((InternedSet) other).ids;
+            final Set<String> intersection = new HashSet<String>(Math.min(ids.length, others.length));
+            int i = 0, j = 0;
+            while (i < ids.length && j < others.length) {
+                if (ids[i] < others[j]) {
+                    ++i;
+                } else if (ids[i] > others[j]) {
+                    ++j;
+                } else {
+                    intersection.add(dictionary.get(ids[i]));
+                    ++i;
+                    ++j;
+                }
+            }
+            return intersection;
+        }
+        final Set<String> intersection = new HashSet<String>(Math.min(ids.length, other.size()));
+        for (final int id : ids) {
+            final String identifier = dictionary.get(id);
+            if (other.contains(identifier)) {
+                intersection.add(identifier);
+            }
+        }
+        return intersection;
+    }
+}
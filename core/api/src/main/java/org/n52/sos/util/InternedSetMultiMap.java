@@ -0,0 +1,73 @@
+/**
+ * Copyright (C) 2013
+ * by 52 North Initiative for Geospatial Open Source Software GmbH
+ *
+ * Contact: Andreas Wytzisk
+ * 52 North Initiative for Geospatial Open Source Software GmbH
+ * Martin-Luther-King-Weg 24
+ * 48155 Muenster, Germany
+ * info@52north.org
+ *
+ * This program is free software; you can redistribute and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the
+ * Free Software Foundation.
+ *
+ * This program is distributed WITHOUT ANY WARRANTY; even without the implied
+ * WARRANTY OF MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program (see gnu-gpl v2.txt). If not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA or
+ * visit the Free Software Foundation web page, http://www.fsf.org.
+ */
+package org.n52.sos.util;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+/**
+ * Immutable {@link SetMultiMap} of identifiers that is created as a copy of
+ * another map. Keys and values are interned in a {@link IdentifierDictionary},
+ * the values are stored as {@link InternedSet}s. Every modifying operation
+ * throws an {@link UnsupportedOperationException}.
+ *
+ * @since 4.0.0
+ */
+public class InternedSetMultiMap extends AbstractDelegatingMultiMap<String, String, Set<String>> implements
+        SetMultiMap<String, String>, Serializable {
+    private static final long serialVersionUID = 2912618398327434718L;
+
+    private final IdentifierDictionary dictionary;
+
+    private final Map<String, Set<String>> delegate;
+
+    public InternedSetMultiMap(final Map<String, ? extends Set<String>> m, final IdentifierDictionary dictionary) {
+        final Map<String, Set<String>> copy = new HashMap<String, Set<String>>(m.size());
+        for (final Entry<String, ? extends Set<String>> e : m.entrySet()) {
+            copy.put(dictionary.canonicalize(e.getKey()), new InternedSet(e.getValue(), dictionary));
+        }
+        this.dictionary = dictionary;
+        this.delegate = Collections.unmodifiableMap(copy);
+    }
+
+    @Override
+    public boolean containsCollectionValue(final String v) {
+        return dictionary.lookup(v) >= 0 && super.containsCollectionValue(v);
+    }
+
+    @Override
+    protected Map<String, Set<String>> getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    protected Set<String> newCollection() {
+        return new HashSet<String>();
+    }
+}
@@ -68,7 +68,10 @@ public final class JavaHelper {
     public static String generateID(final String message) {
         final long autoGeneratredID = new DateTime().getMillis();
         final String concate = message + Long.toString(autoGeneratredID);
-        return bytesToHex(messageDigest.digest(concate.getBytes()));
+        // the message digest is shared, e.g. by concurrently encoded observations
+        synchronized (messageDigest) {
+            return bytesToHex(messageDigest.digest(concate.getBytes()));
+        }
     }
 
     /**
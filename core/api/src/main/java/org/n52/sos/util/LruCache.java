@@ -0,0 +1,153 @@
+/**
+ * Copyright (C) 2013
+ * by 52 North Initiative for Geospatial Open Source Software GmbH
+ *
+ * Contact: Andreas Wytzisk
+ * 52 North Initiative for Geospatial Open Source Software GmbH
+ * Martin-Luther-King-Weg 24
+ * 48155 Muenster, Germany
+ * info@52north.org
+ *
+ * This program is free software; you can redistribute and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the
+ * Free Software Foundation.
+ *
+ * This program is distributed WITHOUT ANY WARRANTY; even without the implied
+ * WARRANTY OF MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program (see gnu-gpl v2.txt). If not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA or
+ * visit the Free Software Foundation web page, http://www.fsf.org.
+ */
+package org.n52.sos.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * Bounded, thread safe map that removes the least recently used entries if
+ * the capacity is exceeded. A capacity of <code>0</code> disables the cache.
+ * <p/>
+ * All methods synchronize on the cache instance, so callers can synchronize on
+ * it as well to combine several operations or to keep data of their own
+ * consistent with the entries (see {@link #evicted(Object, Object)}).
+ * 
+ * @param <K>
+ *            the key type
+ * @param <V>
+ *            the value type
+ * 
+ * @since 4.0.0
+ */
+public class LruCache<K, V> {
+
+    private final Map<K, V> entries = new LinkedHashMap<K, V>(16, 0.75f, true) {
+        private static final long serialVersionUID = 4726391683459874150L;
+
+        @Override
+        protected boolean removeEldestEntry(final Entry<K, V> eldest) {
+            if (size() > capacity) {
+                evicted(eldest.getKey(), eldest.getValue());
+                return true;
+            }
+            return false;
+        }
+    };
+
+    private int capacity;
+
+    /**
+     * @param capacity
+     *            the maximum number of entries, <code>0</code> disables the
+     *            cache
+     */
+    public LruCache(final int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * @param key
+     *            the key
+     * @return the value of the key or <code>null</code> if it is not cached
+     */
+    public synchronized V get(final K key) {
+        return entries.get(key);
+    }
+
+    /**
+     * Caches the value if the cache is enabled, the least recently used entry
+     * is removed if the capacity is exceeded.
+     * 
+     * @param key
+     *            the key
+     * @param value
+     *            the value
+     * @return <code>true</code> if the value was cached
+     */
+    public synchronized boolean put(final K key, final V value) {
+        if (capacity > 0) {
+            entries.put(key, value);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @param key
+     *            the key
+     * @return the removed value or <code>null</code> if it was not cached
+     */
+    public synchronized V remove(final K key) {
+        return entries.remove(key);
+    }
+
+    /**
+     * Removes all entries
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Sets the capacity and removes the least recently used entries that
+     * exceed it.
+     * 
+     * @param capacity
+     *            the maximum number of entries, <code>0</code> disables the
+     *            cache
+     */
+    public synchronized void setCapacity(final int capacity) {
+        this.capacity = capacity;
+        final Iterator<Entry<K, V>> iterator = entries.entrySet().iterator();
+        while (entries.size() > capacity && iterator.hasNext()) {
+            final Entry<K, V> eldest = iterator.next();
+            evicted(eldest.getKey(), eldest.getValue());
+            iterator.remove();
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Called with the lock of the cache held for every entry that is removed
+     * because the capacity is exceeded. Entries that are removed with
+     * {@link #remove(Object)} or {@link #clear()} are not reported.
+     * 
+     * @param key
+     *            the key of the removed entry
+     * @param value
+     *            the value of the removed entry
+     */
+    protected void evicted(final K key, final V value) {
+    }
+}
@@ -23,6 +23,9 @@
  */
 package org.n52.sos.util;
 
+import java.util.Map;
+import java.util.Set;
+
 /**
  * @author Christian Autermann <c.autermann@52north.org>
  */
@@ -39,6 +42,15 @@ public final class MultiMaps {
         return new SynchronizedSetMultiMap<K, V>();
     }
 
+    public static <K, V> SetMultiMap<K, V> newImmutableSetMultiMap(Map<? extends K, ? extends Set<V>> m) {
+        return new ImmutableSetMultiMap<K, V>(m);
+    }
+
+    public static SetMultiMap<String, String> newInternedSetMultiMap(Map<String, ? extends Set<String>> m,
+            IdentifierDictionary dictionary) {
+        return new InternedSetMultiMap(m, dictionary);
+    }
+
     public static <K, V> ListMultiMap<K, V> newListMultiMap() {
         return new LinkedListMultiMap<K, V>();
     }
@@ -23,8 +23,10 @@
  */
 package org.n52.sos.util;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.RandomAccess;
 
 import org.n52.sos.ogc.gml.time.Time;
 import org.n52.sos.ogc.om.MultiObservationValues;
@@ -40,6 +42,7 @@ import org.n52.sos.ogc.om.values.QuantityValue;
 import org.n52.sos.ogc.om.values.SweDataArrayValue;
 import org.n52.sos.ogc.om.values.TVPValue;
 import org.n52.sos.ogc.om.values.TextValue;
+import org.n52.sos.ogc.om.values.TimeValueColumns;
 import org.n52.sos.ogc.om.values.Value;
 import org.n52.sos.ogc.swe.SweAbstractDataComponent;
 import org.n52.sos.ogc.swe.SweDataArray;
@@ -124,6 +127,17 @@ public final class SweHelper {
                 return ((SweDataArrayValue) multiValue.getValue()).getValue();
             } else if (multiValue.getValue() instanceof TVPValue) {
                 TVPValue tvpValues = (TVPValue) multiValue.getValue();
+                TimeValueColumns columns = tvpValues.getTimeValueColumns();
+                if (columns != null) {
+                    // format the blocks on demand instead of holding all tokens in memory
+                    if (columns.size() > 0) {
+                        dataArray.setElementType(createElementType(columns.getValue(0),
+                                observablePropertyIdentifier));
+                        dataArray.setValues(new TimeValueColumnsBlockList(dataArray.getElementType(),
+                                observablePropertyIdentifier, columns));
+                    }
+                    return dataArray;
+                }
                 for (TimeValuePair timeValuePair : tvpValues.getValue()) {
                     if (!dataArray.isSetElementTyp()) {
                         dataArray.setElementType(createElementType(timeValuePair.getValue(),
@@ -233,4 +247,65 @@ public final class SweHelper {
     private SweHelper() {
     }
 
+    /**
+     * Read-only view of {@link TimeValueColumns} as the blocks of a
+     * {@link SweDataArray}. The tokens are formatted on access like
+     * {@link SweHelper#createBlock(SweAbstractDataComponent, Time, String, Value)}
+     * does.
+     */
+    private static class TimeValueColumnsBlockList extends AbstractList<List<String>> implements RandomAccess {
+
+        private static final int TIME_TOKEN = 0;
+
+        private static final int VALUE_TOKEN = 1;
+
+        private static final int PHENOMENON_TOKEN = 2;
+
+        private final int[] tokenTypes;
+
+        private final String phenID;
+
+        private final TimeValueColumns columns;
+
+        TimeValueColumnsBlockList(SweAbstractDataComponent elementType, String phenID, TimeValueColumns columns) {
+            this.phenID = phenID;
+            this.columns = columns;
+            List<SweField> fields = ((SweDataRecord) elementType).getFields();
+            int[] types = new int[fields.size()];
+            int count = 0;
+            for (SweField sweField : fields) {
+                if (sweField.getElement() instanceof SweTime) {
+                    types[count++] = TIME_TOKEN;
+                } else if (sweField.getElement() instanceof SweAbstractDataComponent
+                        && sweField.getElement().getDefinition().equals(phenID)) {
+                    types[count++] = VALUE_TOKEN;
+                } else if (sweField.getElement() instanceof SweObservableProperty) {
+                    types[count++] = PHENOMENON_TOKEN;
+                }
+            }
+            this.tokenTypes = new int[count];
+            System.arraycopy(types, 0, this.tokenTypes, 0, count);
+        }
+
+        @Override
+        public List<String> get(int index) {
+            List<String> block = new ArrayList<String>(tokenTypes.length);
+            for (int tokenType : tokenTypes) {
+                if (tokenType == TIME_TOKEN) {
+                    block.add(columns.formatTime(index));
+                } else if (tokenType == VALUE_TOKEN) {
+                    block.add(columns.formatValue(index));
+                } else {
+                    block.add(phenID);
+                }
+            }
+            return block;
+        }
+
+        @Override
+        public int size() {
+            return columns.size();
+        }
+    }
+
 }
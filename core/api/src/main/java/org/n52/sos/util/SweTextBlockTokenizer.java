@@ -0,0 +1,189 @@
+/**
+ * Copyright (C) 2013
+ * by 52 North Initiative for Geospatial Open Source Software GmbH
+ *
+ * Contact: Andreas Wytzisk
+ * 52 North Initiative for Geospatial Open Source Software GmbH
+ * Martin-Luther-King-Weg 24
+ * 48155 Muenster, Germany
+ * info@52north.org
+ *
+ * This program is free software; you can redistribute and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the
+ * Free Software Foundation.
+ *
+ * This program is distributed WITHOUT ANY WARRANTY; even without the implied
+ * WARRANTY OF MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program (see gnu-gpl v2.txt). If not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA or
+ * visit the Free Software Foundation web page, http://www.fsf.org.
+ */
+package org.n52.sos.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.n52.sos.ogc.swe.encoding.SweTextEncoding;
+
+/**
+ * Splits SWE text encoded values into blocks of tokens in a single pass over
+ * the characters. The separators are matched literally (in contrast to
+ * {@link String#split(String)} which interprets them as regular expressions)
+ * and the values are read incrementally from a {@link Reader}, so only the
+ * current block is held in memory.
+ * <p/>
+ * Empty blocks are skipped and trailing empty tokens of a block are removed.
+ * 
+ * @since 4.0.0
+ */
+public class SweTextBlockTokenizer {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Reader reader;
+
+    private final char[] tokenSeparator;
+
+    private final char[] blockSeparator;
+
+    private final char[] buffer = new char[BUFFER_SIZE];
+
+    private final StringBuilder token = new StringBuilder();
+
+    private int position;
+
+    private int length;
+
+    private boolean endOfInput;
+
+    /**
+     * @param reader
+     *            the reader to read the values from
+     * @param tokenSeparator
+     *            the token separator
+     * @param blockSeparator
+     *            the block separator
+     */
+    public SweTextBlockTokenizer(final Reader reader, final String tokenSeparator, final String blockSeparator) {
+        if (StringHelper.isNullOrEmpty(tokenSeparator) || StringHelper.isNullOrEmpty(blockSeparator)) {
+            throw new IllegalArgumentException("tokenSeparator and blockSeparator must not be empty");
+        }
+        this.reader = reader;
+        this.tokenSeparator = tokenSeparator.toCharArray();
+        this.blockSeparator = blockSeparator.toCharArray();
+    }
+
+    /**
+     * @param values
+     *            the values to split
+     * @param encoding
+     *            the text encoding of the values
+     */
+    public SweTextBlockTokenizer(final String values, final SweTextEncoding encoding) {
+        this(new StringReader(values), encoding.getTokenSeparator(), encoding.getBlockSeparator());
+    }
+
+    /**
+     * Read the next block
+     * 
+     * @return the tokens of the next non empty block or <code>null</code> if
+     *         the end of the values is reached
+     * 
+     * @throws IOException
+     *             If the values can not be read
+     */
+    public List<String> nextBlock() throws IOException {
+        List<String> block = new ArrayList<String>();
+        while (fill()) {
+            final char c = buffer[position++];
+            token.append(c);
+            if (endsWith(blockSeparator)) {
+                token.setLength(token.length() - blockSeparator.length);
+                block.add(token.toString());
+                token.setLength(0);
+                if (trim(block)) {
+                    return block;
+                }
+                block = new ArrayList<String>();
+            } else if (endsWith(tokenSeparator)) {
+                token.setLength(token.length() - tokenSeparator.length);
+                block.add(token.toString());
+                token.setLength(0);
+            }
+        }
+        if (token.length() > 0 || !block.isEmpty()) {
+            block.add(token.toString());
+            token.setLength(0);
+            if (trim(block)) {
+                return block;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Read all remaining blocks
+     * 
+     * @return the tokens of the remaining non empty blocks
+     * 
+     * @throws IOException
+     *             If the values can not be read
+     */
+    public List<List<String>> readBlocks() throws IOException {
+        final List<List<String>> blocks = new ArrayList<List<String>>();
+        List<String> block;
+        while ((block = nextBlock()) != null) {
+            blocks.add(block);
+        }
+        return blocks;
+    }
+
+    /**
+     * Remove the trailing empty tokens of the block
+     * 
+     * @return <code>true</code> if the block is not empty afterwards
+     */
+    private boolean trim(final List<String> block) {
+        int size = block.size();
+        while (size > 0 && block.get(size - 1).isEmpty()) {
+            block.remove(--size);
+        }
+        return size > 0;
+    }
+
+    private boolean endsWith(final char[] separator) {
+        final int offset = token.length() - separator.length;
+        if (offset < 0) {
+            return false;
+        }
+        for (int i = 0; i < separator.length; ++i) {
+            if (token.charAt(offset + i) != separator[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean fill() throws IOException {
+        if (position < length) {
+            return true;
+        }
+        if (endOfInput) {
+            return false;
+        }
+        length = reader.read(buffer, 0, buffer.length);
+        position = 0;
+        if (length <= 0) {
+            length = 0;
+            endOfInput = true;
+            return false;
+        }
+        return true;
+    }
+}
@@ -55,6 +55,7 @@ public final class XmlOptionsHelper {
     }
     private final ReentrantLock lock = new ReentrantLock();
     private XmlOptions xmlOptions;
+    private XmlOptions xmlFragmentOptions;
     private String characterEncoding = "UTF-8";
     private boolean prettyPrint = true;
 
@@ -111,11 +112,49 @@ public final class XmlOptionsHelper {
         return xmlOptions;
     }
 
+    /**
+     * Get the XML options to save single elements of a document that is
+     * written incrementally. The saved fragments contain the outer element
+     * and all required namespace declarations but no XML declaration.
+     * 
+     * @return XML options for document fragments
+     */
+    public XmlOptions getXmlFragmentOptions() {
+        if (this.xmlFragmentOptions == null) {
+            this.lock.lock();
+            try {
+                if (xmlFragmentOptions == null) {
+                    xmlFragmentOptions = new XmlOptions();
+                    xmlFragmentOptions.setSaveSuggestedPrefixes(getPrefixMap());
+                    xmlFragmentOptions.setSaveAggressiveNamespaces();
+                    if (prettyPrint) {
+                        xmlFragmentOptions.setSavePrettyPrint();
+                    }
+                    xmlFragmentOptions.setSaveNamespacesFirst();
+                    xmlFragmentOptions.setCharacterEncoding(characterEncoding);
+                    xmlFragmentOptions.setSaveOuter();
+                    xmlFragmentOptions.setSaveNoXmlDecl();
+                }
+            } finally {
+                this.lock.unlock();
+            }
+        }
+        return xmlFragmentOptions;
+    }
+
+    /**
+     * @return the character encoding of XML documents
+     */
+    public String getCharacterEncoding() {
+        return characterEncoding;
+    }
+
     /**
      * Cleanup, set XML options to null
      */
     public void cleanup() {
         xmlOptions = null;
+        xmlFragmentOptions = null;
     }
 
     public void setPrettyPrint(boolean prettyPrint) {
@@ -146,6 +185,7 @@ public final class XmlOptionsHelper {
         this.lock.lock();
         try {
             this.xmlOptions = null;
+            this.xmlFragmentOptions = null;
         } finally {
             this.lock.unlock();
         }
@@ -0,0 +1,185 @@
+/**
+ * Copyright (C) 2013
+ * by 52 North Initiative for Geospatial Open Source Software GmbH
+ *
+ * Contact: Andreas Wytzisk
+ * 52 North Initiative for Geospatial Open Source Software GmbH
+ * Martin-Luther-King-Weg 24
+ * 48155 Muenster, Germany
+ * info@52north.org
+ *
+ * This program is free software; you can redistribute and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the
+ * Free Software Foundation.
+ *
+ * This program is distributed WITHOUT ANY WARRANTY; even without the implied
+ * WARRANTY OF MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program (see gnu-gpl v2.txt). If not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA or
+ * visit the Free Software Foundation web page, http://www.fsf.org.
+ */
+package org.n52.sos.event;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+import org.n52.sos.util.CollectionHelper;
+
+/**
+ * @since 4.0.0
+ */
+public class SosEventBusTest {
+    private static final int EVENTS = 1000;
+
+    private final SosEventBus bus = SosEventBus.getInstance();
+
+    private TestListener listener;
+
+    @After
+    public void reset() throws Exception {
+        bus.setAsynchronous(false);
+        bus.setBlockWhenFull(true);
+        bus.setQueueCapacity(10000);
+        if (listener != null) {
+            bus.unregister(listener);
+        }
+    }
+
+    @Test
+    public void should_handle_events_synchronously_by_default() {
+        listener = new TestListener(1);
+        bus.register(listener);
+        bus.submit(new TestEvent(0));
+        assertThat(listener.received, contains(0));
+        assertThat(listener.batches, is(0));
+    }
+
+    @Test
+    public void should_handle_events_asynchronously_in_order() throws Exception {
+        listener = new TestListener(EVENTS);
+        bus.register(listener);
+        bus.setAsynchronous(true);
+        for (int i = 0; i < EVENTS; ++i) {
+            bus.submit(new TestEvent(i));
+        }
+        assertThat(listener.latch.await(10, TimeUnit.SECONDS), is(true));
+        assertThat(listener.received, hasSize(EVENTS));
+        for (int i = 0; i < EVENTS; ++i) {
+            assertThat(listener.received.get(i), is(i));
+        }
+    }
+
+    @Test
+    public void should_keep_pending_events_in_order_when_the_capacity_changes() throws Exception {
+        listener = new TestListener(EVENTS);
+        bus.register(listener);
+        bus.setAsynchronous(true);
+        listener.block();
+        for (int i = 0; i < EVENTS / 2; ++i) {
+            bus.submit(new TestEvent(i));
+        }
+        bus.setQueueCapacity(EVENTS * 2);
+        for (int i = EVENTS / 2; i < EVENTS; ++i) {
+            bus.submit(new TestEvent(i));
+        }
+        listener.unblock();
+        assertThat(listener.latch.await(10, TimeUnit.SECONDS), is(true));
+        for (int i = 0; i < EVENTS; ++i) {
+            assertThat(listener.received.get(i), is(i));
+        }
+    }
+
+    @Test
+    public void should_not_discard_events_of_reliable_listeners() throws Exception {
+        listener = new ReliableTestListener(EVENTS);
+        bus.register(listener);
+        bus.setAsynchronous(true);
+        bus.setBlockWhenFull(false);
+        bus.setQueueCapacity(1);
+        listener.block();
+        for (int i = 0; i < EVENTS; ++i) {
+            bus.submit(new TestEvent(i));
+        }
+        listener.unblock();
+        assertThat(listener.latch.await(10, TimeUnit.SECONDS), is(true));
+        assertThat(listener.received, hasSize(EVENTS));
+    }
+
+    @Test
+    public void should_not_notify_unregistered_listeners() {
+        listener = new TestListener(1);
+        bus.register(listener);
+        bus.unregister(listener);
+        bus.submit(new TestEvent(0));
+        assertThat(listener.received, is(empty()));
+    }
+
+    private static class TestEvent implements SosEvent {
+        private final int number;
+
+        TestEvent(int number) {
+            this.number = number;
+        }
+    }
+
+    private static class TestListener implements SosEventBatchListener {
+        private final List<Integer> received = Collections.synchronizedList(CollectionHelper.<Integer>list());
+        private final CountDownLatch latch;
+        private volatile int batches = 0;
+        private volatile CountDownLatch blocked = new CountDownLatch(0);
+
+        TestListener(int events) {
+            this.latch = new CountDownLatch(events);
+        }
+
+        void block() {
+            blocked = new CountDownLatch(1);
+        }
+
+        void unblock() {
+            blocked.countDown();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Set<Class<? extends SosEvent>> getTypes() {
+            return CollectionHelper.<Class<? extends SosEvent>>set(TestEvent.class);
+        }
+
+        @Override
+        public void handle(SosEvent event) {
+            try {
+                blocked.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            received.add(((TestEvent) event).number);
+            latch.countDown();
+        }
+
+        @Override
+        public void handle(List<SosEvent> events) {
+            ++batches;
+            for (SosEvent event : events) {
+                handle(event);
+            }
+        }
+    }
+
+    private static class ReliableTestListener extends TestListener implements ReliableSosEventListener {
+        ReliableTestListener(int events) {
+            super(events);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/**
+ * Copyright (C) 2013
+ * by 52 North Initiative for Geospatial Open Source Software GmbH
+ *
+ * Contact: Andreas Wytzisk
+ * 52 North Initiative for Geospatial Open Source Software GmbH
+ * Martin-Luther-King-Weg 24
+ * 48155 Muenster, Germany
+ * info@52north.org
+ *
+ * This program is free software; you can redistribute and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the
+ * Free Software Foundation.
+ *
+ * This program is distributed WITHOUT ANY WARRANTY; even without the implied
+ * WARRANTY OF MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program (see gnu-gpl v2.txt). If not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA or
+ * visit the Free Software Foundation web page, http://www.fsf.org.
+ */
+package org.n52.sos.ogc.om.values;
+
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.junit.Test;
+import org.n52.sos.ogc.gml.time.TimeInstant;
+import org.n52.sos.ogc.gml.time.TimePeriod;
+import org.n52.sos.ogc.om.TimeValuePair;
+
+public class TVPValueTest {
+
+    private static final DateTime TIME = new DateTime(2013, 1, 1, 0, 0, DateTimeZone.forOffsetHours(1));
+
+    @Test
+    public void shouldStoreQuantitiesColumnOrientedAndSortByTime() {
+        TVPValue tvpValue = new TVPValue();
+        tvpValue.addValue(pair(TIME.plusHours(2), quantity("1.50")));
+        tvpValue.addValue(pair(TIME, quantity("3E+5")));
+        tvpValue.addValue(pair(TIME.plusHours(1), quantity("-0.001")));
+
+        assertThat(tvpValue.getTimeValueColumns(), is(notNullValue()));
+        List<TimeValuePair> pairs = tvpValue.getValue();
+        assertThat(pairs.size(), is(3));
+        assertThat(((TimeInstant) pairs.get(0).getTime()).getValue(), is(TIME));
+        assertThat(pairs.get(0).getValue().getValue(), is((Object) new BigDecimal("3E+5")));
+        assertThat(pairs.get(1).getValue().getValue(), is((Object) new BigDecimal("-0.001")));
+        assertThat(pairs.get(2).getValue().getValue(), is((Object) new BigDecimal("1.50")));
+        assertThat(pairs.get(2).getValue().getUnit(), is("m"));
+        assertThat(tvpValue.getTimeValueColumns().formatValue(2), is("1.50"));
+    }
+
+    @Test
+    public void shouldKeepInsertionOrderForEqualTimes() {
+        TVPValue tvpValue = new TVPValue();
+        tvpValue.addValue(pair(TIME.plusHours(1), new CategoryValue("c")));
+        tvpValue.addValue(pair(TIME, new CategoryValue("a")));
+        tvpValue.addValue(pair(TIME, new CategoryValue("b")));
+
+        List<TimeValuePair> pairs = tvpValue.getValue();
+        assertThat(pairs.get(0).getValue().getValue(), is((Object) "a"));
+        assertThat(pairs.get(1).getValue().getValue(), is((Object) "b"));
+        assertThat(pairs.get(2).getValue().getValue(), is((Object) "c"));
+        assertThat(pairs.get(2).getValue(), is(instanceOf(CategoryValue.class)));
+    }
+
+    @Test
+    public void shouldFallBackToObjectsForMixedValues() {
+        TVPValue tvpValue = new TVPValue();
+        tvpValue.addValue(pair(TIME.plusHours(1), quantity("1")));
+        tvpValue.addValue(pair(TIME, new CountValue(2)));
+
+        assertThat(tvpValue.getTimeValueColumns(), is(nullValue()));
+        List<TimeValuePair> pairs = tvpValue.getValue();
+        assertThat(pairs.size(), is(2));
+        assertThat(pairs.get(0).getValue(), is(instanceOf(CountValue.class)));
+        assertThat(pairs.get(1).getValue(), is(instanceOf(QuantityValue.class)));
+    }
+
+    @Test
+    public void shouldCalculatePhenomenonTime() {
+        TVPValue tvpValue = new TVPValue();
+        tvpValue.addValue(pair(TIME.plusHours(1), quantity("1")));
+        tvpValue.addValue(pair(TIME, quantity("2")));
+
+        TimePeriod phenomenonTime = (TimePeriod) tvpValue.getPhenomenonTime();
+        assertThat(phenomenonTime.getStart(), is(TIME));
+        assertThat(phenomenonTime.getEnd(), is(TIME.plusHours(1)));
+    }
+
+    private TimeValuePair pair(DateTime time, Value<?> value) {
+        return new TimeValuePair(new TimeInstant(time), value);
+    }
+
+    private QuantityValue quantity(String value) {
+        QuantityValue quantityValue = new QuantityValue(new BigDecimal(value));
+        quantityValue.setUnit("m");
+        return quantityValue;
+    }
+}
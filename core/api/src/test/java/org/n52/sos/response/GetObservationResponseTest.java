@@ -0,0 +1,104 @@
+/**
+ * Copyright (C) 2013
+ * by 52 North Initiative for Geospatial Open Source Software GmbH
+ *
+ * Contact: Andreas Wytzisk
+ * 52 North Initiative for Geospatial Open Source Software GmbH
+ * Martin-Luther-King-Weg 24
+ * 48155 Muenster, Germany
+ * info@52north.org
+ *
+ * This program is free software; you can redistribute and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the
+ * Free Software Foundation.
+ *
+ * This program is distributed WITHOUT ANY WARRANTY; even without the implied
+ * WARRANTY OF MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program (see gnu-gpl v2.txt). If not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA or
+ * visit the Free Software Foundation web page, http://www.fsf.org.
+ */
+package org.n52.sos.response;
+
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.joda.time.DateTime;
+import org.junit.Test;
+import org.n52.sos.ogc.gml.time.TimeInstant;
+import org.n52.sos.ogc.om.MultiObservationValues;
+import org.n52.sos.ogc.om.OmObservableProperty;
+import org.n52.sos.ogc.om.OmObservation;
+import org.n52.sos.ogc.om.OmObservationConstellation;
+import org.n52.sos.ogc.om.SingleObservationValue;
+import org.n52.sos.ogc.om.TimeValuePair;
+import org.n52.sos.ogc.om.values.QuantityValue;
+import org.n52.sos.ogc.om.values.TVPValue;
+import org.n52.sos.util.builder.ObservationBuilder;
+import org.n52.sos.util.builder.ObservationConstellationBuilder;
+
+public class GetObservationResponseTest {
+
+    private static final DateTime TIME = new DateTime(2013, 1, 1, 0, 0);
+
+    @Test
+    public void shouldMergeObservationsWithEqualConstellations() {
+        List<OmObservation> observations = new ArrayList<OmObservation>();
+        for (int i = 0; i < 6; i++) {
+            // equal, but not identical constellations for every second observation
+            observations.add(observation(constellation(i % 2 == 0 ? "a" : "b"), i));
+        }
+        GetObservationResponse response = new GetObservationResponse();
+        response.setObservationCollection(observations);
+        response.mergeObservationsWithSameX();
+
+        List<OmObservation> merged = response.getObservationCollection();
+        assertThat(merged.size(), is(2));
+        assertThat(merged.get(0).getObservationConstellation().getObservableProperty().getIdentifier(), is("a"));
+        assertThat(merged.get(0).getObservationID(), is("1"));
+        assertThat(merged.get(1).getObservationConstellation().getObservableProperty().getIdentifier(), is("b"));
+        assertValues(merged.get(0), 0, 2, 4);
+        assertValues(merged.get(1), 1, 3, 5);
+    }
+
+    @Test
+    public void shouldNotMergeObservationsWithDifferentConstellations() {
+        List<OmObservation> observations = new ArrayList<OmObservation>();
+        observations.add(observation(constellation("a"), 0));
+        observations.add(observation(constellation("b"), 1));
+        GetObservationResponse response = new GetObservationResponse();
+        response.setObservationCollection(observations);
+        response.mergeObservationsWithSameX();
+
+        assertThat(response.getObservationCollection().size(), is(2));
+        assertThat(response.getObservationCollection().get(1).getValue(), is(instanceOf(SingleObservationValue.class)));
+    }
+
+    private void assertValues(OmObservation observation, int... expected) {
+        assertThat(observation.getValue(), is(instanceOf(MultiObservationValues.class)));
+        List<TimeValuePair> values = ((TVPValue) observation.getValue().getValue()).getValue();
+        assertThat(values.size(), is(expected.length));
+        for (int i = 0; i < expected.length; i++) {
+            assertThat(values.get(i).getValue().getValue(), is((Object) BigDecimal.valueOf(expected[i])));
+        }
+    }
+
+    private OmObservationConstellation constellation(String observableProperty) {
+        return ObservationConstellationBuilder.anObservationConstellation()
+                .setObservableProperty(new OmObservableProperty(observableProperty)).build();
+    }
+
+    private OmObservation observation(OmObservationConstellation constellation, int value) {
+        return ObservationBuilder.anObservation().setObservationConstellation(constellation)
+                .setValue(new SingleObservationValue<BigDecimal>(new TimeInstant(TIME.plusHours(value)),
+                        new QuantityValue(BigDecimal.valueOf(value)))).build();
+    }
+}
@@ -0,0 +1,61 @@
+/**
+ * Copyright (C) 2013
+ * by 52 North Initiative for Geospatial Open Source Software GmbH
+ *
+ * Contact: Andreas Wytzisk
+ * 52 North Initiative for Geospatial Open Source Software GmbH
+ * Martin-Luther-King-Weg 24
+ * 48155 Muenster, Germany
+ * info@52north.org
+ *
+ * This program is free software; you can redistribute and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the
+ * Free Software Foundation.
+ *
+ * This program is distributed WITHOUT ANY WARRANTY; even without the implied
+ * WARRANTY OF MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program (see gnu-gpl v2.txt). If not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA or
+ * visit the Free Software Foundation web page, http://www.fsf.org.
+ */
+package org.n52.sos.response;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.junit.Test;
+import org.n52.sos.ogc.sos.SosConstants;
+
+/**
+ * @since 4.0.0
+ */
+public class ServiceResponseTest {
+
+    @Test
+    public void shouldInvokeWriterOnlyOnceWhenBuffering() {
+        final CountingWriter writer = new CountingWriter();
+        final ServiceResponse response = new ServiceResponse(writer, SosConstants.CONTENT_TYPE_XML, false, true);
+        assertThat(response.isStreaming(), is(true));
+        assertThat(new String(response.getByteArray()), is("content"));
+        assertThat(new String(response.getByteArray()), is("content"));
+        assertThat(writer.invocations, is(1));
+        assertThat(response.isStreaming(), is(false));
+        assertThat(response.getContentLength(), is(7));
+    }
+
+    private static class CountingWriter implements ResponseWriter {
+        private int invocations;
+
+        @Override
+        public void write(final OutputStream outputStream) throws IOException {
+            ++invocations;
+            outputStream.write("content".getBytes());
+        }
+    }
+}
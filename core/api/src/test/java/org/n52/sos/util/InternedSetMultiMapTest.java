@@ -0,0 +1,98 @@
+/**
+ * Copyright (C) 2013
+ * by 52 North Initiative for Geospatial Open Source Software GmbH
+ *
+ * Contact: Andreas Wytzisk
+ * 52 North Initiative for Geospatial Open Source Software GmbH
+ * Martin-Luther-King-Weg 24
+ * 48155 Muenster, Germany
+ * info@52north.org
+ *
+ * This program is free software; you can redistribute and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the
+ * Free Software Foundation.
+ *
+ * This program is distributed WITHOUT ANY WARRANTY; even without the implied
+ * WARRANTY OF MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program (see gnu-gpl v2.txt). If not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA or
+ * visit the Free Software Foundation web page, http://www.fsf.org.
+ */
+package org.n52.sos.util;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static org.n52.sos.util.CollectionHelper.intersection;
+import static org.n52.sos.util.CollectionHelper.set;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @since 4.0.0
+ */
+public class InternedSetMultiMapTest {
+    private IdentifierDictionary dictionary;
+
+    private SetMultiMap<String, String> map;
+
+    @Before
+    public void createMap() {
+        final SetMultiMap<String, String> source = MultiMaps.newSetMultiMap();
+        source.addAll("p1", set("o1", "o2", "o3"));
+        source.addAll("p2", set("o3", "o4"));
+        dictionary = new IdentifierDictionary();
+        map = MultiMaps.newInternedSetMultiMap(source, dictionary);
+    }
+
+    @Test
+    public void should_contain_the_values_of_the_source() {
+        assertThat(map.get("p1"), is(equalTo(set("o1", "o2", "o3"))));
+        assertThat(map.get("p2"), containsInAnyOrder("o3", "o4"));
+        assertThat(map.containsCollectionValue("o4"), is(true));
+        assertThat(map.containsCollectionValue("o5"), is(false));
+        assertThat(map.get("p2").contains("o1"), is(false));
+    }
+
+    @Test
+    public void should_intern_every_identifier_once() {
+        assertThat(dictionary.size(), is(6));
+    }
+
+    @Test
+    public void should_intersect_interned_sets() {
+        assertThat(intersection(map.get("p1"), map.get("p2")), is(equalTo(set("o3"))));
+        assertThat(intersection(map.get("p1"), set("o2", "o5")), is(equalTo(set("o2"))));
+        assertThat(intersection(set("o4", "o5"), map.get("p2")), is(equalTo(set("o4"))));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void should_not_be_modifiable() {
+        map.get("p1").add("o4");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void should_be_serializable() throws IOException, ClassNotFoundException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final ObjectOutputStream oos = new ObjectOutputStream(out);
+        oos.writeObject(map);
+        oos.close();
+        final ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(out.toByteArray()));
+        final SetMultiMap<String, String> copy = (SetMultiMap<String, String>) in.readObject();
+        final Set<String> values = copy.get("p2");
+        assertThat(values, containsInAnyOrder("o3", "o4"));
+        assertThat(values.contains("o3"), is(true));
+        assertThat(intersection(copy.get("p1"), values), is(equalTo(set("o3"))));
+    }
+}
@@ -0,0 +1,105 @@
+/**
+ * Copyright (C) 2013
+ * by 52 North Initiative for Geospatial Open Source Software GmbH
+ *
+ * Contact: Andreas Wytzisk
+ * 52 North Initiative for Geospatial Open Source Software GmbH
+ * Martin-Luther-King-Weg 24
+ * 48155 Muenster, Germany
+ * info@52north.org
+ *
+ * This program is free software; you can redistribute and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the
+ * Free Software Foundation.
+ *
+ * This program is distributed WITHOUT ANY WARRANTY; even without the implied
+ * WARRANTY OF MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program (see gnu-gpl v2.txt). If not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA or
+ * visit the Free Software Foundation web page, http://www.fsf.org.
+ */
+package org.n52.sos.util;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @since 4.0.0
+ */
+public class LruCacheTest {
+
+    private List<String> evicted;
+
+    private LruCache<String, String> cache;
+
+    @Before
+    public void setUp() {
+        evicted = new ArrayList<String>();
+        cache = new LruCache<String, String>(2) {
+            @Override
+            protected void evicted(final String key, final String value) {
+                evicted.add(key);
+            }
+        };
+    }
+
+    @Test
+    public void shouldReturnCachedValues() {
+        assertThat(cache.put("key", "value"), is(true));
+        assertThat(cache.get("key"), is("value"));
+        assertThat(cache.get("other"), is(nullValue()));
+        assertThat(cache.size(), is(1));
+    }
+
+    @Test
+    public void shouldRemoveLeastRecentlyUsedEntry() {
+        cache.put("key1", "value1");
+        cache.put("key2", "value2");
+        cache.get("key1");
+        cache.put("key3", "value3");
+        assertThat(cache.size(), is(2));
+        assertThat(cache.get("key1"), is("value1"));
+        assertThat(cache.get("key2"), is(nullValue()));
+        assertThat(evicted, contains("key2"));
+    }
+
+    @Test
+    public void shouldRemoveEntriesIfCapacityIsReduced() {
+        cache.put("key1", "value1");
+        cache.put("key2", "value2");
+        cache.setCapacity(1);
+        assertThat(cache.getCapacity(), is(1));
+        assertThat(cache.size(), is(1));
+        assertThat(cache.get("key2"), is("value2"));
+        assertThat(evicted, contains("key1"));
+    }
+
+    @Test
+    public void shouldNotCacheIfDisabled() {
+        cache.setCapacity(0);
+        assertThat(cache.put("key", "value"), is(false));
+        assertThat(cache.get("key"), is(nullValue()));
+        assertThat(cache.size(), is(0));
+    }
+
+    @Test
+    public void shouldNotReportRemovedEntries() {
+        cache.put("key1", "value1");
+        cache.put("key2", "value2");
+        assertThat(cache.remove("key1"), is("value1"));
+        assertThat(cache.remove("key1"), is(nullValue()));
+        assertThat(cache.size(), is(1));
+        cache.clear();
+        assertThat(cache.size(), is(0));
+        assertThat(evicted, is(empty()));
+    }
+}
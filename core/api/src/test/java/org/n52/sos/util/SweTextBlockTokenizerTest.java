@@ -0,0 +1,94 @@
+/**
+ * Copyright (C) 2013
+ * by 52 North Initiative for Geospatial Open Source Software GmbH
+ *
+ * Contact: Andreas Wytzisk
+ * 52 North Initiative for Geospatial Open Source Software GmbH
+ * Martin-Luther-King-Weg 24
+ * 48155 Muenster, Germany
+ * info@52north.org
+ *
+ * This program is free software; you can redistribute and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the
+ * Free Software Foundation.
+ *
+ * This program is distributed WITHOUT ANY WARRANTY; even without the implied
+ * WARRANTY OF MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program (see gnu-gpl v2.txt). If not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA or
+ * visit the Free Software Foundation web page, http://www.fsf.org.
+ */
+package org.n52.sos.util;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * @since 4.0.0
+ */
+public class SweTextBlockTokenizerTest {
+
+    private static List<List<String>> tokenize(final String values, final String tokenSeparator,
+            final String blockSeparator) throws IOException {
+        return new SweTextBlockTokenizer(new StringReader(values), tokenSeparator, blockSeparator).readBlocks();
+    }
+
+    @Test
+    public void should_split_blocks_and_tokens() throws IOException {
+        final List<List<String>> blocks = tokenize("2@@2012-11-19T13:30:00Z,1.5@@2012-11-19T13:31:00Z,2.5", ",", "@@");
+        assertThat(blocks.size(), is(3));
+        assertThat(blocks.get(0), is(asList("2")));
+        assertThat(blocks.get(1), is(asList("2012-11-19T13:30:00Z", "1.5")));
+        assertThat(blocks.get(2), is(asList("2012-11-19T13:31:00Z", "2.5")));
+    }
+
+    @Test
+    public void should_match_separators_literally() throws IOException {
+        final List<List<String>> blocks = tokenize("a|b.c|d.", "|", ".");
+        assertThat(blocks.size(), is(2));
+        assertThat(blocks.get(0), is(asList("a", "b")));
+        assertThat(blocks.get(1), is(asList("c", "d")));
+    }
+
+    @Test
+    public void should_skip_empty_blocks_and_trailing_empty_tokens() throws IOException {
+        final List<List<String>> blocks = tokenize("a,,b,;;c,", ",", ";");
+        assertThat(blocks.size(), is(2));
+        assertThat(blocks.get(0), is(asList("a", "", "b")));
+        assertThat(blocks.get(1), is(asList("c")));
+    }
+
+    @Test
+    public void should_read_blocks_exceeding_the_buffer() throws IOException {
+        final StringBuilder values = new StringBuilder();
+        for (int i = 0; i < 5000; ++i) {
+            values.append("2012-11-19T13:30:00Z#").append(i).append("@@");
+        }
+        final List<List<String>> blocks = tokenize(values.toString(), "#", "@@");
+        assertThat(blocks.size(), is(5000));
+        assertThat(blocks.get(4999), is(asList("2012-11-19T13:30:00Z", "4999")));
+    }
+
+    @Test
+    public void should_return_no_blocks_for_empty_values() throws IOException {
+        assertThat(tokenize("", ",", ";"), is(empty()));
+        assertThat(new SweTextBlockTokenizer(new StringReader(""), ",", ";").nextBlock(), is(nullValue()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void should_reject_empty_separators() {
+        new SweTextBlockTokenizer(new StringReader(""), "", ";");
+    }
+}
@@ -23,12 +23,14 @@
  */
 package org.n52.sos.cache;
 
+import static org.n52.sos.util.MultiMaps.newInternedSetMultiMap;
 import static org.n52.sos.util.MultiMaps.newSynchronizedSetMultiMap;
 
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
@@ -37,6 +39,8 @@ import org.joda.time.DateTime;
 import org.n52.sos.ogc.gml.time.TimePeriod;
 import org.n52.sos.ogc.sos.SosEnvelope;
 import org.n52.sos.util.CollectionHelper;
+import org.n52.sos.util.IdentifierDictionary;
+import org.n52.sos.util.InternedSet;
 import org.n52.sos.util.SetMultiMap;
 
 import com.vividsolutions.jts.geom.Envelope;
@@ -281,7 +285,118 @@ public abstract class AbstractContentCache extends AbstractStaticContentCache {
         }
     }
 
+    /**
+     * Creates a copy of the specified map.
+     *
+     * @param <K>      the key type
+     * @param <V>      the value type
+     * @param map      the map
+     * @param snapshot if the copy should be unmodifiable or synchronized
+     *
+     * @return the copy
+     */
+    protected static <K, V> Map<K, V> copyOf(Map<K, V> map, boolean snapshot) {
+        if (snapshot) {
+            return Collections.unmodifiableMap(new HashMap<K, V>(map));
+        } else {
+            return newSynchronizedMap(map);
+        }
+    }
+
+    /**
+     * Creates a copy of the specified multi map.
+     *
+     * @param map        the multi map
+     * @param dictionary the dictionary to intern the identifiers of an unmodifiable copy with or {@code null} for a
+     *                   synchronized copy
+     *
+     * @return the copy
+     */
+    protected static SetMultiMap<String, String> copyOf(SetMultiMap<String, String> map,
+                                                        IdentifierDictionary dictionary) {
+        if (dictionary != null) {
+            return newInternedSetMultiMap(map, dictionary);
+        } else {
+            final SetMultiMap<String, String> copy = newSynchronizedSetMultiMap();
+            for (Entry<String, Set<String>> e : map.entrySet()) {
+                copy.addAll(e.getKey(), e.getValue());
+            }
+            return copy;
+        }
+    }
+
+    /**
+     * Creates a copy of the specified identifier set.
+     *
+     * @param set        the set
+     * @param dictionary the dictionary to intern the identifiers of an unmodifiable copy with or {@code null} for a
+     *                   synchronized copy
+     *
+     * @return the copy
+     */
+    protected static Set<String> copyOf(Set<String> set, IdentifierDictionary dictionary) {
+        if (dictionary != null) {
+            return new InternedSet(set, dictionary);
+        } else {
+            return newSynchronizedSet(set);
+        }
+    }
+
+    /**
+     * Creates a copy of the specified set.
+     *
+     * @param <T>      the element type
+     * @param set      the set
+     * @param snapshot if the copy should be unmodifiable or synchronized
+     *
+     * @return the copy
+     */
+    protected static <T> Set<T> copyOf(Set<T> set, boolean snapshot) {
+        if (snapshot) {
+            return Collections.unmodifiableSet(new HashSet<T>(set));
+        } else {
+            return newSynchronizedSet(set);
+        }
+    }
+
+    /**
+     * Creates a copy of the specified envelope map including copies of the envelopes.
+     *
+     * @param map      the map
+     * @param snapshot if the copy should be unmodifiable or synchronized
+     *
+     * @return the copy
+     */
+    protected static Map<String, SosEnvelope> copyEnvelopesOf(Map<String, SosEnvelope> map, boolean snapshot) {
+        final Map<String, SosEnvelope> copy = new HashMap<String, SosEnvelope>(map.size());
+        for (Entry<String, SosEnvelope> e : map.entrySet()) {
+            copy.put(e.getKey(), copyOf(e.getValue()));
+        }
+        return snapshot ? Collections.unmodifiableMap(copy) : Collections.synchronizedMap(copy);
+    }
+
+    /**
+     * Creates a copy of the specified time period.
+     *
+     * @param period the period
+     *
+     * @return a copy
+     */
+    protected static TimePeriod copyOf(TimePeriod period) {
+        if (period == null) {
+            return new TimePeriod();
+        } else {
+            return new TimePeriod(period.getStart(), period.getEnd());
+        }
+    }
+
     private int defaultEpsgCode = 4326;
+    private boolean snapshot = false;
+    /**
+     * The structures this copy still shares with the snapshot it was created from, mapped to their modifiable copy
+     * once they are accessed.
+     */
+    private transient Map<Object, Object> shared;
     private Map<String, DateTime> maxPhenomenonTimeForOfferings = newSynchronizedMap();
     private Map<String, DateTime> minPhenomenonTimeForOfferings = newSynchronizedMap();
     private Map<String, DateTime> maxResultTimeForOfferings = newSynchronizedMap();
@@ -322,11 +437,246 @@ public abstract class AbstractContentCache extends AbstractStaticContentCache {
     private SosEnvelope globalEnvelope = new SosEnvelope(null, defaultEpsgCode);
     private TimePeriod globalPhenomenonTimeEnvelope = new TimePeriod();
     private TimePeriod globalResultTimeEnvelope = new TimePeriod();
-    
+
+    /**
+     * Replaces the content of this cache with a copy of the content of {@code source}. Mutable values (envelopes and
+     * time periods) are copied as well, so both caches do not share any modifiable state. The identifiers of a
+     * snapshot are interned into a single {@link IdentifierDictionary}, so every identifier is held only once and the
+     * relations are stored as sorted integer arrays.
+     * <p/>
+     * If {@code source} was created by {@link #setSharedContentOf(AbstractContentCache)} the structures it did not
+     * access are still unmodified and are reused by the new snapshot as is. They keep referencing the dictionary of
+     * the snapshot they were created for, only the accessed structures are interned into a new dictionary, as the
+     * dictionaries of published snapshots may not be modified.
+     *
+     * @param source   the cache to copy
+     * @param snapshot if the copy should be an unmodifiable, unsynchronized snapshot or a modifiable, synchronized
+     *                 copy
+     */
+    protected void setContentOf(AbstractContentCache source, boolean snapshot) {
+        final IdentifierDictionary dictionary = snapshot ? new IdentifierDictionary() : null;
+        this.defaultEpsgCode = source.defaultEpsgCode;
+        this.maxPhenomenonTimeForOfferings = source.copyOrShare(source.maxPhenomenonTimeForOfferings, snapshot);
+        this.minPhenomenonTimeForOfferings = source.copyOrShare(source.minPhenomenonTimeForOfferings, snapshot);
+        this.maxResultTimeForOfferings = source.copyOrShare(source.maxResultTimeForOfferings, snapshot);
+        this.minResultTimeForOfferings = source.copyOrShare(source.minResultTimeForOfferings, snapshot);
+        this.maxPhenomenonTimeForProcedures = source.copyOrShare(source.maxPhenomenonTimeForProcedures, snapshot);
+        this.minPhenomenonTimeForProcedures = source.copyOrShare(source.minPhenomenonTimeForProcedures, snapshot);
+        this.nameForOfferings = source.copyOrShare(source.nameForOfferings, snapshot);
+        this.allowedObservationTypeForOfferings = source.copyOrShare(source.allowedObservationTypeForOfferings, dictionary);
+        this.childFeaturesForFeatureOfInterest = source.copyOrShare(source.childFeaturesForFeatureOfInterest, dictionary);
+        this.childProceduresForProcedures = source.copyOrShare(source.childProceduresForProcedures, dictionary);
+        this.compositePhenomenonForOfferings = source.copyOrShare(source.compositePhenomenonForOfferings, dictionary);
+        this.featuresOfInterestForOfferings = source.copyOrShare(source.featuresOfInterestForOfferings, dictionary);
+        this.featuresOfInterestForResultTemplates = source.copyOrShare(source.featuresOfInterestForResultTemplates, dictionary);
+        this.observablePropertiesForCompositePhenomenons = source.copyOrShare(source.observablePropertiesForCompositePhenomenons, dictionary);
+        this.observablePropertiesForOfferings = source.copyOrShare(source.observablePropertiesForOfferings, dictionary);
+        this.observablePropertiesForProcedures = source.copyOrShare(source.observablePropertiesForProcedures, dictionary);
+        this.observationIdentifiersForProcedures = source.copyOrShare(source.observationIdentifiersForProcedures, dictionary);
+        this.observationTypesForOfferings = source.copyOrShare(source.observationTypesForOfferings, dictionary);
+        this.observedPropertiesForResultTemplates = source.copyOrShare(source.observedPropertiesForResultTemplates, dictionary);
+        this.offeringsForObservableProperties = source.copyOrShare(source.offeringsForObservableProperties, dictionary);
+        this.offeringsForProcedures = source.copyOrShare(source.offeringsForProcedures, dictionary);
+        this.parentFeaturesForFeaturesOfInterest = source.copyOrShare(source.parentFeaturesForFeaturesOfInterest, dictionary);
+        this.parentProceduresForProcedures = source.copyOrShare(source.parentProceduresForProcedures, dictionary);
+        this.proceduresForFeaturesOfInterest = source.copyOrShare(source.proceduresForFeaturesOfInterest, dictionary);
+        this.proceduresForObservableProperties = source.copyOrShare(source.proceduresForObservableProperties, dictionary);
+        this.proceduresForOfferings = source.copyOrShare(source.proceduresForOfferings, dictionary);
+        this.hiddenChildProceduresForOfferings = source.copyOrShare(source.hiddenChildProceduresForOfferings, dictionary);
+        this.relatedFeaturesForOfferings = source.copyOrShare(source.relatedFeaturesForOfferings, dictionary);
+        this.resultTemplatesForOfferings = source.copyOrShare(source.resultTemplatesForOfferings, dictionary);
+        this.rolesForRelatedFeatures = source.copyOrShare(source.rolesForRelatedFeatures, dictionary);
+        this.envelopeForOfferings = source.copyOrShareEnvelopes(source.envelopeForOfferings, snapshot);
+        this.epsgCodes = source.copyOrShare(source.epsgCodes, snapshot);
+        this.featuresOfInterest = source.copyOrShare(source.featuresOfInterest, dictionary);
+        this.observationIdentifiers = source.copyOrShare(source.observationIdentifiers, dictionary);
+        this.procedures = source.copyOrShare(source.procedures, dictionary);
+        this.resultTemplates = source.copyOrShare(source.resultTemplates, dictionary);
+        this.offerings = source.copyOrShare(source.offerings, dictionary);
+        this.globalEnvelope = source.copyOrShare(source.globalEnvelope, snapshot);
+        this.globalPhenomenonTimeEnvelope = source.copyOrShare(source.globalPhenomenonTimeEnvelope, snapshot);
+        this.globalResultTimeEnvelope = source.copyOrShare(source.globalResultTimeEnvelope, snapshot);
+        this.snapshot = snapshot;
+    }
+
+    /**
+     * Replaces the content of this cache with the content of the snapshot {@code source} without copying it. The
+     * structures of the snapshot are shared until they are accessed through one of the getters, which replaces them
+     * with a modifiable, synchronized copy. A subsequent snapshot of this cache only has to copy the accessed
+     * structures.
+     *
+     * @param source the snapshot to share the content of
+     */
+    protected void setSharedContentOf(AbstractContentCache source) {
+        if (!source.isSnapshot()) {
+            throw new IllegalArgumentException("only snapshots can be shared");
+        }
+        this.shared = new IdentityHashMap<Object, Object>();
+        this.defaultEpsgCode = source.defaultEpsgCode;
+        this.maxPhenomenonTimeForOfferings = share(source.maxPhenomenonTimeForOfferings);
+        this.minPhenomenonTimeForOfferings = share(source.minPhenomenonTimeForOfferings);
+        this.maxResultTimeForOfferings = share(source.maxResultTimeForOfferings);
+        this.minResultTimeForOfferings = share(source.minResultTimeForOfferings);
+        this.maxPhenomenonTimeForProcedures = share(source.maxPhenomenonTimeForProcedures);
+        this.minPhenomenonTimeForProcedures = share(source.minPhenomenonTimeForProcedures);
+        this.nameForOfferings = share(source.nameForOfferings);
+        this.allowedObservationTypeForOfferings = share(source.allowedObservationTypeForOfferings);
+        this.childFeaturesForFeatureOfInterest = share(source.childFeaturesForFeatureOfInterest);
+        this.childProceduresForProcedures = share(source.childProceduresForProcedures);
+        this.compositePhenomenonForOfferings = share(source.compositePhenomenonForOfferings);
+        this.featuresOfInterestForOfferings = share(source.featuresOfInterestForOfferings);
+        this.featuresOfInterestForResultTemplates = share(source.featuresOfInterestForResultTemplates);
+        this.observablePropertiesForCompositePhenomenons = share(source.observablePropertiesForCompositePhenomenons);
+        this.observablePropertiesForOfferings = share(source.observablePropertiesForOfferings);
+        this.observablePropertiesForProcedures = share(source.observablePropertiesForProcedures);
+        this.observationIdentifiersForProcedures = share(source.observationIdentifiersForProcedures);
+        this.observationTypesForOfferings = share(source.observationTypesForOfferings);
+        this.observedPropertiesForResultTemplates = share(source.observedPropertiesForResultTemplates);
+        this.offeringsForObservableProperties = share(source.offeringsForObservableProperties);
+        this.offeringsForProcedures = share(source.offeringsForProcedures);
+        this.parentFeaturesForFeaturesOfInterest = share(source.parentFeaturesForFeaturesOfInterest);
+        this.parentProceduresForProcedures = share(source.parentProceduresForProcedures);
+        this.proceduresForFeaturesOfInterest = share(source.proceduresForFeaturesOfInterest);
+        this.proceduresForObservableProperties = share(source.proceduresForObservableProperties);
+        this.proceduresForOfferings = share(source.proceduresForOfferings);
+        this.hiddenChildProceduresForOfferings = share(source.hiddenChildProceduresForOfferings);
+        this.relatedFeaturesForOfferings = share(source.relatedFeaturesForOfferings);
+        this.resultTemplatesForOfferings = share(source.resultTemplatesForOfferings);
+        this.rolesForRelatedFeatures = share(source.rolesForRelatedFeatures);
+        this.envelopeForOfferings = share(source.envelopeForOfferings);
+        this.epsgCodes = share(source.epsgCodes);
+        this.featuresOfInterest = share(source.featuresOfInterest);
+        this.observationIdentifiers = share(source.observationIdentifiers);
+        this.procedures = share(source.procedures);
+        this.resultTemplates = share(source.resultTemplates);
+        this.offerings = share(source.offerings);
+        this.globalEnvelope = share(source.globalEnvelope);
+        this.globalPhenomenonTimeEnvelope = share(source.globalPhenomenonTimeEnvelope);
+        this.globalResultTimeEnvelope = share(source.globalResultTimeEnvelope);
+        this.snapshot = false;
+    }
+
+    private <T> T share(T value) {
+        this.shared.put(value, null);
+        return value;
+    }
+
+    /**
+     * Replaces a structure shared with a snapshot by a modifiable copy. Concurrent accesses of the same structure get
+     * the same copy.
+     *
+     * @param <T>   the type of the structure
+     * @param value the structure
+     *
+     * @return the modifiable copy or {@code value} if it is not shared
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T own(T value) {
+        synchronized (this.shared) {
+            if (value == null || !this.shared.containsKey(value)) {
+                return value;
+            }
+            Object copy = this.shared.get(value);
+            if (copy == null) {
+                copy = modifiableCopyOf(value);
+                this.shared.put(value, copy);
+            }
+            return (T) copy;
+        }
+    }
+
+    private boolean isShared(Object value) {
+        if (this.shared == null) {
+            return false;
+        }
+        synchronized (this.shared) {
+            return this.shared.containsKey(value);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object modifiableCopyOf(Object value) {
+        if (value instanceof SetMultiMap) {
+            return copyOf((SetMultiMap<String, String>) value, null);
+        } else if (value instanceof Map) {
+            final Map<Object, Object> copy = newSynchronizedMap();
+            for (Entry<Object, Object> e : ((Map<Object, Object>) value).entrySet()) {
+                final Object v = e.getValue();
+                copy.put(e.getKey(), v instanceof SosEnvelope ? copyOf((SosEnvelope) v) : v);
+            }
+            return copy;
+        } else if (value instanceof Set) {
+            return newSynchronizedSet((Set<Object>) value);
+        } else if (value instanceof SosEnvelope) {
+            return copyOf((SosEnvelope) value);
+        } else if (value instanceof TimePeriod) {
+            return copyOf((TimePeriod) value);
+        } else {
+            throw new IllegalArgumentException("Unsupported structure: " + value.getClass());
+        }
+    }
+
+    private <K, V> Map<K, V> copyOrShare(Map<K, V> map, boolean snapshot) {
+        return snapshot && isShared(map) ? map : copyOf(map, snapshot);
+    }
+
+    private SetMultiMap<String, String> copyOrShare(SetMultiMap<String, String> map, IdentifierDictionary dictionary) {
+        return dictionary != null && isShared(map) ? map : copyOf(map, dictionary);
+    }
+
+    private Set<String> copyOrShare(Set<String> set, IdentifierDictionary dictionary) {
+        return dictionary != null && isShared(set) ? set : copyOf(set, dictionary);
+    }
+
+    private <T> Set<T> copyOrShare(Set<T> set, boolean snapshot) {
+        return snapshot && isShared(set) ? set : copyOf(set, snapshot);
+    }
+
+    private Map<String, SosEnvelope> copyOrShareEnvelopes(Map<String, SosEnvelope> map, boolean snapshot) {
+        return snapshot && isShared(map) ? map : copyEnvelopesOf(map, snapshot);
+    }
+
+    private SosEnvelope copyOrShare(SosEnvelope envelope, boolean snapshot) {
+        return snapshot && isShared(envelope) ? envelope : copyOf(envelope);
+    }
+
+    private TimePeriod copyOrShare(TimePeriod period, boolean snapshot) {
+        return snapshot && isShared(period) ? period : copyOf(period);
+    }
+
+    /**
+     * @return {@code true} if this cache is an unmodifiable snapshot that can be read without locking or copying
+     */
+    protected boolean isSnapshot() {
+        return this.snapshot;
+    }
+
+    /**
+     * Creates a read-only view of the specified set. The sets of a snapshot can not be modified and are returned as is,
+     * all other sets are copied.
+     *
+     * @param <T> the element type
+     * @param set the set
+     *
+     * @return a read-only view
+     */
+    protected <T> Set<T> readOnly(Set<T> set) {
+        if (set == null) {
+            return Collections.emptySet();
+        } else if (isSnapshot()) {
+            return set;
+        } else {
+            return copyOf(set);
+        }
+    }
+
     /**
      * @return the relating offering -> max phenomenon time
      */
     protected Map<String, DateTime> getMaxPhenomenonTimeForOfferingsMap() {
+        if (this.shared != null) {
+            this.maxPhenomenonTimeForOfferings = own(this.maxPhenomenonTimeForOfferings);
+        }
         return this.maxPhenomenonTimeForOfferings;
     }
 
@@ -334,6 +684,9 @@ public abstract class AbstractContentCache extends AbstractStaticContentCache {
      * @return the relating offering -> min phenomenon time
      */
     protected Map<String, DateTime> getMinPhenomenonTimeForOfferingsMap() {
+        if (this.shared != null) {
+            this.minPhenomenonTimeForOfferings = own(this.minPhenomenonTimeForOfferings);
+        }
         return this.minPhenomenonTimeForOfferings;
     }
 
@@ -341,6 +694,9 @@ public abstract class AbstractContentCache extends AbstractStaticContentCache {
      * @return the relating procedure -> max phenomenon time
      */
     protected Map<String, DateTime> getMaxPhenomenonTimeForProceduresMap() {
+        if (this.shared != null) {
+            this.maxPhenomenonTimeForProcedures = own(this.maxPhenomenonTimeForProcedures);
+        }
         return this.maxPhenomenonTimeForProcedures;
     }
 
@@ -348,6 +704,9 @@ public abstract class AbstractContentCache extends AbstractStaticContentCache {
      * @return the relating procedure -> min phenomenon time
      */
     protected Map<String, DateTime> getMinPhenomenonTimeForProceduresMap() {
+        if (this.shared != null) {
+            this.minPhenomenonTimeForProcedures = own(this.minPhenomenonTimeForProcedures);
+        }
         return this.minPhenomenonTimeForProcedures;
     }
 
@@ -355,6 +714,9 @@ public abstract class AbstractContentCache extends AbstractStaticContentCache {
      * @return the relating offering -> max result time
      */
     protected Map<String, DateTime> getMaxResultTimeForOfferingsMap() {
+        if (this.shared != null) {
+            this.maxResultTimeForOfferings = own(this.maxResultTimeForOfferings);
+        }
         return this.maxResultTimeForOfferings;
     }
 
@@ -362,6 +724,9 @@ public abstract class AbstractContentCache extends AbstractStaticContentCache {
      * @return the relating offering -> min result time
      */
     protected Map<String, DateTime> getMinResultTimeForOfferingsMap() {
+        if (this.shared != null) {
+            this.minResultTimeForOfferings = own(this.minResultTimeForOfferings);
+        }
         return this.minResultTimeForOfferings;
     }
     
@@ -369,6 +734,9 @@ public abstract class AbstractContentCache extends AbstractStaticContentCache {
      * @return the relating offering -> allowed observation type
      */
     protected SetMultiMap<String, String> getAllowedObservationTypesForOfferingsMap() {
+        if (this.shared != null) {
+            this.allowedObservationTypeForOfferings = own(this.allowedObservationTypeForOfferings);
+        }
         return this.allowedObservationTypeForOfferings;
     }
 
@@ -376,6 +744,9 @@ public abstract class AbstractContentCache extends AbstractStaticContentCache {
      * @return the relating feature -> child feature
      */
     protected SetMultiMap<String, String> getChildFeaturesForFeaturesOfInterestMap() {
+        if (this.shared != null) {
+            this.childFeaturesForFeatureOfInterest = own(this.childFeaturesForFeatureOfInterest);
+        }
         return this.childFeaturesForFeatureOfInterest;
     }
 
@@ -383,6 +754,9 @@ public abstract class AbstractContentCache extends AbstractStaticContentCache {
      * @return the relating offering -> composite phenomenons
      */
     protected SetMultiMap<String, String> getCompositePhenomenonsForOfferingsMap() {
+        if (this.shared != null) {
+            this.compositePhenomenonForOfferings = own(this.compositePhenomenonForOfferings);
+        }
         return this.compositePhenomenonForOfferings;
     }
 
@@ -390,6 +764,9 @@ public abstract class AbstractContentCache extends AbstractStaticContentCache {
      * @return the relating offering -> feature
      */
     protected SetMultiMap<String, String> getFeaturesOfInterestForOfferingMap() {
+        if (this.shared != null) {
+            this.featuresOfInterestForOfferings = own(this.featuresOfInterestForOfferings);
+        }
         return this.featuresOfInterestForOfferings;
     }
 
@@ -397,6 +774,9 @@ public abstract class AbstractContentCache extends AbstractStaticContentCache {
      * @return the relating result template -> feature
      */
     protected SetMultiMap<String, String> getFeaturesOfInterestForResultTemplatesMap() {
+        if (this.shared != null) {
+            this.featuresOfInterestForResultTemplates = own(this.featuresOfInterestForResultTemplates);
+        }
         return this.featuresOfInterestForResultTemplates;
     }
 
@@ -404,6 +784,9 @@ public abstract class AbstractContentCache extends AbstractStaticContentCache {
      * @return the relating composite phenomenon -> observable property
      */
     protected SetMultiMap<String, String> getObservablePropertiesForCompositePhenomenonsMap() {
+        if (this.shared != null) {
+            this.observablePropertiesForCompositePhenomenons = own(this.observablePropertiesForCompositePhenomenons);
+        }
         return this.observablePropertiesForCompositePhenomenons;
     }
 
@@ -411,6 +794,9 @@ public abstract class AbstractContentCache extends AbstractStaticContentCache {
      * @return the relating offering -> observable property
      */
     protected SetMultiMap<String, String> getObservablePropertiesForOfferingsMap() {
+        if (this.shared != null) {
+            this.observablePropertiesForOfferings = own(this.observablePropertiesForOfferings);
+        }
         return this.observablePropertiesForOfferings;
     }
 
@@ -418,6 +804,9 @@ public abstract class AbstractContentCache extends AbstractStaticContentCache {
      * @return the relating procedure -> observation identifier
      */
     protected SetMultiMap<String, String> getObservationIdentifiersForProceduresMap() {
+        if (this.shared != null) {
+            this.observationIdentifiersForProcedures = own(this.observationIdentifiersForProcedures);
+        }
         return this.observationIdentifiersForProcedures;
     }
 
@@ -425,6 +814,9 @@ public abstract class AbstractContentCache extends AbstractStaticContentCache {
      * @return the relating offering -> observation types
      */
     protected SetMultiMap<String, String> getObservationTypesForOfferingsMap() {
+        if (this.shared != null) {
+            this.observationTypesForOfferings = own(this.observationTypesForOfferings);
+        }
         return this.observationTypesForOfferings;
     }
 
@@ -432,6 +824,9 @@ public abstract class AbstractContentCache extends AbstractStaticContentCache {
      * @return the relating result template -> obsevable properties
      */
     protected SetMultiMap<String, String> getObservablePropertiesForResultTemplatesMap() {
+        if (this.shared != null) {
+            this.observedPropertiesForResultTemplates = own(this.observedPropertiesForResultTemplates);
+        }
         return this.observedPropertiesForResultTemplates;
     }
 
@@ -439,6 +834,9 @@ public abstract class AbstractContentCache extends AbstractStaticContentCache {
      * @return the relating observable property -> offerings
      */
     protected SetMultiMap<String, String> getOfferingsForObservablePropertiesMap() {
+        if (this.shared != null) {
+            this.offeringsForObservableProperties = own(this.offeringsForObservableProperties);
+        }
         return this.offeringsForObservableProperties;
     }
 
@@ -446,6 +844,9 @@ public abstract class AbstractContentCache extends AbstractStaticContentCache {
      * @return the relating procedure -> offerings
      */
     protected SetMultiMap<String, String> getOfferingsForProceduresMap() {
+        if (this.shared != null) {
+            this.offeringsForProcedures = own(this.offeringsForProcedures);
+        }
         return this.offeringsForProcedures;
     }
 
@@ -453,6 +854,9 @@ public abstract class AbstractContentCache extends AbstractStaticContentCache {
      * @return the relating feature -> parent feature
      */
     protected SetMultiMap<String, String> getParentFeaturesForFeaturesOfInterestMap() {
+        if (this.shared != null) {
+            this.parentFeaturesForFeaturesOfInterest = own(this.parentFeaturesForFeaturesOfInterest);
+        }
         return this.parentFeaturesForFeaturesOfInterest;
     }
 
@@ -460,6 +864,9 @@ public abstract class AbstractContentCache extends AbstractStaticContentCache {
      * @return the relating feature -> procedure
      */
     protected SetMultiMap<String, String> getProceduresForFeaturesOfInterestMap() {
+        if (this.shared != null) {
+            this.proceduresForFeaturesOfInterest = own(this.proceduresForFeaturesOfInterest);
+        }
         return this.proceduresForFeaturesOfInterest;
     }
 
@@ -467,6 +874,9 @@ public abstract class AbstractContentCache extends AbstractStaticContentCache {
      * @return the relating observable property -> procedure
      */
     protected SetMultiMap<String, String> getProceduresForObservablePropertiesMap() {
+        if (this.shared != null) {
+            this.proceduresForObservableProperties = own(this.proceduresForObservableProperties);
+        }
         return this.proceduresForObservableProperties;
     }
 
@@ -474,6 +884,9 @@ public abstract class AbstractContentCache extends AbstractStaticContentCache {
      * @return the relating offering -> procedure
      */
     protected SetMultiMap<String, String> getProceduresForOfferingsMap() {
+        if (this.shared != null) {
+            this.proceduresForOfferings = own(this.proceduresForOfferings);
+        }
         return this.proceduresForOfferings;
     }
     
@@ -481,6 +894,9 @@ public abstract class AbstractContentCache extends AbstractStaticContentCache {
      * @return the relating offering -> procedure
      */
     protected SetMultiMap<String, String> getHiddenChildProceduresForOfferingsMap() {
+        if (this.shared != null) {
+            this.hiddenChildProceduresForOfferings = own(this.hiddenChildProceduresForOfferings);
+        }
         return this.hiddenChildProceduresForOfferings;
     }
 
@@ -488,6 +904,9 @@ public abstract class AbstractContentCache extends AbstractStaticContentCache {
      * @return the relating offering -> related features
      */
     protected SetMultiMap<String, String> getRelatedFeaturesForOfferingsMap() {
+        if (this.shared != null) {
+            this.relatedFeaturesForOfferings = own(this.relatedFeaturesForOfferings);
+        }
         return this.relatedFeaturesForOfferings;
     }
 
@@ -495,6 +914,9 @@ public abstract class AbstractContentCache extends AbstractStaticContentCache {
      * @return the relating offering -> resulte templates
      */
     protected SetMultiMap<String, String> getResultTemplatesForOfferingsMap() {
+        if (this.shared != null) {
+            this.resultTemplatesForOfferings = own(this.resultTemplatesForOfferings);
+        }
         return this.resultTemplatesForOfferings;
     }
 
@@ -502,6 +924,9 @@ public abstract class AbstractContentCache extends AbstractStaticContentCache {
      * @return the relating related feature -> roles
      */
     protected SetMultiMap<String, String> getRolesForRelatedFeaturesMap() {
+        if (this.shared != null) {
+            this.rolesForRelatedFeatures = own(this.rolesForRelatedFeatures);
+        }
         return this.rolesForRelatedFeatures;
     }
 
@@ -509,6 +934,9 @@ public abstract class AbstractContentCache extends AbstractStaticContentCache {
      * @return the relating offering -> envelope
      */
     protected Map<String, SosEnvelope> getEnvelopeForOfferingsMap() {
+        if (this.shared != null) {
+            this.envelopeForOfferings = own(this.envelopeForOfferings);
+        }
         return this.envelopeForOfferings;
     }
 
@@ -516,6 +944,9 @@ public abstract class AbstractContentCache extends AbstractStaticContentCache {
      * @return the relating offering -> offering name
      */
     protected Map<String, String> getNameForOfferingsMap() {
+        if (this.shared != null) {
+            this.nameForOfferings = own(this.nameForOfferings);
+        }
         return this.nameForOfferings;
     }
 
@@ -523,6 +954,9 @@ public abstract class AbstractContentCache extends AbstractStaticContentCache {
      * @return the relating procedure -> observable properties
      */
     protected SetMultiMap<String, String> getObservablePropertiesForProceduresMap() {
+        if (this.shared != null) {
+            this.observablePropertiesForProcedures = own(this.observablePropertiesForProcedures);
+        }
         return this.observablePropertiesForProcedures;
     }
 
@@ -530,6 +964,9 @@ public abstract class AbstractContentCache extends AbstractStaticContentCache {
      * @return the relating procedure -> parent procedure
      */
     protected SetMultiMap<String, String> getParentProceduresForProceduresMap() {
+        if (this.shared != null) {
+            this.parentProceduresForProcedures = own(this.parentProceduresForProcedures);
+        }
         return this.parentProceduresForProcedures;
     }
 
@@ -537,6 +974,9 @@ public abstract class AbstractContentCache extends AbstractStaticContentCache {
      * @return the relating procedure -> child procedure
      */
     protected SetMultiMap<String, String> getChildProceduresForProceduresMap() {
+        if (this.shared != null) {
+            this.childProceduresForProcedures = own(this.childProceduresForProcedures);
+        }
         return this.childProceduresForProcedures;
     }
 
@@ -544,6 +984,9 @@ public abstract class AbstractContentCache extends AbstractStaticContentCache {
      * @return the epsg codes
      */
     protected Set<Integer> getEpsgCodesSet() {
+        if (this.shared != null) {
+            this.epsgCodes = own(this.epsgCodes);
+        }
         return this.epsgCodes;
     }
 
@@ -551,6 +994,9 @@ public abstract class AbstractContentCache extends AbstractStaticContentCache {
      * @return the features of interest
      */
     protected Set<String> getFeaturesOfInterestSet() {
+        if (this.shared != null) {
+            this.featuresOfInterest = own(this.featuresOfInterest);
+        }
         return this.featuresOfInterest;
     }
 
@@ -558,6 +1004,9 @@ public abstract class AbstractContentCache extends AbstractStaticContentCache {
      * @return the observation identifiers
      */
     protected Set<String> getObservationIdentifiersSet() {
+        if (this.shared != null) {
+            this.observationIdentifiers = own(this.observationIdentifiers);
+        }
         return this.observationIdentifiers;
     }
 
@@ -565,6 +1014,9 @@ public abstract class AbstractContentCache extends AbstractStaticContentCache {
      * @return the procedures
      */
     protected Set<String> getProceduresSet() {
+        if (this.shared != null) {
+            this.procedures = own(this.procedures);
+        }
         return this.procedures;
     }
 
@@ -572,6 +1024,9 @@ public abstract class AbstractContentCache extends AbstractStaticContentCache {
      * @return the procedures
      */
     protected Set<String> getOfferingsSet() {
+        if (this.shared != null) {
+            this.offerings = own(this.offerings);
+        }
         return this.offerings;
     }
 
@@ -579,6 +1034,9 @@ public abstract class AbstractContentCache extends AbstractStaticContentCache {
      * @return the result templates
      */
     protected Set<String> getResultTemplatesSet() {
+        if (this.shared != null) {
+            this.resultTemplates = own(this.resultTemplates);
+        }
         return this.resultTemplates;
     }
 
@@ -586,6 +1044,9 @@ public abstract class AbstractContentCache extends AbstractStaticContentCache {
      * @return the global phenomenon time envelope
      */
     protected TimePeriod getGlobalPhenomenonTimeEnvelope() {
+        if (this.shared != null) {
+            this.globalPhenomenonTimeEnvelope = own(this.globalPhenomenonTimeEnvelope);
+        }
         return this.globalPhenomenonTimeEnvelope;
     }
 
@@ -593,13 +1054,19 @@ public abstract class AbstractContentCache extends AbstractStaticContentCache {
      * @return the global result time envelope
      */
     protected TimePeriod getGlobalResultTimeEnvelope() {
-        return this.globalPhenomenonTimeEnvelope;
+        if (this.shared != null) {
+            this.globalResultTimeEnvelope = own(this.globalResultTimeEnvelope);
+        }
+        return this.globalResultTimeEnvelope;
     }
 
     /**
      * @return the global spatial envelope
      */
     protected SosEnvelope getGlobalSpatialEnvelope() {
+        if (this.shared != null) {
+            this.globalEnvelope = own(this.globalEnvelope);
+        }
         return this.globalEnvelope;
     }
 
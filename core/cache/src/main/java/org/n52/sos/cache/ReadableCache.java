@@ -55,27 +55,27 @@ public class ReadableCache extends AbstractContentCache {
 
     @Override
     public Set<Integer> getEpsgCodes() {
-        return copyOf(getEpsgCodesSet());
+        return readOnly(getEpsgCodesSet());
     }
 
     @Override
     public Set<String> getFeaturesOfInterest() {
-        return copyOf(getFeaturesOfInterestSet());
+        return readOnly(getFeaturesOfInterestSet());
     }
 
     @Override
     public Set<String> getObservationIdentifiers() {
-        return copyOf(getObservationIdentifiersSet());
+        return readOnly(getObservationIdentifiersSet());
     }
 
     @Override
     public Set<String> getProcedures() {
-        return copyOf(getProceduresSet());
+        return readOnly(getProceduresSet());
     }
 
     @Override
     public Set<String> getResultTemplates() {
-        return copyOf(getResultTemplatesSet());
+        return readOnly(getResultTemplatesSet());
     }
 
     @Override
@@ -85,57 +85,57 @@ public class ReadableCache extends AbstractContentCache {
 
     @Override
     public Set<String> getOfferings() {
-        return copyOf(getOfferingsSet());
+        return readOnly(getOfferingsSet());
     }
 
     @Override
     public Set<String> getOfferingsForObservableProperty(final String observableProperty) {
-        return copyOf(getOfferingsForObservablePropertiesMap().get(observableProperty));
+        return readOnly(getOfferingsForObservablePropertiesMap().get(observableProperty));
     }
 
     @Override
     public Set<String> getOfferingsForProcedure(final String procedure) {
-        return copyOf(getOfferingsForProceduresMap().get(procedure));
+        return readOnly(getOfferingsForProceduresMap().get(procedure));
     }
 
     @Override
     public Set<String> getProceduresForFeatureOfInterest(final String featureOfInterest) {
-        return copyOf(getProceduresForFeaturesOfInterestMap().get(featureOfInterest));
+        return readOnly(getProceduresForFeaturesOfInterestMap().get(featureOfInterest));
     }
 
     @Override
     public Set<String> getProceduresForObservableProperty(final String observableProperty) {
-        return copyOf(getProceduresForObservablePropertiesMap().get(observableProperty));
+        return readOnly(getProceduresForObservablePropertiesMap().get(observableProperty));
     }
 
     @Override
     public Set<String> getProceduresForOffering(final String offering) {
-        return copyOf(getProceduresForOfferingsMap().get(offering));
+        return readOnly(getProceduresForOfferingsMap().get(offering));
     }
     
     @Override
     public Set<String> getHiddenChildProceduresForOffering(final String offering) {
-        return copyOf(getHiddenChildProceduresForOfferingsMap().get(offering));
+        return readOnly(getHiddenChildProceduresForOfferingsMap().get(offering));
     }
 
     @Override
     public Set<String> getRelatedFeaturesForOffering(final String offering) {
-        return copyOf(getRelatedFeaturesForOfferingsMap().get(offering));
+        return readOnly(getRelatedFeaturesForOfferingsMap().get(offering));
     }
 
     @Override
     public Set<String> getResultTemplatesForOffering(final String offering) {
-        return copyOf(getResultTemplatesForOfferingsMap().get(offering));
+        return readOnly(getResultTemplatesForOfferingsMap().get(offering));
     }
 
     @Override
     public Set<String> getRolesForRelatedFeature(final String relatedFeature) {
-        return copyOf(getRolesForRelatedFeaturesMap().get(relatedFeature));
+        return readOnly(getRolesForRelatedFeaturesMap().get(relatedFeature));
     }
 
     @Override
     public SosEnvelope getEnvelopeForOffering(final String offering) {
-        return copyOf(getEnvelopeForOfferingsMap().get(offering));
+        return readOnly(getEnvelopeForOfferingsMap().get(offering));
     }
 
     @Override
@@ -145,12 +145,12 @@ public class ReadableCache extends AbstractContentCache {
 
     @Override
     public Set<String> getCompositePhenomenonsForOffering(final String offering) {
-        return copyOf(getCompositePhenomenonsForOfferingsMap().get(offering));
+        return readOnly(getCompositePhenomenonsForOfferingsMap().get(offering));
     }
 
     @Override
     public Set<String> getObservablePropertiesForCompositePhenomenon(final String compositePhenomenon) {
-        return copyOf(getObservablePropertiesForCompositePhenomenonsMap().get(compositePhenomenon));
+        return readOnly(getObservablePropertiesForCompositePhenomenonsMap().get(compositePhenomenon));
     }
 
     @Override
@@ -193,17 +193,17 @@ public class ReadableCache extends AbstractContentCache {
 
     @Override
     public Set<String> getAllowedObservationTypesForOffering(final String offering) {
-        return copyOf(getAllowedObservationTypesForOfferingsMap().get(offering));
+        return readOnly(getAllowedObservationTypesForOfferingsMap().get(offering));
     }
 
     @Override
     public Set<String> getFeaturesOfInterestForOffering(final String offering) {
-        return copyOf(getFeaturesOfInterestForOfferingMap().get(offering));
+        return readOnly(getFeaturesOfInterestForOfferingMap().get(offering));
     }
 
     @Override
     public Set<String> getFeaturesOfInterestForResultTemplate(final String resultTemplate) {
-        return copyOf(getFeaturesOfInterestForResultTemplatesMap().get(resultTemplate));
+        return readOnly(getFeaturesOfInterestForResultTemplatesMap().get(resultTemplate));
     }
 
     @Override
@@ -220,22 +220,22 @@ public class ReadableCache extends AbstractContentCache {
 
     @Override
     public Set<String> getObservablePropertiesForProcedure(final String procedure) {
-        return copyOf(getObservablePropertiesForProceduresMap().get(procedure));
+        return readOnly(getObservablePropertiesForProceduresMap().get(procedure));
     }
 
     @Override
     public Set<String> getObservationIdentifiersForProcedure(final String procedure) {
-        return copyOf(getObservationIdentifiersForProceduresMap().get(procedure));
+        return readOnly(getObservationIdentifiersForProceduresMap().get(procedure));
     }
 
     @Override
     public Set<String> getObservationTypesForOffering(final String offering) {
-        return copyOf(getObservationTypesForOfferingsMap().get(offering));
+        return readOnly(getObservationTypesForOfferingsMap().get(offering));
     }
 
     @Override
     public Set<String> getObservablePropertiesForResultTemplate(final String resultTemplate) {
-        return copyOf(getObservablePropertiesForResultTemplatesMap().get(resultTemplate));
+        return readOnly(getObservablePropertiesForResultTemplatesMap().get(resultTemplate));
     }
 
     @Override
@@ -301,17 +301,17 @@ public class ReadableCache extends AbstractContentCache {
 
     @Override
     public boolean hasFeatureOfInterest(final String featureOfInterest) {
-        return getFeaturesOfInterest().contains(featureOfInterest);
+        return getFeaturesOfInterestSet().contains(featureOfInterest);
     }
 
     @Override
     public boolean hasObservableProperty(final String observableProperty) {
-        return getObservableProperties().contains(observableProperty);
+        return getObservablePropertiesForOfferingsMap().containsCollectionValue(observableProperty);
     }
 
     @Override
     public boolean hasObservationIdentifier(final String observationIdentifier) {
-        return getObservationIdentifiers().contains(observationIdentifier);
+        return getObservationIdentifiersSet().contains(observationIdentifier);
     }
 
     @Override
@@ -321,27 +321,27 @@ public class ReadableCache extends AbstractContentCache {
 
     @Override
     public boolean hasOffering(final String offering) {
-        return getOfferings().contains(offering);
+        return getOfferingsSet().contains(offering);
     }
 
     @Override
     public boolean hasProcedure(final String procedure) {
-        return getProcedures().contains(procedure);
+        return getProceduresSet().contains(procedure);
     }
 
     @Override
     public boolean hasRelatedFeature(final String relatedFeature) {
-        return getRelatedFeatures().contains(relatedFeature);
+        return getRelatedFeaturesForOfferingsMap().containsCollectionValue(relatedFeature);
     }
 
     @Override
     public boolean hasResultTemplate(final String resultTemplate) {
-        return getResultTemplates().contains(resultTemplate);
+        return getResultTemplatesSet().contains(resultTemplate);
     }
 
     @Override
     public boolean hasEpsgCode(final Integer epsgCode) {
-        return getEpsgCodes().contains(epsgCode);
+        return getEpsgCodesSet().contains(epsgCode);
     }
 
     @Override
@@ -441,7 +441,7 @@ public class ReadableCache extends AbstractContentCache {
 	{
 		return relatedFeatureIdentifier != null && 
 				!relatedFeatureIdentifier.isEmpty() && 
-				getRelatedFeatures().contains(relatedFeatureIdentifier) &&
+				getRelatedFeaturesForOfferingsMap().containsCollectionValue(relatedFeatureIdentifier) &&
 				!getChildFeatures(relatedFeatureIdentifier, true, false).isEmpty();
 	}
 }
@@ -66,6 +66,38 @@ public class WritableCache extends ReadableCache implements WritableContentCache
         }
     }
 
+    /**
+     * Creates an unmodifiable snapshot of this cache. The snapshot does not share any state with this cache and can be
+     * read concurrently without locking or copying. Every modification of the snapshot fails.
+     *
+     * @return the snapshot
+     */
+    public WritableCache snapshot() {
+        if (isSnapshot()) {
+            return this;
+        }
+        final WritableCache snapshot = new WritableCache();
+        snapshot.setContentOf(this, true);
+        return snapshot;
+    }
+
+    /**
+     * Creates a modifiable copy of this cache, that does not share any modifiable state with this cache. The copy of a
+     * snapshot shares the unmodifiable structures of the snapshot and only copies the structures that are accessed, so
+     * a {@link #snapshot()} of the copy has to intern only the structures an update touched.
+     *
+     * @return the copy
+     */
+    public WritableCache copy() {
+        final WritableCache copy = new WritableCache();
+        if (isSnapshot()) {
+            copy.setSharedContentOf(this);
+        } else {
+            copy.setContentOf(this, false);
+        }
+        return copy;
+    }
+
     @Override
     public void removeResultTemplates(Collection<String> resultTemplates) {
         for (String resultTemplate : resultTemplates) {
@@ -1220,7 +1252,7 @@ public class WritableCache extends ReadableCache implements WritableContentCache
     @Override
     public void setMaxResultTime(DateTime maxResultTime) {
         LOG.trace("Setting Maximal ResultTime to {}", maxResultTime);
-        getGlobalPhenomenonTimeEnvelope().setEnd(maxResultTime);
+        getGlobalResultTimeEnvelope().setEnd(maxResultTime);
     }
 
     @Override
@@ -1237,7 +1269,7 @@ public class WritableCache extends ReadableCache implements WritableContentCache
     @Override
     public void setMinResultTime(DateTime minResultTime) {
         LOG.trace("Setting Minimal ResultTime to {}", minResultTime);
-        getGlobalPhenomenonTimeEnvelope().setStart(minResultTime);
+        getGlobalResultTimeEnvelope().setStart(minResultTime);
     }
 
     @Override
@@ -127,6 +127,15 @@ public abstract class AbstractSchedulingContentCacheController implements Conten
         }
     }
 
+    /**
+     * Executes the scheduled update. Defaults to a complete update.
+     *
+     * @throws OwsExceptionReport if the update fails
+     */
+    protected void scheduledUpdate() throws OwsExceptionReport {
+        update();
+    }
+
     /**
      * @return the initialized
      */
@@ -145,7 +154,7 @@ public abstract class AbstractSchedulingContentCacheController implements Conten
         @Override
         public void run() {
             try {
-                update();
+                scheduledUpdate();
                 LOGGER.info("Timertask: capabilities cache update successful!");
                 schedule();
             } catch (OwsExceptionReport e) {
@@ -42,6 +42,36 @@ public class CacheFactory {
         return new WritableCache();
     }
 
+    /**
+     * Creates an unmodifiable snapshot of the specified cache, that can be published to concurrent readers. Caches
+     * that do not support snapshots are returned as is.
+     *
+     * @param cache the cache
+     *
+     * @return the snapshot
+     */
+    public WritableContentCache snapshot(WritableContentCache cache) {
+        if (cache instanceof WritableCache) {
+            return ((WritableCache) cache).snapshot();
+        }
+        return cache;
+    }
+
+    /**
+     * Creates a modifiable copy of the specified cache, that can be changed without affecting the readers of the
+     * cache. Caches that do not support copies are returned as is.
+     *
+     * @param cache the cache
+     *
+     * @return the copy
+     */
+    public WritableContentCache copy(WritableContentCache cache) {
+        if (cache instanceof WritableCache) {
+            return ((WritableCache) cache).copy();
+        }
+        return cache;
+    }
+
     private static class LazyHolder {
         private static final CacheFactory INSTANCE = new CacheFactory();
 
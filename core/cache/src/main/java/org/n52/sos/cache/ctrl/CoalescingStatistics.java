@@ -0,0 +1,95 @@
+/**
+ * Copyright (C) 2013
+ * by 52 North Initiative for Geospatial Open Source Software GmbH
+ *
+ * Contact: Andreas Wytzisk
+ * 52 North Initiative for Geospatial Open Source Software GmbH
+ * Martin-Luther-King-Weg 24
+ * 48155 Muenster, Germany
+ * info@52north.org
+ *
+ * This program is free software; you can redistribute and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the
+ * Free Software Foundation.
+ *
+ * This program is distributed WITHOUT ANY WARRANTY; even without the implied
+ * WARRANTY OF MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program (see gnu-gpl v2.txt). If not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA or
+ * visit the Free Software Foundation web page, http://www.fsf.org.
+ */
+package org.n52.sos.cache.ctrl;
+
+/**
+ * Statistics about the coalesced cache updates of a {@link ContentCacheControllerImpl}: the number and size of the
+ * applied batches and the lag between the first update of a batch being submitted and the batch being applied.
+ *
+ * @since 4.0.0
+ */
+public class CoalescingStatistics {
+    private long batches;
+    private long updates;
+    private long maxBatchSize;
+    private long totalLag;
+    private long maxLag;
+
+    synchronized void record(int batchSize, long lag) {
+        ++this.batches;
+        this.updates += batchSize;
+        this.maxBatchSize = Math.max(this.maxBatchSize, batchSize);
+        this.totalLag += lag;
+        this.maxLag = Math.max(this.maxLag, lag);
+    }
+
+    /**
+     * @return the number of applied batches
+     */
+    public synchronized long getBatchCount() {
+        return batches;
+    }
+
+    /**
+     * @return the number of updates in all applied batches
+     */
+    public synchronized long getUpdateCount() {
+        return updates;
+    }
+
+    /**
+     * @return the size of the largest batch
+     */
+    public synchronized long getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    /**
+     * @return the average batch size
+     */
+    public synchronized double getAverageBatchSize() {
+        return batches == 0 ? 0 : (double) updates / batches;
+    }
+
+    /**
+     * @return the maximum lag in milliseconds
+     */
+    public synchronized long getMaxLag() {
+        return maxLag;
+    }
+
+    /**
+     * @return the average lag in milliseconds
+     */
+    public synchronized double getAverageLag() {
+        return batches == 0 ? 0 : (double) totalLag / batches;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("CoalescingStatistics[batches=%d, updates=%d, averageBatchSize=%.1f, maxBatchSize=%d, "
+                             + "averageLag=%.1fms, maxLag=%dms]", getBatchCount(), getUpdateCount(),
+                             getAverageBatchSize(), getMaxBatchSize(), getAverageLag(), getMaxLag());
+    }
+}
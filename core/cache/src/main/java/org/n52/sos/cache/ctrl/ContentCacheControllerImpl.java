@@ -23,13 +23,27 @@
  */
 package org.n52.sos.cache.ctrl;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.Timer;
+import java.util.TimerTask;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
@@ -38,20 +52,49 @@ import java.util.concurrent.locks.ReentrantLock;
 import org.apache.commons.io.IOUtils;
 import org.n52.sos.cache.ContentCacheUpdate;
 import org.n52.sos.cache.WritableContentCache;
+import org.n52.sos.cache.ctrl.action.BatchedCacheUpdate;
 import org.n52.sos.cache.ctrl.action.CompleteCacheUpdate;
+import org.n52.sos.cache.ctrl.action.IncrementalCacheUpdate;
+import org.n52.sos.config.annotation.Setting;
+import org.n52.sos.exception.ConfigurationException;
 import org.n52.sos.ogc.ows.OwsExceptionReport;
 import org.n52.sos.service.Configurator;
+import org.n52.sos.util.CollectionHelper;
+import org.n52.sos.util.Validation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * Classes that saves the cache state after each apply. Actual functionality is delegated to subclasses.
+ * <p/>
+ * The published cache is an immutable snapshot that is replaced atomically, so readers never have to lock or copy.
+ * Partial updates are applied to a private copy of the current snapshot, which is published after the update
+ * succeeded. Complete updates build a new cache and publish a snapshot of it.
+ * <p/>
+ * Changes are written asynchronously to the cache file. All changes within the configured persistence delay are
+ * written at once, the cache is written synchronously on {@link #cleanup()}. The file starts with a version header, so
+ * a cache file of an incompatible version is reported and rebuilt instead of being read.
+ * <p/>
+ * If a coalescing window is configured, updates that only add content (see {@link ContentCacheUpdate#isCoalescable()})
+ * are collected and applied as a single {@link BatchedCacheUpdate} when the window expires. Any other partial update
+ * applies the collected updates first, so the order of the updates is retained.
  *
  * @author Christian Autermann <c.autermann@52north.org>
  */
 public class ContentCacheControllerImpl extends AbstractSchedulingContentCacheController {
     private static final Logger LOGGER = LoggerFactory.getLogger(ContentCacheControllerImpl.class);
     private static final String CACHE_FILE = "cache.tmp";
+    private static final String CACHE_FILE_PART_SUFFIX = ".part";
+    /**
+     * "SOSC"
+     */
+    private static final int CACHE_FILE_MAGIC = 0x534F5343;
+    /**
+     * Has to be increased on every change of the persisted cache classes that does not change their fields, e.g. of
+     * the meaning of a field. Changes of the fields are detected by the fingerprint of the cache classes.
+     */
+    private static final int CACHE_FILE_VERSION = 2;
+    private static final String SOS_PACKAGE = "org.n52.sos.";
     private static final AtomicInteger COMPLETE_UPDATE_COUNT = new AtomicInteger(0);
     private static final AtomicInteger PARTIAL_UPDATE_COUNT = new AtomicInteger(0);
     private String cacheFile;
@@ -59,6 +102,19 @@ public class ContentCacheControllerImpl extends AbstractSchedulingContentCacheCo
     private CompleteUpdate next = null;
     private volatile WritableContentCache cache;
     private Lock lock = new ReentrantLock();
+    private final Lock partialUpdateLock = new ReentrantLock();
+    private final Timer persistenceTimer = new Timer("52n-sos-capabilities-cache-persistence", true);
+    private final AtomicBoolean persistenceScheduled = new AtomicBoolean(false);
+    private long persistenceDelay = 30000;
+    private boolean incrementalUpdate = false;
+    private final Timer coalescingTimer = new Timer("52n-sos-capabilities-cache-coalescing", true);
+    private final List<ContentCacheUpdate> coalescedUpdates = CollectionHelper.list();
+    private final CoalescingStatistics coalescingStatistics = new CoalescingStatistics();
+    private long coalescingStart;
+    private volatile long coalescingWindow = 0;
+    private volatile long completeUpdateInterval = 1440 * 60000L;
+    private volatile long lastCompleteUpdate = 0;
+    private volatile boolean completeUpdateRequired = false;
 
     public ContentCacheControllerImpl() {
         loadOrCreateCache();
@@ -76,9 +132,46 @@ public class ContentCacheControllerImpl extends AbstractSchedulingContentCacheCo
         return new File(this.cacheFile);
     }
 
+    @Setting(ScheduledContentCacheControllerSettings.CAPABILITIES_CACHE_PERSISTENCE_DELAY)
+    public void setPersistenceDelay(int delay) throws ConfigurationException {
+        Validation.greaterEqualZero("Cache persistence delay", delay);
+        this.persistenceDelay = delay * 1000L;
+    }
+
+    @Setting(ScheduledContentCacheControllerSettings.CAPABILITIES_CACHE_INCREMENTAL_UPDATE)
+    public void setIncrementalUpdate(boolean incrementalUpdate) {
+        this.incrementalUpdate = incrementalUpdate;
+    }
+
+    @Setting(ScheduledContentCacheControllerSettings.CAPABILITIES_CACHE_COALESCING_WINDOW)
+    public void setCoalescingWindow(int window) throws ConfigurationException {
+        Validation.greaterEqualZero("Cache update coalescing window", window);
+        this.coalescingWindow = window;
+    }
+
+    @Setting(ScheduledContentCacheControllerSettings.CAPABILITIES_CACHE_COMPLETE_UPDATE_INTERVAL)
+    public void setCompleteUpdateInterval(int interval) throws ConfigurationException {
+        Validation.greaterEqualZero("Complete cache update interval", interval);
+        this.completeUpdateInterval = interval * 60000L;
+    }
+
+    /**
+     * @return the statistics of the coalesced updates
+     */
+    public CoalescingStatistics getCoalescingStatistics() {
+        return coalescingStatistics;
+    }
+
     @Override
     public void cleanup() {
         super.cleanup();
+        coalescingTimer.cancel();
+        try {
+            applyCoalescedUpdates();
+        } catch (OwsExceptionReport e) {
+            LOGGER.error("Error applying coalesced cache updates", e);
+        }
+        persistenceTimer.cancel();
         persistCache();
     }
 
@@ -88,8 +181,24 @@ public class ContentCacheControllerImpl extends AbstractSchedulingContentCacheCo
             LOGGER.debug("Reading cache from temp file '{}'", f.getAbsolutePath());
             ObjectInputStream in = null;
             try {
-                in = new ObjectInputStream(new FileInputStream(f));
-                setCache((WritableContentCache) in.readObject());
+                in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(f)));
+                int magic = in.readInt();
+                int version = magic == CACHE_FILE_MAGIC ? in.readInt() : -1;
+                if (magic != CACHE_FILE_MAGIC) {
+                    LOGGER.warn("Cache file '{}' has an unknown format and will be rebuilt", f.getAbsolutePath());
+                } else if (version != CACHE_FILE_VERSION) {
+                    LOGGER.warn("Cache file '{}' has version {} instead of {} and will be rebuilt",
+                                f.getAbsolutePath(), version, CACHE_FILE_VERSION);
+                } else {
+                    long fingerprint = in.readLong();
+                    Class<?> type = Class.forName(in.readUTF());
+                    if (fingerprint != getFingerprint(type)) {
+                        LOGGER.warn("Cache file '{}' was written by other cache classes and will be rebuilt",
+                                    f.getAbsolutePath());
+                    } else {
+                        setCache((WritableContentCache) in.readObject());
+                    }
+                }
             } catch (IOException t) {
                 LOGGER.error(String.format("Error reading cache file '%s'", f.getAbsolutePath()), t);
             } catch (ClassNotFoundException t) {
@@ -108,30 +217,101 @@ public class ContentCacheControllerImpl extends AbstractSchedulingContentCacheCo
         }
     }
 
-    private void persistCache() {
+    /**
+     * Schedules the persistence of the cache. Calls within the persistence delay are coalesced into a single write.
+     */
+    private void schedulePersistence() {
+        if (persistenceScheduled.compareAndSet(false, true)) {
+            try {
+                persistenceTimer.schedule(new PersistenceTimerTask(), persistenceDelay);
+            } catch (IllegalStateException e) {
+                // the timer was canceled by cleanup(), which persists the cache itself
+                persistenceScheduled.set(false);
+            }
+        }
+    }
+
+    /**
+     * Writes the current cache to the cache file. The published cache is an immutable snapshot, so it can be written
+     * without holding any lock. The file is written to a temporary file first and then renamed, so a failed write
+     * does not destroy the last persisted cache.
+     * <p/>
+     * The cache is written with Java serialization. This is neither a compact format nor is the file memory mapped
+     * on startup: structures a snapshot shares with earlier snapshots keep the identifier dictionaries they were
+     * interned into, so an identifier may be written more than once. As the cache classes declare fixed serial
+     * version UIDs, Java serialization would read a cache of changed classes with missing fields left {@code null}.
+     * The header therefore contains the {@link #CACHE_FILE_VERSION} and a fingerprint of the fields of the cache
+     * classes, and any mismatch rebuilds the cache.
+     */
+    private synchronized void persistCache() {
+        WritableContentCache current = getCache();
+        if (current == null) {
+            return;
+        }
         File f = getCacheFile();
-        if (!f.exists() || f.delete()) {
-            ObjectOutputStream out = null;
-            if (getCache() != null) {
-                LOGGER.debug("Serializing cache to {}", f.getAbsolutePath());
-                try {
-                    if (f.createNewFile() && f.canWrite()) {
-                        out = new ObjectOutputStream(new FileOutputStream(f));
-                        out.writeObject(getCache());
-                    } else {
-                        LOGGER.error("Can not create writable file {}", f.getAbsolutePath());
+        File part = new File(f.getPath() + CACHE_FILE_PART_SUFFIX);
+        LOGGER.debug("Serializing cache to {}", f.getAbsolutePath());
+        ObjectOutputStream out = null;
+        try {
+            out = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(part)));
+            out.writeInt(CACHE_FILE_MAGIC);
+            out.writeInt(CACHE_FILE_VERSION);
+            out.writeLong(getFingerprint(current.getClass()));
+            out.writeUTF(current.getClass().getName());
+            out.writeObject(current);
+            out.close();
+            out = null;
+            if ((f.exists() && !f.delete()) || !part.renameTo(f)) {
+                LOGGER.error("Can not replace cache file {}", f.getAbsolutePath());
+            }
+        } catch (IOException t) {
+            LOGGER.error(String.format("Error serializing cache to '%s'", f.getAbsolutePath()), t);
+        } finally {
+            IOUtils.closeQuietly(out);
+            if (part.exists()) {
+                part.delete();
+            }
+        }
+    }
+
+    /**
+     * Creates a fingerprint of the serialized fields of the class, its super classes and the SOS classes used by
+     * these fields.
+     */
+    private static long getFingerprint(Class<?> type) {
+        List<String> fields = new ArrayList<String>();
+        addFields(type, fields, new HashSet<Class<?>>());
+        Collections.sort(fields);
+        long fingerprint = 1125899906842597L;
+        for (String field : fields) {
+            for (int i = 0; i < field.length(); ++i) {
+                fingerprint = 31 * fingerprint + field.charAt(i);
+            }
+        }
+        return fingerprint;
+    }
+
+    private static void addFields(Type type, List<String> fields, Set<Class<?>> visited) {
+        if (type instanceof ParameterizedType) {
+            addFields(((ParameterizedType) type).getRawType(), fields, visited);
+            for (Type argument : ((ParameterizedType) type).getActualTypeArguments()) {
+                addFields(argument, fields, visited);
+            }
+        } else if (type instanceof Class) {
+            for (Class<?> c = (Class<?>) type; c != null && c.getName().startsWith(SOS_PACKAGE) && visited.add(c);
+                 c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    if (!Modifier.isStatic(field.getModifiers()) && !Modifier.isTransient(field.getModifiers())) {
+                        fields.add(c.getName() + "." + field.getName() + ":" + field.getGenericType());
+                        addFields(field.getGenericType(), fields, visited);
                     }
-                } catch (IOException t) {
-                    LOGGER.error(String.format("Error serializing cache to '%s'", f.getAbsolutePath()), t);
-                } finally {
-                    IOUtils.closeQuietly(out);
                 }
             }
         }
     }
 
     protected void setCache(WritableContentCache wcc) {
-        this.cache = wcc;
+        this.cache = CacheFactory.getInstance().snapshot(wcc);
     }
 
     @Override
@@ -139,8 +319,16 @@ public class ContentCacheControllerImpl extends AbstractSchedulingContentCacheCo
         if (update != null) {
             if (update.isCompleteUpdate()) {
                 executeComplete(new CompleteUpdate(update));
+            } else if (coalescingWindow > 0 && update.isCoalescable()) {
+                coalesce(update);
             } else {
-                executePartial(new PartialUpdate(update));
+                partialUpdateLock.lock();
+                try {
+                    applyCoalescedUpdates();
+                    executePartial(new PartialUpdate(update));
+                } finally {
+                    partialUpdateLock.unlock();
+                }
             }
         } else {
             throw new IllegalArgumentException("update may not be null");
@@ -149,11 +337,19 @@ public class ContentCacheControllerImpl extends AbstractSchedulingContentCacheCo
 
     private void runCurrent() throws OwsExceptionReport {
         LOGGER.trace("Starting update {}", this.current);
-        this.current.execute();
+        // changes during the update may not be seen by it
+        this.completeUpdateRequired = false;
+        this.lastCompleteUpdate = System.currentTimeMillis();
+        try {
+            this.current.execute();
+        } catch (OwsExceptionReport e) {
+            this.completeUpdateRequired = true;
+            throw e;
+        }
         LOGGER.trace("Finished update {}", this.current);
         lock();
         try {
-            persistCache();
+            schedulePersistence();
             CompleteUpdate u = this.current;
             this.current = null;
             u.signalWaiting();
@@ -163,15 +359,75 @@ public class ContentCacheControllerImpl extends AbstractSchedulingContentCacheCo
     }
 
     private void executePartial(PartialUpdate update) throws OwsExceptionReport {
-        update.execute(getCache());
-        lock();
+        partialUpdateLock.lock();
         try {
-            persistCache();
-            if (this.current != null) {
-                this.current.addUpdate(update);
+            WritableContentCache copy = CacheFactory.getInstance().copy(getCache());
+            update.execute(copy);
+            if (update.getUpdate().isCompleteUpdateRequired()) {
+                this.completeUpdateRequired = true;
+            }
+            lock();
+            try {
+                setCache(copy);
+                schedulePersistence();
+                if (this.current != null) {
+                    this.current.addUpdate(update);
+                }
+            } finally {
+                unlock();
             }
         } finally {
-            unlock();
+            partialUpdateLock.unlock();
+        }
+    }
+
+    /**
+     * Adds the update to the collected updates and schedules their application if it is the first one.
+     */
+    private void coalesce(ContentCacheUpdate update) throws OwsExceptionReport {
+        synchronized (coalescedUpdates) {
+            boolean scheduled = !coalescedUpdates.isEmpty();
+            if (!scheduled) {
+                try {
+                    coalescingTimer.schedule(new CoalescingTimerTask(), coalescingWindow);
+                    coalescingStart = System.currentTimeMillis();
+                    scheduled = true;
+                } catch (IllegalStateException e) {
+                    // the timer was canceled by cleanup()
+                    LOGGER.debug("Coalescing is stopped, applying update directly");
+                }
+            }
+            if (scheduled) {
+                coalescedUpdates.add(update);
+                return;
+            }
+        }
+        executePartial(new PartialUpdate(update));
+    }
+
+    /**
+     * Applies the collected updates as a single partial update.
+     */
+    private void applyCoalescedUpdates() throws OwsExceptionReport {
+        partialUpdateLock.lock();
+        try {
+            List<ContentCacheUpdate> updates;
+            long start;
+            synchronized (coalescedUpdates) {
+                if (coalescedUpdates.isEmpty()) {
+                    return;
+                }
+                updates = new ArrayList<ContentCacheUpdate>(coalescedUpdates);
+                start = coalescingStart;
+                coalescedUpdates.clear();
+            }
+            executePartial(new PartialUpdate(new BatchedCacheUpdate(updates)));
+            long lag = System.currentTimeMillis() - start;
+            coalescingStatistics.record(updates.size(), lag);
+            LOGGER.debug("Applied {} coalesced cache updates after {} ms: {}", updates.size(), lag,
+                         coalescingStatistics);
+        } finally {
+            partialUpdateLock.unlock();
         }
     }
 
@@ -233,6 +489,54 @@ public class ContentCacheControllerImpl extends AbstractSchedulingContentCacheCo
         update(new CompleteCacheUpdate());
     }
 
+    /**
+     * Executes an {@link IncrementalCacheUpdate} if configured and falls back to a complete update if the changes can
+     * not be applied incrementally. A complete update is executed instead, if a previous update, e.g. of a deleted
+     * sensor, requires it or if the last complete update is older than the complete update interval.
+     */
+    @Override
+    protected void scheduledUpdate() throws OwsExceptionReport {
+        if (this.incrementalUpdate) {
+            if (this.completeUpdateRequired) {
+                LOGGER.info("Previous update requires a complete cache update");
+            } else if (isCompleteUpdateDue()) {
+                LOGGER.info("Complete update interval elapsed, executing a complete cache update");
+            } else {
+                IncrementalCacheUpdate update = new IncrementalCacheUpdate();
+                update(update);
+                if (!update.isCompleteUpdateRequired()) {
+                    return;
+                }
+                LOGGER.info("Changes can not be applied incrementally, executing a complete cache update");
+            }
+        }
+        update();
+    }
+
+    private boolean isCompleteUpdateDue() {
+        long interval = this.completeUpdateInterval;
+        return interval > 0 && System.currentTimeMillis() - this.lastCompleteUpdate >= interval;
+    }
+
+    private class PersistenceTimerTask extends TimerTask {
+        @Override
+        public void run() {
+            persistenceScheduled.set(false);
+            persistCache();
+        }
+    }
+
+    private class CoalescingTimerTask extends TimerTask {
+        @Override
+        public void run() {
+            try {
+                applyCoalescedUpdates();
+            } catch (OwsExceptionReport e) {
+                LOGGER.error("Error applying coalesced cache updates", e);
+            }
+        }
+    }
+
     private enum State {
         WAITING,
         RUNNING,
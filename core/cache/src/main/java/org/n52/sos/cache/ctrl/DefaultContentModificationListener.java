@@ -24,16 +24,19 @@
 package org.n52.sos.cache.ctrl;
 
 import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 
 import org.n52.sos.cache.ContentCacheUpdate;
+import org.n52.sos.cache.ctrl.action.BatchedCacheUpdate;
 import org.n52.sos.cache.ctrl.action.ObservationInsertionUpdate;
 import org.n52.sos.cache.ctrl.action.ResultInsertionUpdate;
 import org.n52.sos.cache.ctrl.action.ResultTemplateInsertionUpdate;
 import org.n52.sos.cache.ctrl.action.SensorDeletionUpdate;
 import org.n52.sos.cache.ctrl.action.SensorInsertionUpdate;
+import org.n52.sos.event.ReliableSosEventListener;
 import org.n52.sos.event.SosEvent;
-import org.n52.sos.event.SosEventListener;
+import org.n52.sos.event.SosEventBatchListener;
 import org.n52.sos.event.events.ObservationInsertion;
 import org.n52.sos.event.events.ResultInsertion;
 import org.n52.sos.event.events.ResultTemplateInsertion;
@@ -49,7 +52,7 @@ import org.slf4j.LoggerFactory;
  * @author Christian Autermann <c.autermann@52north.org>
  * @since 4.0.0
  */
-public class DefaultContentModificationListener implements SosEventListener {
+public class DefaultContentModificationListener implements SosEventBatchListener, ReliableSosEventListener {
     private static final Logger LOGGER = LoggerFactory.getLogger(DefaultContentModificationListener.class);
     @SuppressWarnings("unchecked")
     private static final Set<Class<? extends SosEvent>> TYPES = CollectionHelper.<Class<? extends SosEvent>>set(
@@ -66,24 +69,51 @@ public class DefaultContentModificationListener implements SosEventListener {
 
     @Override
     public void handle(SosEvent event) {
+        ContentCacheUpdate update = createUpdate(event);
+        if (update != null) {
+            handle(update);
+        }
+    }
+
+    /**
+     * Applies the updates of all events to the cache at once.
+     */
+    @Override
+    public void handle(List<SosEvent> events) {
+        List<ContentCacheUpdate> updates = CollectionHelper.list();
+        for (SosEvent event : events) {
+            ContentCacheUpdate update = createUpdate(event);
+            if (update != null) {
+                updates.add(update);
+            }
+        }
+        if (updates.size() == 1) {
+            handle(updates.get(0));
+        } else if (!updates.isEmpty()) {
+            handle(new BatchedCacheUpdate(updates));
+        }
+    }
+
+    protected ContentCacheUpdate createUpdate(SosEvent event) {
         if (event instanceof SensorInsertion) {
             SensorInsertion e = (SensorInsertion) event;
-            handle(new SensorInsertionUpdate(e.getRequest(), e.getResponse()));
+            return new SensorInsertionUpdate(e.getRequest(), e.getResponse());
         } else if (event instanceof ObservationInsertion) {
             ObservationInsertion e = (ObservationInsertion) event;
-            handle(new ObservationInsertionUpdate(e.getRequest()));
+            return new ObservationInsertionUpdate(e.getRequest());
         } else if (event instanceof ResultTemplateInsertion) {
             ResultTemplateInsertion e = (ResultTemplateInsertion) event;
-            handle(new ResultTemplateInsertionUpdate(e.getRequest(), e.getResponse()));
+            return new ResultTemplateInsertionUpdate(e.getRequest(), e.getResponse());
         } else if (event instanceof SensorDeletion) {
             SensorDeletion e = (SensorDeletion) event;
-            handle(new SensorDeletionUpdate(e.getRequest()));
+            return new SensorDeletionUpdate(e.getRequest());
         } else if (event instanceof ResultInsertion) {
             ResultInsertion e = (ResultInsertion) event;
-            handle(new ResultInsertionUpdate(e.getRequest().getTemplateIdentifier(),
-                                             e.getResponse().getObservation()));
+            return new ResultInsertionUpdate(e.getRequest().getTemplateIdentifier(),
+                                             e.getResponse().getObservation());
         } else {
             LOGGER.debug("Can not handle modification event: {}", event);
+            return null;
         }
     }
 
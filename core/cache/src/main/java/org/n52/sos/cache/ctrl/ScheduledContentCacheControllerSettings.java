@@ -23,13 +23,14 @@
  */
 package org.n52.sos.cache.ctrl;
 
-import java.util.Collections;
 import java.util.Set;
 
 import org.n52.sos.config.SettingDefinition;
 import org.n52.sos.config.SettingDefinitionProvider;
+import org.n52.sos.config.settings.BooleanSettingDefinition;
 import org.n52.sos.config.settings.IntegerSettingDefinition;
 import org.n52.sos.service.ServiceSettings;
+import org.n52.sos.util.CollectionHelper;
 
 /**
  * Settings for the {@link ScheduledContentCacheController}.
@@ -47,9 +48,59 @@ public class ScheduledContentCacheControllerSettings implements SettingDefinitio
             .setTitle("Content cache update interval")
             .setDescription("The update interval of the content cache in minutes. Set this to lower value if "
                             + "your database is externally modified frequently.");
+    public static final String CAPABILITIES_CACHE_PERSISTENCE_DELAY = "service.capabilitiesCachePersistenceDelay";
+    public static final IntegerSettingDefinition CACHE_PERSISTENCE_DELAY_DEFINITION = new IntegerSettingDefinition()
+            .setGroup(ServiceSettings.GROUP)
+            .setOrder(8)
+            .setKey(CAPABILITIES_CACHE_PERSISTENCE_DELAY)
+            .setDefaultValue(30)
+            .setMinimum(0)
+            .setTitle("Content cache persistence delay")
+            .setDescription("The delay in seconds after which changes of the content cache are written to the cache "
+                            + "file. All changes within this period are written at once.");
+    public static final String CAPABILITIES_CACHE_INCREMENTAL_UPDATE = "service.capabilitiesCacheIncrementalUpdate";
+    public static final BooleanSettingDefinition CACHE_INCREMENTAL_UPDATE_DEFINITION = new BooleanSettingDefinition()
+            .setGroup(ServiceSettings.GROUP)
+            .setOrder(9)
+            .setKey(CAPABILITIES_CACHE_INCREMENTAL_UPDATE)
+            .setDefaultValue(false)
+            .setTitle("Incremental content cache update")
+            .setDescription("Should the scheduled content cache update only apply the observations inserted since "
+                            + "the last update? A complete update is executed if the changes can not be determined "
+                            + "and when the cache is reloaded explicitly. Deletions in the database are only "
+                            + "reflected by complete updates.");
+    public static final String CAPABILITIES_CACHE_COMPLETE_UPDATE_INTERVAL =
+            "service.capabilitiesCacheCompleteUpdateInterval";
+    public static final IntegerSettingDefinition CACHE_COMPLETE_UPDATE_INTERVAL_DEFINITION =
+            new IntegerSettingDefinition()
+            .setGroup(ServiceSettings.GROUP)
+            .setOrder(11)
+            .setKey(CAPABILITIES_CACHE_COMPLETE_UPDATE_INTERVAL)
+            .setDefaultValue(1440)
+            .setMinimum(0)
+            .setTitle("Complete content cache update interval")
+            .setDescription("The interval in minutes after which the scheduled content cache update is executed as "
+                            + "complete update although incremental updates are enabled, so changes the incremental "
+                            + "update can not see, e.g. deleted observations, are reflected. Set this to 0 to execute "
+                            + "complete updates only if they are required.");
+    public static final String CAPABILITIES_CACHE_COALESCING_WINDOW = "service.capabilitiesCacheCoalescingWindow";
+    public static final IntegerSettingDefinition CACHE_COALESCING_WINDOW_DEFINITION = new IntegerSettingDefinition()
+            .setGroup(ServiceSettings.GROUP)
+            .setOrder(10)
+            .setKey(CAPABILITIES_CACHE_COALESCING_WINDOW)
+            .setDefaultValue(0)
+            .setMinimum(0)
+            .setTitle("Content cache update coalescing window")
+            .setDescription("The time in milliseconds the content cache updates of inserted observations and results "
+                            + "are collected to be applied at once. Inserted content is visible in the content "
+                            + "cache after this delay. Set this to 0 to apply every update directly.");
 
     @Override
     public Set<SettingDefinition<?, ?>> getSettingDefinitions() {
-        return Collections.<SettingDefinition<?, ?>>singleton(CACHE_UPDATE_INTERVAL_DEFINITION);
+        return CollectionHelper.<SettingDefinition<?, ?>>set(CACHE_UPDATE_INTERVAL_DEFINITION,
+                                                            CACHE_PERSISTENCE_DELAY_DEFINITION,
+                                                            CACHE_INCREMENTAL_UPDATE_DEFINITION,
+                                                            CACHE_COALESCING_WINDOW_DEFINITION,
+                                                            CACHE_COMPLETE_UPDATE_INTERVAL_DEFINITION);
     }
 }
@@ -0,0 +1,75 @@
+/**
+ * Copyright (C) 2013
+ * by 52 North Initiative for Geospatial Open Source Software GmbH
+ *
+ * Contact: Andreas Wytzisk
+ * 52 North Initiative for Geospatial Open Source Software GmbH
+ * Martin-Luther-King-Weg 24
+ * 48155 Muenster, Germany
+ * info@52north.org
+ *
+ * This program is free software; you can redistribute and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the
+ * Free Software Foundation.
+ *
+ * This program is distributed WITHOUT ANY WARRANTY; even without the implied
+ * WARRANTY OF MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program (see gnu-gpl v2.txt). If not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA or
+ * visit the Free Software Foundation web page, http://www.fsf.org.
+ */
+package org.n52.sos.cache.ctrl.action;
+
+import java.util.List;
+
+import org.n52.sos.cache.ContentCacheUpdate;
+import org.n52.sos.util.CollectionHelper;
+
+/**
+ * Executes several {@link ContentCacheUpdate}s in order as a single partial
+ * update, so the cache is only copied, published and persisted once for all of
+ * them.
+ *
+ * @since 4.0.0
+ */
+public class BatchedCacheUpdate extends ContentCacheUpdate {
+    private final List<ContentCacheUpdate> updates;
+
+    public BatchedCacheUpdate(List<ContentCacheUpdate> updates) {
+        this.updates = CollectionHelper.list();
+        for (ContentCacheUpdate update : updates) {
+            if (update.isCompleteUpdate()) {
+                throw new IllegalArgumentException("Complete updates can not be batched: " + update);
+            }
+            this.updates.add(update);
+        }
+    }
+
+    @Override
+    public void execute() {
+        for (ContentCacheUpdate update : this.updates) {
+            update.reset().setCache(getCache()).execute();
+            if (update.failed() && !failed()) {
+                fail(update.getFailureCause());
+            }
+        }
+    }
+
+    @Override
+    public boolean isCompleteUpdateRequired() {
+        for (ContentCacheUpdate update : this.updates) {
+            if (update.isCompleteUpdateRequired()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s [updates=%s]", getClass().getName(), this.updates);
+    }
+}
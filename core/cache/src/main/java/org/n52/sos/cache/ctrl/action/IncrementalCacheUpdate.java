@@ -0,0 +1,54 @@
+/**
+ * Copyright (C) 2013
+ * by 52 North Initiative for Geospatial Open Source Software GmbH
+ *
+ * Contact: Andreas Wytzisk
+ * 52 North Initiative for Geospatial Open Source Software GmbH
+ * Martin-Luther-King-Weg 24
+ * 48155 Muenster, Germany
+ * info@52north.org
+ *
+ * This program is free software; you can redistribute and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the
+ * Free Software Foundation.
+ *
+ * This program is distributed WITHOUT ANY WARRANTY; even without the implied
+ * WARRANTY OF MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program (see gnu-gpl v2.txt). If not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA or
+ * visit the Free Software Foundation web page, http://www.fsf.org.
+ */
+package org.n52.sos.cache.ctrl.action;
+
+import org.n52.sos.ogc.ows.OwsExceptionReport;
+
+/**
+ * Partial update that applies the changes of the data source since the last update to the cache. If the data source
+ * can not determine these changes, the update does not change the cache and {@link #isCompleteUpdateRequired()}
+ * returns {@code true}.
+ *
+ * @since 4.0.0
+ */
+public class IncrementalCacheUpdate extends CacheFeederDAOCacheUpdate {
+    private boolean completeUpdateRequired = false;
+
+    @Override
+    public void execute() {
+        try {
+            completeUpdateRequired = !getDao().updateCacheIncrementally(getCache());
+        } catch (OwsExceptionReport ex) {
+            fail(ex);
+        }
+    }
+
+    /**
+     * @return if the changes could not be applied incrementally and a complete update has to be executed
+     */
+    @Override
+    public boolean isCompleteUpdateRequired() {
+        return completeUpdateRequired;
+    }
+}
@@ -76,6 +76,11 @@ public class ObservationInsertionUpdate extends InMemoryCacheUpdate {
         this.request = request;
     }
 
+    @Override
+    public boolean isCoalescable() {
+        return true;
+    }
+
     @Override
     public void execute() {
         final WritableContentCache cache = getCache();
@@ -63,6 +63,11 @@ public class ResultInsertionUpdate extends InMemoryCacheUpdate {
         this.templateIdentifier = templateIdentifier;
     }
 
+    @Override
+    public boolean isCoalescable() {
+        return true;
+    }
+
     @Override
     public void execute() {
         // TODO remove not required updates and adjust test accordingly
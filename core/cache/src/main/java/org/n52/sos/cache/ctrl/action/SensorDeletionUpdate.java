@@ -116,4 +116,12 @@ public class SensorDeletionUpdate extends InMemoryCacheUpdate {
         cache.recalculateResultTime();
         cache.recalculateGlobalEnvelope();
     }
+
+    /**
+     * The observations of the procedure are marked as deleted, which incremental updates do not see.
+     */
+    @Override
+    public boolean isCompleteUpdateRequired() {
+        return true;
+    }
 }
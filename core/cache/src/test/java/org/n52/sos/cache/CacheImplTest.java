@@ -30,6 +30,8 @@ import static org.junit.Assert.*;
 
 import java.util.Collections;
 
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -95,4 +97,21 @@ public class CacheImplTest {
         assertThat(instance.getGlobalEnvelope(), not(nullValue()));
         assertThat(instance.getGlobalEnvelope(), is(emptySosEnvelope));
     }
+
+    @Test
+    public void should_keep_result_time_and_phenomenon_time_apart() {
+        final DateTime phenomenonStart = new DateTime(2012, 1, 1, 0, 0, DateTimeZone.UTC);
+        final DateTime phenomenonEnd = new DateTime(2012, 1, 2, 0, 0, DateTimeZone.UTC);
+        final DateTime resultStart = new DateTime(2013, 1, 1, 0, 0, DateTimeZone.UTC);
+        final DateTime resultEnd = new DateTime(2013, 1, 2, 0, 0, DateTimeZone.UTC);
+        instance.setPhenomenonTime(phenomenonStart, phenomenonEnd);
+        instance.setResultTime(resultStart, resultEnd);
+
+        for (ReadableCache cache : new ReadableCache[] { instance, instance.snapshot() }) {
+            assertThat(cache.getMinPhenomenonTime(), is(phenomenonStart));
+            assertThat(cache.getMaxPhenomenonTime(), is(phenomenonEnd));
+            assertThat(cache.getMinResultTime(), is(resultStart));
+            assertThat(cache.getMaxResultTime(), is(resultEnd));
+        }
+    }
 }
@@ -0,0 +1,90 @@
+/**
+ * Copyright (C) 2013
+ * by 52 North Initiative for Geospatial Open Source Software GmbH
+ *
+ * Contact: Andreas Wytzisk
+ * 52 North Initiative for Geospatial Open Source Software GmbH
+ * Martin-Luther-King-Weg 24
+ * 48155 Muenster, Germany
+ * info@52north.org
+ *
+ * This program is free software; you can redistribute and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the
+ * Free Software Foundation.
+ *
+ * This program is distributed WITHOUT ANY WARRANTY; even without the implied
+ * WARRANTY OF MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program (see gnu-gpl v2.txt). If not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA or
+ * visit the Free Software Foundation web page, http://www.fsf.org.
+ */
+package org.n52.sos.cache;
+
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.n52.sos.util.InternedSet;
+
+/**
+ * Tests the isolation and the interned identifiers of cache snapshots.
+ *
+ * @since 4.0.0
+ */
+public class CacheSnapshotTest {
+    private WritableCache cache;
+
+    @Before
+    public void createCache() {
+        cache = new WritableCache();
+        cache.addOffering(new String("offering"));
+        cache.addProcedure(new String("procedure"));
+        cache.addProcedureForOffering(new String("offering"), new String("procedure"));
+        cache.addOfferingForProcedure(new String("procedure"), new String("offering"));
+    }
+
+    @Test
+    public void shouldNotSeeLaterModifications() {
+        WritableCache snapshot = cache.snapshot();
+        cache.addProcedure("procedure2");
+        cache.addProcedureForOffering("offering", "procedure2");
+        assertThat(snapshot.hasProcedure("procedure2"), is(false));
+        assertThat(snapshot.getProceduresForOffering("offering").size(), is(1));
+        assertThat(cache.hasProcedure("procedure2"), is(true));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void shouldRejectModifications() {
+        cache.snapshot().addProcedure("procedure2");
+    }
+
+    @Test
+    public void shouldReturnItselfAsSnapshot() {
+        WritableCache snapshot = cache.snapshot();
+        assertThat(snapshot.snapshot(), is(sameInstance(snapshot)));
+    }
+
+    @Test
+    public void shouldEqualTheSourceCache() {
+        WritableCache snapshot = cache.snapshot();
+        assertThat(snapshot.getProcedures(), is(cache.getProcedures()));
+        assertThat(snapshot.getProceduresForOffering("offering"), is(cache.getProceduresForOffering("offering")));
+    }
+
+    @Test
+    public void shouldInternIdentifiers() {
+        WritableCache snapshot = cache.snapshot();
+        assertThat(snapshot.getProceduresSet(), is(instanceOf(InternedSet.class)));
+        assertThat(snapshot.getProceduresForOfferingsMap().get("offering"), is(instanceOf(InternedSet.class)));
+        String procedure = snapshot.getProcedures().iterator().next();
+        String offering = snapshot.getOfferings().iterator().next();
+        assertThat(snapshot.getProceduresForOffering("offering").iterator().next(), is(sameInstance(procedure)));
+        assertThat(snapshot.getOfferingsForProcedure("procedure").iterator().next(), is(sameInstance(offering)));
+    }
+}
@@ -0,0 +1,97 @@
+/**
+ * Copyright (C) 2013
+ * by 52 North Initiative for Geospatial Open Source Software GmbH
+ *
+ * Contact: Andreas Wytzisk
+ * 52 North Initiative for Geospatial Open Source Software GmbH
+ * Martin-Luther-King-Weg 24
+ * 48155 Muenster, Germany
+ * info@52north.org
+ *
+ * This program is free software; you can redistribute and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the
+ * Free Software Foundation.
+ *
+ * This program is distributed WITHOUT ANY WARRANTY; even without the implied
+ * WARRANTY OF MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program (see gnu-gpl v2.txt). If not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA or
+ * visit the Free Software Foundation web page, http://www.fsf.org.
+ */
+package org.n52.sos.cache;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.n52.sos.cache.ctrl.ContentCacheControllerImpl;
+import org.n52.sos.exception.ConfigurationException;
+import org.n52.sos.ogc.ows.OwsExceptionReport;
+
+/**
+ * @since 4.0.0
+ */
+public class CoalescingCacheControllerTest extends AbstractCacheControllerTest {
+    private ContentCacheControllerImpl controller;
+
+    @Before
+    public void createController() throws ConfigurationException {
+        controller = new TestableInMemoryCacheController();
+        controller.setCoalescingWindow(60000);
+    }
+
+    @After
+    public void cleanup() {
+        controller.cleanup();
+    }
+
+    @Test
+    public void should_delay_coalescable_updates() throws OwsExceptionReport {
+        controller.update(new AddIdentifier("o1", true));
+        controller.update(new AddIdentifier("o2", true));
+        assertThat(controller.getCache().getObservationIdentifiers(), is(empty()));
+        assertThat(controller.getCoalescingStatistics().getBatchCount(), is(0L));
+    }
+
+    @Test
+    public void should_apply_coalesced_updates_before_other_updates() throws OwsExceptionReport {
+        controller.update(new AddIdentifier("o1", true));
+        controller.update(new AddIdentifier("o2", true));
+        controller.update(new AddIdentifier("o3", false));
+        assertThat(controller.getCache().getObservationIdentifiers(), containsInAnyOrder("o1", "o2", "o3"));
+        assertThat(controller.getCoalescingStatistics().getBatchCount(), is(1L));
+        assertThat(controller.getCoalescingStatistics().getMaxBatchSize(), is(2L));
+    }
+
+    @Test
+    public void should_apply_coalesced_updates_on_cleanup() throws OwsExceptionReport {
+        controller.update(new AddIdentifier("o1", true));
+        controller.cleanup();
+        assertThat(controller.getCache().getObservationIdentifiers(), contains("o1"));
+    }
+
+    private static class AddIdentifier extends ContentCacheUpdate {
+        private final String identifier;
+        private final boolean coalescable;
+
+        AddIdentifier(String identifier, boolean coalescable) {
+            this.identifier = identifier;
+            this.coalescable = coalescable;
+        }
+
+        @Override
+        public boolean isCoalescable() {
+            return coalescable;
+        }
+
+        @Override
+        public void execute() {
+            getCache().addObservationIdentifier(identifier);
+        }
+    }
+}
@@ -27,8 +27,13 @@ import static org.hamcrest.Matchers.*;
 import static org.junit.Assert.assertThat;
 import static org.n52.sos.cache.Existing.existing;
 
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+
 import org.junit.Test;
 import org.n52.sos.cache.ctrl.ContentCacheControllerImpl;
+import org.n52.sos.ogc.ows.OwsExceptionReport;
 
 /**
  * @author Christian Autermann <c.autermann@52north.org>
@@ -37,11 +42,16 @@ public class PersistingCacheControllerTest extends AbstractCacheControllerTest {
     public static final String IDENTIFIER = "identifier";
 
     @Test
-    public void testSerialization() {
+    public void testSerialization() throws OwsExceptionReport {
         assertThat(getTempFile(), is(not(existing())));
         ContentCacheControllerImpl cc = new TestableInMemoryCacheController();
         assertThat(cc.getCache().getObservationIdentifiers(), is(empty()));
-        cc.getCache().addObservationIdentifier(IDENTIFIER);
+        cc.update(new ContentCacheUpdate() {
+            @Override
+            public void execute() {
+                getCache().addObservationIdentifier(IDENTIFIER);
+            }
+        });
         assertThat(cc.getCache().getObservationIdentifiers(), contains(IDENTIFIER));
         cc.cleanup();
         assertThat(getTempFile(), is(existing()));
@@ -50,4 +60,25 @@ public class PersistingCacheControllerTest extends AbstractCacheControllerTest {
         assertThat(cc.getCache().getObservationIdentifiers(), contains(IDENTIFIER));
     }
 
+    @Test
+    public void testRebuildOfCacheWrittenByOtherCacheClasses() throws IOException {
+        WritableCache cache = new WritableCache();
+        cache.addObservationIdentifier(IDENTIFIER);
+        ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(getTempFile()));
+        try {
+            // header of the current format with a fingerprint of other cache classes
+            out.writeInt(0x534F5343);
+            out.writeInt(2);
+            out.writeLong(0);
+            out.writeUTF(WritableCache.class.getName());
+            out.writeObject(cache);
+        } finally {
+            out.close();
+        }
+        ContentCacheControllerImpl cc = new TestableInMemoryCacheController();
+        assertThat(getTempFile(), is(not(existing())));
+        assertThat(cc.getCache().getObservationIdentifiers(), is(empty()));
+        cc.cleanup();
+    }
+
 }
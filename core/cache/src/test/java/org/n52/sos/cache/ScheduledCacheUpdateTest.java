@@ -0,0 +1,137 @@
+/**
+ * Copyright (C) 2013
+ * by 52 North Initiative for Geospatial Open Source Software GmbH
+ *
+ * Contact: Andreas Wytzisk
+ * 52 North Initiative for Geospatial Open Source Software GmbH
+ * Martin-Luther-King-Weg 24
+ * 48155 Muenster, Germany
+ * info@52north.org
+ *
+ * This program is free software; you can redistribute and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the
+ * Free Software Foundation.
+ *
+ * This program is distributed WITHOUT ANY WARRANTY; even without the implied
+ * WARRANTY OF MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program (see gnu-gpl v2.txt). If not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA or
+ * visit the Free Software Foundation web page, http://www.fsf.org.
+ */
+package org.n52.sos.cache;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.n52.sos.cache.ctrl.action.IncrementalCacheUpdate;
+import org.n52.sos.cache.ctrl.action.SensorDeletionUpdate;
+import org.n52.sos.exception.ConfigurationException;
+import org.n52.sos.ogc.ows.OwsExceptionReport;
+import org.n52.sos.request.DeleteSensorRequest;
+import org.n52.sos.util.CollectionHelper;
+
+/**
+ * @since 4.0.0
+ */
+public class ScheduledCacheUpdateTest extends AbstractCacheControllerTest {
+    private static final String COMPLETE = "complete";
+    private static final String INCREMENTAL = "incremental";
+    private RecordingCacheController controller;
+
+    @Before
+    public void createController() throws ConfigurationException {
+        controller = new RecordingCacheController();
+        controller.setCache(new WritableCache());
+        controller.setIncrementalUpdate(true);
+        controller.setCompleteUpdateInterval(60);
+    }
+
+    @After
+    public void cleanup() {
+        controller.cleanup();
+    }
+
+    @Test
+    public void should_execute_complete_update_first() throws OwsExceptionReport {
+        controller.scheduledUpdate();
+        controller.scheduledUpdate();
+        assertThat(controller.getUpdates(), contains(COMPLETE, INCREMENTAL));
+    }
+
+    @Test
+    public void should_execute_complete_update_after_sensor_deletion() throws OwsExceptionReport {
+        controller.scheduledUpdate();
+        DeleteSensorRequest request = new DeleteSensorRequest();
+        request.setProcedureIdentifier("procedure");
+        controller.update(new SensorDeletionUpdate(request));
+        controller.scheduledUpdate();
+        controller.scheduledUpdate();
+        assertThat(controller.getUpdates(), contains(COMPLETE, COMPLETE, INCREMENTAL));
+    }
+
+    @Test
+    public void should_not_execute_periodic_complete_updates_if_disabled() throws ConfigurationException,
+                                                                                 OwsExceptionReport {
+        controller.setCompleteUpdateInterval(0);
+        controller.scheduledUpdate();
+        controller.scheduledUpdate();
+        assertThat(controller.getUpdates(), contains(INCREMENTAL, INCREMENTAL));
+    }
+
+    @Test
+    public void should_only_execute_complete_updates_if_incremental_updates_are_disabled() throws OwsExceptionReport {
+        controller.setIncrementalUpdate(false);
+        controller.scheduledUpdate();
+        controller.scheduledUpdate();
+        assertThat(controller.getUpdates(), contains(COMPLETE, COMPLETE));
+    }
+
+    /**
+     * Records the scheduled updates instead of querying a data source.
+     */
+    private static class RecordingCacheController extends TestableInMemoryCacheController {
+        private final List<String> updates = CollectionHelper.list();
+
+        @Override
+        public void update() throws OwsExceptionReport {
+            updates.add(COMPLETE);
+            update(new ContentCacheUpdate() {
+                @Override
+                public void execute() {
+                    // keep the cache
+                }
+
+                @Override
+                public boolean isCompleteUpdate() {
+                    return true;
+                }
+            });
+        }
+
+        @Override
+        public void update(ContentCacheUpdate update) throws OwsExceptionReport {
+            if (update instanceof IncrementalCacheUpdate) {
+                updates.add(INCREMENTAL);
+            } else {
+                super.update(update);
+            }
+        }
+
+        @Override
+        protected void scheduledUpdate() throws OwsExceptionReport {
+            super.scheduledUpdate();
+        }
+
+        List<String> getUpdates() {
+            return updates;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/**
+ * Copyright (C) 2013
+ * by 52 North Initiative for Geospatial Open Source Software GmbH
+ *
+ * Contact: Andreas Wytzisk
+ * 52 North Initiative for Geospatial Open Source Software GmbH
+ * Martin-Luther-King-Weg 24
+ * 48155 Muenster, Germany
+ * info@52north.org
+ *
+ * This program is free software; you can redistribute and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the
+ * Free Software Foundation.
+ *
+ * This program is distributed WITHOUT ANY WARRANTY; even without the implied
+ * WARRANTY OF MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program (see gnu-gpl v2.txt). If not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA or
+ * visit the Free Software Foundation web page, http://www.fsf.org.
+ */
+package org.n52.sos.cache;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vividsolutions.jts.geom.Envelope;
+
+/**
+ * Tests that the copy of a snapshot shares the untouched structures and only copies the touched ones.
+ *
+ * @since 4.0.0
+ */
+public class SharedCacheCopyTest {
+    private WritableCache snapshot;
+
+    @Before
+    public void createSnapshot() {
+        WritableCache cache = new WritableCache();
+        cache.addOffering("offering");
+        cache.addProcedure("procedure");
+        cache.addProcedureForOffering("offering", "procedure");
+        cache.updateEnvelopeForOffering("offering", new Envelope(0, 1, 0, 1));
+        snapshot = cache.snapshot();
+    }
+
+    @Test
+    public void shouldShareUntouchedStructures() {
+        WritableCache copy = snapshot.copy();
+        copy.addProcedure("procedure2");
+        WritableCache next = copy.snapshot();
+        assertThat(next.getOfferingsSet(), is(sameInstance(snapshot.getOfferingsSet())));
+        assertThat(next.getProceduresForOfferingsMap(), is(sameInstance(snapshot.getProceduresForOfferingsMap())));
+        assertThat(next.getProceduresSet(), is(not(sameInstance(snapshot.getProceduresSet()))));
+    }
+
+    @Test
+    public void shouldNotModifyTheSharedSnapshot() {
+        WritableCache copy = snapshot.copy();
+        copy.addProcedure("procedure2");
+        copy.addProcedureForOffering("offering", "procedure2");
+        copy.updateEnvelopeForOffering("offering", new Envelope(0, 2, 0, 2));
+        assertThat(snapshot.hasProcedure("procedure2"), is(false));
+        assertThat(snapshot.getProceduresForOffering("offering").size(), is(1));
+        assertThat(snapshot.getEnvelopeForOffering("offering").getEnvelope().getMaxX(), is(1.0));
+        WritableCache next = copy.snapshot();
+        assertThat(next.hasProcedure("procedure2"), is(true));
+        assertThat(next.getProceduresForOffering("offering").size(), is(2));
+        assertThat(next.getEnvelopeForOffering("offering").getEnvelope().getMaxX(), is(2.0));
+    }
+
+    @Test
+    public void shouldEqualTheSnapshotIfUntouched() {
+        assertThat(snapshot.copy().snapshot(), is(snapshot));
+    }
+}
@@ -59,6 +59,11 @@ public abstract class AbstractHibernateDatasource implements Datasource, SQLCons
     public static final String CORE_MAPPINGS_PATH = "/mapping/core";
     public static final String TRANSACTIONAL_MAPPINGS_PATH =
             "/mapping/transactional";
+    public static final String OBSERVATION_MAPPINGS_PATH = "/mapping/observation";
+    public static final String JOINED_OBSERVATION_MAPPINGS_PATH =
+            OBSERVATION_MAPPINGS_PATH + "/joined";
+    public static final String SINGLE_TABLE_OBSERVATION_MAPPINGS_PATH =
+            OBSERVATION_MAPPINGS_PATH + "/single";
     public static final String USERNAME_TITLE = "User Name";
     public static final String PASSWORD_TITLE = "Password";
     public static final String DATABASE_KEY = "jdbc.database";
@@ -87,6 +92,13 @@ public abstract class AbstractHibernateDatasource implements Datasource, SQLCons
             "Should the database support the transactional profile?";
     public static final String TRANSACTIONAL_KEY = "sos.transactional";
     public static final boolean TRANSACTIONAL_DEFAULT_VALUE = true;
+    public static final String SINGLE_TABLE_OBSERVATIONS_TITLE = "Single Table Observation Values";
+    public static final String SINGLE_TABLE_OBSERVATIONS_DESCRIPTION =
+            "Should the observation values be stored in typed columns of the observation table instead of one table per value type? "
+            + "This avoids the joins with all value tables when querying observations of different types. "
+            + "Can not be changed after the schema is created.";
+    public static final String SINGLE_TABLE_OBSERVATIONS_KEY = "sos.singleTableObservations";
+    public static final boolean SINGLE_TABLE_OBSERVATIONS_DEFAULT_VALUE = false;
     public static final String USERNAME_KEY =
             HibernateConstants.CONNECTION_USERNAME;
     public static final String PASSWORD_KEY =
@@ -94,6 +106,8 @@ public abstract class AbstractHibernateDatasource implements Datasource, SQLCons
     private Dialect dialect;
     private final BooleanSettingDefinition transactionalDefiniton =
             createTransactionalDefinition();
+    private final BooleanSettingDefinition singleTableObservationsDefinition =
+            createSingleTableObservationsDefinition();
 
     protected StringSettingDefinition createUsernameDefinition() {
         return new StringSettingDefinition()
@@ -167,10 +181,21 @@ public abstract class AbstractHibernateDatasource implements Datasource, SQLCons
                 .setKey(TRANSACTIONAL_KEY);
     }
 
+    protected BooleanSettingDefinition createSingleTableObservationsDefinition() {
+        return new BooleanSettingDefinition()
+                .setDefaultValue(SINGLE_TABLE_OBSERVATIONS_DEFAULT_VALUE)
+                .setTitle(SINGLE_TABLE_OBSERVATIONS_TITLE)
+                .setDescription(SINGLE_TABLE_OBSERVATIONS_DESCRIPTION)
+                .setGroup(ADVANCED_GROUP)
+                .setOrder(4)
+                .setKey(SINGLE_TABLE_OBSERVATIONS_KEY);
+    }
+
     public CustomConfiguration getConfig(Map<String, Object> settings) {
         CustomConfiguration config = new CustomConfiguration();
         config.configure("/sos-hibernate.cfg.xml");
         config.addDirectory(resource("/mapping/core"));
+        config.addDirectory(resource(getObservationMappingsPath(settings)));
         Boolean transactional = (Boolean) settings.get(
                 this.transactionalDefiniton.getKey());
         if (transactional != null && transactional.booleanValue()) {
@@ -402,6 +427,8 @@ public abstract class AbstractHibernateDatasource implements Datasource, SQLCons
     protected void addMappingFileDirectories(Map<String, Object> settings,
                                              Properties p) {
         String dirList = resource(CORE_MAPPINGS_PATH).getAbsolutePath();
+        dirList += SessionFactoryProvider.PATH_SEPERATOR +
+                   resource(getObservationMappingsPath(settings)).getAbsolutePath();
         Boolean t = (Boolean) settings.get(transactionalDefiniton.getKey());
         if (t.booleanValue()) {
             dirList += SessionFactoryProvider.PATH_SEPERATOR +
@@ -420,6 +447,29 @@ public abstract class AbstractHibernateDatasource implements Datasource, SQLCons
         return transactionalDefiniton;
     }
 
+    /**
+     * @return the directory of the observation mapping selected by the
+     *         settings, the joined-subclass mapping by default
+     */
+    protected String getObservationMappingsPath(Map<String, Object> settings) {
+        Boolean singleTable = (Boolean) settings.get(
+                this.singleTableObservationsDefinition.getKey());
+        if (singleTable != null && singleTable.booleanValue()) {
+            return SINGLE_TABLE_OBSERVATION_MAPPINGS_PATH;
+        }
+        return JOINED_OBSERVATION_MAPPINGS_PATH;
+    }
+
+    protected boolean isSingleTableObservations(Properties properties) {
+        String p = properties
+                .getProperty(SessionFactoryProvider.HIBERNATE_DIRECTORY);
+        return p != null && p.contains(SINGLE_TABLE_OBSERVATION_MAPPINGS_PATH);
+    }
+
+    protected BooleanSettingDefinition getSingleTableObservationsDefinition() {
+        return singleTableObservationsDefinition;
+    }
+
     private <T> T[] concat(T[] first, T[]... rest) {
         int length = first.length;
         for (int i = 0; i < rest.length; ++i) {
@@ -58,7 +58,8 @@ public abstract class AbstractHibernateFullDBDatasource extends
 				createHostDefinition(hostDefault),
 				createPortDefinition(portDefault),
 				createSchemaDefinition(schemaDefault),
-				getTransactionalDefiniton());
+				getTransactionalDefiniton(),
+				getSingleTableObservationsDefinition());
 	}
 
 	@Override
@@ -144,6 +145,8 @@ public abstract class AbstractHibernateFullDBDatasource extends
 		settings.put(PASSWORD_KEY,
 				current.getProperty(HibernateConstants.CONNECTION_PASSWORD));
 		settings.put(TRANSACTIONAL_KEY, isTransactional(current));
+		settings.put(SINGLE_TABLE_OBSERVATIONS_KEY,
+				isSingleTableObservations(current));
 		String url = current.getProperty(HibernateConstants.CONNECTION_URL);
 
 		String[] parsed = parseURL(url);
@@ -31,8 +31,10 @@ import java.util.List;
 
 import org.hibernate.Criteria;
 import org.hibernate.Session;
+import org.hibernate.criterion.DetachedCriteria;
 import org.hibernate.criterion.Projections;
 import org.hibernate.criterion.Restrictions;
+import org.hibernate.criterion.Subqueries;
 import org.n52.sos.ds.hibernate.entities.FeatureOfInterest;
 import org.n52.sos.ds.hibernate.entities.FeatureOfInterestType;
 import org.n52.sos.ds.hibernate.entities.Observation;
@@ -40,6 +42,8 @@ import org.n52.sos.ds.hibernate.entities.ObservationConstellation;
 import org.n52.sos.ds.hibernate.entities.Offering;
 import org.n52.sos.ds.hibernate.entities.RelatedFeature;
 import org.n52.sos.ds.hibernate.entities.TFeatureOfInterest;
+import org.n52.sos.ds.hibernate.util.QueryHelper;
+import org.n52.sos.ds.hibernate.util.QueryHelper.ChunkCriteriaFactory;
 import org.n52.sos.exception.ows.NoApplicableCodeException;
 import org.n52.sos.ogc.OGCConstants;
 import org.n52.sos.ogc.om.features.AbstractFeature;
@@ -126,8 +130,13 @@ public class FeatureOfInterestDAO {
     @SuppressWarnings("unchecked")
     public List<FeatureOfInterest> getFeatureOfInterestObject(final Collection<String> identifiers, final Session session) {
         if (identifiers != null && !identifiers.isEmpty()) {
-            return session.createCriteria(FeatureOfInterest.class)
-                    .add(Restrictions.in(FeatureOfInterest.IDENTIFIER, identifiers)).list();
+            return QueryHelper.listInChunks(Collections.singletonList(identifiers), new ChunkCriteriaFactory() {
+                @Override
+                public Criteria create(final List<Collection<?>> chunks) {
+                    return session.createCriteria(FeatureOfInterest.class).add(
+                            QueryHelper.getInCriterion(FeatureOfInterest.IDENTIFIER, chunks.get(0)));
+                }
+            });
         }
         return Collections.emptyList();
     }
@@ -144,6 +153,27 @@ public class FeatureOfInterestDAO {
         return session.createCriteria(FeatureOfInterest.class).list();
     }
 
+    /**
+     * Get the featureOfInterest objects of the observations inserted after the
+     * specified observation
+     * 
+     * @param observationId
+     *            Id of the last known observation
+     * @param session
+     *            Hibernate session
+     * @return FeatureOfInterest objects
+     */
+    @SuppressWarnings("unchecked")
+    public List<FeatureOfInterest> getFeatureOfInterestObjectsForObservationsAfter(final long observationId,
+            final Session session) {
+        final DetachedCriteria changed =
+                new ObservationDAO().getObservationsAfterCriteria(observationId)
+                        .createAlias(Observation.FEATURE_OF_INTEREST, "f")
+                        .setProjection(Projections.distinct(Projections.property("f." + FeatureOfInterest.ID)));
+        return session.createCriteria(FeatureOfInterest.class)
+                .add(Subqueries.propertyIn(FeatureOfInterest.ID, changed)).list();
+    }
+
     /**
      * Insert and/or get featureOfInterest object for identifier
      * 
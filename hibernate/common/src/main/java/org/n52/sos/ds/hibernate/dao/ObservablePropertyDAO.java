@@ -24,7 +24,11 @@
 package org.n52.sos.ds.hibernate.dao;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.hibernate.Criteria;
 import org.hibernate.Session;
@@ -34,7 +38,11 @@ import org.n52.sos.ds.hibernate.entities.ObservableProperty;
 import org.n52.sos.ds.hibernate.entities.Observation;
 import org.n52.sos.ds.hibernate.entities.Offering;
 import org.n52.sos.ds.hibernate.entities.Procedure;
+import org.n52.sos.ds.hibernate.util.QueryHelper;
+import org.n52.sos.ds.hibernate.util.QueryHelper.ChunkCriteriaFactory;
 import org.n52.sos.ogc.om.OmObservableProperty;
+import org.n52.sos.util.MultiMaps;
+import org.n52.sos.util.SetMultiMap;
 
 /**
  * Hibernate data access class for observable properties
@@ -77,6 +85,41 @@ public class ObservablePropertyDAO {
         return c.list();
     }
 
+    /**
+     * Get the observable property identifiers of the observations of each of
+     * the offerings with a single query
+     * 
+     * @param offeringIdentifiers
+     *            Offering identifiers
+     * @param session
+     *            Hibernate session
+     * @return the observable property identifiers for each offering identifier
+     */
+    public Map<String, Set<String>> getObservablePropertyIdentifiersForOfferings(
+            final Collection<String> offeringIdentifiers, final Session session) {
+        final List<Object> results =
+                QueryHelper.listInChunks(Collections.singletonList(offeringIdentifiers), new ChunkCriteriaFactory() {
+                    @Override
+                    public Criteria create(final List<Collection<?>> chunks) {
+                        final Criteria c =
+                                session.createCriteria(Observation.class).add(
+                                        Restrictions.eq(Observation.DELETED, false));
+                        c.createAlias(Observation.OFFERINGS, "off");
+                        c.createAlias(Observation.OBSERVABLE_PROPERTY, "obsProp");
+                        c.add(QueryHelper.getInCriterion("off." + Offering.IDENTIFIER, chunks.get(0)));
+                        return c.setProjection(Projections.distinct(Projections.projectionList()
+                                .add(Projections.property("off." + Offering.IDENTIFIER))
+                                .add(Projections.property("obsProp." + ObservableProperty.IDENTIFIER))));
+                    }
+                });
+        final SetMultiMap<String, String> identifiers = MultiMaps.newSetMultiMap();
+        for (final Object result : results) {
+            final Object[] record = (Object[]) result;
+            identifiers.add((String) record[0], (String) record[1]);
+        }
+        return identifiers;
+    }
+
     /**
      * Get observable property identifiers for procedure identifier
      * 
@@ -24,18 +24,29 @@
 package org.n52.sos.ds.hibernate.dao;
 
 import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
 
 import org.hibernate.Criteria;
 import org.hibernate.Session;
+import org.hibernate.criterion.DetachedCriteria;
 import org.hibernate.criterion.Projections;
 import org.hibernate.criterion.Restrictions;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
 import org.joda.time.DateTime;
 import org.n52.sos.ds.hibernate.entities.BlobObservation;
 import org.n52.sos.ds.hibernate.entities.BooleanObservation;
 import org.n52.sos.ds.hibernate.entities.CategoryObservation;
+import org.n52.sos.ds.hibernate.entities.Codespace;
 import org.n52.sos.ds.hibernate.entities.CountObservation;
 import org.n52.sos.ds.hibernate.entities.FeatureOfInterest;
 import org.n52.sos.ds.hibernate.entities.GeometryObservation;
@@ -45,7 +56,10 @@ import org.n52.sos.ds.hibernate.entities.ObservationConstellation;
 import org.n52.sos.ds.hibernate.entities.Offering;
 import org.n52.sos.ds.hibernate.entities.SweDataArrayObservation;
 import org.n52.sos.ds.hibernate.entities.TextObservation;
+import org.n52.sos.ds.hibernate.entities.Unit;
 import org.n52.sos.ds.hibernate.util.HibernateObservationUtilities;
+import org.n52.sos.ds.hibernate.util.QueryHelper;
+import org.n52.sos.ds.hibernate.util.QueryHelper.ChunkCriteriaFactory;
 import org.n52.sos.exception.CodedException;
 import org.n52.sos.exception.ows.NoApplicableCodeException;
 import org.n52.sos.ogc.OGCConstants;
@@ -68,6 +82,8 @@ import org.n52.sos.ogc.ows.OwsExceptionReport;
 import org.n52.sos.ogc.sos.Sos2Constants;
 import org.n52.sos.util.CollectionHelper;
 import org.n52.sos.util.StringHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * Hibernate data access class for observation
@@ -77,6 +93,31 @@ import org.n52.sos.util.StringHelper;
  */
 public class ObservationDAO extends TimeCreator {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(ObservationDAO.class);
+
+    /**
+     * Number of observations that are written before the session is flushed
+     * if the session factory has no <code>hibernate.jdbc.batch_size</code>
+     */
+    private static final int DEFAULT_BATCH_SIZE = 50;
+
+    /**
+     * Observation sub classes and their observation types in the order the
+     * check*ObservationsFor methods are evaluated by the offering cache update
+     */
+    private static final Map<Class<?>, String> OBSERVATION_TYPES = new LinkedHashMap<Class<?>, String>(8);
+
+    static {
+        OBSERVATION_TYPES.put(NumericObservation.class, OMConstants.OBS_TYPE_MEASUREMENT);
+        OBSERVATION_TYPES.put(CategoryObservation.class, OMConstants.OBS_TYPE_CATEGORY_OBSERVATION);
+        OBSERVATION_TYPES.put(CountObservation.class, OMConstants.OBS_TYPE_COUNT_OBSERVATION);
+        OBSERVATION_TYPES.put(TextObservation.class, OMConstants.OBS_TYPE_TEXT_OBSERVATION);
+        OBSERVATION_TYPES.put(BooleanObservation.class, OMConstants.OBS_TYPE_TRUTH_OBSERVATION);
+        OBSERVATION_TYPES.put(BlobObservation.class, OMConstants.OBS_TYPE_OBSERVATION);
+        OBSERVATION_TYPES.put(GeometryObservation.class, OMConstants.OBS_TYPE_GEOMETRY_OBSERVATION);
+        OBSERVATION_TYPES.put(SweDataArrayObservation.class, OMConstants.OBS_TYPE_SWE_ARRAY_OBSERVATION);
+    }
+
     /**
      * Get all observation identifiers
      * 
@@ -91,6 +132,71 @@ public class ObservationDAO extends TimeCreator {
                 .setProjection(Projections.distinct(Projections.property(Observation.IDENTIFIER))).list();
     }
 
+    /**
+     * Get the identifiers of the observations inserted after the specified
+     * observation
+     * 
+     * @param observationId
+     *            Id of the last known observation
+     * @param session
+     *            Hibernate session
+     * @return Observation identifiers
+     */
+    @SuppressWarnings("unchecked")
+    public List<String> getObservationIdentifiersAfter(long observationId, Session session) {
+        return session.createCriteria(Observation.class).add(Restrictions.eq(Observation.DELETED, false))
+                .add(Restrictions.gt(Observation.ID, observationId))
+                .add(Restrictions.isNotNull(Observation.IDENTIFIER))
+                .setProjection(Projections.distinct(Projections.property(Observation.IDENTIFIER))).list();
+    }
+
+    /**
+     * Get the highest observation id including deleted observations
+     * 
+     * @param session
+     *            Hibernate session
+     * @return max observation id or 0 if there are no observations
+     */
+    public long getMaxObservationId(Session session) {
+        Object max =
+                session.createCriteria(Observation.class).setProjection(Projections.max(Observation.ID))
+                        .uniqueResult();
+        if (max != null) {
+            return ((Number) max).longValue();
+        }
+        return 0;
+    }
+
+    /**
+     * Get the lowest observation id including deleted observations
+     * 
+     * @param session
+     *            Hibernate session
+     * @return min observation id or 0 if there are no observations
+     */
+    public long getMinObservationId(Session session) {
+        Object min =
+                session.createCriteria(Observation.class).setProjection(Projections.min(Observation.ID))
+                        .uniqueResult();
+        if (min != null) {
+            return ((Number) min).longValue();
+        }
+        return 0;
+    }
+
+    /**
+     * Create a detached criteria for the observations inserted after the
+     * specified observation, to be used as subquery
+     * 
+     * @param observationId
+     *            Id of the last known observation
+     * @return Detached criteria
+     */
+    public DetachedCriteria getObservationsAfterCriteria(long observationId) {
+        return DetachedCriteria.forClass(Observation.class).add(Restrictions.eq(Observation.DELETED, false))
+                .add(Restrictions.gt(Observation.ID, observationId));
+    }
+
     /**
      * Check if there are numeric observations for the offering
      * 
@@ -214,6 +320,49 @@ public class ObservationDAO extends TimeCreator {
         return CollectionHelper.isNotEmpty(c.list());
     }
 
+    /**
+     * Get the observation type of each of the offerings with one query per
+     * observation sub class instead of one query per sub class and offering.
+     * Like for the check*ObservationsFor methods, the first sub class with
+     * observations for an offering determines its type.
+     * 
+     * @param offeringIdentifiers
+     *            Offering identifiers
+     * @param session
+     *            Hibernate session
+     * @return the observation type for each offering identifier with
+     *         observations
+     */
+    public Map<String, String> getObservationTypesForOfferings(Collection<String> offeringIdentifiers,
+            Session session) {
+        Map<String, String> observationTypes = new HashMap<String, String>(offeringIdentifiers.size());
+        Set<String> remaining = new HashSet<String>(offeringIdentifiers);
+        for (Entry<Class<?>, String> entry : OBSERVATION_TYPES.entrySet()) {
+            if (remaining.isEmpty()) {
+                break;
+            }
+            for (String offeringIdentifier : getOfferingIdentifiersWithObservations(entry.getKey(), remaining,
+                    session)) {
+                observationTypes.put(offeringIdentifier, entry.getValue());
+            }
+            remaining.removeAll(observationTypes.keySet());
+        }
+        return observationTypes;
+    }
+
+    private List<String> getOfferingIdentifiersWithObservations(final Class<?> clazz,
+            Collection<String> offeringIdentifiers, final Session session) {
+        return QueryHelper.listInChunks(Collections.singletonList(offeringIdentifiers), new ChunkCriteriaFactory() {
+            @Override
+            public Criteria create(List<Collection<?>> chunks) {
+                Criteria c = session.createCriteria(clazz).add(Restrictions.eq(Observation.DELETED, false));
+                c.createAlias(Observation.OFFERINGS, "off");
+                c.add(QueryHelper.getInCriterion("off." + Offering.IDENTIFIER, chunks.get(0)));
+                return c.setProjection(Projections.distinct(Projections.property("off." + Offering.IDENTIFIER)));
+            }
+        });
+    }
+
     /**
      * Get min phenomenon time from observations
      * 
@@ -345,18 +494,93 @@ public class ObservationDAO extends TimeCreator {
      */
     public void insertObservationSingleValue(Set<ObservationConstellation> observationConstellations,
             FeatureOfInterest feature, OmObservation sosObservation, Session session) throws CodedException {
+        // TODO if this observation is a deleted=true, how to set deleted=false
+        // instead of insert
+        session.saveOrUpdate(createObservation(observationConstellations, feature, sosObservation,
+                new HashMap<String, Codespace>(1), new HashMap<String, Unit>(1), session));
+        session.flush();
+    }
+
+    /**
+     * Insert single value observations for the same observation
+     * constellations and featureOfInterest. Codespaces and units are resolved
+     * once for all observations and the observations are written in batches of
+     * the <code>hibernate.jdbc.batch_size</code> of the session factory, so the
+     * inserts can be batched by the JDBC driver. The inserted observations are
+     * evicted after each batch, other entities of the session stay attached.
+     * 
+     * @param observationConstellations
+     *            Observation constellation objects
+     * @param feature
+     *            FeatureOfInterest object
+     * @param sosObservations
+     *            SOS observations with single values to insert
+     * @param session
+     *            Hibernate session
+     * @throws CodedException
+     *             If an error occurs.
+     */
+    public void insertObservationSingleValues(Set<ObservationConstellation> observationConstellations,
+            FeatureOfInterest feature, Collection<OmObservation> sosObservations, Session session)
+            throws CodedException {
+        Map<String, Codespace> codespaces = new HashMap<String, Codespace>(1);
+        Map<String, Unit> units = new HashMap<String, Unit>(1);
+        int batchSize = getBatchSize(session);
+        List<Observation> batch = new ArrayList<Observation>(batchSize);
+        int insertion = 0, size = sosObservations.size();
+        LOGGER.debug("Start saving {} observations.", size);
+        for (OmObservation sosObservation : sosObservations) {
+            Observation observation =
+                    createObservation(observationConstellations, feature, sosObservation, codespaces, units, session);
+            session.save(observation);
+            batch.add(observation);
+            if ((++insertion % batchSize) == 0) {
+                flushAndEvict(batch, session);
+                LOGGER.debug("Saved {}/{} observations.", insertion, size);
+            }
+        }
+        flushAndEvict(batch, session);
+        LOGGER.debug("Saved {} observations.", size);
+    }
+
+    /**
+     * Flush the session and detach the written observations, so the session
+     * does not grow with the number of inserted observations
+     */
+    private void flushAndEvict(List<Observation> observations, Session session) {
+        session.flush();
+        for (Observation observation : observations) {
+            session.evict(observation);
+        }
+        observations.clear();
+    }
+
+    private int getBatchSize(Session session) {
+        if (session.getSessionFactory() instanceof SessionFactoryImplementor) {
+            int batchSize =
+                    ((SessionFactoryImplementor) session.getSessionFactory()).getSettings().getJdbcBatchSize();
+            if (batchSize > 0) {
+                return batchSize;
+            }
+        }
+        return DEFAULT_BATCH_SIZE;
+    }
+
+    private Observation createObservation(Set<ObservationConstellation> observationConstellations,
+            FeatureOfInterest feature, OmObservation sosObservation, Map<String, Codespace> codespaces,
+            Map<String, Unit> units, Session session) throws CodedException {
         SingleObservationValue<?> value = (SingleObservationValue) sosObservation.getValue();
         Observation hObservation = createObservationFromValue(value.getValue(), session);
         hObservation.setDeleted(false);
         if (sosObservation.isSetIdentifier()) {
             hObservation.setIdentifier(sosObservation.getIdentifier().getValue());
             if (sosObservation.getIdentifier().isSetCodeSpace()) {
-                hObservation.setCodespace(new CodespaceDAO().getOrInsertCodespace(sosObservation.getIdentifier()
-                        .getCodeSpace(), session));
+                hObservation.setCodespace(getOrInsertCodespace(sosObservation.getIdentifier().getCodeSpace(),
+                        codespaces, session));
             }
         }
         if (!hObservation.isSetCodespace()) {
-            hObservation.setCodespace(new CodespaceDAO().getOrInsertCodespace(OGCConstants.UNKNOWN, session));
+            hObservation.setCodespace(getOrInsertCodespace(OGCConstants.UNKNOWN, codespaces, session));
         }
         Iterator<ObservationConstellation> iterator = observationConstellations.iterator();
         boolean firstObsConst = true;
@@ -376,13 +600,27 @@ public class ObservationDAO extends TimeCreator {
                 sosObservation.getResultTime());
 
         if (value.getValue().getUnit() != null) {
-            hObservation.setUnit(new UnitDAO().getOrInsertUnit(value.getValue().getUnit(), session));
+            hObservation.setUnit(getOrInsertUnit(value.getValue().getUnit(), units, session));
         }
+        return hObservation;
+    }
 
-        // TODO if this observation is a deleted=true, how to set deleted=false
-        // instead of insert
-        session.saveOrUpdate(hObservation);
-        session.flush();
+    private Codespace getOrInsertCodespace(String codespace, Map<String, Codespace> codespaces, Session session) {
+        Codespace result = codespaces.get(codespace);
+        if (result == null) {
+            result = new CodespaceDAO().getOrInsertCodespace(codespace, session);
+            codespaces.put(codespace, result);
+        }
+        return result;
+    }
+
+    private Unit getOrInsertUnit(String unit, Map<String, Unit> units, Session session) {
+        Unit result = units.get(unit);
+        if (result == null) {
+            result = new UnitDAO().getOrInsertUnit(unit, session);
+            units.put(unit, result);
+        }
+        return result;
     }
 
     /**
@@ -402,11 +640,8 @@ public class ObservationDAO extends TimeCreator {
      */
     public void insertObservationMutliValue(Set<ObservationConstellation> observationConstellations,
             FeatureOfInterest feature, OmObservation containerObservation, Session session) throws OwsExceptionReport {
-        List<OmObservation> unfoldObservations =
-                HibernateObservationUtilities.unfoldObservation(containerObservation);
-        for (OmObservation sosObservation : unfoldObservations) {
-            insertObservationSingleValue(observationConstellations, feature, sosObservation, session);
-        }
+        insertObservationSingleValues(observationConstellations, feature,
+                HibernateObservationUtilities.unfoldObservation(containerObservation), session);
     }
 
 //    /**
@@ -595,24 +830,48 @@ public class ObservationDAO extends TimeCreator {
      * @return Hibernate Criteria
      */
     public Criteria getObservationClassCriteriaForResultModel(String resultModel, Session session) {
+        return createCriteriaForObservationClass(getObservationClassForResultModel(resultModel), session);
+    }
+
+    /**
+     * Get the observation classes with a value for result model
+     * 
+     * @param resultModel
+     *            Result model
+     * @return the observation class of the result model or all observation
+     *         classes with a value if no (supported) result model is set
+     */
+    @SuppressWarnings("unchecked")
+    public List<Class<? extends Observation>> getValueObservationClassesForResultModel(String resultModel) {
+        Class<? extends Observation> observationClass = getObservationClassForResultModel(resultModel);
+        if (observationClass.equals(Observation.class)) {
+            return CollectionHelper.<Class<? extends Observation>> list(BlobObservation.class,
+                    BooleanObservation.class, CategoryObservation.class, CountObservation.class,
+                    GeometryObservation.class, NumericObservation.class, TextObservation.class,
+                    SweDataArrayObservation.class);
+        }
+        return Collections.<Class<? extends Observation>> singletonList(observationClass);
+    }
+
+    private Class<? extends Observation> getObservationClassForResultModel(String resultModel) {
         if (StringHelper.isNotEmpty(resultModel)) {
             if (resultModel.equals(OMConstants.OBS_TYPE_MEASUREMENT)) {
-                return createCriteriaForObservationClass(NumericObservation.class, session);
+                return NumericObservation.class;
             } else if (resultModel.equals(OMConstants.OBS_TYPE_COUNT_OBSERVATION)) {
-                return createCriteriaForObservationClass(CountObservation.class, session);
+                return CountObservation.class;
             } else if (resultModel.equals(OMConstants.OBS_TYPE_CATEGORY_OBSERVATION)) {
-                return createCriteriaForObservationClass(CategoryObservation.class, session);
+                return CategoryObservation.class;
             } else if (resultModel.equals(OMConstants.OBS_TYPE_TRUTH_OBSERVATION)) {
-                return createCriteriaForObservationClass(BooleanObservation.class, session);
+                return BooleanObservation.class;
             } else if (resultModel.equals(OMConstants.OBS_TYPE_TEXT_OBSERVATION)) {
-                return createCriteriaForObservationClass(TextObservation.class, session);
+                return TextObservation.class;
             } else if (resultModel.equals(OMConstants.OBS_TYPE_GEOMETRY_OBSERVATION)) {
-                return createCriteriaForObservationClass(GeometryObservation.class, session);
+                return GeometryObservation.class;
             } else if (resultModel.equals(OMConstants.OBS_TYPE_COMPLEX_OBSERVATION)) {
-                return createCriteriaForObservationClass(BlobObservation.class, session);
+                return BlobObservation.class;
             }
         }
-        return createCriteriaForObservationClass(Observation.class, session);
+        return Observation.class;
     }
 
     /**
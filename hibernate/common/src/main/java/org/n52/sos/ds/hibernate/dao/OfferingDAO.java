@@ -29,13 +29,17 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.hibernate.Criteria;
 import org.hibernate.Session;
+import org.hibernate.criterion.DetachedCriteria;
 import org.hibernate.criterion.Projections;
 import org.hibernate.criterion.Restrictions;
+import org.hibernate.criterion.Subqueries;
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
+import org.n52.sos.ds.hibernate.entities.FeatureOfInterest;
 import org.n52.sos.ds.hibernate.entities.FeatureOfInterestType;
 import org.n52.sos.ds.hibernate.entities.ObservableProperty;
 import org.n52.sos.ds.hibernate.entities.Observation;
@@ -87,6 +91,25 @@ public class OfferingDAO extends TimeCreator {
         return session.createCriteria(Offering.class).list();
     }
 
+    /**
+     * Get the offering objects of the observations inserted after the
+     * specified observation
+     * 
+     * @param observationId
+     *            Id of the last known observation
+     * @param session
+     *            Hibernate session
+     * @return Offering objects
+     */
+    @SuppressWarnings("unchecked")
+    public List<Offering> getOfferingObjectsForObservationsAfter(final long observationId, final Session session) {
+        final DetachedCriteria changed =
+                new ObservationDAO().getObservationsAfterCriteria(observationId)
+                        .createAlias(Observation.OFFERINGS, "o")
+                        .setProjection(Projections.distinct(Projections.property("o." + Offering.ID)));
+        return session.createCriteria(Offering.class).add(Subqueries.propertyIn(Offering.ID, changed)).list();
+    }
+
     /**
      * Get Offering objct for identifier
      * 
@@ -283,6 +306,81 @@ public class OfferingDAO extends TimeCreator {
         return new HashMap<String, TimePeriod>(0);
     }
 
+    /**
+     * Get the time extrema of the observations of each offering with a single
+     * grouped query
+     * 
+     * @param session
+     *            Hibernate session
+     * @return the time extrema for each offering identifier that has
+     *         observations
+     */
+    public Map<String, OfferingTimeExtrema> getTimeExtremaForOfferings(final Session session) {
+        final Criteria criteria =
+                session.createCriteria(Observation.class).add(Restrictions.eq(Observation.DELETED, false));
+        criteria.createAlias(Observation.OFFERINGS, "off");
+        criteria.setProjection(Projections.projectionList()
+                .add(Projections.groupProperty("off." + Offering.IDENTIFIER))
+                .add(Projections.min(Observation.PHENOMENON_TIME_START))
+                .add(Projections.max(Observation.PHENOMENON_TIME_START))
+                .add(Projections.max(Observation.PHENOMENON_TIME_END))
+                .add(Projections.min(Observation.RESULT_TIME))
+                .add(Projections.max(Observation.RESULT_TIME)));
+        final List<?> results = criteria.list();
+        final Map<String, OfferingTimeExtrema> extrema = new HashMap<String, OfferingTimeExtrema>(results.size());
+        for (final Object result : results) {
+            final Object[] record = (Object[]) result;
+            extrema.put((String) record[0], new OfferingTimeExtrema(toDateTime(record[1]),
+                    getMaxPhenomenonTime(record[2], record[3]), toDateTime(record[4]), toDateTime(record[5])));
+        }
+        return extrema;
+    }
+
+    /**
+     * Get the featureOfInterest identifiers of the observations of each
+     * offering with a single query
+     * 
+     * @param session
+     *            Hibernate session
+     * @return the featureOfInterest identifiers for each offering identifier
+     */
+    public Map<String, Set<String>> getFeatureOfInterestIdentifiersForOfferings(final Session session) {
+        final Criteria criteria =
+                session.createCriteria(Observation.class).add(Restrictions.eq(Observation.DELETED, false));
+        criteria.createAlias(Observation.OFFERINGS, "off");
+        criteria.createAlias(Observation.FEATURE_OF_INTEREST, "foi");
+        criteria.setProjection(Projections.distinct(Projections.projectionList()
+                .add(Projections.property("off." + Offering.IDENTIFIER))
+                .add(Projections.property("foi." + FeatureOfInterest.IDENTIFIER))));
+        final Map<String, Set<String>> identifiers = new HashMap<String, Set<String>>();
+        for (final Object result : criteria.list()) {
+            final Object[] record = (Object[]) result;
+            Set<String> features = identifiers.get(record[0]);
+            if (features == null) {
+                features = new HashSet<String>();
+                identifiers.put((String) record[0], features);
+            }
+            features.add((String) record[1]);
+        }
+        return identifiers;
+    }
+
+    private DateTime getMaxPhenomenonTime(final Object maxStart, final Object maxEnd) {
+        final DateTime start = toDateTime(maxStart);
+        final DateTime end = toDateTime(maxEnd);
+        if (end != null && (start == null || end.isAfter(start))) {
+            return end;
+        }
+        return start;
+    }
+
+    private DateTime toDateTime(final Object time) {
+        if (time == null) {
+            return null;
+        }
+        return new DateTime(time, DateTimeZone.UTC);
+    }
+
     /**
      * Insert or update and get offering
      * 
@@ -334,4 +432,42 @@ public class OfferingDAO extends TimeCreator {
         session.refresh(offering);
         return offering;
     }
+
+    /**
+     * Minimum and maximum phenomenon and result time of the observations of an
+     * offering
+     */
+    public static class OfferingTimeExtrema {
+        private final DateTime minPhenomenonTime;
+
+        private final DateTime maxPhenomenonTime;
+
+        private final DateTime minResultTime;
+
+        private final DateTime maxResultTime;
+
+        public OfferingTimeExtrema(final DateTime minPhenomenonTime, final DateTime maxPhenomenonTime,
+                final DateTime minResultTime, final DateTime maxResultTime) {
+            this.minPhenomenonTime = minPhenomenonTime;
+            this.maxPhenomenonTime = maxPhenomenonTime;
+            this.minResultTime = minResultTime;
+            this.maxResultTime = maxResultTime;
+        }
+
+        public DateTime getMinPhenomenonTime() {
+            return minPhenomenonTime;
+        }
+
+        public DateTime getMaxPhenomenonTime() {
+            return maxPhenomenonTime;
+        }
+
+        public DateTime getMinResultTime() {
+            return minResultTime;
+        }
+
+        public DateTime getMaxResultTime() {
+            return maxResultTime;
+        }
+    }
 }
@@ -26,11 +26,15 @@ package org.n52.sos.ds.hibernate.dao;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.hibernate.Criteria;
 import org.hibernate.Session;
+import org.hibernate.criterion.DetachedCriteria;
 import org.hibernate.criterion.Projections;
 import org.hibernate.criterion.Restrictions;
+import org.hibernate.criterion.Subqueries;
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
 import org.n52.sos.ds.hibernate.entities.FeatureOfInterest;
@@ -40,7 +44,11 @@ import org.n52.sos.ds.hibernate.entities.Offering;
 import org.n52.sos.ds.hibernate.entities.Procedure;
 import org.n52.sos.ds.hibernate.entities.ProcedureDescriptionFormat;
 import org.n52.sos.ds.hibernate.entities.TProcedure;
+import org.n52.sos.ds.hibernate.util.QueryHelper;
+import org.n52.sos.ds.hibernate.util.QueryHelper.ChunkCriteriaFactory;
 import org.n52.sos.util.CollectionHelper;
+import org.n52.sos.util.MultiMaps;
+import org.n52.sos.util.SetMultiMap;
 
 /**
  * Hibernate data access class for procedure
@@ -62,6 +70,25 @@ public class ProcedureDAO {
         return session.createCriteria(Procedure.class).list();
     }
 
+    /**
+     * Get the procedure objects of the observations inserted after the
+     * specified observation
+     * 
+     * @param observationId
+     *            Id of the last known observation
+     * @param session
+     *            Hibernate session
+     * @return Procedure objects
+     */
+    @SuppressWarnings("unchecked")
+    public List<Procedure> getProcedureObjectsForObservationsAfter(final long observationId, final Session session) {
+        final DetachedCriteria changed =
+                new ObservationDAO().getObservationsAfterCriteria(observationId)
+                        .createAlias(Observation.PROCEDURE, "p")
+                        .setProjection(Projections.distinct(Projections.property("p." + Procedure.ID)));
+        return session.createCriteria(Procedure.class).add(Subqueries.propertyIn(Procedure.ID, changed)).list();
+    }
+
     /**
      * Get Procedure object for procedure identifier
      * 
@@ -131,6 +158,41 @@ public class ProcedureDAO {
         return c.list();
     }
 
+    /**
+     * Get the procedure identifiers of the observations of each of the
+     * offerings with a single query
+     * 
+     * @param offeringIdentifiers
+     *            Offering identifiers
+     * @param session
+     *            Hibernate session
+     * @return the procedure identifiers for each offering identifier
+     */
+    public Map<String, Set<String>> getProcedureIdentifiersForOfferings(final Collection<String> offeringIdentifiers,
+            final Session session) {
+        final List<Object> results =
+                QueryHelper.listInChunks(Collections.singletonList(offeringIdentifiers), new ChunkCriteriaFactory() {
+                    @Override
+                    public Criteria create(final List<Collection<?>> chunks) {
+                        final Criteria c =
+                                session.createCriteria(Observation.class).add(
+                                        Restrictions.eq(Observation.DELETED, false));
+                        c.createAlias(Observation.OFFERINGS, "off");
+                        c.createAlias(Observation.PROCEDURE, "proc");
+                        c.add(QueryHelper.getInCriterion("off." + Offering.IDENTIFIER, chunks.get(0)));
+                        return c.setProjection(Projections.distinct(Projections.projectionList()
+                                .add(Projections.property("off." + Offering.IDENTIFIER))
+                                .add(Projections.property("proc." + Procedure.IDENTIFIER))));
+                    }
+                });
+        final SetMultiMap<String, String> identifiers = MultiMaps.newSetMultiMap();
+        for (final Object result : results) {
+            final Object[] record = (Object[]) result;
+            identifiers.add((String) record[0], (String) record[1]);
+        }
+        return identifiers;
+    }
+
     /**
      * Get procedure identifiers for observable property identifier
      * 
@@ -25,16 +25,20 @@ package org.n52.sos.ds.hibernate.dao;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
 import org.hibernate.Criteria;
 import org.hibernate.Session;
+import org.hibernate.criterion.Criterion;
 import org.hibernate.criterion.Restrictions;
 import org.n52.sos.ds.hibernate.entities.FeatureOfInterest;
 import org.n52.sos.ds.hibernate.entities.ObservableProperty;
 import org.n52.sos.ds.hibernate.entities.ObservationConstellation;
 import org.n52.sos.ds.hibernate.entities.Offering;
 import org.n52.sos.ds.hibernate.entities.ResultTemplate;
+import org.n52.sos.ds.hibernate.util.QueryHelper;
+import org.n52.sos.ds.hibernate.util.QueryHelper.ChunkCriteriaFactory;
 import org.n52.sos.exception.ows.InvalidParameterValueException;
 import org.n52.sos.ogc.om.features.AbstractFeature;
 import org.n52.sos.ogc.ows.OwsExceptionReport;
@@ -159,19 +163,58 @@ public class ResultTemplateDAO {
      *            Hibernate session
      * @return Result template objects
      */
-    @SuppressWarnings("unchecked")
     public List<ResultTemplate> getResultTemplateObject(final String offering, final String observedProperty,
             final Collection<String> featureOfInterest, final Session session) {
-        final Criteria rtc =
-                session.createCriteria(ResultTemplate.class).setResultTransformer(Criteria.DISTINCT_ROOT_ENTITY);
-        rtc.createCriteria(ObservationConstellation.OFFERING).add(Restrictions.eq(Offering.IDENTIFIER, offering));
-        rtc.createCriteria(ObservationConstellation.OBSERVABLE_PROPERTY).add(
-                Restrictions.eq(ObservableProperty.IDENTIFIER, observedProperty));
         if (featureOfInterest != null && !featureOfInterest.isEmpty()) {
-            rtc.createCriteria(ResultTemplate.FEATURE_OF_INTEREST).add(
-                    Restrictions.in(FeatureOfInterest.IDENTIFIER, featureOfInterest));
+            return getResultTemplateObject(offering, observedProperty, null, featureOfInterest, session);
         }
-        return rtc.list();
+        return getResultTemplateObject(offering, observedProperty, null, null, session);
+    }
+
+    /**
+     * Get result template objects for offering identifier, observable property
+     * identifier and a restriction of the featureOfInterest. Many
+     * featureOfInterest identifiers are queried in chunks.
+     * 
+     * @param offering
+     *            Offering identifier
+     * @param observedProperty
+     *            Observable property identifier
+     * @param featureOfInterestCriterion
+     *            Restriction of the FeatureOfInterest entity, may be
+     *            <code>null</code>
+     * @param featureOfInterest
+     *            FeatureOfInterest identifiers, <code>null</code> if not
+     *            restricted
+     * @param session
+     *            Hibernate session
+     * @return Result template objects
+     */
+    public List<ResultTemplate> getResultTemplateObject(final String offering, final String observedProperty,
+            final Criterion featureOfInterestCriterion, final Collection<String> featureOfInterest,
+            final Session session) {
+        return QueryHelper.listInChunks(Collections.singletonList(featureOfInterest), new ChunkCriteriaFactory() {
+            @Override
+            public Criteria create(final List<Collection<?>> chunks) {
+                final Criteria rtc =
+                        session.createCriteria(ResultTemplate.class).setResultTransformer(
+                                Criteria.DISTINCT_ROOT_ENTITY);
+                rtc.createCriteria(ObservationConstellation.OFFERING).add(
+                        Restrictions.eq(Offering.IDENTIFIER, offering));
+                rtc.createCriteria(ObservationConstellation.OBSERVABLE_PROPERTY).add(
+                        Restrictions.eq(ObservableProperty.IDENTIFIER, observedProperty));
+                if (featureOfInterestCriterion != null || chunks.get(0) != null) {
+                    final Criteria foi = rtc.createCriteria(ResultTemplate.FEATURE_OF_INTEREST);
+                    if (featureOfInterestCriterion != null) {
+                        foi.add(featureOfInterestCriterion);
+                    }
+                    if (chunks.get(0) != null) {
+                        foi.add(QueryHelper.getInCriterion(FeatureOfInterest.IDENTIFIER, chunks.get(0)));
+                    }
+                }
+                return rtc;
+            }
+        });
     }
 
     /**
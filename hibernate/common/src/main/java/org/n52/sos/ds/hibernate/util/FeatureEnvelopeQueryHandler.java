@@ -0,0 +1,56 @@
+/**
+ * Copyright (C) 2013
+ * by 52 North Initiative for Geospatial Open Source Software GmbH
+ *
+ * Contact: Andreas Wytzisk
+ * 52 North Initiative for Geospatial Open Source Software GmbH
+ * Martin-Luther-King-Weg 24
+ * 48155 Muenster, Germany
+ * info@52north.org
+ *
+ * This program is free software; you can redistribute and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the
+ * Free Software Foundation.
+ *
+ * This program is distributed WITHOUT ANY WARRANTY; even without the implied
+ * WARRANTY OF MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program (see gnu-gpl v2.txt). If not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA or
+ * visit the Free Software Foundation web page, http://www.fsf.org.
+ */
+package org.n52.sos.ds.hibernate.util;
+
+import java.util.Collection;
+import java.util.Map;
+
+import org.n52.sos.ds.FeatureQueryHandler;
+import org.n52.sos.ogc.ows.OwsExceptionReport;
+import org.n52.sos.ogc.sos.SosEnvelope;
+
+/**
+ * {@link FeatureQueryHandler} that can query the envelopes of several groups
+ * of features at once, e.g. the envelopes of all offerings during a cache
+ * update, instead of one query per group.
+ *
+ * @since 4.0.0
+ */
+public interface FeatureEnvelopeQueryHandler extends FeatureQueryHandler {
+
+    /**
+     * Query the envelope of each group of features.
+     *
+     * @param featureIDs
+     *            the feature identifiers of each group
+     * @param connection
+     *            the data source connection
+     * @return the envelope of each group, groups without an envelope are
+     *         missing or mapped to <code>null</code>
+     * @throws OwsExceptionReport
+     *             if the envelopes could not be queried
+     */
+    Map<String, SosEnvelope> getEnvelopesForFeatureIDs(Map<String, ? extends Collection<String>> featureIDs,
+            Object connection) throws OwsExceptionReport;
+}
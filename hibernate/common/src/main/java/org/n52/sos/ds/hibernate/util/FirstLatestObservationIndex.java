@@ -0,0 +1,489 @@
+/**
+ * Copyright (C) 2013
+ * by 52 North Initiative for Geospatial Open Source Software GmbH
+ *
+ * Contact: Andreas Wytzisk
+ * 52 North Initiative for Geospatial Open Source Software GmbH
+ * Martin-Luther-King-Weg 24
+ * 48155 Muenster, Germany
+ * info@52north.org
+ *
+ * This program is free software; you can redistribute and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the
+ * Free Software Foundation.
+ *
+ * This program is distributed WITHOUT ANY WARRANTY; even without the implied
+ * WARRANTY OF MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program (see gnu-gpl v2.txt). If not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA or
+ * visit the Free Software Foundation web page, http://www.fsf.org.
+ */
+package org.n52.sos.ds.hibernate.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.hibernate.Criteria;
+import org.hibernate.HibernateException;
+import org.hibernate.Session;
+import org.hibernate.criterion.DetachedCriteria;
+import org.hibernate.criterion.Projection;
+import org.hibernate.criterion.ProjectionList;
+import org.hibernate.criterion.Projections;
+import org.hibernate.criterion.Restrictions;
+import org.hibernate.criterion.Subqueries;
+import org.n52.sos.ds.hibernate.dao.ObservationDAO;
+import org.n52.sos.ds.hibernate.entities.FeatureOfInterest;
+import org.n52.sos.ds.hibernate.entities.ObservableProperty;
+import org.n52.sos.ds.hibernate.entities.Observation;
+import org.n52.sos.ds.hibernate.entities.Offering;
+import org.n52.sos.ds.hibernate.entities.Procedure;
+import org.n52.sos.ogc.sos.SosConstants.IndeterminateTime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * In-memory index of the first and the latest observation of each
+ * combination of procedure, observable property, feature of interest and
+ * offering. First/latest temporal filters become lookups in this index
+ * instead of sorting the observation table.
+ * <p/>
+ * The index is built on first use and rebuilt on next use after
+ * {@link #invalidate()}, e.g. if observations are deleted. If building the
+ * index fails, it is not retried for {@value #BUILD_RETRY_DELAY} ms and the
+ * lookups return <code>null</code> meanwhile. Observations inserted by this
+ * instance are added by {@link #update(Session)}. To add the observations
+ * inserted by other instances sharing the database, a lookup compares the
+ * maximal observation id with the one of the index. This costs a
+ * <code>max()</code> query on the primary key, so it is done at most every
+ * {@value #DEFAULT_MAX_ID_CHECK_INTERVAL} ms and observations of other
+ * instances may be found with this delay. As an observation becomes visible only when its transaction commits,
+ * each extension scans again the observations above the maximal id of the
+ * extension before the last one, but at least the last
+ * {@value #OBSERVATION_ID_OVERLAP} ids. An observation whose transaction
+ * commits after both windows passed is missed until the index is rebuilt, so
+ * the index is only a hint: callers have to verify the returned observation
+ * and fall back to the database if it is missing or deleted.
+ *
+ * @since 4.0.0
+ */
+public class FirstLatestObservationIndex {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FirstLatestObservationIndex.class);
+
+    private static final FirstLatestObservationIndex INSTANCE = new FirstLatestObservationIndex();
+
+    private static final String PROCEDURE_ALIAS = "proc";
+
+    private static final String OBSERVABLE_PROPERTY_ALIAS = "obsProp";
+
+    private static final String FEATURE_OF_INTEREST_ALIAS = "foi";
+
+    private static final String OFFERING_ALIAS = "off";
+
+    private static final String OBSERVATION_ALIAS = "o";
+
+    /**
+     * The minimal time in milliseconds between two comparisons of the maximal
+     * observation id on lookup
+     */
+    private static final long DEFAULT_MAX_ID_CHECK_INTERVAL = 1000;
+
+    /**
+     * The time in milliseconds after a failed build before the index is
+     * built again
+     */
+    private static final long BUILD_RETRY_DELAY = 60000;
+
+    /**
+     * The minimal number of observation ids below the maximal indexed id that
+     * are scanned again when the index is extended
+     */
+    private static final long OBSERVATION_ID_OVERLAP = 1000;
+
+    private static final int PROCEDURE = 0;
+
+    private static final int OBSERVABLE_PROPERTY = 1;
+
+    private static final int FEATURE_OF_INTEREST = 2;
+
+    private static final int OFFERING = 3;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * the indexed series by their procedure, observable property and
+     * offering, <code>null</code> if the index has to be built
+     */
+    private Map<List<String>, List<Series>> seriesByConstellation;
+
+    /**
+     * the indexed series by each of their parameters
+     */
+    private List<Map<String, List<Series>>> seriesByParameter;
+
+    private Map<List<String>, Series> series;
+
+    private long maxObservationId;
+
+    private long previousMaxObservationId;
+
+    private volatile long maxIdCheckInterval = DEFAULT_MAX_ID_CHECK_INTERVAL;
+
+    private volatile long lastMaxIdCheck;
+
+    private volatile long buildRetryTime;
+
+    public static FirstLatestObservationIndex getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Get the id of the first or latest observation of the series matching
+     * the parameters. A <code>null</code> or empty parameter does not restrict
+     * the series.
+     * 
+     * @param indetTime
+     *            first or latest
+     * @param procedures
+     *            procedure identifiers
+     * @param observableProperties
+     *            observable property identifiers
+     * @param features
+     *            feature of interest identifiers
+     * @param offerings
+     *            offering identifiers
+     * @param session
+     *            Hibernate session to build or extend the index with
+     * @return the observation id or <code>null</code> if there is no matching
+     *         observation in the index
+     */
+    public Long getObservationId(final IndeterminateTime indetTime, final Collection<String> procedures,
+            final Collection<String> observableProperties, final Collection<String> features,
+            final Collection<String> offerings, final Session session) {
+        refresh(session);
+        final boolean first = IndeterminateTime.first.equals(indetTime);
+        final List<Set<String>> parameters =
+                Arrays.asList(toSet(procedures), toSet(observableProperties), toSet(features), toSet(offerings));
+        lock.readLock().lock();
+        try {
+            if (seriesByConstellation == null) {
+                // invalidated concurrently
+                return null;
+            }
+            Series result = null;
+            for (final Series s : getCandidates(parameters)) {
+                if (s.matches(parameters)
+                        && (result == null || (first ? s.firstTime < result.firstTime
+                                : s.latestTime > result.latestTime))) {
+                    result = s;
+                }
+            }
+            if (result == null) {
+                return null;
+            }
+            return first ? result.firstId : result.latestId;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Add the observations inserted since the last extension. Does nothing if
+     * the index is not built yet, if the update fails the index is discarded.
+     * 
+     * @param session
+     *            Hibernate session
+     */
+    public void update(final Session session) {
+        lock.writeLock().lock();
+        try {
+            if (seriesByConstellation != null) {
+                extend(session, new ObservationDAO().getMaxObservationId(session));
+            }
+        } catch (final HibernateException he) {
+            LOGGER.warn("Error while updating the first/latest observation index, it will be rebuilt!", he);
+            invalidate();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Discard the index, it is rebuilt on next use.
+     */
+    public void invalidate() {
+        lock.writeLock().lock();
+        try {
+            seriesByConstellation = null;
+            seriesByParameter = null;
+            series = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Set the minimal time between two comparisons of the maximal observation
+     * id on lookup, e.g. 0 to compare it on each lookup.
+     * 
+     * @param maxIdCheckInterval
+     *            the interval in milliseconds
+     */
+    void setMaxIdCheckInterval(final long maxIdCheckInterval) {
+        this.maxIdCheckInterval = maxIdCheckInterval;
+    }
+
+    /**
+     * Build the index if necessary or extend it if observations were inserted
+     * since the last extension, e.g. by another instance.
+     */
+    private void refresh(final Session session) {
+        final long now = System.currentTimeMillis();
+        lock.readLock().lock();
+        try {
+            if (seriesByConstellation != null ? now - lastMaxIdCheck < maxIdCheckInterval : now < buildRetryTime) {
+                return;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        final long maxId = new ObservationDAO().getMaxObservationId(session);
+        lock.writeLock().lock();
+        try {
+            lastMaxIdCheck = now;
+            if (seriesByConstellation == null || maxId < maxObservationId) {
+                build(session);
+            } else if (maxId > maxObservationId) {
+                extend(session, maxId);
+            }
+        } catch (final HibernateException he) {
+            LOGGER.warn("Error while refreshing the first/latest observation index, it will be rebuilt in "
+                    + BUILD_RETRY_DELAY + " ms!", he);
+            invalidate();
+            buildRetryTime = now + BUILD_RETRY_DELAY;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void extend(final Session session, final long maxId) {
+        final long from = Math.max(0, Math.min(previousMaxObservationId, maxObservationId - OBSERVATION_ID_OVERLAP));
+        addObservations(createCriteria(session).add(Restrictions.gt(Observation.ID, from))
+                .add(Restrictions.le(Observation.ID, maxId)));
+        previousMaxObservationId = maxObservationId;
+        maxObservationId = Math.max(maxId, maxObservationId);
+    }
+
+    private void build(final Session session) {
+        final long start = System.currentTimeMillis();
+        seriesByConstellation = new HashMap<List<String>, List<Series>>();
+        seriesByParameter = new ArrayList<Map<String, List<Series>>>(4);
+        for (int i = 0; i < 4; ++i) {
+            seriesByParameter.add(new HashMap<String, List<Series>>());
+        }
+        series = new HashMap<List<String>, Series>();
+        maxObservationId = new ObservationDAO().getMaxObservationId(session);
+        previousMaxObservationId = maxObservationId;
+        // the observations with the first or latest time of their series
+        addObservations(createCriteria(session)
+                .add(Restrictions.le(Observation.ID, maxObservationId))
+                .add(Restrictions.or(
+                        Subqueries.propertyEq(Observation.PHENOMENON_TIME_START,
+                                getSeriesExtremum(Projections.min("o2." + Observation.PHENOMENON_TIME_START))),
+                        Subqueries.propertyEq(Observation.PHENOMENON_TIME_END,
+                                getSeriesExtremum(Projections.max("o2." + Observation.PHENOMENON_TIME_END))))));
+        LOGGER.debug("Building the first/latest observation index with {} series needed {} ms!", series.size(),
+                System.currentTimeMillis() - start);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void addObservations(final Criteria c) {
+        c.setProjection(getSeriesProjection().add(Projections.property(Observation.ID))
+                .add(Projections.property(Observation.PHENOMENON_TIME_START))
+                .add(Projections.property(Observation.PHENOMENON_TIME_END)));
+        for (final Object[] record : (List<Object[]>) c.list()) {
+            getOrCreateSeries(record).add((Long) record[4], ((Date) record[5]).getTime(),
+                    ((Date) record[6]).getTime());
+        }
+    }
+
+    private Series getOrCreateSeries(final Object[] record) {
+        final List<String> key =
+                Arrays.asList((String) record[0], (String) record[1], (String) record[2], (String) record[3]);
+        Series s = series.get(key);
+        if (s == null) {
+            s = new Series(key);
+            series.put(key, s);
+            add(seriesByConstellation, s.getConstellation(), s);
+            for (int i = 0; i < seriesByParameter.size(); ++i) {
+                add(seriesByParameter.get(i), s.parameters.get(i), s);
+            }
+        }
+        return s;
+    }
+
+    /**
+     * Get the series that may match the parameters: the series of the
+     * requested constellations if procedures, observable properties and
+     * offerings are restricted, otherwise the series of the most restrictive
+     * parameter.
+     */
+    private Collection<Series> getCandidates(final List<Set<String>> parameters) {
+        final Set<String> procedures = parameters.get(PROCEDURE);
+        final Set<String> observableProperties = parameters.get(OBSERVABLE_PROPERTY);
+        final Set<String> offerings = parameters.get(OFFERING);
+        if (!procedures.isEmpty() && !observableProperties.isEmpty() && !offerings.isEmpty()) {
+            final List<Series> candidates = new LinkedList<Series>();
+            for (final String procedure : procedures) {
+                for (final String observableProperty : observableProperties) {
+                    for (final String offering : offerings) {
+                        final List<Series> forConstellation =
+                                seriesByConstellation.get(Arrays.asList(procedure, observableProperty, offering));
+                        if (forConstellation != null) {
+                            candidates.addAll(forConstellation);
+                        }
+                    }
+                }
+            }
+            return candidates;
+        }
+        Collection<Series> candidates = series.values();
+        for (int i = 0; i < parameters.size(); ++i) {
+            if (!parameters.get(i).isEmpty()) {
+                final List<Series> forParameter = new LinkedList<Series>();
+                for (final String value : parameters.get(i)) {
+                    final List<Series> forValue = seriesByParameter.get(i).get(value);
+                    if (forValue != null) {
+                        forParameter.addAll(forValue);
+                    }
+                }
+                if (forParameter.size() < candidates.size()) {
+                    candidates = forParameter;
+                }
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * Create a subquery of the extreme time of the series of an observation of
+     * {@link #createCriteria(Session)}, which is correlated by the aliases.
+     */
+    private DetachedCriteria getSeriesExtremum(final Projection extremum) {
+        return DetachedCriteria.forClass(Observation.class, "o2")
+                .createAlias("o2." + Observation.OFFERINGS, "off2")
+                .add(Restrictions.eq("o2." + Observation.DELETED, false))
+                .add(Restrictions.le("o2." + Observation.ID, maxObservationId))
+                .add(Restrictions.eqProperty("o2." + Observation.PROCEDURE, OBSERVATION_ALIAS + "."
+                        + Observation.PROCEDURE))
+                .add(Restrictions.eqProperty("o2." + Observation.OBSERVABLE_PROPERTY, OBSERVATION_ALIAS + "."
+                        + Observation.OBSERVABLE_PROPERTY))
+                .add(Restrictions.eqProperty("o2." + Observation.FEATURE_OF_INTEREST, OBSERVATION_ALIAS + "."
+                        + Observation.FEATURE_OF_INTEREST))
+                .add(Restrictions.eqProperty("off2." + Offering.ID, OFFERING_ALIAS + "." + Offering.ID))
+                .setProjection(extremum);
+    }
+
+    private Criteria createCriteria(final Session session) {
+        return session.createCriteria(Observation.class, OBSERVATION_ALIAS)
+                .add(Restrictions.eq(Observation.DELETED, false))
+                .createAlias(Observation.PROCEDURE, PROCEDURE_ALIAS)
+                .createAlias(Observation.OBSERVABLE_PROPERTY, OBSERVABLE_PROPERTY_ALIAS)
+                .createAlias(Observation.FEATURE_OF_INTEREST, FEATURE_OF_INTEREST_ALIAS)
+                .createAlias(Observation.OFFERINGS, OFFERING_ALIAS);
+    }
+
+    private ProjectionList getSeriesProjection() {
+        final String[] properties =
+                { PROCEDURE_ALIAS + "." + Procedure.IDENTIFIER,
+                        OBSERVABLE_PROPERTY_ALIAS + "." + ObservableProperty.IDENTIFIER,
+                        FEATURE_OF_INTEREST_ALIAS + "." + FeatureOfInterest.IDENTIFIER,
+                        OFFERING_ALIAS + "." + Offering.IDENTIFIER };
+        final ProjectionList projection = Projections.projectionList();
+        for (final String property : properties) {
+            projection.add(Projections.property(property));
+        }
+        return projection;
+    }
+
+    private static <K> void add(final Map<K, List<Series>> map, final K key, final Series s) {
+        List<Series> list = map.get(key);
+        if (list == null) {
+            list = new LinkedList<Series>();
+            map.put(key, list);
+        }
+        list.add(s);
+    }
+
+    private static Set<String> toSet(final Collection<String> values) {
+        if (values == null || values.isEmpty()) {
+            return Collections.emptySet();
+        } else if (values instanceof Set) {
+            return (Set<String>) values;
+        }
+        return new HashSet<String>(values);
+    }
+
+    /**
+     * First and latest observation of a procedure, observable property,
+     * feature of interest and offering
+     */
+    private static class Series {
+        /**
+         * procedure, observable property, feature of interest and offering
+         */
+        private final List<String> parameters;
+
+        private long firstId;
+
+        private long firstTime = Long.MAX_VALUE;
+
+        private long latestId;
+
+        private long latestTime = Long.MIN_VALUE;
+
+        Series(final List<String> parameters) {
+            this.parameters = parameters;
+        }
+
+        List<String> getConstellation() {
+            return Arrays.asList(parameters.get(PROCEDURE), parameters.get(OBSERVABLE_PROPERTY),
+                    parameters.get(OFFERING));
+        }
+
+        boolean matches(final List<Set<String>> values) {
+            for (int i = 0; i < parameters.size(); ++i) {
+                if (!values.get(i).isEmpty() && !values.get(i).contains(parameters.get(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void add(final long id, final long phenomenonTimeStart, final long phenomenonTimeEnd) {
+            if (phenomenonTimeStart < firstTime) {
+                firstId = id;
+                firstTime = phenomenonTimeStart;
+            }
+            if (phenomenonTimeEnd > latestTime) {
+                latestId = id;
+                latestTime = phenomenonTimeEnd;
+            }
+        }
+    }
+}
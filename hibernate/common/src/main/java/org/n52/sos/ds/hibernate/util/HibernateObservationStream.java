@@ -0,0 +1,128 @@
+/**
+ * Copyright (C) 2013
+ * by 52 North Initiative for Geospatial Open Source Software GmbH
+ *
+ * Contact: Andreas Wytzisk
+ * 52 North Initiative for Geospatial Open Source Software GmbH
+ * Martin-Luther-King-Weg 24
+ * 48155 Muenster, Germany
+ * info@52north.org
+ *
+ * This program is free software; you can redistribute and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the
+ * Free Software Foundation.
+ *
+ * This program is distributed WITHOUT ANY WARRANTY; even without the implied
+ * WARRANTY OF MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program (see gnu-gpl v2.txt). If not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA or
+ * visit the Free Software Foundation web page, http://www.fsf.org.
+ */
+package org.n52.sos.ds.hibernate.util;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import org.hibernate.Session;
+import org.n52.sos.ds.hibernate.entities.Observation;
+import org.n52.sos.ogc.om.AbstractPhenomenon;
+import org.n52.sos.ogc.om.ObservationStream;
+import org.n52.sos.ogc.om.OmObservation;
+import org.n52.sos.ogc.om.OmObservationConstellation;
+import org.n52.sos.ogc.om.features.AbstractFeature;
+import org.n52.sos.ogc.ows.OwsExceptionReport;
+import org.n52.sos.ogc.sos.SosProcedureDescription;
+
+/**
+ * {@link ObservationStream} that creates the SOS internal observations one by
+ * one from the rows of a {@link ScrollableIterable}. Only the currently
+ * processed {@link Observation} is attached to the session, so the memory
+ * consumption is bounded by the fetch size of the underlying cursor and the
+ * number of distinct procedures, features and observable properties.
+ * <p/>
+ * The observations have to be ordered by their id, consecutive duplicates
+ * (e.g. caused by the join with the offerings) are skipped.
+ *
+ * @since 4.0.0
+ */
+public class HibernateObservationStream implements ObservationStream {
+
+    private final ScrollableIterable<Observation> observations;
+
+    private final Iterator<Observation> iterator;
+
+    private final String version;
+
+    private final String resultModel;
+
+    private final Session session;
+
+    private final Map<String, AbstractFeature> features = new HashMap<String, AbstractFeature>(0);
+
+    private final Map<String, AbstractPhenomenon> obsProps = new HashMap<String, AbstractPhenomenon>(0);
+
+    private final Map<String, SosProcedureDescription> procedures = new HashMap<String, SosProcedureDescription>(0);
+
+    private final Map<Integer, OmObservationConstellation> observationConstellations =
+            new HashMap<Integer, OmObservationConstellation>(0);
+
+    private OmObservation next;
+
+    private long lastObservationId = Long.MIN_VALUE;
+
+    /**
+     * @param observations
+     *            the observations to convert
+     * @param version
+     *            SOS version
+     * @param resultModel
+     *            requested result model
+     * @param session
+     *            Hibernate session the observations are scrolled with
+     */
+    public HibernateObservationStream(final ScrollableIterable<Observation> observations, final String version,
+            final String resultModel, final Session session) {
+        this.observations = observations;
+        this.iterator = observations.iterator();
+        this.version = version;
+        this.resultModel = resultModel;
+        this.session = session;
+    }
+
+    @Override
+    public boolean hasNext() throws OwsExceptionReport {
+        // skip observations without supported value
+        while (next == null && iterator.hasNext()) {
+            final Observation observation = iterator.next();
+            if (observation.getObservationId() == lastObservationId) {
+                session.evict(observation);
+            } else {
+                lastObservationId = observation.getObservationId();
+                next =
+                        HibernateObservationUtilities.createSosObservationFromObservation(observation, version,
+                                resultModel, session, features, obsProps, procedures, observationConstellations);
+            }
+        }
+        return next != null;
+    }
+
+    @Override
+    public OmObservation next() throws OwsExceptionReport {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        final OmObservation observation = next;
+        next = null;
+        return observation;
+    }
+
+    @Override
+    public void close() {
+        observations.close();
+    }
+}
@@ -25,8 +25,10 @@ package org.n52.sos.ds.hibernate.util;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -35,26 +37,31 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import org.hibernate.Criteria;
 import org.hibernate.Session;
+import org.hibernate.criterion.Projections;
 import org.hibernate.criterion.Restrictions;
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
 import org.n52.sos.cache.ContentCache;
 import org.n52.sos.ds.FeatureQueryHandler;
+import org.n52.sos.ds.hibernate.dao.ProcedureDAO;
 import org.n52.sos.ds.hibernate.entities.BlobObservation;
 import org.n52.sos.ds.hibernate.entities.BooleanObservation;
 import org.n52.sos.ds.hibernate.entities.CategoryObservation;
 import org.n52.sos.ds.hibernate.entities.CountObservation;
-import org.n52.sos.ds.hibernate.entities.FeatureOfInterest;
 import org.n52.sos.ds.hibernate.entities.GeometryObservation;
+import org.n52.sos.ds.hibernate.entities.HibernateRelations.HasValue;
 import org.n52.sos.ds.hibernate.entities.NumericObservation;
 import org.n52.sos.ds.hibernate.entities.ObservableProperty;
 import org.n52.sos.ds.hibernate.entities.Observation;
 import org.n52.sos.ds.hibernate.entities.ObservationConstellation;
+import org.n52.sos.ds.hibernate.entities.ObservationType;
 import org.n52.sos.ds.hibernate.entities.Offering;
 import org.n52.sos.ds.hibernate.entities.Procedure;
 import org.n52.sos.ds.hibernate.entities.SweDataArrayObservation;
 import org.n52.sos.ds.hibernate.entities.TextObservation;
+import org.n52.sos.ds.hibernate.util.QueryHelper.ChunkCriteriaFactory;
 import org.n52.sos.exception.CodedException;
 import org.n52.sos.exception.ows.NoApplicableCodeException;
 import org.n52.sos.ogc.gml.CodeWithAuthority;
@@ -98,11 +105,14 @@ import org.n52.sos.service.Configurator;
 import org.n52.sos.service.ServiceConfiguration;
 import org.n52.sos.service.profile.Profile;
 import org.n52.sos.util.CodingHelper;
+import org.n52.sos.util.CollectionHelper;
 import org.n52.sos.util.DateTimeHelper;
 import org.n52.sos.util.SosHelper;
 import org.n52.sos.util.StringHelper;
 import org.n52.sos.util.XmlHelper;
 
+import com.vividsolutions.jts.geom.Geometry;
+
 public class HibernateObservationUtilities {
 
     private static Configuration configuration;
@@ -177,99 +187,306 @@ public class HibernateObservationUtilities {
         final Map<Integer, OmObservationConstellation> observationConstellations =
                 new HashMap<Integer, OmObservationConstellation>(0);
         if (observations != null) {
+            final Set<String> featureIdentifiers = new HashSet<String>();
+            for (final Observation hObservation : observations) {
+                featureIdentifiers.add(hObservation.getFeatureOfInterest().getIdentifier());
+            }
+            loadFeatures(featureIdentifiers, version, features, session);
             // now iterate over resultset and create Measurement for each row
             for (final Observation hObservation : observations) {
                 // check remaining heap size and throw exception if minimum is
                 // reached
                 SosHelper.checkFreeMemory();
-                final FeatureOfInterest hFeatureOfInterest = hObservation.getFeatureOfInterest();
-
-                // TODO get full description
-                final Procedure hProcedure = hObservation.getProcedure();
-                final String procedureIdentifier = hProcedure.getIdentifier();
-                SosProcedureDescription procedure;
-                if (procedures.containsKey(procedureIdentifier)) {
-                    procedure = procedures.get(procedureIdentifier);
-                } else {
-                    if (getConfiguration().getActiveProfile().isEncodeProcedureInObservation()) {
-                        procedure =
-                                new HibernateProcedureConverter().createSosProcedureDescription(
-                                		hProcedure,
-                                        procedureIdentifier,
-                                        hProcedure.getProcedureDescriptionFormat().getProcedureDescriptionFormat(),
-                                        version,
-                                        session);
-                    } else {
-                        procedure =
-                                new SosProcedureDescriptionUnknowType(procedureIdentifier, hProcedure
-                                        .getProcedureDescriptionFormat().getProcedureDescriptionFormat(), null);
-                    }
-                    procedures.put(procedureIdentifier, procedure);
+                final OmObservation sosObservation =
+                        createSosObservationFromObservation(hObservation, version, resultModel, session, features,
+                                obsProps, procedures, observationConstellations);
+                if (sosObservation != null) {
+                    observationCollection.add(sosObservation);
                 }
+            }
+        }
+        return observationCollection;
+    }
 
-                // feature of interest
-                final String foiID = hFeatureOfInterest.getIdentifier();
-                if (!features.containsKey(foiID)) {
-                    final AbstractFeature featureByID =
-                            getConfiguration().getFeatureQueryHandler().getFeatureByID(foiID, session, version, -1);
-                    features.put(foiID, featureByID);
+    /**
+     * Create SOS internal observation from a single Observation object. The
+     * maps are used to share procedures, features, observable properties and
+     * observation constellations between the created observations.
+     * 
+     * @param hObservation
+     *            Observation object
+     * @param version
+     *            SOS version
+     * @param resultModel
+     *            requested result model
+     * @param session
+     *            Hibernate session
+     * @param features
+     *            already created features by identifier
+     * @param obsProps
+     *            already created observable properties by identifier
+     * @param procedures
+     *            already created procedures by identifier
+     * @param observationConstellations
+     *            already created observation constellations by hash code
+     * @return SOS internal observation or <code>null</code> if the
+     *         observation has no supported value
+     * 
+     * @throws OwsExceptionReport
+     *             If an error occurs
+     */
+    static OmObservation createSosObservationFromObservation(final Observation hObservation,
+            final String version, final String resultModel, final Session session,
+            final Map<String, AbstractFeature> features, final Map<String, AbstractPhenomenon> obsProps,
+            final Map<String, SosProcedureDescription> procedures,
+            final Map<Integer, OmObservationConstellation> observationConstellations) throws OwsExceptionReport {
+        // TODO get full description
+        final Procedure hProcedure = hObservation.getProcedure();
+        final SosProcedureDescription procedure =
+                getProcedure(hProcedure.getIdentifier(), hProcedure.getProcedureDescriptionFormat()
+                        .getProcedureDescriptionFormat(), hProcedure, version, procedures, session);
+
+        // feature of interest
+        final AbstractFeature feature =
+                getFeature(hObservation.getFeatureOfInterest().getIdentifier(), version, features, session);
+
+        // phenomenon
+        final ObservableProperty hObservableProperty = hObservation.getObservableProperty();
+        final AbstractPhenomenon observableProperty =
+                getObservableProperty(hObservableProperty.getIdentifier(), hObservableProperty.getDescription(),
+                        obsProps);
+
+        // TODO: add offering ids to response if needed later.
+        // String offeringID =
+        // hObservationConstellation.getOffering().getIdentifier();
+        // String mimeType = SosConstants.PARAMETER_NOT_SET;
+
+        final Value<?> value = getValueFromObservation(hObservation);
+        if (value != null) {
+            if (hObservation.getUnit() != null) {
+                value.setUnit(hObservation.getUnit().getUnit());
+            }
+            checkOrSetObservablePropertyUnit(observableProperty, value.getUnit());
+            final OmObservationConstellation obsConst =
+                    createObservationConstellation(procedure, observableProperty, feature);
+            final int obsConstHash = obsConst.hashCode();
+            if (!observationConstellations.containsKey(obsConstHash)) {
+                if (StringHelper.isNotEmpty(resultModel)) {
+                    obsConst.setObservationType(resultModel);
                 }
-
-                // phenomenon
-                final ObservableProperty hObservableProperty = hObservation.getObservableProperty();
-                final String phenID = hObservation.getObservableProperty().getIdentifier();
-                final String description = hObservation.getObservableProperty().getDescription();
-                if (!obsProps.containsKey(phenID)) {
-                    obsProps.put(phenID, new OmObservableProperty(phenID, description, null, null));
+                final ObservationConstellation hObservationConstellation =
+                        getObservationConstellation(hProcedure, hObservableProperty, hObservation.getOfferings(),
+                                session);
+                if (hObservationConstellation != null) {
+                    final String observationType = hObservationConstellation.getObservationType().getObservationType();
+                    obsConst.setObservationType(observationType);
                 }
+                observationConstellations.put(obsConstHash, obsConst);
+            }
+            final OmObservation sosObservation =
+                    createNewObservation(observationConstellations.get(obsConstHash),
+                            hObservation.getObservationId(), hObservation.getIdentifier(),
+                            hObservation.isSetCodespace() ? hObservation.getCodespace().getCodespace() : null,
+                            hObservation.getResultTime(), hObservation.getPhenomenonTimeStart(),
+                            hObservation.getPhenomenonTimeEnd(), value);
+            session.evict(hObservation);
+            return sosObservation;
+        }
+        return null;
+    }
 
-                // TODO: add offering ids to response if needed later.
-                // String offeringID =
-                // hObservationConstellation.getOffering().getIdentifier();
-                // String mimeType = SosConstants.PARAMETER_NOT_SET;
-
-                final Value<?> value = getValueFromObservation(hObservation);
-                if (value != null) {
-                    if (hObservation.getUnit() != null) {
-                        value.setUnit(hObservation.getUnit().getUnit());
-                    }
-                    checkOrSetObservablePropertyUnit(obsProps.get(phenID), value.getUnit());
-                    final OmObservationConstellation obsConst =
-                            new OmObservationConstellation(procedure, obsProps.get(phenID), features.get(foiID));
-                    /* get the offerings to find the templates */
-                    if (obsConst.getOfferings() == null) {
-                        final HashSet<String> offerings =
-                                new HashSet<String>(getCache().getOfferingsForObservableProperty(
-                                        obsConst.getObservableProperty().getIdentifier()));
-                        offerings.retainAll(getCache().getOfferingsForProcedure(obsConst.getProcedure().getIdentifier()));
-                        obsConst.setOfferings(offerings);
-                    }
-                    final int obsConstHash = obsConst.hashCode();
-                    if (!observationConstellations.containsKey(obsConstHash)) {
-                        if (StringHelper.isNotEmpty(resultModel)) {
-                            obsConst.setObservationType(resultModel);
-                        }
-                        final ObservationConstellation hObservationConstellation =
-                                getObservationConstellation(hProcedure, hObservableProperty, hObservation.getOfferings(),
-                                        session);
-                        if (hObservationConstellation != null) {
-                            final String observationType = hObservationConstellation.getObservationType().getObservationType();
-                            obsConst.setObservationType(observationType);
-                        }
-                        observationConstellations.put(obsConstHash, obsConst);
-                    }
-                    final OmObservation sosObservation =
-                            createNewObservation(observationConstellations, hObservation, value, obsConstHash);
-                    observationCollection.add(sosObservation);
-                    session.evict(hObservation);
-                    // TODO check for ScrollableResult vs setFetchSize/setMaxResult
-                    // + setFirstResult
+    /**
+     * Create SOS internal observations from the flat observation rows of a
+     * projection query. The observation types of all contained
+     * procedure/observable property combinations are queried at once, the
+     * procedure entities are only loaded if the procedure description has to
+     * be encoded in the observations.
+     * 
+     * @param rows
+     *            the observation rows
+     * @param version
+     *            SOS version
+     * @param resultModel
+     *            requested result model
+     * @param session
+     *            Hibernate session
+     * @return SOS internal observations
+     * 
+     * @throws OwsExceptionReport
+     *             If an error occurs
+     */
+    public static List<OmObservation> createSosObservationsFromObservationRows(final Collection<ObservationRow> rows,
+            final String version, final String resultModel, final Session session) throws OwsExceptionReport {
+        final List<OmObservation> observationCollection = new ArrayList<OmObservation>(rows.size());
+        final Map<String, AbstractFeature> features = new HashMap<String, AbstractFeature>(0);
+        final Map<String, AbstractPhenomenon> obsProps = new HashMap<String, AbstractPhenomenon>(0);
+        final Map<String, SosProcedureDescription> procedures = new HashMap<String, SosProcedureDescription>(0);
+        final Map<Integer, OmObservationConstellation> observationConstellations =
+                new HashMap<Integer, OmObservationConstellation>(0);
+        final Map<String, String> observationTypes = getObservationTypes(rows, session);
+        final Set<String> featureIdentifiers = new HashSet<String>();
+        for (final ObservationRow row : rows) {
+            featureIdentifiers.add(row.getFeatureOfInterest());
+        }
+        loadFeatures(featureIdentifiers, version, features, session);
+        for (final ObservationRow row : rows) {
+            SosHelper.checkFreeMemory();
+            final Value<?> value = createValue(row.getObservationClass(), row.getValue());
+            if (value == null) {
+                continue;
+            }
+            value.setUnit(row.getUnit());
+            final SosProcedureDescription procedure =
+                    getProcedure(row.getProcedure(), row.getProcedureDescriptionFormat(), null, version, procedures,
+                            session);
+            final AbstractFeature feature = getFeature(row.getFeatureOfInterest(), version, features, session);
+            final AbstractPhenomenon observableProperty =
+                    getObservableProperty(row.getObservableProperty(), row.getObservablePropertyDescription(),
+                            obsProps);
+            checkOrSetObservablePropertyUnit(observableProperty, value.getUnit());
+            final OmObservationConstellation obsConst =
+                    createObservationConstellation(procedure, observableProperty, feature);
+            final int obsConstHash = obsConst.hashCode();
+            if (!observationConstellations.containsKey(obsConstHash)) {
+                if (StringHelper.isNotEmpty(resultModel)) {
+                    obsConst.setObservationType(resultModel);
+                }
+                final String observationType =
+                        observationTypes.get(getObservationTypeKey(row.getProcedure(), row.getObservableProperty()));
+                if (observationType != null) {
+                    obsConst.setObservationType(observationType);
                 }
+                observationConstellations.put(obsConstHash, obsConst);
             }
+            observationCollection.add(createNewObservation(observationConstellations.get(obsConstHash),
+                    row.getObservationId(), row.getIdentifier(), row.getCodespace(), row.getResultTime(),
+                    row.getPhenomenonTimeStart(), row.getPhenomenonTimeEnd(), value));
         }
         return observationCollection;
     }
 
+    /**
+     * Query the observation types of the procedure/observable property
+     * combinations of the rows with a single query.
+     * 
+     * @return the observation types by
+     *         {@link #getObservationTypeKey(String, String)}
+     */
+    private static Map<String, String> getObservationTypes(final Collection<ObservationRow> rows,
+            final Session session) {
+        final Set<String> procedureIdentifiers = new HashSet<String>();
+        final Set<String> observablePropertyIdentifiers = new HashSet<String>();
+        for (final ObservationRow row : rows) {
+            procedureIdentifiers.add(row.getProcedure());
+            observablePropertyIdentifiers.add(row.getObservableProperty());
+        }
+        final Map<String, String> observationTypes = new HashMap<String, String>();
+        if (procedureIdentifiers.isEmpty()) {
+            return observationTypes;
+        }
+        final List<Object[]> records =
+                QueryHelper.listInChunks(Arrays.asList(procedureIdentifiers, observablePropertyIdentifiers),
+                        new ChunkCriteriaFactory() {
+                            @Override
+                            public Criteria create(final List<Collection<?>> chunks) {
+                                return session.createCriteria(ObservationConstellation.class)
+                                        .add(Restrictions.eq(ObservationConstellation.DELETED, false))
+                                        .createAlias(ObservationConstellation.PROCEDURE, "p")
+                                        .createAlias(ObservationConstellation.OBSERVABLE_PROPERTY, "op")
+                                        .createAlias(ObservationConstellation.OBSERVATION_TYPE, "ot")
+                                        .add(QueryHelper.getInCriterion("p." + Procedure.IDENTIFIER, chunks.get(0)))
+                                        .add(QueryHelper.getInCriterion("op." + ObservableProperty.IDENTIFIER,
+                                                chunks.get(1)))
+                                        .setProjection(Projections.projectionList()
+                                                .add(Projections.property("p." + Procedure.IDENTIFIER))
+                                                .add(Projections.property("op." + ObservableProperty.IDENTIFIER))
+                                                .add(Projections.property("ot." + ObservationType.OBSERVATION_TYPE)));
+                            }
+                        });
+        for (final Object[] record : records) {
+            final String key = getObservationTypeKey((String) record[0], (String) record[1]);
+            if (!observationTypes.containsKey(key)) {
+                observationTypes.put(key, (String) record[2]);
+            }
+        }
+        return observationTypes;
+    }
+
+    private static String getObservationTypeKey(final String procedure, final String observableProperty) {
+        return procedure + "|" + observableProperty;
+    }
+
+    /**
+     * Get the procedure description from the map or create it
+     * 
+     * @param hProcedure
+     *            the procedure entity, if <code>null</code> it is loaded if the
+     *            description has to be encoded in the observations
+     */
+    private static SosProcedureDescription getProcedure(final String identifier, final String format,
+            final Procedure hProcedure, final String version, final Map<String, SosProcedureDescription> procedures,
+            final Session session) throws OwsExceptionReport {
+        SosProcedureDescription procedure = procedures.get(identifier);
+        if (procedure == null) {
+            if (getConfiguration().getActiveProfile().isEncodeProcedureInObservation()) {
+                final Procedure entity =
+                        hProcedure != null ? hProcedure : new ProcedureDAO().getProcedureForIdentifier(identifier,
+                                session);
+                procedure =
+                        new HibernateProcedureConverter().createSosProcedureDescription(entity, identifier, format,
+                                version, session);
+            } else {
+                procedure = new SosProcedureDescriptionUnknowType(identifier, format, null);
+            }
+            procedures.put(identifier, procedure);
+        }
+        return procedure;
+    }
+
+    /**
+     * Load the features of all observations at once instead of querying them
+     * one by one in {@link #getFeature(String, String, Map, Session)}.
+     */
+    private static void loadFeatures(final Set<String> identifiers, final String version,
+            final Map<String, AbstractFeature> features, final Session session) throws OwsExceptionReport {
+        if (identifiers.size() > 1) {
+            features.putAll(getFeatureQueryHandler().getFeatures(identifiers, null, session, version, -1));
+        }
+    }
+
+    private static AbstractFeature getFeature(final String identifier, final String version,
+            final Map<String, AbstractFeature> features, final Session session) throws OwsExceptionReport {
+        if (!features.containsKey(identifier)) {
+            features.put(identifier,
+                    getConfiguration().getFeatureQueryHandler().getFeatureByID(identifier, session, version, -1));
+        }
+        return features.get(identifier);
+    }
+
+    private static AbstractPhenomenon getObservableProperty(final String identifier, final String description,
+            final Map<String, AbstractPhenomenon> obsProps) {
+        AbstractPhenomenon observableProperty = obsProps.get(identifier);
+        if (observableProperty == null) {
+            observableProperty = new OmObservableProperty(identifier, description, null, null);
+            obsProps.put(identifier, observableProperty);
+        }
+        return observableProperty;
+    }
+
+    private static OmObservationConstellation createObservationConstellation(
+            final SosProcedureDescription procedure, final AbstractPhenomenon observableProperty,
+            final AbstractFeature feature) {
+        final OmObservationConstellation obsConst =
+                new OmObservationConstellation(procedure, observableProperty, feature);
+        /* get the offerings to find the templates */
+        if (obsConst.getOfferings() == null) {
+            obsConst.setOfferings(CollectionHelper.intersection(
+                    getCache().getOfferingsForObservableProperty(obsConst.getObservableProperty().getIdentifier()),
+                    getCache().getOfferingsForProcedure(obsConst.getProcedure().getIdentifier())));
+        }
+        return obsConst;
+    }
+
     @SuppressWarnings({ "unchecked", "rawtypes" })
     public static Collection<? extends OmObservation> createSosObservationFromObservationConstellation(
             final ObservationConstellation observationConstellation, final List<String> featureOfInterestIdentifiers,
@@ -315,34 +532,34 @@ public class HibernateObservationUtilities {
     }
 
     @SuppressWarnings({ "unchecked", "rawtypes" })
-    private static OmObservation createNewObservation(
-            final Map<Integer, OmObservationConstellation> observationConstellations, final Observation hObservation,
-            final Value<?> value, final int obsConstHash) {
+    private static OmObservation createNewObservation(final OmObservationConstellation observationConstellation,
+            final long observationId, final String identifier, final String codespace, final Date resultTime,
+            final Date phenomenonTimeStart, final Date phenomenonTimeEnd, final Value<?> value) {
         final OmObservation sosObservation = new OmObservation();
-        sosObservation.setObservationID(Long.toString(hObservation.getObservationId()));
-        if (hObservation.isSetIdentifier()
-                && !hObservation.getIdentifier().startsWith(SosConstants.GENERATED_IDENTIFIER_PREFIX)) {
-            final CodeWithAuthority identifier = new CodeWithAuthority(hObservation.getIdentifier());
-            if (hObservation.isSetCodespace()) {
-                identifier.setCodeSpace(hObservation.getCodespace().getCodespace());
+        sosObservation.setObservationID(Long.toString(observationId));
+        if (StringHelper.isNotEmpty(identifier) && !identifier.startsWith(SosConstants.GENERATED_IDENTIFIER_PREFIX)) {
+            final CodeWithAuthority codeWithAuthority = new CodeWithAuthority(identifier);
+            if (StringHelper.isNotEmpty(codespace)) {
+                codeWithAuthority.setCodeSpace(codespace);
             }
-            sosObservation.setIdentifier(identifier);
+            sosObservation.setIdentifier(codeWithAuthority);
         }
         sosObservation.setNoDataValue(getActiveProfile().getResponseNoDataPlaceholder());
         sosObservation.setTokenSeparator(getTokenSeparator());
         sosObservation.setTupleSeparator(getTupleSeparator());
-        sosObservation.setObservationConstellation(observationConstellations.get(obsConstHash));
-        sosObservation.setResultTime(new TimeInstant(new DateTime(hObservation.getResultTime(), DateTimeZone.UTC)));
-        sosObservation.setValue(new SingleObservationValue(getPhenomenonTime(hObservation), value));
+        sosObservation.setObservationConstellation(observationConstellation);
+        sosObservation.setResultTime(new TimeInstant(new DateTime(resultTime, DateTimeZone.UTC)));
+        sosObservation.setValue(new SingleObservationValue(getPhenomenonTime(phenomenonTimeStart, phenomenonTimeEnd),
+                value));
         return sosObservation;
     }
 
-    private static Time getPhenomenonTime(final Observation hObservation) {
+    private static Time getPhenomenonTime(final Date phenomenonTimeStart, final Date phenomenonTimeEnd) {
         // create time element
-        final DateTime phenStartTime = new DateTime(hObservation.getPhenomenonTimeStart(), DateTimeZone.UTC);
+        final DateTime phenStartTime = new DateTime(phenomenonTimeStart, DateTimeZone.UTC);
         DateTime phenEndTime;
-        if (hObservation.getPhenomenonTimeEnd() != null) {
-            phenEndTime = new DateTime(hObservation.getPhenomenonTimeEnd(), DateTimeZone.UTC);
+        if (phenomenonTimeEnd != null) {
+            phenEndTime = new DateTime(phenomenonTimeEnd, DateTimeZone.UTC);
         } else {
             phenEndTime = phenStartTime;
         }
@@ -375,25 +592,41 @@ public class HibernateObservationUtilities {
      * @throws CodedException 
      */
     private static Value<?> getValueFromObservation(final Observation hObservation) throws CodedException, OwsExceptionReport {
-        if (hObservation instanceof NumericObservation) {
-            return new QuantityValue(((NumericObservation) hObservation).getValue());
-        } else if (hObservation instanceof BooleanObservation) {
-            return new org.n52.sos.ogc.om.values.BooleanValue(Boolean.valueOf(((BooleanObservation) hObservation)
-                    .getValue()));
-        } else if (hObservation instanceof CategoryObservation) {
-            return new org.n52.sos.ogc.om.values.CategoryValue(((CategoryObservation) hObservation).getValue());
-        } else if (hObservation instanceof CountObservation) {
-            return new org.n52.sos.ogc.om.values.CountValue(Integer.valueOf(((CountObservation) hObservation)
-                    .getValue()));
-        } else if (hObservation instanceof TextObservation) {
-            return new org.n52.sos.ogc.om.values.TextValue(((TextObservation) hObservation).getValue().toString());
-        } else if (hObservation instanceof GeometryObservation) {
-            return new org.n52.sos.ogc.om.values.GeometryValue(((GeometryObservation) hObservation).getValue());
-        } else if (hObservation instanceof BlobObservation) {
-            return new UnknownValue(((BlobObservation) hObservation).getValue());
-        } else if (hObservation instanceof SweDataArrayObservation) {
+        if (hObservation instanceof HasValue) {
+            return createValue(hObservation.getClass(), ((HasValue<?>) hObservation).getValue());
+        }
+        return null;
+    }
+
+    /**
+     * Create the observation value for the value of an observation class
+     * 
+     * @param observationClass
+     *            the observation class
+     * @param value
+     *            the value of an observation of this class
+     * @return Observation value or <code>null</code> if the class is not
+     *         supported
+     */
+    private static Value<?> createValue(final Class<?> observationClass, final Object value)
+            throws OwsExceptionReport {
+        if (NumericObservation.class.isAssignableFrom(observationClass)) {
+            return new QuantityValue((BigDecimal) value);
+        } else if (BooleanObservation.class.isAssignableFrom(observationClass)) {
+            return new org.n52.sos.ogc.om.values.BooleanValue((Boolean) value);
+        } else if (CategoryObservation.class.isAssignableFrom(observationClass)) {
+            return new org.n52.sos.ogc.om.values.CategoryValue((String) value);
+        } else if (CountObservation.class.isAssignableFrom(observationClass)) {
+            return new org.n52.sos.ogc.om.values.CountValue((Integer) value);
+        } else if (TextObservation.class.isAssignableFrom(observationClass)) {
+            return new org.n52.sos.ogc.om.values.TextValue(value.toString());
+        } else if (GeometryObservation.class.isAssignableFrom(observationClass)) {
+            return new org.n52.sos.ogc.om.values.GeometryValue((Geometry) value);
+        } else if (BlobObservation.class.isAssignableFrom(observationClass)) {
+            return new UnknownValue(value);
+        } else if (SweDataArrayObservation.class.isAssignableFrom(observationClass)) {
             SweDataArrayValue sweDataArrayValue = new SweDataArrayValue();
-            sweDataArrayValue.setValue((SweDataArray)CodingHelper.decodeXmlElement(XmlHelper.parseXmlString(((SweDataArrayObservation) hObservation).getValue())));
+            sweDataArrayValue.setValue((SweDataArray)CodingHelper.decodeXmlElement(XmlHelper.parseXmlString((String) value)));
             return sweDataArrayValue;
         }
         return null;
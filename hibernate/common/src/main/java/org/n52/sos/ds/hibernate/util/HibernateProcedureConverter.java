@@ -27,13 +27,19 @@ import static org.n52.sos.ogc.sensorML.elements.SmlClassifier.*;
 import static org.n52.sos.ogc.swe.SWEConstants.SweCoordinateName.*;
 import static org.n52.sos.util.HTTPConstants.StatusCode.*;
 
+import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
+import org.apache.xmlbeans.XmlObject;
 import org.hibernate.Criteria;
 import org.hibernate.HibernateException;
 import org.hibernate.Session;
@@ -853,7 +859,13 @@ public class HibernateProcedureConverter {
 
 	private SosProcedureDescription createProcedureDescriptionFromXml(final String procedureIdentifier,
 			final String xmlDoc) throws CodedException, OwsExceptionReport {
-		final SosProcedureDescription sosProcedureDescription = (SosProcedureDescription) CodingHelper.decodeXmlElement(XmlHelper.parseXmlString(xmlDoc));
+		final ProcedureDescriptionCache cache = getProcedureDescriptionCache();
+		XmlObject xml = cache.get(procedureIdentifier, xmlDoc);
+		if (xml == null) {
+			xml = XmlHelper.parseXmlString(xmlDoc);
+			cache.put(procedureIdentifier, xmlDoc, xml);
+		}
+		final SosProcedureDescription sosProcedureDescription = (SosProcedureDescription) CodingHelper.decodeXmlElement(xml);
 		sosProcedureDescription.setIdentifier(procedureIdentifier);
 		return sosProcedureDescription;
 	}
@@ -862,12 +874,20 @@ public class HibernateProcedureConverter {
 			final String filename) throws CodedException, OwsExceptionReport {
 		// check if filename contains placeholder for configured
 		// sensor directory
-		final SosProcedureDescription sosProcedureDescription = (SosProcedureDescription) CodingHelper.decodeXmlElement(XmlHelper.parseXmlString(StringHelper.convertStreamToString(getDescribeSensorDocumentAsStream(filename))));
+		final URL url = getDescribeSensorDocumentUrl(filename);
+		final String source = getDescribeSensorDocumentSource(filename, url);
+		final ProcedureDescriptionCache cache = getProcedureDescriptionCache();
+		XmlObject xml = cache.get(procedureIdentifier, source);
+		if (xml == null) {
+			xml = XmlHelper.parseXmlString(StringHelper.convertStreamToString(getDescribeSensorDocumentAsStream(filename, url)));
+			cache.put(procedureIdentifier, source, xml);
+		}
+		final SosProcedureDescription sosProcedureDescription = (SosProcedureDescription) CodingHelper.decodeXmlElement(xml);
 		sosProcedureDescription.setIdentifier(procedureIdentifier);
 		return sosProcedureDescription;
 	}
 
-	private InputStream getDescribeSensorDocumentAsStream(String filename) {
+	private URL getDescribeSensorDocumentUrl(String filename) {
 		final StringBuilder builder = new StringBuilder();
 		if (filename.startsWith("standard")) {
 			filename = filename.replace("standard", "");
@@ -876,7 +896,53 @@ public class HibernateProcedureConverter {
 		}
 		builder.append(filename);
 		LOGGER.debug("Procedure description file name '{}'!", filename);
-		return Configurator.getInstance().getClass().getResourceAsStream(builder.toString());
+		return Configurator.getInstance().getClass().getResource(builder.toString());
+	}
+
+	private InputStream getDescribeSensorDocumentAsStream(final String filename, final URL url) throws OwsExceptionReport {
+		if (url == null) {
+			return null;
+		}
+		try {
+			return url.openStream();
+		} catch (final IOException ioe) {
+			throw new NoApplicableCodeException().causedBy(ioe)
+					.withMessage("Error while reading procedure description file '%s'!", filename);
+		}
+	}
+
+	/**
+	 * @return the file name with the modification time and length of the
+	 *         file, so the cached description is not used if the file changed
+	 */
+	private String getDescribeSensorDocumentSource(final String filename, final URL url) {
+		if (url == null) {
+			return filename;
+		}
+		try {
+			if ("file".equals(url.getProtocol())) {
+				final File file = new File(url.toURI());
+				return String.format("%s@%d:%d", filename, file.lastModified(), file.length());
+			}
+			final URLConnection connection = url.openConnection();
+			return String.format("%s@%d:%d", filename, connection.getLastModified(), connection.getContentLength());
+		} catch (final URISyntaxException urise) {
+			LOGGER.warn(String.format("Error while checking procedure description file '%s'!", filename), urise);
+		} catch (final IOException ioe) {
+			LOGGER.warn(String.format("Error while checking procedure description file '%s'!", filename), ioe);
+		}
+		// do not use a cached description of a file that can not be checked
+		return null;
+	}
+
+	/**
+	 * The cache size is a procedure description setting, which is defined
+	 * without access to the cache, so it is applied on use.
+	 */
+	private ProcedureDescriptionCache getProcedureDescriptionCache() {
+		final ProcedureDescriptionCache cache = ProcedureDescriptionCache.getInstance();
+		cache.setCapacity(procedureSettings().getDescriptionCacheSize());
+		return cache;
 	}
 
 }
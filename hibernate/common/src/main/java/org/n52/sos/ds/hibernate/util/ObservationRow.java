@@ -0,0 +1,195 @@
+/**
+ * Copyright (C) 2013
+ * by 52 North Initiative for Geospatial Open Source Software GmbH
+ *
+ * Contact: Andreas Wytzisk
+ * 52 North Initiative for Geospatial Open Source Software GmbH
+ * Martin-Luther-King-Weg 24
+ * 48155 Muenster, Germany
+ * info@52north.org
+ *
+ * This program is free software; you can redistribute and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the
+ * Free Software Foundation.
+ *
+ * This program is distributed WITHOUT ANY WARRANTY; even without the implied
+ * WARRANTY OF MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program (see gnu-gpl v2.txt). If not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA or
+ * visit the Free Software Foundation web page, http://www.fsf.org.
+ */
+package org.n52.sos.ds.hibernate.util;
+
+import java.util.Date;
+
+import org.hibernate.criterion.ProjectionList;
+import org.hibernate.criterion.Projections;
+import org.n52.sos.ds.hibernate.entities.Codespace;
+import org.n52.sos.ds.hibernate.entities.FeatureOfInterest;
+import org.n52.sos.ds.hibernate.entities.HibernateRelations.HasValue;
+import org.n52.sos.ds.hibernate.entities.ObservableProperty;
+import org.n52.sos.ds.hibernate.entities.Observation;
+import org.n52.sos.ds.hibernate.entities.Procedure;
+import org.n52.sos.ds.hibernate.entities.ProcedureDescriptionFormat;
+import org.n52.sos.ds.hibernate.entities.Unit;
+
+/**
+ * Flat, read-only representation of a single valued observation that is
+ * selected with the scalar {@link #getProjection() projection} of an
+ * observation criteria instead of loading the {@link Observation} entity with
+ * its associations.
+ * <p/>
+ * The criteria has to be created for one of the {@link HasValue} observation
+ * classes and has to join the associations with the aliases defined by this
+ * class; unit and codespace with an outer join.
+ * 
+ * @since 4.0.0
+ */
+public class ObservationRow {
+
+    public static final String PROCEDURE_ALIAS = "proc";
+
+    public static final String PROCEDURE_DESCRIPTION_FORMAT_ALIAS = "pdf";
+
+    public static final String OBSERVABLE_PROPERTY_ALIAS = "obsProp";
+
+    public static final String FEATURE_OF_INTEREST_ALIAS = "foi";
+
+    public static final String UNIT_ALIAS = "unit";
+
+    public static final String CODESPACE_ALIAS = "cs";
+
+    private final Class<? extends Observation> observationClass;
+
+    private final long observationId;
+
+    private final String identifier;
+
+    private final String codespace;
+
+    private final Date phenomenonTimeStart;
+
+    private final Date phenomenonTimeEnd;
+
+    private final Date resultTime;
+
+    private final String procedure;
+
+    private final String procedureDescriptionFormat;
+
+    private final String observableProperty;
+
+    private final String observablePropertyDescription;
+
+    private final String featureOfInterest;
+
+    private final String unit;
+
+    private final Object value;
+
+    /**
+     * @param observationClass
+     *            the observation class the record was selected for
+     * @param record
+     *            a record of {@link #getProjection()}
+     */
+    public ObservationRow(final Class<? extends Observation> observationClass, final Object[] record) {
+        this.observationClass = observationClass;
+        this.observationId = (Long) record[0];
+        this.identifier = (String) record[1];
+        this.codespace = (String) record[2];
+        this.phenomenonTimeStart = (Date) record[3];
+        this.phenomenonTimeEnd = (Date) record[4];
+        this.resultTime = (Date) record[5];
+        this.procedure = (String) record[6];
+        this.procedureDescriptionFormat = (String) record[7];
+        this.observableProperty = (String) record[8];
+        this.observablePropertyDescription = (String) record[9];
+        this.featureOfInterest = (String) record[10];
+        this.unit = (String) record[11];
+        this.value = record[12];
+    }
+
+    /**
+     * @return the projection of the observation properties, the order has to
+     *         match {@link #ObservationRow(Class, Object[])}
+     */
+    public static ProjectionList getProjection() {
+        return Projections.projectionList().add(Projections.property(Observation.ID))
+                .add(Projections.property(Observation.IDENTIFIER))
+                .add(Projections.property(CODESPACE_ALIAS + "." + Codespace.CODESPACE))
+                .add(Projections.property(Observation.PHENOMENON_TIME_START))
+                .add(Projections.property(Observation.PHENOMENON_TIME_END))
+                .add(Projections.property(Observation.RESULT_TIME))
+                .add(Projections.property(PROCEDURE_ALIAS + "." + Procedure.IDENTIFIER))
+                .add(Projections.property(PROCEDURE_DESCRIPTION_FORMAT_ALIAS + "."
+                        + ProcedureDescriptionFormat.PROCEDURE_DESCRIPTION_FORMAT))
+                .add(Projections.property(OBSERVABLE_PROPERTY_ALIAS + "." + ObservableProperty.IDENTIFIER))
+                .add(Projections.property(OBSERVABLE_PROPERTY_ALIAS + "." + ObservableProperty.DESCRIPTION))
+                .add(Projections.property(FEATURE_OF_INTEREST_ALIAS + "." + FeatureOfInterest.IDENTIFIER))
+                .add(Projections.property(UNIT_ALIAS + "." + Unit.UNIT)).add(Projections.property(HasValue.VALUE));
+    }
+
+    public Class<? extends Observation> getObservationClass() {
+        return observationClass;
+    }
+
+    public long getObservationId() {
+        return observationId;
+    }
+
+    public String getIdentifier() {
+        return identifier;
+    }
+
+    public boolean isSetIdentifier() {
+        return identifier != null && !identifier.isEmpty();
+    }
+
+    public String getCodespace() {
+        return codespace;
+    }
+
+    public Date getPhenomenonTimeStart() {
+        return phenomenonTimeStart;
+    }
+
+    public Date getPhenomenonTimeEnd() {
+        return phenomenonTimeEnd;
+    }
+
+    public Date getResultTime() {
+        return resultTime;
+    }
+
+    public String getProcedure() {
+        return procedure;
+    }
+
+    public String getProcedureDescriptionFormat() {
+        return procedureDescriptionFormat;
+    }
+
+    public String getObservableProperty() {
+        return observableProperty;
+    }
+
+    public String getObservablePropertyDescription() {
+        return observablePropertyDescription;
+    }
+
+    public String getFeatureOfInterest() {
+        return featureOfInterest;
+    }
+
+    public String getUnit() {
+        return unit;
+    }
+
+    public Object getValue() {
+        return value;
+    }
+}
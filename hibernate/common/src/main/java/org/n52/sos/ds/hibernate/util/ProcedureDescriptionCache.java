@@ -0,0 +1,137 @@
+/**
+ * Copyright (C) 2013
+ * by 52 North Initiative for Geospatial Open Source Software GmbH
+ *
+ * Contact: Andreas Wytzisk
+ * 52 North Initiative for Geospatial Open Source Software GmbH
+ * Martin-Luther-King-Weg 24
+ * 48155 Muenster, Germany
+ * info@52north.org
+ *
+ * This program is free software; you can redistribute and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the
+ * Free Software Foundation.
+ *
+ * This program is distributed WITHOUT ANY WARRANTY; even without the implied
+ * WARRANTY OF MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program (see gnu-gpl v2.txt). If not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA or
+ * visit the Free Software Foundation web page, http://www.fsf.org.
+ */
+package org.n52.sos.ds.hibernate.util;
+
+import org.apache.xmlbeans.XmlObject;
+import org.n52.sos.service.ProcedureDescriptionSettings;
+import org.n52.sos.util.LruCache;
+
+/**
+ * Bounded cache of the parsed procedure descriptions by procedure identifier,
+ * so that DescribeSensor and the encoding of procedures in observations do not
+ * read and parse the stored SensorML for every request. The descriptions are
+ * held in a {@link LruCache}, a capacity of <code>0</code> disables the cache.
+ * <p/>
+ * A cached description is only used if it was parsed from the same source
+ * (the XML document of the current valid time or the description file name
+ * with the modification time and length of the file), so changes that are not
+ * signaled with {@link #invalidate(String)} are detected, too.
+ * <p/>
+ * The decoders modify the documents they decode, so the cache stores and
+ * returns copies.
+ * 
+ * @since 4.0.0
+ */
+public class ProcedureDescriptionCache {
+
+    private static final ProcedureDescriptionCache INSTANCE = new ProcedureDescriptionCache(
+            ProcedureDescriptionSettings.DESCRIPTION_CACHE_SIZE_DEFINITION.getDefaultValue());
+
+    private final LruCache<String, ParsedDescription> descriptions;
+
+    public static ProcedureDescriptionCache getInstance() {
+        return INSTANCE;
+    }
+
+    ProcedureDescriptionCache(final int capacity) {
+        this.descriptions = new LruCache<String, ParsedDescription>(capacity);
+    }
+
+    /**
+     * @param procedure
+     *            the procedure identifier
+     * @param source
+     *            the XML document or file name the description is parsed from
+     * @return a copy of the parsed description or <code>null</code> if it is
+     *         not cached or was parsed from another source
+     */
+    public XmlObject get(final String procedure, final String source) {
+        final ParsedDescription cached = descriptions.get(procedure);
+        if (cached != null && cached.source.equals(source)) {
+            return cached.xml.copy();
+        }
+        return null;
+    }
+
+    /**
+     * Caches a copy of the parsed description
+     * 
+     * @param procedure
+     *            the procedure identifier
+     * @param source
+     *            the XML document or file name the description was parsed from
+     * @param xml
+     *            the parsed description
+     */
+    public void put(final String procedure, final String source, final XmlObject xml) {
+        if (procedure != null && source != null && xml != null && getCapacity() > 0) {
+            descriptions.put(procedure, new ParsedDescription(source, xml.copy()));
+        }
+    }
+
+    /**
+     * Remove the description of the procedure from the cache
+     * 
+     * @param procedure
+     *            the procedure identifier
+     */
+    public void invalidate(final String procedure) {
+        descriptions.remove(procedure);
+    }
+
+    /**
+     * Remove all descriptions from the cache
+     */
+    public void invalidate() {
+        descriptions.clear();
+    }
+
+    public int getCapacity() {
+        return descriptions.getCapacity();
+    }
+
+    /**
+     * @param capacity
+     *            the maximum number of cached descriptions, <code>0</code>
+     *            disables the cache
+     */
+    public void setCapacity(final int capacity) {
+        descriptions.setCapacity(capacity);
+    }
+
+    int size() {
+        return descriptions.size();
+    }
+
+    private static class ParsedDescription {
+        private final String source;
+
+        private final XmlObject xml;
+
+        ParsedDescription(final String source, final XmlObject xml) {
+            this.source = source;
+            this.xml = xml;
+        }
+    }
+}
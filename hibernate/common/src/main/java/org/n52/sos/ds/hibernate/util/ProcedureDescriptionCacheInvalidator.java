@@ -0,0 +1,66 @@
+/**
+ * Copyright (C) 2013
+ * by 52 North Initiative for Geospatial Open Source Software GmbH
+ *
+ * Contact: Andreas Wytzisk
+ * 52 North Initiative for Geospatial Open Source Software GmbH
+ * Martin-Luther-King-Weg 24
+ * 48155 Muenster, Germany
+ * info@52north.org
+ *
+ * This program is free software; you can redistribute and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the
+ * Free Software Foundation.
+ *
+ * This program is distributed WITHOUT ANY WARRANTY; even without the implied
+ * WARRANTY OF MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program (see gnu-gpl v2.txt). If not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA or
+ * visit the Free Software Foundation web page, http://www.fsf.org.
+ */
+package org.n52.sos.ds.hibernate.util;
+
+import java.util.Set;
+
+import org.n52.sos.event.ReliableSosEventListener;
+import org.n52.sos.event.SosEvent;
+import org.n52.sos.event.events.SensorDeletion;
+import org.n52.sos.event.events.SensorModification;
+import org.n52.sos.util.CollectionHelper;
+import org.n52.sos.util.StringHelper;
+
+/**
+ * Removes modified and deleted procedures from the
+ * {@link ProcedureDescriptionCache}.
+ * 
+ * @since 4.0.0
+ */
+public class ProcedureDescriptionCacheInvalidator implements ReliableSosEventListener {
+
+    @SuppressWarnings("unchecked")
+    private static final Set<Class<? extends SosEvent>> TYPES = CollectionHelper.<Class<? extends SosEvent>>set(
+            SensorModification.class, SensorDeletion.class);
+
+    @Override
+    public Set<Class<? extends SosEvent>> getTypes() {
+        return TYPES;
+    }
+
+    @Override
+    public void handle(final SosEvent event) {
+        String identifier = null;
+        if (event instanceof SensorModification) {
+            identifier = ((SensorModification) event).getRequest().getProcedureIdentifier();
+        } else if (event instanceof SensorDeletion) {
+            identifier = ((SensorDeletion) event).getRequest().getProcedureIdentifier();
+        }
+        if (StringHelper.isNotEmpty(identifier)) {
+            ProcedureDescriptionCache.getInstance().invalidate(identifier);
+        } else {
+            ProcedureDescriptionCache.getInstance().invalidate();
+        }
+    }
+}
@@ -23,32 +23,42 @@
  */
 package org.n52.sos.ds.hibernate.util;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
 
+import org.hibernate.Criteria;
 import org.hibernate.Session;
+import org.hibernate.criterion.Criterion;
+import org.hibernate.criterion.Restrictions;
+import org.n52.sos.ds.FeatureQueryHandler;
+import org.n52.sos.ds.hibernate.entities.FeatureOfInterest;
 import org.n52.sos.exception.ows.NoApplicableCodeException;
 import org.n52.sos.ogc.filter.SpatialFilter;
 import org.n52.sos.ogc.ows.OwsExceptionReport;
 import org.n52.sos.service.Configurator;
 
 public class QueryHelper {
+
+    /**
+     * Maximum number of values in one SQL IN list, e.g. Oracle does not support
+     * more than 1000.
+     */
+    public static final int MAX_IN_LIST_SIZE = 1000;
     
     public static Set<String> getFeatureIdentifier(SpatialFilter spatialFilter, List<String> featureIdentifier,
                                                    Session session) throws OwsExceptionReport {
         Set<String> foiIDs = null;
         // spatial filter
         if (spatialFilter != null) {
-            if (spatialFilter.getValueReference().contains("om:featureOfInterest")
-                    && spatialFilter.getValueReference().contains("sams:shape")) {
-                foiIDs =
-                        new HashSet<String>(Configurator.getInstance().getFeatureQueryHandler()
-                                .getFeatureIDs(spatialFilter, session));
-            } else {
-                throw new NoApplicableCodeException()
-                        .withMessage("The requested valueReference for spatial filters is not supported by this server!");
-            }
+            checkSpatialFilterValueReference(spatialFilter);
+            foiIDs =
+                    new HashSet<String>(Configurator.getInstance().getFeatureQueryHandler()
+                            .getFeatureIDs(spatialFilter, session));
         }
         // feature of interest
         if (featureIdentifier != null && !featureIdentifier.isEmpty()) {
@@ -67,6 +77,200 @@ public class QueryHelper {
         return foiIDs;
     }
 
+    /**
+     * Get the feature identifiers that restrict the {@link FeatureOfInterest}
+     * entity in addition to {@link #getSpatialFilterCriterion(SpatialFilter)}:
+     * the requested feature identifiers if the spatial filter is applied by
+     * the database, else the result of
+     * {@link #getFeatureIdentifier(SpatialFilter, List, Session)}.
+     * 
+     * @param spatialFilter
+     *            the spatial filter, may be <code>null</code>
+     * @param featureIdentifier
+     *            the requested feature identifiers, may be <code>null</code>
+     * @param session
+     *            Hibernate session
+     * @return the feature identifiers or <code>null</code> if they are not
+     *         restricted
+     * @throws OwsExceptionReport
+     *             if the spatial filter is not supported
+     */
+    public static Set<String> getFeatureIdentifierRestriction(SpatialFilter spatialFilter,
+            List<String> featureIdentifier, Session session) throws OwsExceptionReport {
+        if (getSpatialFilterCriterion(spatialFilter) == null) {
+            return getFeatureIdentifier(spatialFilter, featureIdentifier, session);
+        }
+        if (featureIdentifier != null && !featureIdentifier.isEmpty()) {
+            return new HashSet<String>(featureIdentifier);
+        }
+        return null;
+    }
+
+    /**
+     * Create an IN restriction.
+     * 
+     * @param propertyName
+     *            the property to restrict
+     * @param values
+     *            the allowed values, at most {@link #MAX_IN_LIST_SIZE}
+     * @return the restriction, never matching if the values are empty
+     * @throws IllegalArgumentException
+     *             if there are more than {@link #MAX_IN_LIST_SIZE} values, use
+     *             {@link #listInChunks(List, ChunkCriteriaFactory)} for them
+     */
+    public static Criterion getInCriterion(String propertyName, Collection<?> values) {
+        if (values.isEmpty()) {
+            return Restrictions.sqlRestriction("1=0");
+        }
+        if (values.size() > MAX_IN_LIST_SIZE) {
+            throw new IllegalArgumentException(String.format("More than %d values for an IN restriction of %s!",
+                    MAX_IN_LIST_SIZE, propertyName));
+        }
+        return Restrictions.in(propertyName, values);
+    }
+
+    /**
+     * Check if {@link #listInChunks(List, ChunkCriteriaFactory)} runs more
+     * than one statement for the value lists.
+     * 
+     * @param values
+     *            the value lists, may contain <code>null</code> lists
+     * @return if a list has to be split into chunks
+     */
+    public static boolean isSplit(List<? extends Collection<?>> values) {
+        int chunkSize = getChunkSize(values);
+        for (Collection<?> list : values) {
+            if (list != null && list.size() > chunkSize) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Run a query for chunks of value lists as separate statements and
+     * concatenate the results. Each list is split into chunks, so that all IN
+     * lists of a statement together have at most {@link #MAX_IN_LIST_SIZE}
+     * values, and a statement is run for each combination of the chunks of the
+     * lists. If a row matches values of different chunks, e.g. of a joined
+     * collection, it is contained more than once in the result.
+     * 
+     * @param values
+     *            the value lists, a <code>null</code> list does not restrict
+     *            the query and an empty list matches nothing
+     * @param factory
+     *            creates the criteria for a chunk of each list
+     * @return the concatenated results
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> List<T> listInChunks(List<? extends Collection<?>> values, ChunkCriteriaFactory factory) {
+        for (Collection<?> list : values) {
+            if (list != null && list.isEmpty()) {
+                return Collections.emptyList();
+            }
+        }
+        int chunkSize = getChunkSize(values);
+        List<List<Collection<?>>> chunksOfLists = new ArrayList<List<Collection<?>>>(values.size());
+        for (Collection<?> list : values) {
+            chunksOfLists.add(split(list, chunkSize));
+        }
+        List<T> result = new LinkedList<T>();
+        int[] position = new int[values.size()];
+        while (true) {
+            List<Collection<?>> chunks = new ArrayList<Collection<?>>(values.size());
+            for (int i = 0; i < position.length; i++) {
+                chunks.add(chunksOfLists.get(i).get(position[i]));
+            }
+            result.addAll(factory.create(chunks).list());
+            int i = 0;
+            while (i < position.length && ++position[i] == chunksOfLists.get(i).size()) {
+                position[i++] = 0;
+            }
+            if (i == position.length) {
+                return result;
+            }
+        }
+    }
+
+    /**
+     * @return the chunk size, so that all IN lists of a statement together
+     *         have at most {@link #MAX_IN_LIST_SIZE} values
+     */
+    private static int getChunkSize(List<? extends Collection<?>> values) {
+        int restricted = 0;
+        for (Collection<?> list : values) {
+            if (list != null) {
+                restricted++;
+            }
+        }
+        return Math.max(1, MAX_IN_LIST_SIZE / Math.max(1, restricted));
+    }
+
+    private static List<Collection<?>> split(Collection<?> values, int chunkSize) {
+        if (values == null || values.size() <= chunkSize) {
+            return Collections.<Collection<?>> singletonList(values);
+        }
+        List<Collection<?>> chunks = new ArrayList<Collection<?>>(values.size() / chunkSize + 1);
+        List<Object> chunk = new ArrayList<Object>(chunkSize);
+        for (Object value : values) {
+            chunk.add(value);
+            if (chunk.size() == chunkSize) {
+                chunks.add(chunk);
+                chunk = new ArrayList<Object>(chunkSize);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+
+    /**
+     * Get the restriction of the {@link FeatureOfInterest} entity for the
+     * spatial filter if the {@link FeatureQueryHandler} supports applying it
+     * by the database.
+     * 
+     * @param spatialFilter
+     *            the spatial filter, may be <code>null</code>
+     * @return the restriction or <code>null</code> if there is no spatial
+     *         filter or it has to be resolved with
+     *         {@link #getFeatureIdentifier(SpatialFilter, List, Session)}
+     * @throws OwsExceptionReport
+     *             if the spatial filter is not supported
+     */
+    public static Criterion getSpatialFilterCriterion(SpatialFilter spatialFilter) throws OwsExceptionReport {
+        if (spatialFilter != null) {
+            checkSpatialFilterValueReference(spatialFilter);
+            FeatureQueryHandler featureQueryHandler = Configurator.getInstance().getFeatureQueryHandler();
+            if (featureQueryHandler instanceof SpatialFilteringFeatureQueryHandler) {
+                return ((SpatialFilteringFeatureQueryHandler) featureQueryHandler)
+                        .getSpatialFilterCriterion(spatialFilter);
+            }
+        }
+        return null;
+    }
+
+    private static void checkSpatialFilterValueReference(SpatialFilter spatialFilter) throws OwsExceptionReport {
+        if (!spatialFilter.getValueReference().contains("om:featureOfInterest")
+                || !spatialFilter.getValueReference().contains("sams:shape")) {
+            throw new NoApplicableCodeException()
+                    .withMessage("The requested valueReference for spatial filters is not supported by this server!");
+        }
+    }
+
     private QueryHelper() {
     }
+
+    /**
+     * Creates the criteria of {@link QueryHelper#listInChunks(List, ChunkCriteriaFactory)}
+     */
+    public interface ChunkCriteriaFactory {
+        /**
+         * @param chunks
+         *            a chunk of each value list in the order of the lists,
+         *            <code>null</code> for a <code>null</code> list
+         * @return the criteria restricted to the chunks
+         */
+        Criteria create(List<Collection<?>> chunks);
+    }
 }
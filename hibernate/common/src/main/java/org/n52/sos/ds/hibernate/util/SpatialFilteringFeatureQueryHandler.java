@@ -0,0 +1,54 @@
+/**
+ * Copyright (C) 2013
+ * by 52 North Initiative for Geospatial Open Source Software GmbH
+ *
+ * Contact: Andreas Wytzisk
+ * 52 North Initiative for Geospatial Open Source Software GmbH
+ * Martin-Luther-King-Weg 24
+ * 48155 Muenster, Germany
+ * info@52north.org
+ *
+ * This program is free software; you can redistribute and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the
+ * Free Software Foundation.
+ *
+ * This program is distributed WITHOUT ANY WARRANTY; even without the implied
+ * WARRANTY OF MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program (see gnu-gpl v2.txt). If not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA or
+ * visit the Free Software Foundation web page, http://www.fsf.org.
+ */
+package org.n52.sos.ds.hibernate.util;
+
+import org.hibernate.criterion.Criterion;
+import org.n52.sos.ds.FeatureQueryHandler;
+import org.n52.sos.ds.hibernate.entities.FeatureOfInterest;
+import org.n52.sos.ogc.filter.SpatialFilter;
+import org.n52.sos.ogc.ows.OwsExceptionReport;
+
+/**
+ * {@link FeatureQueryHandler} that can translate a {@link SpatialFilter} into a
+ * restriction on the {@link FeatureOfInterest} entity, so the database applies
+ * the filter as part of the observation query instead of resolving it into a
+ * list of feature identifiers first.
+ *
+ * @since 4.0.0
+ */
+public interface SpatialFilteringFeatureQueryHandler extends FeatureQueryHandler {
+
+    /**
+     * Create the restriction for the spatial filter. It has to be added to a
+     * criteria of the {@link FeatureOfInterest} entity.
+     *
+     * @param filter
+     *            the spatial filter
+     * @return the restriction or <code>null</code> if the filter can not be
+     *         applied by the database
+     * @throws OwsExceptionReport
+     *             if the filter geometry is invalid
+     */
+    Criterion getSpatialFilterCriterion(SpatialFilter filter) throws OwsExceptionReport;
+}
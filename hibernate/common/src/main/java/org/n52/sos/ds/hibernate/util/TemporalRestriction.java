@@ -25,6 +25,7 @@ package org.n52.sos.ds.hibernate.util;
 
 import java.util.Date;
 
+import org.hibernate.criterion.Conjunction;
 import org.hibernate.criterion.Criterion;
 import org.hibernate.criterion.PropertyExpression;
 import org.hibernate.criterion.Restrictions;
@@ -146,8 +147,9 @@ public abstract class TemporalRestriction {
             return filterWithInstant(new TimeInstant(time.resolveStart()), r);
         }
         if (r.isPeriod()) {
-            return getPropertyCheckingCriterion(filterPeriodWithPeriod(r.getBeginPosition(), r.getEndPosition(), begin, end),
-                                                filterInstantWithPeriod(r.getPosition(), begin, end), r);
+            return addBeginBounds(getPropertyCheckingCriterion(filterPeriodWithPeriod(r.getBeginPosition(), r.getEndPosition(), begin, end),
+                                                               filterInstantWithPeriod(r.getPosition(), begin, end), r),
+                                  r, begin, end);
         } else {
             return filterInstantWithPeriod(r.getPosition(), begin, end);
         }
@@ -177,8 +179,9 @@ public abstract class TemporalRestriction {
             return filterWithPeriod(new TimePeriod(new DateTime(begin), new DateTime(end)), r);
         }
         if (r.isPeriod()) {
-            return getPropertyCheckingCriterion(filterPeriodWithInstant(r.getBeginPosition(), r.getEndPosition(), begin),
-                                                filterInstantWithInstant(r.getPosition(), begin), r);
+            return addBeginBounds(getPropertyCheckingCriterion(filterPeriodWithInstant(r.getBeginPosition(), r.getEndPosition(), begin),
+                                                               filterInstantWithInstant(r.getPosition(), begin), r),
+                                  r, begin, begin);
 
         } else {
             return filterInstantWithInstant(r.getPosition(), begin);
@@ -224,6 +227,63 @@ public abstract class TemporalRestriction {
         }
     }
 
+    /**
+     * Adds the bounds of the begin position implied by this restriction to <tt>c</tt>. The bounds are redundant, but
+     * unlike the composite criterion they only reference the begin position, so the database can use them to skip
+     * partitions or to scan an index on the begin position.
+     *
+     * @param c          the criterion (may be <tt>null</tt>)
+     * @param r          the property names
+     * @param otherBegin the begin of the compared time
+     * @param otherEnd   the end of the compared time
+     *
+     * @return the criterion including the bounds or <tt>null</tt> if <tt>c</tt> is <tt>null</tt>
+     */
+    private Criterion addBeginBounds(Criterion c, TimePrimitiveFieldDescriptor r, Date otherBegin, Date otherEnd) {
+        if (c == null) {
+            return null;
+        }
+        Date lowerBound = getBeginLowerBound(otherBegin, otherEnd);
+        Date upperBound = getBeginUpperBound(otherBegin, otherEnd);
+        if (lowerBound == null && upperBound == null) {
+            return c;
+        }
+        Conjunction conjunction = Restrictions.conjunction();
+        if (lowerBound != null) {
+            conjunction.add(Restrictions.ge(r.getBeginPosition(), lowerBound));
+        }
+        if (upperBound != null) {
+            conjunction.add(Restrictions.le(r.getBeginPosition(), upperBound));
+        }
+        return conjunction.add(c);
+    }
+
+    /**
+     * Returns the inclusive lower bound of the begin position of all time primitives matching this restriction. As
+     * instants are stored with equal begin and end position, the bound has to hold for them, too.
+     *
+     * @param otherBegin the begin of the compared time
+     * @param otherEnd   the end of the compared time (equal to <tt>otherBegin</tt> for instants)
+     *
+     * @return the lower bound or <tt>null</tt> if the begin position is not bounded
+     */
+    protected Date getBeginLowerBound(Date otherBegin, Date otherEnd) {
+        return null;
+    }
+
+    /**
+     * Returns the inclusive upper bound of the begin position of all time primitives matching this restriction. As
+     * instants are stored with equal begin and end position, the bound has to hold for them, too.
+     *
+     * @param otherBegin the begin of the compared time
+     * @param otherEnd   the end of the compared time (equal to <tt>otherBegin</tt> for instants)
+     *
+     * @return the upper bound or <tt>null</tt> if the begin position is not bounded
+     */
+    protected Date getBeginUpperBound(Date otherBegin, Date otherEnd) {
+        return null;
+    }
+
     /**
      * Creates a <tt>Criterion</tt> for the specified property. Used to easily swap &lt; and &le;.
      *
@@ -305,6 +365,11 @@ public abstract class TemporalRestriction {
         protected Criterion filterInstantWithInstant(String selfPosition, Date otherPosition) {
             return lower(selfPosition, otherPosition);
         }
+
+        @Override
+        protected Date getBeginUpperBound(Date otherBegin, Date otherEnd) {
+            return otherBegin;
+        }
     };
 
     /**
@@ -342,6 +407,11 @@ public abstract class TemporalRestriction {
         protected Criterion filterInstantWithInstant(String selfPosition, Date otherPosition) {
             return greater(selfPosition, otherPosition);
         }
+
+        @Override
+        protected Date getBeginLowerBound(Date otherBegin, Date otherEnd) {
+            return otherEnd;
+        }
     };
 
     /**
@@ -370,6 +440,16 @@ public abstract class TemporalRestriction {
         protected Criterion filterInstantWithPeriod(String selfPosition, Date otherBegin, Date otherEnd) {
             return Restrictions.eq(selfPosition, otherBegin);
         }
+
+        @Override
+        protected Date getBeginLowerBound(Date otherBegin, Date otherEnd) {
+            return otherBegin;
+        }
+
+        @Override
+        protected Date getBeginUpperBound(Date otherBegin, Date otherEnd) {
+            return otherBegin;
+        }
     };
 
     /**
@@ -398,6 +478,16 @@ public abstract class TemporalRestriction {
         protected Criterion filterInstantWithPeriod(String selfPosition, Date otherBegin, Date otherEnd) {
             return Restrictions.eq(selfPosition, otherEnd);
         }
+
+        @Override
+        protected Date getBeginLowerBound(Date otherBegin, Date otherEnd) {
+            return otherBegin;
+        }
+
+        @Override
+        protected Date getBeginUpperBound(Date otherBegin, Date otherEnd) {
+            return otherEnd;
+        }
     };
 
     /**
@@ -426,6 +516,11 @@ public abstract class TemporalRestriction {
         protected Criterion filterPeriodWithInstant(String selfBegin, String selfEnd, Date otherPosition) {
             return Restrictions.eq(selfEnd, otherPosition);
         }
+
+        @Override
+        protected Date getBeginUpperBound(Date otherBegin, Date otherEnd) {
+            return otherBegin;
+        }
     };
 
     /**
@@ -454,6 +549,16 @@ public abstract class TemporalRestriction {
         protected Criterion filterPeriodWithInstant(String selfBegin, String selfEnd, Date otherPosition) {
             return Restrictions.eq(selfBegin, otherPosition);
         }
+
+        @Override
+        protected Date getBeginLowerBound(Date otherBegin, Date otherEnd) {
+            return otherBegin;
+        }
+
+        @Override
+        protected Date getBeginUpperBound(Date otherBegin, Date otherEnd) {
+            return otherBegin;
+        }
     };
 
     /**
@@ -483,6 +588,16 @@ public abstract class TemporalRestriction {
             return Restrictions.and(greater(selfPosition, otherBegin),
                                     lower(selfPosition, otherEnd));
         }
+
+        @Override
+        protected Date getBeginLowerBound(Date otherBegin, Date otherEnd) {
+            return otherBegin;
+        }
+
+        @Override
+        protected Date getBeginUpperBound(Date otherBegin, Date otherEnd) {
+            return otherEnd;
+        }
     };
 
     /**
@@ -511,6 +626,16 @@ public abstract class TemporalRestriction {
         protected Criterion filterInstantWithInstant(String selfPosition, Date otherPosition) {
             return Restrictions.eq(selfPosition, otherPosition);
         }
+
+        @Override
+        protected Date getBeginLowerBound(Date otherBegin, Date otherEnd) {
+            return otherBegin;
+        }
+
+        @Override
+        protected Date getBeginUpperBound(Date otherBegin, Date otherEnd) {
+            return otherBegin;
+        }
     };
 
     /**
@@ -540,6 +665,11 @@ public abstract class TemporalRestriction {
             return Restrictions.and(lower(selfBegin, otherPosition),
                                     greater(selfEnd, otherPosition));
         }
+
+        @Override
+        protected Date getBeginUpperBound(Date otherBegin, Date otherEnd) {
+            return otherBegin;
+        }
     };
 
     /**
@@ -564,6 +694,11 @@ public abstract class TemporalRestriction {
                                     greater(selfEnd, otherBegin),
                                     lower(selfEnd, otherEnd));
         }
+
+        @Override
+        protected Date getBeginUpperBound(Date otherBegin, Date otherEnd) {
+            return otherBegin;
+        }
     };
 
     /**
@@ -586,6 +721,11 @@ public abstract class TemporalRestriction {
         protected Criterion filterPeriodWithPeriod(String selfBegin, String selfEnd, Date otherBegin, Date otherEnd) {
             return Restrictions.eq(selfEnd, otherBegin);
         }
+
+        @Override
+        protected Date getBeginUpperBound(Date otherBegin, Date otherEnd) {
+            return otherBegin;
+        }
     };
 
     /**
@@ -608,6 +748,16 @@ public abstract class TemporalRestriction {
         protected Criterion filterPeriodWithPeriod(String selfBegin, String selfEnd, Date otherBegin, Date otherEnd) {
             return Restrictions.eq(selfBegin, otherEnd);
         }
+
+        @Override
+        protected Date getBeginLowerBound(Date otherBegin, Date otherEnd) {
+            return otherEnd;
+        }
+
+        @Override
+        protected Date getBeginUpperBound(Date otherBegin, Date otherEnd) {
+            return otherEnd;
+        }
     };
 
     /**
@@ -632,5 +782,15 @@ public abstract class TemporalRestriction {
                                     lower(selfBegin, otherEnd),
                                     greater(selfEnd, otherEnd));
         }
+
+        @Override
+        protected Date getBeginLowerBound(Date otherBegin, Date otherEnd) {
+            return otherBegin;
+        }
+
+        @Override
+        protected Date getBeginUpperBound(Date otherBegin, Date otherEnd) {
+            return otherEnd;
+        }
     };
 }
\ No newline at end of file
@@ -0,0 +1,257 @@
+/**
+ * Copyright (C) 2013
+ * by 52 North Initiative for Geospatial Open Source Software GmbH
+ *
+ * Contact: Andreas Wytzisk
+ * 52 North Initiative for Geospatial Open Source Software GmbH
+ * Martin-Luther-King-Weg 24
+ * 48155 Muenster, Germany
+ * info@52north.org
+ *
+ * This program is free software; you can redistribute and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the
+ * Free Software Foundation.
+ *
+ * This program is distributed WITHOUT ANY WARRANTY; even without the implied
+ * WARRANTY OF MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program (see gnu-gpl v2.txt). If not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA or
+ * visit the Free Software Foundation web page, http://www.fsf.org.
+ */
+package org.n52.sos.ds.hibernate;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.io.FileUtils;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.criterion.Order;
+import org.hibernate.criterion.Projections;
+import org.hibernate.mapping.Column;
+import org.hibernate.mapping.PersistentClass;
+import org.hibernate.mapping.Table;
+import org.joda.time.DateTime;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.n52.sos.ds.hibernate.entities.BooleanObservation;
+import org.n52.sos.ds.hibernate.entities.CategoryObservation;
+import org.n52.sos.ds.hibernate.entities.CountObservation;
+import org.n52.sos.ds.hibernate.entities.HibernateRelations.HasValue;
+import org.n52.sos.ds.hibernate.entities.NumericObservation;
+import org.n52.sos.ds.hibernate.entities.Observation;
+import org.n52.sos.ds.hibernate.entities.TextObservation;
+import org.n52.sos.ds.hibernate.util.HibernateObservationBuilder;
+
+/**
+ * Tests the single table observation mapping and checks that
+ * misc/db/migrate_to_single_table_values.sql migrates the tables of the joined
+ * mapping to the ones of the single table mapping. The script itself is
+ * PostgreSQL specific, so it is compared with the mappings instead of being
+ * executed.
+ * 
+ * @since 4.0.0
+ */
+public class SingleTableObservationMappingTest {
+    private static final File MIGRATION_SCRIPT = new File("../../misc/db/migrate_to_single_table_values.sql");
+
+    private static final Pattern ADD_COLUMN = Pattern.compile("ALTER TABLE observation ADD COLUMN (\\w+) ");
+
+    private static final Pattern COPY_VALUES = Pattern
+            .compile("UPDATE observation o SET valueType = '(\\w+)', (\\w+) = v\\.value FROM (\\w+) v ");
+
+    private static final Pattern DEFAULT_VALUE_TYPE = Pattern
+            .compile("UPDATE observation SET valueType = '(\\w+)' WHERE valueType IS NULL;");
+
+    private static final Pattern DROP_TABLES = Pattern.compile("DROP TABLE ([\\w, ]+);");
+
+    private static Configuration joined;
+
+    private static Configuration single;
+
+    private static String script;
+
+    @BeforeClass
+    public static void init() throws IOException {
+        joined = createConfiguration(H2Configuration.JOINED_OBSERVATION_MAPPING);
+        single = createConfiguration(H2Configuration.SINGLE_TABLE_OBSERVATION_MAPPING);
+        script = FileUtils.readFileToString(MIGRATION_SCRIPT, "UTF-8");
+    }
+
+    @Test
+    public void singleTableMappingShouldNotHaveValueTables() {
+        Set<String> tables = new HashSet<String>();
+        Iterator<Table> iterator = single.getTableMappings();
+        while (iterator.hasNext()) {
+            tables.add(iterator.next().getName().toLowerCase());
+        }
+        for (PersistentClass valueClass : getValueClasses(joined)) {
+            assertThat(tables, not(hasItem(valueClass.getTable().getName().toLowerCase())));
+        }
+    }
+
+    @Test
+    public void migrationShouldAddTheColumnsOfTheSingleTableMapping() {
+        Set<String> added = new HashSet<String>();
+        Matcher matcher = ADD_COLUMN.matcher(script);
+        while (matcher.find()) {
+            added.add(matcher.group(1).toLowerCase());
+        }
+        Set<String> expected = getObservationColumns(single);
+        expected.removeAll(getObservationColumns(joined));
+        assertThat(added, is(expected));
+    }
+
+    @Test
+    public void migrationShouldCopyTheValuesOfEachValueTable() {
+        Map<String, String> copies = new HashMap<String, String>();
+        Matcher matcher = COPY_VALUES.matcher(script);
+        while (matcher.find()) {
+            // value table -> discriminator value and value column
+            copies.put(matcher.group(3).toLowerCase(), matcher.group(1) + " " + matcher.group(2).toLowerCase());
+        }
+        Map<String, String> expected = new HashMap<String, String>();
+        for (PersistentClass valueClass : getValueClasses(joined)) {
+            PersistentClass singleTableClass = single.getClassMapping(valueClass.getEntityName());
+            expected.put(valueClass.getTable().getName().toLowerCase(), singleTableClass.getDiscriminatorValue()
+                    + " " + getValueColumn(singleTableClass));
+        }
+        assertThat(copies, is(expected));
+    }
+
+    @Test
+    public void migrationShouldSetTheDiscriminatorOfObservationsWithoutValue() {
+        Matcher matcher = DEFAULT_VALUE_TYPE.matcher(script);
+        assertThat(matcher.find(), is(true));
+        assertThat(matcher.group(1), is(single.getClassMapping(Observation.class.getName()).getDiscriminatorValue()));
+    }
+
+    @Test
+    public void migrationShouldDropTheValueTables() {
+        Matcher matcher = DROP_TABLES.matcher(script);
+        assertThat(matcher.find(), is(true));
+        Set<String> dropped = new HashSet<String>();
+        for (String table : matcher.group(1).split(",")) {
+            dropped.add(table.trim().toLowerCase());
+        }
+        Set<String> expected = new HashSet<String>();
+        for (PersistentClass valueClass : getValueClasses(joined)) {
+            expected.add(valueClass.getTable().getName().toLowerCase());
+        }
+        assertThat(dropped, is(expected));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void singleTableMappingShouldStoreEachValueClass() {
+        SessionFactory sessionFactory =
+                H2Configuration.createSessionFactory("single", H2Configuration.SINGLE_TABLE_OBSERVATION_MAPPING);
+        try {
+            Session session = sessionFactory.openSession();
+            try {
+                session.beginTransaction();
+                HibernateObservationBuilder b = new HibernateObservationBuilder(session);
+                DateTime time = new DateTime();
+                NumericObservation numeric = new NumericObservation();
+                numeric.setValue(BigDecimal.valueOf(1.5));
+                b.createObservation(numeric, "numeric", time);
+                BooleanObservation bool = new BooleanObservation();
+                bool.setValue(true);
+                b.createObservation(bool, "boolean", time.plusHours(1));
+                CategoryObservation category = new CategoryObservation();
+                category.setValue("category");
+                b.createObservation(category, "category", time.plusHours(2));
+                CountObservation count = new CountObservation();
+                count.setValue(5);
+                b.createObservation(count, "count", time.plusHours(3));
+                TextObservation text = new TextObservation();
+                text.setValue("text");
+                b.createObservation(text, "text", time.plusHours(4));
+                session.getTransaction().commit();
+                session.clear();
+
+                List<Observation> observations =
+                        session.createCriteria(Observation.class).addOrder(Order.asc(Observation.PHENOMENON_TIME_START))
+                                .list();
+                assertThat(observations.size(), is(5));
+                assertThat(observations.get(0), is(instanceOf(NumericObservation.class)));
+                assertThat(((NumericObservation) observations.get(0)).getValue().compareTo(BigDecimal.valueOf(1.5)),
+                        is(0));
+                assertThat(observations.get(1), is(instanceOf(BooleanObservation.class)));
+                assertThat(((BooleanObservation) observations.get(1)).getValue(), is(true));
+                assertThat(observations.get(2), is(instanceOf(CategoryObservation.class)));
+                assertThat(((CategoryObservation) observations.get(2)).getValue(), is("category"));
+                assertThat(observations.get(3), is(instanceOf(CountObservation.class)));
+                assertThat(((CountObservation) observations.get(3)).getValue(), is(5));
+                assertThat(observations.get(4), is(instanceOf(TextObservation.class)));
+                assertThat(((TextObservation) observations.get(4)).getValue(), is("text"));
+
+                assertThat(session.createCriteria(CountObservation.class)
+                        .setProjection(Projections.property(HasValue.VALUE)).list(), contains((Object) 5));
+            } finally {
+                session.close();
+            }
+        } finally {
+            sessionFactory.close();
+        }
+    }
+
+    private static Configuration createConfiguration(String observationMapping) {
+        Configuration configuration = new Configuration().configure("/sos-hibernate.cfg.xml");
+        for (String resource : H2Configuration.getResources(observationMapping)) {
+            configuration.addResource(resource);
+        }
+        configuration.buildMappings();
+        return configuration;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Set<PersistentClass> getValueClasses(Configuration configuration) {
+        Set<PersistentClass> valueClasses = new HashSet<PersistentClass>();
+        Iterator<PersistentClass> iterator = configuration.getClassMappings();
+        while (iterator.hasNext()) {
+            PersistentClass persistentClass = iterator.next();
+            if (persistentClass.getSuperclass() != null
+                    && persistentClass.getRootClass().getEntityName().equals(Observation.class.getName())) {
+                valueClasses.add(persistentClass);
+            }
+        }
+        return valueClasses;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Set<String> getObservationColumns(Configuration configuration) {
+        Set<String> columns = new HashSet<String>();
+        Iterator<Column> iterator =
+                configuration.getClassMapping(Observation.class.getName()).getTable().getColumnIterator();
+        while (iterator.hasNext()) {
+            columns.add(iterator.next().getName().toLowerCase());
+        }
+        return columns;
+    }
+
+    private static String getValueColumn(PersistentClass persistentClass) {
+        return ((Column) persistentClass.getProperty(HasValue.VALUE).getColumnIterator().next()).getName()
+                .toLowerCase();
+    }
+}
@@ -0,0 +1,206 @@
+/**
+ * Copyright (C) 2013
+ * by 52 North Initiative for Geospatial Open Source Software GmbH
+ *
+ * Contact: Andreas Wytzisk
+ * 52 North Initiative for Geospatial Open Source Software GmbH
+ * Martin-Luther-King-Weg 24
+ * 48155 Muenster, Germany
+ * info@52north.org
+ *
+ * This program is free software; you can redistribute and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the
+ * Free Software Foundation.
+ *
+ * This program is distributed WITHOUT ANY WARRANTY; even without the implied
+ * WARRANTY OF MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program (see gnu-gpl v2.txt). If not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA or
+ * visit the Free Software Foundation web page, http://www.fsf.org.
+ */
+package org.n52.sos.ds.hibernate.util;
+
+import java.util.Collections;
+
+import org.hibernate.HibernateException;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.joda.time.DateTime;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.n52.sos.ds.hibernate.HibernateTestCase;
+import org.n52.sos.ds.hibernate.entities.Observation;
+import org.n52.sos.ogc.ows.OwsExceptionReport;
+import org.n52.sos.ogc.sos.SosConstants.IndeterminateTime;
+
+/**
+ * @since 4.0.0
+ */
+public class FirstLatestObservationIndexTest extends HibernateTestCase {
+
+    private final FirstLatestObservationIndex index = FirstLatestObservationIndex.getInstance();
+
+    private final DateTime begin = new DateTime();
+
+    private Observation first;
+
+    private Observation latest;
+
+    @Before
+    public void fillObservations() {
+        index.invalidate();
+        index.setMaxIdCheckInterval(0);
+        Session session = getSession();
+        Transaction transaction = null;
+        try {
+            transaction = session.beginTransaction();
+            HibernateObservationBuilder b = new HibernateObservationBuilder(session);
+            latest = b.createObservation("2", begin.plusHours(2));
+            first = b.createObservation("0", begin);
+            b.createObservation("1", begin.plusHours(1));
+            transaction.commit();
+        } catch (HibernateException he) {
+            if (transaction != null) {
+                transaction.rollback();
+            }
+            throw he;
+        } finally {
+            returnSession(session);
+        }
+    }
+
+    @After
+    public void clearObservations() throws OwsExceptionReport {
+        Session session = null;
+        Transaction transaction = null;
+        try {
+            session = getSession();
+            transaction = session.beginTransaction();
+            ScrollableIterable<Observation> i = ScrollableIterable.fromCriteria(session
+                    .createCriteria(Observation.class));
+            for (Observation o : i) {
+                session.delete(o);
+            }
+            i.close();
+            session.flush();
+            transaction.commit();
+        } catch (HibernateException he) {
+            if (transaction != null) {
+                transaction.rollback();
+            }
+            throw he;
+        } finally {
+            returnSession(session);
+            index.invalidate();
+        }
+    }
+
+    @Test
+    public void shouldFindFirstAndLatestObservation() {
+        Session session = getSession();
+        try {
+            assertThat(getObservationId(IndeterminateTime.first, session), is(first.getObservationId()));
+            assertThat(getObservationId(IndeterminateTime.latest, session), is(latest.getObservationId()));
+        } finally {
+            returnSession(session);
+        }
+    }
+
+    @Test
+    public void shouldNotFindObservationOfUnknownProcedure() {
+        Session session = getSession();
+        try {
+            assertThat(index.getObservationId(IndeterminateTime.latest, Collections.singleton("unknown"), null, null,
+                    null, session), is(nullValue()));
+        } finally {
+            returnSession(session);
+        }
+    }
+
+    @Test
+    public void shouldAddInsertedObservationsOnUpdate() {
+        Session session = getSession();
+        Transaction transaction = null;
+        try {
+            assertThat(getObservationId(IndeterminateTime.latest, session), is(latest.getObservationId()));
+            transaction = session.beginTransaction();
+            Observation inserted = new HibernateObservationBuilder(session).createObservation("5", begin.plusHours(5));
+            transaction.commit();
+            index.update(session);
+            assertThat(getObservationId(IndeterminateTime.latest, session), is(inserted.getObservationId()));
+            assertThat(getObservationId(IndeterminateTime.first, session), is(first.getObservationId()));
+        } catch (HibernateException he) {
+            if (transaction != null) {
+                transaction.rollback();
+            }
+            throw he;
+        } finally {
+            returnSession(session);
+        }
+    }
+
+    @Test
+    public void shouldFindObservationOfConstellation() {
+        Session session = getSession();
+        try {
+            assertThat(index.getObservationId(IndeterminateTime.first, Collections.singleton("Procedure"),
+                    Collections.singleton(HibernateObservationBuilder.OBSERVABLE_PROPERTY), null,
+                    Collections.singleton(HibernateObservationBuilder.OFFERING_2), session),
+                    is(first.getObservationId()));
+            assertThat(index.getObservationId(IndeterminateTime.first, Collections.singleton("Procedure"),
+                    Collections.singleton(HibernateObservationBuilder.OBSERVABLE_PROPERTY), null,
+                    Collections.singleton("unknown"), session), is(nullValue()));
+        } finally {
+            returnSession(session);
+        }
+    }
+
+    @Test
+    public void shouldAddObservationsInsertedByOthersOnLookup() {
+        Session session = getSession();
+        Transaction transaction = null;
+        try {
+            assertThat(getObservationId(IndeterminateTime.latest, session), is(latest.getObservationId()));
+            transaction = session.beginTransaction();
+            Observation inserted = new HibernateObservationBuilder(session).createObservation("5", begin.plusHours(5));
+            transaction.commit();
+            assertThat(getObservationId(IndeterminateTime.latest, session), is(inserted.getObservationId()));
+        } catch (HibernateException he) {
+            if (transaction != null) {
+                transaction.rollback();
+            }
+            throw he;
+        } finally {
+            returnSession(session);
+        }
+    }
+
+    @Test
+    public void shouldNotCheckForObservationsInsertedByOthersWithinInterval() {
+        Session session = getSession();
+        Transaction transaction = null;
+        try {
+            index.setMaxIdCheckInterval(Long.MAX_VALUE);
+            assertThat(getObservationId(IndeterminateTime.latest, session), is(latest.getObservationId()));
+            transaction = session.beginTransaction();
+            new HibernateObservationBuilder(session).createObservation("5", begin.plusHours(5));
+            transaction.commit();
+            assertThat(getObservationId(IndeterminateTime.latest, session), is(latest.getObservationId()));
+        } catch (HibernateException he) {
+            if (transaction != null) {
+                transaction.rollback();
+            }
+            throw he;
+        } finally {
+            returnSession(session);
+        }
+    }
+
+    private Long getObservationId(IndeterminateTime indetTime, Session session) {
+        return index.getObservationId(indetTime, null, null, null, null, session);
+    }
+}
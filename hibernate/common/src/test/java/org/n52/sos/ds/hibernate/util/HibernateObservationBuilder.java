@@ -35,6 +35,7 @@ import org.n52.sos.ds.hibernate.entities.FeatureOfInterest;
 import org.n52.sos.ds.hibernate.entities.FeatureOfInterestType;
 import org.n52.sos.ds.hibernate.entities.ObservableProperty;
 import org.n52.sos.ds.hibernate.entities.Observation;
+import org.n52.sos.ds.hibernate.entities.ObservationConstellation;
 import org.n52.sos.ds.hibernate.entities.ObservationType;
 import org.n52.sos.ds.hibernate.entities.Offering;
 import org.n52.sos.ds.hibernate.entities.Procedure;
@@ -59,6 +60,7 @@ public class HibernateObservationBuilder {
     public static final String PROCEDURE_DESCRIPTION_FORMAT = "ProcedureDescriptionFormat";
     public static final String FEATURE_OF_INTEREST_TYPE = "FeatureOfInterestType";
     public static final String OBSERVATION_TYPE = "ObservationType";
+    public static final String PROCEDURE = "Procedure";
     private final Session session;
 
     public HibernateObservationBuilder(Session session) {
@@ -68,6 +70,17 @@ public class HibernateObservationBuilder {
     public Observation createObservation(String id, Date phenomenonTimeStart, Date phenomenonTimeEnd, Date resultTime,
                                          Date validTimeStart, Date validTimeEnd) {
         BooleanObservation observation = new BooleanObservation();
+        observation.setValue(true);
+        return createObservation(observation, id, phenomenonTimeStart, phenomenonTimeEnd, resultTime, validTimeStart,
+                                 validTimeEnd);
+    }
+
+    /**
+     * Save an observation of any value class, the value has to be set by the caller.
+     */
+    public <T extends Observation> T createObservation(T observation, String id, Date phenomenonTimeStart,
+                                                       Date phenomenonTimeEnd, Date resultTime, Date validTimeStart,
+                                                       Date validTimeEnd) {
         observation.setDeleted(false);
         observation.setFeatureOfInterest(getFeatureOfInterest());
         observation.setIdentifier(id);
@@ -81,7 +94,6 @@ public class HibernateObservationBuilder {
         observation.setOfferings(CollectionHelper.set(getOffering1(), getOffering2()));
         observation.setUnit(getUnit());
         observation.setCodespace(getCodespace());
-        observation.setValue(true);
         session.save(observation);
         session.flush();
         return observation;
@@ -128,6 +140,24 @@ public class HibernateObservationBuilder {
         return createObservation(id.name(), time);
     }
 
+    public <T extends Observation> T createObservation(T observation, String id, DateTime time) {
+        Date d = time != null ? time.toDate() : null;
+        return createObservation(observation, id, d, d, d, d, d);
+    }
+
+    public ObservationConstellation createObservationConstellation() {
+        ObservationConstellation observationConstellation = new ObservationConstellation();
+        observationConstellation.setProcedure(getProcedure());
+        observationConstellation.setObservableProperty(getObservableProperty());
+        observationConstellation.setOffering(getOffering1());
+        observationConstellation.setObservationType(getObservationType());
+        observationConstellation.setDeleted(false);
+        observationConstellation.setHiddenChild(false);
+        session.save(observationConstellation);
+        session.flush();
+        return observationConstellation;
+    }
+
     protected FeatureOfInterest getFeatureOfInterest() {
         FeatureOfInterest featureOfInterest = (FeatureOfInterest) session
                 .createCriteria(FeatureOfInterest.class)
@@ -233,12 +263,12 @@ public class HibernateObservationBuilder {
     protected Procedure getProcedure() {
         Procedure procedure = (Procedure) session
                 .createCriteria(Procedure.class)
-                .add(Restrictions.eq(Procedure.IDENTIFIER, "Procedure"))
+                .add(Restrictions.eq(Procedure.IDENTIFIER, PROCEDURE))
                 .uniqueResult();
         if (procedure == null) {
             TProcedure tProcedure = new TProcedure();
             tProcedure.setDeleted(false);
-            tProcedure.setIdentifier("Procedure");
+            tProcedure.setIdentifier(PROCEDURE);
             tProcedure.setGeom(null);
             tProcedure.setProcedureDescriptionFormat(getProcedureDescriptionFormat());
             tProcedure.setChilds(null);
@@ -25,17 +25,27 @@ package org.n52.sos.ds.hibernate.util;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Date;
 import java.util.List;
 
 import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
 import org.junit.Ignore;
 import org.junit.Test;
 import org.n52.sos.ds.ConnectionProviderException;
 import org.n52.sos.ds.hibernate.HibernateTestCase;
+import org.n52.sos.ds.hibernate.entities.BlobObservation;
+import org.n52.sos.ds.hibernate.entities.BooleanObservation;
+import org.n52.sos.ds.hibernate.entities.CategoryObservation;
 import org.n52.sos.ds.hibernate.entities.Codespace;
+import org.n52.sos.ds.hibernate.entities.CountObservation;
 import org.n52.sos.ds.hibernate.entities.FeatureOfInterest;
 import org.n52.sos.ds.hibernate.entities.FeatureOfInterestType;
+import org.n52.sos.ds.hibernate.entities.GeometryObservation;
 import org.n52.sos.ds.hibernate.entities.NumericObservation;
 import org.n52.sos.ds.hibernate.entities.ObservableProperty;
 import org.n52.sos.ds.hibernate.entities.Observation;
@@ -44,14 +54,31 @@ import org.n52.sos.ds.hibernate.entities.ObservationType;
 import org.n52.sos.ds.hibernate.entities.Offering;
 import org.n52.sos.ds.hibernate.entities.Procedure;
 import org.n52.sos.ds.hibernate.entities.ProcedureDescriptionFormat;
+import org.n52.sos.ds.hibernate.entities.TextObservation;
+import org.n52.sos.ogc.gml.time.TimeInstant;
+import org.n52.sos.ogc.gml.time.TimePeriod;
 import org.n52.sos.ogc.om.OMConstants;
+import org.n52.sos.ogc.om.OmObservableProperty;
 import org.n52.sos.ogc.om.OmObservation;
+import org.n52.sos.ogc.om.values.BooleanValue;
+import org.n52.sos.ogc.om.values.CategoryValue;
+import org.n52.sos.ogc.om.values.CountValue;
+import org.n52.sos.ogc.om.values.GeometryValue;
+import org.n52.sos.ogc.om.values.QuantityValue;
+import org.n52.sos.ogc.om.values.TextValue;
+import org.n52.sos.ogc.om.values.UnknownValue;
+import org.n52.sos.ogc.om.values.Value;
 import org.n52.sos.ogc.ows.OwsExceptionReport;
 import org.n52.sos.ogc.sos.Sos2Constants;
+import org.n52.sos.ogc.sos.SosConstants;
 import org.n52.sos.ogc.swe.SweDataArray;
 import org.n52.sos.request.AbstractServiceRequest;
 import org.n52.sos.request.GetObservationByIdRequest;
 
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+
 /**
  * The class
  * <code>HibernateObservationUtilitiesTest</code> contains tests for the class {@link
@@ -72,6 +99,8 @@ public class HibernateObservationUtilitiesTest extends HibernateTestCase {
     public static final String FEATURE_OF_INTEREST_TYPE = "junit_feature_of_interest_type";
     public static final String OFFERING = "junit_offering";
     public static final String CODESPACE = "junit_codespace";
+    private static final String UNIT = "junit_unit";
+    private static final DateTime TIME = new DateTime(2013, 1, 1, 0, 0, DateTimeZone.UTC);
 
     @Test
     public void returnEmptyCollectionIfCalledWithoutAnyParameters() throws OwsExceptionReport {
@@ -81,7 +110,181 @@ public class HibernateObservationUtilitiesTest extends HibernateTestCase {
         assertThat("elements in list", resultList.size(), is(0));
     }
 
-    
+    @Test
+    public void returnEmptyCollectionIfCalledWithoutObservationRows() throws OwsExceptionReport {
+        List<OmObservation> resultList = HibernateObservationUtilities
+                .createSosObservationsFromObservationRows(Collections.<ObservationRow> emptyList(), null, null, null);
+        assertThat("result is null", resultList, is(not(nullValue())));
+        assertThat("elements in list", resultList.size(), is(0));
+    }
+
+    @Test
+    public void createValueOfEachObservationClassFromObservationRows() throws OwsExceptionReport {
+        Geometry point = new GeometryFactory().createPoint(new Coordinate(52.0, 7.0));
+        byte[] blob = new byte[] { 1, 2, 3 };
+        List<OmObservation> observations = createObservationsFromRows(
+                row(NumericObservation.class, 1, BigDecimal.valueOf(1.5)),
+                row(BooleanObservation.class, 2, Boolean.TRUE),
+                row(CategoryObservation.class, 3, "category"),
+                row(CountObservation.class, 4, Integer.valueOf(5)),
+                row(TextObservation.class, 5, "text"),
+                row(GeometryObservation.class, 6, point),
+                row(BlobObservation.class, 7, blob));
+
+        assertThat(observations.size(), is(7));
+        assertValue(observations.get(0), QuantityValue.class, BigDecimal.valueOf(1.5));
+        assertValue(observations.get(1), BooleanValue.class, Boolean.TRUE);
+        assertValue(observations.get(2), CategoryValue.class, "category");
+        assertValue(observations.get(3), CountValue.class, Integer.valueOf(5));
+        assertValue(observations.get(4), TextValue.class, "text");
+        assertValue(observations.get(5), GeometryValue.class, point);
+        assertValue(observations.get(6), UnknownValue.class, blob);
+    }
+
+    @Test
+    public void skipObservationRowsOfUnsupportedObservationClasses() throws OwsExceptionReport {
+        List<OmObservation> observations = createObservationsFromRows(row(Observation.class, 1, null),
+                row(NumericObservation.class, 2, BigDecimal.ONE));
+        assertThat(observations.size(), is(1));
+        assertThat(observations.get(0).getObservationID(), is("2"));
+    }
+
+    @Test
+    public void setIdentifierCodespaceAndTimesFromObservationRows() throws OwsExceptionReport {
+        Date start = TIME.toDate();
+        Date end = TIME.plusHours(1).toDate();
+        Date resultTime = TIME.plusHours(2).toDate();
+        List<OmObservation> observations = createObservationsFromRows(
+                row(NumericObservation.class, 1, "identifier", CODESPACE, start, end, resultTime, UNIT, BigDecimal.ONE),
+                row(NumericObservation.class, 2, "identifier2", null, start, null, resultTime, UNIT, BigDecimal.ONE),
+                row(NumericObservation.class, 3, SosConstants.GENERATED_IDENTIFIER_PREFIX + "3", CODESPACE, start,
+                        start, resultTime, UNIT, BigDecimal.ONE));
+
+        OmObservation period = observations.get(0);
+        assertThat(period.getObservationID(), is("1"));
+        assertThat(period.getIdentifier().getValue(), is("identifier"));
+        assertThat(period.getIdentifier().getCodeSpace(), is(CODESPACE));
+        assertThat(period.getPhenomenonTime(), is(instanceOf(TimePeriod.class)));
+        assertThat(((TimePeriod) period.getPhenomenonTime()).getStart(), is(TIME));
+        assertThat(((TimePeriod) period.getPhenomenonTime()).getEnd(), is(TIME.plusHours(1)));
+        assertThat(period.getResultTime().getValue(), is(TIME.plusHours(2)));
+
+        OmObservation instant = observations.get(1);
+        assertThat(instant.getIdentifier().getValue(), is("identifier2"));
+        assertThat(instant.getIdentifier().isSetCodeSpace(), is(false));
+        assertThat(instant.getPhenomenonTime(), is(instanceOf(TimeInstant.class)));
+        assertThat(((TimeInstant) instant.getPhenomenonTime()).getValue(), is(TIME));
+
+        assertThat("generated identifier", observations.get(2).isSetIdentifier(), is(false));
+        assertThat(observations.get(2).getPhenomenonTime(), is(instanceOf(TimeInstant.class)));
+    }
+
+    @Test
+    public void setUnitOfValueAndObservablePropertyFromObservationRows() throws OwsExceptionReport {
+        List<OmObservation> observations = createObservationsFromRows(
+                row(NumericObservation.class, 1, null, null, TIME.toDate(), null, TIME.toDate(), null, BigDecimal.ONE),
+                row(NumericObservation.class, 2, BigDecimal.ONE));
+
+        assertThat(observations.get(0).getValue().getValue().getUnit(), is(nullValue()));
+        assertThat(observations.get(1).getValue().getValue().getUnit(), is(UNIT));
+        // the first unit of an observable property is kept
+        OmObservableProperty observableProperty = (OmObservableProperty) observations.get(1)
+                .getObservationConstellation().getObservableProperty();
+        assertThat(observableProperty.getUnit(), is(UNIT));
+        assertThat(observableProperty.getDescription(), is("description"));
+    }
+
+    @Test
+    public void shareObservationConstellationsOfObservationRows() throws OwsExceptionReport {
+        List<OmObservation> observations = createObservationsFromRows(
+                row(NumericObservation.class, 1, BigDecimal.ONE), row(NumericObservation.class, 2, BigDecimal.TEN),
+                row(NumericObservation.class, 3, "identifier", CODESPACE, TIME.toDate(), null, TIME.toDate(), UNIT,
+                        BigDecimal.ONE, "otherProcedure"));
+
+        assertThat(observations.get(1).getObservationConstellation(),
+                is(sameInstance(observations.get(0).getObservationConstellation())));
+        assertThat(observations.get(2).getObservationConstellation(),
+                is(not(sameInstance(observations.get(0).getObservationConstellation()))));
+        assertThat(observations.get(0).getObservationConstellation().getProcedure().getDescriptionFormat(),
+                is(PROCEDURE_DESCRIPTION_FORMAT));
+    }
+
+    @Test
+    public void setObservationTypeOfObservationRowsFromObservationConstellation() throws OwsExceptionReport {
+        Session session = getSession();
+        Transaction transaction = null;
+        try {
+            transaction = session.beginTransaction();
+            new HibernateObservationBuilder(session).createObservationConstellation();
+            List<OmObservation> observations = HibernateObservationUtilities.createSosObservationsFromObservationRows(
+                    Arrays.asList(
+                            row(NumericObservation.class, 1, "identifier", CODESPACE, TIME.toDate(), null,
+                                    TIME.toDate(), UNIT, BigDecimal.ONE, HibernateObservationBuilder.PROCEDURE,
+                                    HibernateObservationBuilder.OBSERVABLE_PROPERTY),
+                            row(NumericObservation.class, 2, BigDecimal.ONE)),
+                    Sos2Constants.SERVICEVERSION, OMConstants.OBS_TYPE_MEASUREMENT, session);
+
+            assertThat("type of the observation constellation", observations.get(0).getObservationConstellation()
+                    .getObservationType(), is(HibernateObservationBuilder.OBSERVATION_TYPE));
+            assertThat("requested result model", observations.get(1).getObservationConstellation()
+                    .getObservationType(), is(OMConstants.OBS_TYPE_MEASUREMENT));
+        } finally {
+            if (transaction != null) {
+                // do not keep the observation constellation for other tests
+                transaction.rollback();
+            }
+            returnSession(session);
+        }
+    }
+
+    private List<OmObservation> createObservationsFromRows(ObservationRow... rows) throws OwsExceptionReport {
+        Session session = getSession();
+        try {
+            return HibernateObservationUtilities.createSosObservationsFromObservationRows(Arrays.asList(rows),
+                    Sos2Constants.SERVICEVERSION, null, session);
+        } finally {
+            returnSession(session);
+        }
+    }
+
+    private void assertValue(OmObservation observation, Class<?> valueClass, Object value) {
+        Value<?> observationValue = observation.getValue().getValue();
+        assertThat(observationValue, is(instanceOf(valueClass)));
+        assertThat(observationValue.getValue(), is(value));
+        assertThat(observationValue.getUnit(), is(UNIT));
+    }
+
+    private ObservationRow row(Class<? extends Observation> observationClass, long id, Object value) {
+        return row(observationClass, id, "identifier" + id, CODESPACE, TIME.toDate(), null, TIME.toDate(), UNIT,
+                value);
+    }
+
+    private ObservationRow row(Class<? extends Observation> observationClass, long id, String identifier,
+            String codespace, Date phenomenonTimeStart, Date phenomenonTimeEnd, Date resultTime, String unit,
+            Object value) {
+        return row(observationClass, id, identifier, codespace, phenomenonTimeStart, phenomenonTimeEnd, resultTime,
+                unit, value, PROCEDURE);
+    }
+
+    private ObservationRow row(Class<? extends Observation> observationClass, long id, String identifier,
+            String codespace, Date phenomenonTimeStart, Date phenomenonTimeEnd, Date resultTime, String unit,
+            Object value, String procedure) {
+        return row(observationClass, id, identifier, codespace, phenomenonTimeStart, phenomenonTimeEnd, resultTime,
+                unit, value, procedure, OBSERVABLE_PROPERTY);
+    }
+
+    /**
+     * @return a row with the values in the order of
+     *         {@link ObservationRow#getProjection()}
+     */
+    private ObservationRow row(Class<? extends Observation> observationClass, long id, String identifier,
+            String codespace, Date phenomenonTimeStart, Date phenomenonTimeEnd, Date resultTime, String unit,
+            Object value, String procedure, String observableProperty) {
+        return new ObservationRow(observationClass, new Object[] { id, identifier, codespace, phenomenonTimeStart,
+                phenomenonTimeEnd, resultTime, procedure, PROCEDURE_DESCRIPTION_FORMAT, observableProperty,
+                "description", FEATURE, unit, value });
+    }
+
     @Test
     @Ignore
     //FIXME this one fails: SWE Array is only returned if a result template is present
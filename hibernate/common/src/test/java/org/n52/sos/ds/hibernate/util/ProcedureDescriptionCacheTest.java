@@ -0,0 +1,77 @@
+/**
+ * Copyright (C) 2013
+ * by 52 North Initiative for Geospatial Open Source Software GmbH
+ *
+ * Contact: Andreas Wytzisk
+ * 52 North Initiative for Geospatial Open Source Software GmbH
+ * Martin-Luther-King-Weg 24
+ * 48155 Muenster, Germany
+ * info@52north.org
+ *
+ * This program is free software; you can redistribute and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the
+ * Free Software Foundation.
+ *
+ * This program is distributed WITHOUT ANY WARRANTY; even without the implied
+ * WARRANTY OF MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program (see gnu-gpl v2.txt). If not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA or
+ * visit the Free Software Foundation web page, http://www.fsf.org.
+ */
+package org.n52.sos.ds.hibernate.util;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+import org.apache.xmlbeans.XmlException;
+import org.apache.xmlbeans.XmlObject;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @since 4.0.0
+ */
+public class ProcedureDescriptionCacheTest {
+
+    private static final String XML = "<description><name>procedure</name></description>";
+
+    private ProcedureDescriptionCache cache;
+
+    @Before
+    public void setUp() {
+        cache = new ProcedureDescriptionCache(2);
+    }
+
+    @Test
+    public void shouldReturnCopiesOfCachedDescriptions() throws XmlException {
+        final XmlObject xml = XmlObject.Factory.parse(XML);
+        cache.put("procedure", XML, xml);
+        final XmlObject first = cache.get("procedure", XML);
+        assertThat(first, is(notNullValue()));
+        assertThat(first, is(not(sameInstance(xml))));
+        assertThat(first.xmlText(), is(xml.xmlText()));
+        first.selectChildren("", "description")[0].selectChildren("", "name")[0].newCursor().removeXml();
+        assertThat(cache.get("procedure", XML).xmlText(), is(xml.xmlText()));
+    }
+
+    @Test
+    public void shouldNotReturnDescriptionsOfOtherSources() throws XmlException {
+        cache.put("procedure", XML, XmlObject.Factory.parse(XML));
+        assertThat(cache.get("procedure", "<description/>"), is(nullValue()));
+        assertThat(cache.get("other", XML), is(nullValue()));
+    }
+
+    @Test
+    public void shouldInvalidateDescriptions() throws XmlException {
+        cache.put("procedure1", XML, XmlObject.Factory.parse(XML));
+        cache.put("procedure2", XML, XmlObject.Factory.parse(XML));
+        cache.invalidate("procedure1");
+        assertThat(cache.get("procedure1", XML), is(nullValue()));
+        assertThat(cache.size(), is(1));
+        cache.invalidate();
+        assertThat(cache.size(), is(0));
+    }
+}
@@ -0,0 +1,128 @@
+/**
+ * Copyright (C) 2013
+ * by 52 North Initiative for Geospatial Open Source Software GmbH
+ *
+ * Contact: Andreas Wytzisk
+ * 52 North Initiative for Geospatial Open Source Software GmbH
+ * Martin-Luther-King-Weg 24
+ * 48155 Muenster, Germany
+ * info@52north.org
+ *
+ * This program is free software; you can redistribute and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the
+ * Free Software Foundation.
+ *
+ * This program is distributed WITHOUT ANY WARRANTY; even without the implied
+ * WARRANTY OF MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program (see gnu-gpl v2.txt). If not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA or
+ * visit the Free Software Foundation web page, http://www.fsf.org.
+ */
+package org.n52.sos.ds.hibernate.util;
+
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.hibernate.Criteria;
+import org.hibernate.criterion.Criterion;
+import org.hibernate.criterion.InExpression;
+import org.junit.Test;
+import org.n52.sos.ds.hibernate.util.QueryHelper.ChunkCriteriaFactory;
+
+public class QueryHelperTest {
+
+    @Test
+    public void shouldCreateSingleInListForFewValues() {
+        Criterion criterion = QueryHelper.getInCriterion("identifier", values(QueryHelper.MAX_IN_LIST_SIZE));
+        assertThat(criterion, is(instanceOf(InExpression.class)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectTooLargeInLists() {
+        QueryHelper.getInCriterion("identifier", values(QueryHelper.MAX_IN_LIST_SIZE + 1));
+    }
+
+    @Test
+    public void shouldRunSeparateStatementsForChunks() {
+        ChunkRecorder recorder = new ChunkRecorder();
+        List<Object> results =
+                QueryHelper.listInChunks(Collections.singletonList(values(2 * QueryHelper.MAX_IN_LIST_SIZE + 1)),
+                        recorder);
+        assertThat(recorder.chunks.size(), is(3));
+        assertThat(recorder.chunks.get(0).get(0).size(), is(QueryHelper.MAX_IN_LIST_SIZE));
+        assertThat(recorder.chunks.get(2).get(0).size(), is(1));
+        assertThat(results.size(), is(3));
+    }
+
+    @Test
+    public void shouldLimitValuesOfAllListsPerStatement() {
+        ChunkRecorder recorder = new ChunkRecorder();
+        List<List<String>> values = Arrays.asList(values(QueryHelper.MAX_IN_LIST_SIZE), null, values(2));
+        assertThat(QueryHelper.isSplit(values), is(true));
+        QueryHelper.listInChunks(values, recorder);
+        assertThat(recorder.chunks.size(), is(2));
+        for (List<Collection<?>> chunks : recorder.chunks) {
+            assertThat(chunks.get(0).size() + chunks.get(2).size() <= QueryHelper.MAX_IN_LIST_SIZE, is(true));
+            assertThat(chunks.get(1), is(nullValue()));
+            assertThat(chunks.get(2).size(), is(2));
+        }
+    }
+
+    @Test
+    public void shouldRunSingleStatementForFewValues() {
+        ChunkRecorder recorder = new ChunkRecorder();
+        List<List<String>> values = Arrays.asList(values(10), null);
+        assertThat(QueryHelper.isSplit(values), is(false));
+        QueryHelper.listInChunks(values, recorder);
+        assertThat(recorder.chunks.size(), is(1));
+    }
+
+    @Test
+    public void shouldNotRunStatementsForEmptyValues() {
+        ChunkRecorder recorder = new ChunkRecorder();
+        assertThat(QueryHelper.listInChunks(Arrays.asList(values(10), values(0)), recorder).isEmpty(), is(true));
+        assertThat(recorder.chunks.isEmpty(), is(true));
+    }
+
+    @Test
+    public void shouldCreateNeverMatchingRestrictionForEmptyValues() {
+        Criterion criterion = QueryHelper.getInCriterion("identifier", Collections.emptyList());
+        assertThat(criterion.toString(), is("1=0"));
+    }
+
+    private List<String> values(int count) {
+        List<String> values = new ArrayList<String>(count);
+        for (int i = 0; i < count; i++) {
+            values.add("feature" + i);
+        }
+        return values;
+    }
+
+    /**
+     * Records the chunks and returns a criteria listing one result per chunk
+     */
+    private static class ChunkRecorder implements ChunkCriteriaFactory {
+        private final List<List<Collection<?>>> chunks = new ArrayList<List<Collection<?>>>();
+
+        @Override
+        public Criteria create(List<Collection<?>> chunks) {
+            this.chunks.add(chunks);
+            Criteria criteria = mock(Criteria.class);
+            when(criteria.list()).thenReturn(Collections.<Object> singletonList(chunks));
+            return criteria;
+        }
+    }
+}
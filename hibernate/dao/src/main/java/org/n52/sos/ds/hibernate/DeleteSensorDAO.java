@@ -35,6 +35,7 @@ import org.n52.sos.ds.hibernate.dao.ValidProcedureTimeDAO;
 import org.n52.sos.ds.hibernate.entities.Observation;
 import org.n52.sos.ds.hibernate.entities.ObservationConstellation;
 import org.n52.sos.ds.hibernate.entities.Procedure;
+import org.n52.sos.ds.hibernate.util.FirstLatestObservationIndex;
 import org.n52.sos.ds.hibernate.util.ScrollableIterable;
 import org.n52.sos.exception.ows.NoApplicableCodeException;
 import org.n52.sos.ogc.ows.OwsExceptionReport;
@@ -62,6 +63,7 @@ public class DeleteSensorDAO extends AbstractDeleteSensorDAO {
             setDeleteSensorFlag(request.getProcedureIdentifier(), true, session);
             new ValidProcedureTimeDAO().setValidProcedureDescriptionEndTime(request.getProcedureIdentifier(), session);
             transaction.commit();
+            FirstLatestObservationIndex.getInstance().invalidate();
             response.setDeletedProcedure(request.getProcedureIdentifier());
         } catch (HibernateException he) {
             if (transaction != null) {
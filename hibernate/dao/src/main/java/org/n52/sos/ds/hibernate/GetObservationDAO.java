@@ -25,19 +25,31 @@ package org.n52.sos.ds.hibernate;
 
 import static org.n52.sos.ds.hibernate.util.HibernateObservationUtilities.createSosObservationFromObservationConstellation;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
 
+import org.hibernate.CacheMode;
 import org.hibernate.Criteria;
 import org.hibernate.HibernateException;
+import org.hibernate.ScrollMode;
 import org.hibernate.Session;
 import org.hibernate.criterion.Criterion;
+import org.hibernate.criterion.DetachedCriteria;
 import org.hibernate.criterion.Order;
+import org.hibernate.criterion.ProjectionList;
+import org.hibernate.criterion.Projections;
 import org.hibernate.criterion.Restrictions;
+import org.hibernate.criterion.Subqueries;
+import org.hibernate.sql.JoinType;
 import org.n52.sos.ds.AbstractGetObservationDAO;
 import org.n52.sos.ds.hibernate.dao.FeatureOfInterestDAO;
 import org.n52.sos.ds.hibernate.dao.ObservationDAO;
@@ -47,19 +59,27 @@ import org.n52.sos.ds.hibernate.entities.Observation;
 import org.n52.sos.ds.hibernate.entities.ObservationConstellation;
 import org.n52.sos.ds.hibernate.entities.Offering;
 import org.n52.sos.ds.hibernate.entities.Procedure;
+import org.n52.sos.ds.hibernate.util.FirstLatestObservationIndex;
+import org.n52.sos.ds.hibernate.util.HibernateObservationStream;
 import org.n52.sos.ds.hibernate.util.HibernateObservationUtilities;
+import org.n52.sos.ds.hibernate.util.ObservationRow;
 import org.n52.sos.ds.hibernate.util.QueryHelper;
+import org.n52.sos.ds.hibernate.util.QueryHelper.ChunkCriteriaFactory;
+import org.n52.sos.ds.hibernate.util.ScrollableIterable;
 import org.n52.sos.ds.hibernate.util.TemporalRestrictions;
 import org.n52.sos.exception.ows.NoApplicableCodeException;
 import org.n52.sos.exception.ows.concrete.MissingObservedPropertyParameterException;
 import org.n52.sos.ogc.filter.TemporalFilter;
+import org.n52.sos.ogc.om.ObservationStream;
 import org.n52.sos.ogc.om.OmObservation;
 import org.n52.sos.ogc.ows.OwsExceptionReport;
 import org.n52.sos.ogc.sos.Sos1Constants;
+import org.n52.sos.ogc.sos.Sos2Constants;
 import org.n52.sos.ogc.sos.SosConstants;
 import org.n52.sos.ogc.sos.SosConstants.IndeterminateTime;
 import org.n52.sos.request.GetObservationRequest;
 import org.n52.sos.response.GetObservationResponse;
+import org.n52.sos.service.ServiceConfiguration;
 import org.n52.sos.util.CollectionHelper;
 import org.n52.sos.util.HTTPConstants.StatusCode;
 import org.slf4j.Logger;
@@ -73,6 +93,22 @@ public class GetObservationDAO extends AbstractGetObservationDAO {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(GetObservationDAO.class);
 
+    private static final String OBSERVATION_ALIAS = "o";
+
+    private static final String OFFERING_ALIAS = "off";
+
+    /**
+     * Indexes of the value lists of
+     * {@link #getRestrictionValues(GetObservationRequest, Set)}
+     */
+    private static final int OFFERING_VALUES = 0;
+
+    private static final int OBSERVABLE_PROPERTY_VALUES = 1;
+
+    private static final int PROCEDURE_VALUES = 2;
+
+    private static final int FEATURE_OF_INTEREST_VALUES = 3;
+
     private final HibernateSessionHolder sessionHolder = new HibernateSessionHolder();
 
     public GetObservationDAO() {
@@ -88,13 +124,7 @@ public class GetObservationDAO extends AbstractGetObservationDAO {
                     && sosRequest.getObservedProperties().isEmpty()) {
                 throw new MissingObservedPropertyParameterException();
             } else {
-                final GetObservationResponse sosResponse = new GetObservationResponse();
-                sosResponse.setService(sosRequest.getService());
-                sosResponse.setVersion(sosRequest.getVersion());
-                sosResponse.setResponseFormat(sosRequest.getResponseFormat());
-                if (sosRequest.isSetResultModel()) {
-                    sosResponse.setResultModel(sosRequest.getResultModel());
-                }
+                final GetObservationResponse sosResponse = createResponse(sosRequest);
                 if (getConfigurator().getProfileHandler().getActiveProfile().isShowMetadataOfEmptyObservations()) {
                     // TODO Hydro-Profile adds result observation metadata to
                     // response
@@ -112,6 +142,145 @@ public class GetObservationDAO extends AbstractGetObservationDAO {
         }
     }
 
+    /**
+     * Streams the observations for SOS 2.0 requests without first/latest
+     * temporal filters if the Hydro profile option to show metadata of empty
+     * observations is disabled. All other requests are processed by
+     * {@link #getObservation(GetObservationRequest)}.
+     * <p/>
+     * The returned stream acquires its session and opens the database cursor
+     * on the first access and returns the session when it is closed, so no
+     * session is held if the stream is never consumed.
+     */
+    @Override
+    public GetObservationResponse getObservationAsStream(final GetObservationRequest sosRequest)
+            throws OwsExceptionReport {
+        if (!isStreamable(sosRequest)) {
+            return getObservation(sosRequest);
+        }
+        final GetObservationResponse sosResponse = createResponse(sosRequest);
+        sosResponse.setObservationStream(new SessionObservationStream(sosRequest));
+        return sosResponse;
+    }
+
+    /**
+     * Open a cursor over the observations of the request
+     */
+    private ObservationStream openObservationStream(final GetObservationRequest sosRequest, final Session session)
+            throws OwsExceptionReport {
+        final Criteria c =
+                createTemporalFilterLessCriteria(session, sosRequest,
+                        getRestrictionValues(sosRequest, getFeatureIdentifierRestriction(sosRequest, session)),
+                        getSpatialFilterCriterion(sosRequest));
+        final Criterion filterCriterion = getTemporalFilterCriterion(sosRequest);
+        if (filterCriterion != null) {
+            c.add(filterCriterion);
+        }
+        // order by id to detect duplicates caused by the offering join
+        c.addOrder(Order.asc(Observation.ID)).setReadOnly(true).setCacheMode(CacheMode.IGNORE)
+                .setFetchSize(ServiceConfiguration.getInstance().getStreamingFetchSize());
+        final ScrollableIterable<Observation> observations =
+                ScrollableIterable.fromResults(c.scroll(ScrollMode.FORWARD_ONLY));
+        return new HibernateObservationStream(observations, sosRequest.getVersion(), sosRequest.getResultModel(),
+                session);
+    }
+
+    /**
+     * {@link ObservationStream} that acquires a session and opens the cursor
+     * on the first access. The session is returned by {@link #close()}, which
+     * is called in any case by the consumer of the stream. A closed stream can
+     * not be read again. Database errors while reading are reported as
+     * {@link OwsExceptionReport}s.
+     */
+    private class SessionObservationStream implements ObservationStream {
+        private final GetObservationRequest sosRequest;
+
+        private Session session;
+
+        private ObservationStream observations;
+
+        private boolean closed;
+
+        SessionObservationStream(final GetObservationRequest sosRequest) {
+            this.sosRequest = sosRequest;
+        }
+
+        @Override
+        public boolean hasNext() throws OwsExceptionReport {
+            try {
+                return getObservations().hasNext();
+            } catch (final HibernateException he) {
+                throw createReadException(he);
+            }
+        }
+
+        @Override
+        public OmObservation next() throws OwsExceptionReport {
+            try {
+                return getObservations().next();
+            } catch (final HibernateException he) {
+                throw createReadException(he);
+            }
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            try {
+                if (observations != null) {
+                    observations.close();
+                }
+            } finally {
+                observations = null;
+                if (session != null) {
+                    sessionHolder.returnSession(session);
+                    session = null;
+                }
+            }
+        }
+
+        private ObservationStream getObservations() throws OwsExceptionReport {
+            if (closed) {
+                throw new NoApplicableCodeException().withMessage("The observation stream is already closed!")
+                        .setStatus(StatusCode.INTERNAL_SERVER_ERROR);
+            }
+            if (observations == null) {
+                session = sessionHolder.getSession();
+                observations = openObservationStream(sosRequest, session);
+            }
+            return observations;
+        }
+
+        private OwsExceptionReport createReadException(final HibernateException he) {
+            return new NoApplicableCodeException().causedBy(he).withMessage("Error while querying observation data!")
+                    .setStatus(StatusCode.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * A cursor needs a single statement, so the requested identifiers must fit
+     * into its IN lists and a spatial filter has to be applied by the
+     * database.
+     */
+    private boolean isStreamable(final GetObservationRequest sosRequest) throws OwsExceptionReport {
+        return sosRequest.getVersion().equals(Sos2Constants.SERVICEVERSION)
+                && !getConfigurator().getProfileHandler().getActiveProfile().isShowMetadataOfEmptyObservations()
+                && (!sosRequest.hasTemporalFilters() || sosRequest.getFirstLatestTemporalFilter().isEmpty())
+                && (sosRequest.getSpatialFilter() == null || getSpatialFilterCriterion(sosRequest) != null)
+                && !QueryHelper.isSplit(getRestrictionValues(sosRequest, getRequestedFeatureIdentifiers(sosRequest)));
+    }
+
+    private GetObservationResponse createResponse(final GetObservationRequest sosRequest) {
+        final GetObservationResponse sosResponse = new GetObservationResponse();
+        sosResponse.setService(sosRequest.getService());
+        sosResponse.setVersion(sosRequest.getVersion());
+        sosResponse.setResponseFormat(sosRequest.getResponseFormat());
+        if (sosRequest.isSetResultModel()) {
+            sosResponse.setResultModel(sosRequest.getResultModel());
+        }
+        return sosResponse;
+    }
+
     @SuppressWarnings("unchecked")
     protected List<OmObservation> queryObservation(final GetObservationRequest request, final Session session)
             throws OwsExceptionReport {
@@ -121,10 +290,6 @@ public class GetObservationDAO extends AbstractGetObservationDAO {
         // ?!
 
         final long start = System.currentTimeMillis();
-        final Set<String> features = getFeatures(request, session);
-        if (features != null && features.isEmpty()) {
-            return null;
-        }
 
         List<Observation> observations = new LinkedList<Observation>();
         final Criterion filterCriterion = getTemporalFilterCriterion(request);
@@ -132,22 +297,202 @@ public class GetObservationDAO extends AbstractGetObservationDAO {
         if (request.hasTemporalFilters()) {
             final List<IndeterminateTime> flFilters = request.getFirstLatestTemporalFilter();
             if (!flFilters.isEmpty()) {
+                final Criterion spatialFilterCriterion = getSpatialFilterCriterion(request);
+                final Set<String> features = getFeatureIdentifierRestriction(request, session);
                 for (final IndeterminateTime fl : flFilters) {
-                    observations.addAll(createTemporalFilterLessCriteria(session, request, features)
-                            .addOrder(getOrder(fl)).setMaxResults(1).list());
+                    final Observation observation;
+                    if (request.isSetResultModel()) {
+                        observation =
+                                queryFirstLatestObservationFromDatabase(fl, request, spatialFilterCriterion,
+                                        features, session);
+                    } else {
+                        // the index does not distinguish the observation types
+                        observation =
+                                queryFirstLatestObservation(fl, request, spatialFilterCriterion, features, session);
+                    }
+                    if (observation != null) {
+                        observations.add(observation);
+                    }
                 }
             } else if (filterCriterion != null) {
-                observations =
-                        createTemporalFilterLessCriteria(session, request, features).add(filterCriterion).list();
+                return queryObservationRows(request, getSpatialFilterCriterion(request),
+                        getFeatureIdentifierRestriction(request, session), filterCriterion, session);
             }
         } else {
-            observations = createTemporalFilterLessCriteria(session, request, features).list();
-
+            return queryObservationRows(request, getSpatialFilterCriterion(request),
+                    getFeatureIdentifierRestriction(request, session), null, session);
         }
         LOGGER.debug("Time to query observations needed {} ms!", (System.currentTimeMillis() - start));
         return toSosObservation(observations, request.getVersion(), request.getResultModel(), session);
     }
 
+    /**
+     * Query the observations as flat {@link ObservationRow}s with one scalar
+     * projection query per observation value class. No entities are loaded,
+     * so neither the persistence context nor proxies or lazy loaded offerings
+     * are involved. Many requested identifiers are queried in chunks.
+     * 
+     * @param spatialFilterCriterion
+     *            the spatial filter of the features, may be <code>null</code>
+     * @param features
+     *            the feature identifiers, <code>null</code> if not restricted
+     * @param filterCriterion
+     *            the temporal filter, may be <code>null</code>
+     */
+    protected List<OmObservation> queryObservationRows(final GetObservationRequest request,
+            final Criterion spatialFilterCriterion, final Set<String> features, final Criterion filterCriterion,
+            final Session session) throws OwsExceptionReport {
+        final long start = System.currentTimeMillis();
+        final List<? extends Collection<?>> values = getRestrictionValues(request, features);
+        // an observation of offerings in different chunks is selected twice
+        final Set<Long> observationIds = QueryHelper.isSplit(values) ? new HashSet<Long>() : null;
+        final List<ObservationRow> rows = new LinkedList<ObservationRow>();
+        for (final Class<? extends Observation> observationClass : new ObservationDAO()
+                .getValueObservationClassesForResultModel(request.getResultModel())) {
+            final List<Object[]> records = QueryHelper.listInChunks(values, new ChunkCriteriaFactory() {
+                @Override
+                public Criteria create(final List<Collection<?>> chunks) {
+                    final Criteria c =
+                            createObservationRowCriteria(session, observationClass, chunks, spatialFilterCriterion);
+                    if (filterCriterion != null) {
+                        c.add(filterCriterion);
+                    }
+                    return c;
+                }
+            });
+            for (final Object[] record : records) {
+                final ObservationRow row = new ObservationRow(observationClass, record);
+                if (observationIds == null || observationIds.add(row.getObservationId())) {
+                    rows.add(row);
+                }
+            }
+        }
+        LOGGER.debug("Time to query observation rows needed {} ms!", (System.currentTimeMillis() - start));
+        if (rows.isEmpty()) {
+            return Collections.emptyList();
+        }
+        final long startProcess = System.currentTimeMillis();
+        final List<OmObservation> sosObservations =
+                HibernateObservationUtilities.createSosObservationsFromObservationRows(rows, request.getVersion(),
+                        request.getResultModel(), session);
+        LOGGER.debug("Time to process observations needs {} ms!", (System.currentTimeMillis() - startProcess));
+        return sosObservations;
+    }
+
+    /**
+     * Create a criteria with the projection of {@link ObservationRow} for the
+     * observations of an observation class matching the request. The offerings
+     * are restricted by a subquery, so each observation is selected once.
+     * 
+     * @param chunks
+     *            a chunk of each list of
+     *            {@link #getRestrictionValues(GetObservationRequest, Set)}
+     * @param spatialFilterCriterion
+     *            the spatial filter of the features, may be <code>null</code>
+     */
+    protected Criteria createObservationRowCriteria(final Session session,
+            final Class<? extends Observation> observationClass, final List<Collection<?>> chunks,
+            final Criterion spatialFilterCriterion) throws HibernateException {
+        final Criteria c =
+                session.createCriteria(observationClass)
+                        .add(Restrictions.eq(Observation.DELETED, false))
+                        .createAlias(Observation.PROCEDURE, ObservationRow.PROCEDURE_ALIAS)
+                        .createAlias(ObservationRow.PROCEDURE_ALIAS + "." + Procedure.PROCEDURE_DESCRIPTION_FORMAT,
+                                ObservationRow.PROCEDURE_DESCRIPTION_FORMAT_ALIAS)
+                        .createAlias(Observation.OBSERVABLE_PROPERTY, ObservationRow.OBSERVABLE_PROPERTY_ALIAS)
+                        .createAlias(Observation.UNIT, ObservationRow.UNIT_ALIAS, JoinType.LEFT_OUTER_JOIN)
+                        .createAlias(Observation.CODESPACE, ObservationRow.CODESPACE_ALIAS, JoinType.LEFT_OUTER_JOIN);
+        final Criteria foi =
+                c.createCriteria(Observation.FEATURE_OF_INTEREST, ObservationRow.FEATURE_OF_INTEREST_ALIAS);
+        if (spatialFilterCriterion != null) {
+            foi.add(spatialFilterCriterion);
+        }
+        if (chunks.get(FEATURE_OF_INTEREST_VALUES) != null) {
+            foi.add(QueryHelper.getInCriterion(FeatureOfInterest.IDENTIFIER, chunks.get(FEATURE_OF_INTEREST_VALUES)));
+        }
+        if (chunks.get(OFFERING_VALUES) != null) {
+            final DetachedCriteria withOffering =
+                    DetachedCriteria.forClass(Observation.class).createAlias(Observation.OFFERINGS, "off")
+                            .add(QueryHelper.getInCriterion("off." + Offering.IDENTIFIER, chunks.get(OFFERING_VALUES)))
+                            .setProjection(Projections.property(Observation.ID));
+            c.add(Subqueries.propertyIn(Observation.ID, withOffering));
+        }
+        if (chunks.get(OBSERVABLE_PROPERTY_VALUES) != null) {
+            c.add(QueryHelper.getInCriterion(ObservationRow.OBSERVABLE_PROPERTY_ALIAS + "."
+                    + ObservableProperty.IDENTIFIER, chunks.get(OBSERVABLE_PROPERTY_VALUES)));
+        }
+        if (chunks.get(PROCEDURE_VALUES) != null) {
+            c.add(QueryHelper.getInCriterion(ObservationRow.PROCEDURE_ALIAS + "." + Procedure.IDENTIFIER,
+                    chunks.get(PROCEDURE_VALUES)));
+        }
+        return c.setProjection(ObservationRow.getProjection());
+    }
+
+    /**
+     * Query the first or latest observation matching the request with the
+     * {@link FirstLatestObservationIndex}. As the index may miss observations,
+     * e.g. of concurrent transactions, the database is queried if the index
+     * has no matching or only a deleted observation.
+     * 
+     * @param spatialFilterCriterion
+     *            the spatial filter of the features, may be <code>null</code>
+     * @param features
+     *            the feature identifiers, <code>null</code> if not restricted
+     * @return the observation or <code>null</code>
+     */
+    private Observation queryFirstLatestObservation(final IndeterminateTime indetTime,
+            final GetObservationRequest request, final Criterion spatialFilterCriterion, final Set<String> features,
+            final Session session) throws OwsExceptionReport {
+        // the index knows only the identifiers of the features
+        final Set<String> indexFeatures = spatialFilterCriterion == null ? features : getFeatures(request, session);
+        if (indexFeatures != null && indexFeatures.isEmpty()) {
+            return null;
+        }
+        final FirstLatestObservationIndex index = FirstLatestObservationIndex.getInstance();
+        final Long observationId =
+                index.getObservationId(indetTime, request.getProcedures(), request.getObservedProperties(),
+                        indexFeatures, request.getOfferings(), session);
+        if (observationId != null) {
+            final Observation observation = (Observation) session.get(Observation.class, observationId);
+            if (observation != null && !observation.isDeleted()) {
+                return observation;
+            }
+            LOGGER.debug("Indexed observation {} is deleted, the index will be rebuilt!", observationId);
+            index.invalidate();
+        }
+        return queryFirstLatestObservationFromDatabase(indetTime, request, spatialFilterCriterion, features, session);
+    }
+
+    /**
+     * Query the first or latest observation matching the request by sorting
+     * the observations. If the requested identifiers are queried in chunks,
+     * the first or latest observation of each chunk is compared.
+     * 
+     * @return the observation or <code>null</code>
+     */
+    private Observation queryFirstLatestObservationFromDatabase(final IndeterminateTime indetTime,
+            final GetObservationRequest request, final Criterion spatialFilterCriterion, final Set<String> features,
+            final Session session) {
+        final List<Observation> observations =
+                QueryHelper.listInChunks(getRestrictionValues(request, features), new ChunkCriteriaFactory() {
+                    @Override
+                    public Criteria create(final List<Collection<?>> chunks) {
+                        return createTemporalFilterLessCriteria(session, request, chunks, spatialFilterCriterion)
+                                .addOrder(getOrder(indetTime)).setMaxResults(1);
+                    }
+                });
+        Observation result = null;
+        for (final Observation observation : observations) {
+            if (result == null
+                    || (indetTime.equals(IndeterminateTime.first) ? observation.getPhenomenonTimeStart().before(
+                            result.getPhenomenonTimeStart()) : observation.getPhenomenonTimeEnd().after(
+                            result.getPhenomenonTimeEnd()))) {
+                result = observation;
+            }
+        }
+        return result;
+    }
+
     /**
      * Query observations from database depending on requested filters
      * 
@@ -161,11 +506,8 @@ public class GetObservationDAO extends AbstractGetObservationDAO {
      * @throws OwsExceptionReport
      *             * If an error occurs.
      */
-    @SuppressWarnings("unchecked")
     protected List<OmObservation> queryObservationHydro(final GetObservationRequest request, final Session session)
             throws OwsExceptionReport {
-        // TODO Threadable !?!
-        // TODO How to ensure no duplicated observations ?!
         // TODO How to ensure that anti subsetting observation are also included
         // ?!
 
@@ -178,29 +520,50 @@ public class GetObservationDAO extends AbstractGetObservationDAO {
         final List<IndeterminateTime> itFilters = request.getFirstLatestTemporalFilter();
         final Criterion filterCriterion = getTemporalFilterCriterion(request);
 
+        final Map<ObservationConstellationKey, ObservationConstellation> observationConstellations =
+                new LinkedHashMap<ObservationConstellationKey, ObservationConstellation>();
+        for (final ObservationConstellation oc : getObservationConstellations(session, request)) {
+            observationConstellations.put(new ObservationConstellationKey(oc), oc);
+        }
         final List<OmObservation> result = new LinkedList<OmObservation>();
+        if (observationConstellations.isEmpty()) {
+            return result;
+        }
+        // query the observations of all constellations at once
         final Set<Observation> allObservations = new HashSet<Observation>(0);
-        for (final ObservationConstellation oc : getObservationConstellations(session, request)) {
-            final Set<Observation> observations = new HashSet<Observation>(0);
-            if (request.hasTemporalFilters()) {
-                if (itFilters != null && !itFilters.isEmpty()) {
-                    for (final IndeterminateTime indetTimeFiler : itFilters) {
-                        observations.addAll(createObservationCriteria(session, oc).addOrder(getOrder(indetTimeFiler))
-                                .setMaxResults(1).list());
-                    }
-                } else if (filterCriterion != null) {
-                    observations.addAll(createObservationCriteria(session, oc).add(filterCriterion).list());
+        final Set<ObservationConstellationKey> constellationsWithObservations =
+                new HashSet<ObservationConstellationKey>(observationConstellations.size());
+        if (request.hasTemporalFilters()) {
+            if (itFilters != null && !itFilters.isEmpty()) {
+                for (final IndeterminateTime indetTimeFiler : itFilters) {
+                    allObservations.addAll(queryFirstLatestObservations(session, request,
+                            observationConstellations, indetTimeFiler, constellationsWithObservations));
                 }
-            } else {
-                observations.addAll(createObservationCriteria(session, oc).list());
+            } else if (filterCriterion != null) {
+                allObservations.addAll(queryObservations(session, request, observationConstellations,
+                        filterCriterion, constellationsWithObservations));
             }
-            if (observations.isEmpty()) {
-                // if no observations were found, create a "result" observation
-                final List<String> featureIds = getAndCheckFeatureOfInterest(oc, features, session);
-                result.addAll(createSosObservationFromObservationConstellation(oc, featureIds, request.getVersion(),
-                        session));
-            } else {
-                allObservations.addAll(observations);
+        } else {
+            allObservations.addAll(queryObservations(session, request, observationConstellations, null,
+                    constellationsWithObservations));
+        }
+        // if no observations were found, create a "result" observation
+        final Map<ObservationConstellationKey, ObservationConstellation> emptyConstellations =
+                new LinkedHashMap<ObservationConstellationKey, ObservationConstellation>(observationConstellations);
+        emptyConstellations.keySet().removeAll(constellationsWithObservations);
+        if (!emptyConstellations.isEmpty()) {
+            final Map<ObservationConstellationKey, List<String>> featuresForConstellations =
+                    getFeatureOfInterestIdentifiers(session, request, emptyConstellations);
+            for (final Entry<ObservationConstellationKey, ObservationConstellation> entry : emptyConstellations
+                    .entrySet()) {
+                List<String> featureIds = featuresForConstellations.get(entry.getKey());
+                if (featureIds == null) {
+                    featureIds = Collections.emptyList();
+                } else if (features != null) {
+                    featureIds = CollectionHelper.conjunctCollections(featureIds, features);
+                }
+                result.addAll(createSosObservationFromObservationConstellation(entry.getValue(), featureIds,
+                        request.getVersion(), session));
             }
         }
 
@@ -209,16 +572,162 @@ public class GetObservationDAO extends AbstractGetObservationDAO {
         return result;
     }
 
-    private List<String> getAndCheckFeatureOfInterest(final ObservationConstellation observationConstellation,
-            final Set<String> featureIdentifier, final Session session) {
-        final List<String> featuresForConstellation =
-                new FeatureOfInterestDAO().getFeatureOfInterestIdentifiersForObservationConstellation(
-                        observationConstellation, session);
-        if (featureIdentifier == null) {
-            return featuresForConstellation;
+    /**
+     * Query the observations of the observation constellations with two
+     * queries: the first one selects the constellations of the matching
+     * observations, the second one loads the observations. Both are
+     * restricted to the constellations by a correlated subquery, so no
+     * identifiers are bound as parameters.
+     * 
+     * @param session
+     *            Hibernate session
+     * @param request
+     *            GetObservation request
+     * @param observationConstellations
+     *            the observation constellations
+     * @param filterCriterion
+     *            the temporal filter, may be <code>null</code>
+     * @param constellationsWithObservations
+     *            the constellations with at least one observation are added
+     *            to this set
+     * @return the observations
+     */
+    @SuppressWarnings("unchecked")
+    private List<Observation> queryObservations(final Session session, final GetObservationRequest request,
+            final Map<ObservationConstellationKey, ObservationConstellation> observationConstellations,
+            final Criterion filterCriterion, final Set<ObservationConstellationKey> constellationsWithObservations) {
+        final Criteria keyCriteria = createObservationCriteria(session, request);
+        if (filterCriterion != null) {
+            keyCriteria.add(filterCriterion);
+        }
+        keyCriteria.setProjection(Projections.distinct(getObservationConstellationKeyProjection()));
+        boolean found = false;
+        for (final Object[] record : (List<Object[]>) keyCriteria.list()) {
+            final ObservationConstellationKey key = new ObservationConstellationKey(record);
+            if (observationConstellations.containsKey(key)) {
+                constellationsWithObservations.add(key);
+                found = true;
+            }
+        }
+        if (!found) {
+            return Collections.emptyList();
+        }
+        final Criteria c = createObservationCriteria(session, request);
+        if (filterCriterion != null) {
+            c.add(filterCriterion);
+        }
+        return c.setResultTransformer(Criteria.DISTINCT_ROOT_ENTITY).list();
+    }
+
+    /**
+     * Query the first or latest observation of each observation constellation
+     * with grouped queries instead of one query per constellation. The
+     * observations are restricted to those with the minimal start (first) or
+     * maximal end (latest) time of their constellation by a correlated
+     * subquery. The first query selects one of these observations for each
+     * constellation, the second one loads them.
+     * 
+     * @param session
+     *            Hibernate session
+     * @param request
+     *            GetObservation request
+     * @param observationConstellations
+     *            the observation constellations
+     * @param indetTime
+     *            first or latest
+     * @param constellationsWithObservations
+     *            the constellations with at least one observation are added
+     *            to this set
+     * @return the observations
+     */
+    @SuppressWarnings("unchecked")
+    private List<Observation> queryFirstLatestObservations(final Session session,
+            final GetObservationRequest request,
+            final Map<ObservationConstellationKey, ObservationConstellation> observationConstellations,
+            final IndeterminateTime indetTime, final Set<ObservationConstellationKey> constellationsWithObservations) {
+        final Criteria idCriteria = createFirstLatestObservationCriteria(session, request, indetTime);
+        idCriteria.setProjection(getObservationConstellationKeyProjection().add(Projections.property(Observation.ID)));
+        idCriteria.addOrder(Order.asc(Observation.ID));
+        // observations with the same time: use the one with the lowest id
+        final Map<ObservationConstellationKey, Long> observationIds = new HashMap<ObservationConstellationKey, Long>();
+        for (final Object[] record : (List<Object[]>) idCriteria.list()) {
+            final ObservationConstellationKey key = new ObservationConstellationKey(record);
+            if (observationConstellations.containsKey(key) && !observationIds.containsKey(key)) {
+                observationIds.put(key, (Long) record[3]);
+            }
+        }
+        if (observationIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        constellationsWithObservations.addAll(observationIds.keySet());
+        final Set<Long> ids = new HashSet<Long>(observationIds.values());
+        final List<Observation> observations = new LinkedList<Observation>();
+        for (final Observation observation : (List<Observation>) createFirstLatestObservationCriteria(session,
+                request, indetTime).setResultTransformer(Criteria.DISTINCT_ROOT_ENTITY).list()) {
+            if (ids.contains(observation.getObservationId())) {
+                observations.add(observation);
+            }
+        }
+        return observations;
+    }
+
+    /**
+     * Create a criteria for the observations with the minimal start (first)
+     * or maximal end (latest) time of their procedure, observable property
+     * and offering.
+     */
+    private Criteria createFirstLatestObservationCriteria(final Session session,
+            final GetObservationRequest request, final IndeterminateTime indetTime) {
+        final String timeProperty =
+                indetTime.equals(IndeterminateTime.first) ? Observation.PHENOMENON_TIME_START
+                        : Observation.PHENOMENON_TIME_END;
+        final DetachedCriteria extremum =
+                DetachedCriteria.forClass(Observation.class, "o2")
+                        .createAlias("o2." + Observation.OFFERINGS, "off2")
+                        .add(Restrictions.eq("o2." + Observation.DELETED, false))
+                        .add(Restrictions.eqProperty("o2." + Observation.PROCEDURE, OBSERVATION_ALIAS + "."
+                                + Observation.PROCEDURE))
+                        .add(Restrictions.eqProperty("o2." + Observation.OBSERVABLE_PROPERTY, OBSERVATION_ALIAS + "."
+                                + Observation.OBSERVABLE_PROPERTY))
+                        .add(Restrictions.eqProperty("off2." + Offering.ID, OFFERING_ALIAS + "." + Offering.ID));
+        if (indetTime.equals(IndeterminateTime.first)) {
+            extremum.setProjection(Projections.min("o2." + timeProperty));
         } else {
-            return CollectionHelper.conjunctCollections(featuresForConstellation, featureIdentifier);
+            extremum.setProjection(Projections.max("o2." + timeProperty));
+        }
+        return createObservationCriteria(session, request).add(
+                Subqueries.propertyEq(OBSERVATION_ALIAS + "." + timeProperty, extremum));
+    }
+
+    /**
+     * Get the featureOfInterest identifiers of the observation constellations
+     * with a single query.
+     * 
+     * @see FeatureOfInterestDAO#getFeatureOfInterestIdentifiersForObservationConstellation(ObservationConstellation,
+     *      Session)
+     */
+    @SuppressWarnings("unchecked")
+    private Map<ObservationConstellationKey, List<String>> getFeatureOfInterestIdentifiers(final Session session,
+            final GetObservationRequest request,
+            final Map<ObservationConstellationKey, ObservationConstellation> observationConstellations) {
+        final Criteria c = createObservationCriteria(session, request);
+        c.createAlias(Observation.FEATURE_OF_INTEREST, "foi");
+        c.setProjection(Projections.distinct(getObservationConstellationKeyProjection().add(
+                Projections.property("foi." + FeatureOfInterest.IDENTIFIER))));
+        final Map<ObservationConstellationKey, List<String>> identifiers =
+                new HashMap<ObservationConstellationKey, List<String>>(observationConstellations.size());
+        for (final Object[] record : (List<Object[]>) c.list()) {
+            final ObservationConstellationKey key = new ObservationConstellationKey(record);
+            if (observationConstellations.containsKey(key)) {
+                List<String> featureIds = identifiers.get(key);
+                if (featureIds == null) {
+                    featureIds = new LinkedList<String>();
+                    identifiers.put(key, featureIds);
+                }
+                featureIds.add((String) record[3]);
+            }
         }
+        return identifiers;
     }
 
     protected List<OmObservation> toSosObservation(final Collection<Observation> observations, final String version,
@@ -240,25 +749,91 @@ public class GetObservationDAO extends AbstractGetObservationDAO {
         return QueryHelper.getFeatureIdentifier(request.getSpatialFilter(), request.getFeatureIdentifiers(), session);
     }
 
+    /**
+     * @return the spatial filter restriction of the features of interest if it
+     *         is applied by the database, otherwise <code>null</code>
+     * @see QueryHelper#getSpatialFilterCriterion(org.n52.sos.ogc.filter.SpatialFilter)
+     */
+    protected Criterion getSpatialFilterCriterion(final GetObservationRequest request) throws OwsExceptionReport {
+        return QueryHelper.getSpatialFilterCriterion(request.getSpatialFilter());
+    }
+
+    /**
+     * @return the feature identifiers to restrict the features of interest to
+     *         in addition to {@link #getSpatialFilterCriterion(GetObservationRequest)}
+     *         or <code>null</code> if they are not restricted
+     * @see QueryHelper#getFeatureIdentifierRestriction(org.n52.sos.ogc.filter.SpatialFilter, List, Session)
+     */
+    protected Set<String> getFeatureIdentifierRestriction(final GetObservationRequest request, final Session session)
+            throws OwsExceptionReport {
+        return QueryHelper.getFeatureIdentifierRestriction(request.getSpatialFilter(),
+                request.getFeatureIdentifiers(), session);
+    }
+
+    private Set<String> getRequestedFeatureIdentifiers(final GetObservationRequest request) {
+        if (request.getFeatureIdentifiers() == null || request.getFeatureIdentifiers().isEmpty()) {
+            return null;
+        }
+        return new HashSet<String>(request.getFeatureIdentifiers());
+    }
+
+    /**
+     * Get the value lists of the IN restrictions of the observations, a
+     * <code>null</code> list does not restrict the observations. The lists are
+     * split into chunks by
+     * {@link QueryHelper#listInChunks(List, ChunkCriteriaFactory)}.
+     * 
+     * @param features
+     *            the feature identifiers, <code>null</code> if not restricted
+     * @return the offering, observable property, procedure and feature
+     *         identifiers
+     */
+    protected List<? extends Collection<?>> getRestrictionValues(final GetObservationRequest request,
+            final Set<String> features) {
+        final List<Collection<?>> values = new ArrayList<Collection<?>>(4);
+        values.add(request.isSetOffering() ? request.getOfferings() : null);
+        values.add(request.isSetObservableProperty() ? request.getObservedProperties() : null);
+        values.add(request.isSetProcedure() ? request.getProcedures() : null);
+        values.add(features);
+        return values;
+    }
+
+    /**
+     * Create a criteria for the observations of the result model of the
+     * request.
+     * 
+     * @param chunks
+     *            a chunk of each list of
+     *            {@link #getRestrictionValues(GetObservationRequest, Set)}
+     * @param spatialFilterCriterion
+     *            the spatial filter of the features, may be <code>null</code>
+     */
     protected Criteria createTemporalFilterLessCriteria(final Session session, final GetObservationRequest request,
-            final Set<String> features) throws HibernateException {
+            final List<Collection<?>> chunks, final Criterion spatialFilterCriterion) throws HibernateException {
 
         final Criteria c =
                 new ObservationDAO().getObservationClassCriteriaForResultModel(request.getResultModel(), session);
-        if (request.isSetOffering()) {
-            c.createCriteria(Observation.OFFERINGS).add(Restrictions.in(Offering.IDENTIFIER, request.getOfferings()));
+        if (chunks.get(OFFERING_VALUES) != null) {
+            c.createCriteria(Observation.OFFERINGS).add(
+                    QueryHelper.getInCriterion(Offering.IDENTIFIER, chunks.get(OFFERING_VALUES)));
         }
-        if (request.isSetObservableProperty()) {
+        if (chunks.get(OBSERVABLE_PROPERTY_VALUES) != null) {
             c.createCriteria(Observation.OBSERVABLE_PROPERTY).add(
-                    Restrictions.in(ObservableProperty.IDENTIFIER, request.getObservedProperties()));
+                    QueryHelper.getInCriterion(ObservableProperty.IDENTIFIER, chunks.get(OBSERVABLE_PROPERTY_VALUES)));
         }
-        if (request.isSetProcedure()) {
-            c.createCriteria(Observation.PROCEDURE)
-                    .add(Restrictions.in(Procedure.IDENTIFIER, request.getProcedures()));
+        if (chunks.get(PROCEDURE_VALUES) != null) {
+            c.createCriteria(Observation.PROCEDURE).add(
+                    QueryHelper.getInCriterion(Procedure.IDENTIFIER, chunks.get(PROCEDURE_VALUES)));
         }
-        if (features != null) {
-            c.createCriteria(Observation.FEATURE_OF_INTEREST).add(
-                    Restrictions.in(FeatureOfInterest.IDENTIFIER, features));
+        if (spatialFilterCriterion != null || chunks.get(FEATURE_OF_INTEREST_VALUES) != null) {
+            final Criteria foi = c.createCriteria(Observation.FEATURE_OF_INTEREST);
+            if (spatialFilterCriterion != null) {
+                foi.add(spatialFilterCriterion);
+            }
+            if (chunks.get(FEATURE_OF_INTEREST_VALUES) != null) {
+                foi.add(QueryHelper.getInCriterion(FeatureOfInterest.IDENTIFIER,
+                        chunks.get(FEATURE_OF_INTEREST_VALUES)));
+            }
         }
         return c;
     }
@@ -285,15 +860,53 @@ public class GetObservationDAO extends AbstractGetObservationDAO {
         return c.add(Restrictions.isNotNull(ObservationConstellation.OBSERVATION_TYPE)).list();
     }
 
-    protected Criteria createObservationCriteria(final Session session, final ObservationConstellation oc)
+    /**
+     * Create a criteria for the observations of the observation constellations
+     * of the request (see
+     * {@link #getObservationConstellations(Session, GetObservationRequest)}).
+     * The observations (alias {@value #OBSERVATION_ALIAS}) are joined with
+     * their offerings (alias {@value #OFFERING_ALIAS}), so an observation of
+     * several offerings is selected once for each of them. The combinations
+     * of procedure, observable property and offering are restricted to the
+     * constellations by a correlated subquery.
+     */
+    protected Criteria createObservationCriteria(final Session session, final GetObservationRequest request)
             throws HibernateException {
         final Criteria c =
-                session.createCriteria(Observation.class).setResultTransformer(Criteria.DISTINCT_ROOT_ENTITY)
+                session.createCriteria(Observation.class, OBSERVATION_ALIAS)
                         .add(Restrictions.eq(Observation.DELETED, false))
-                        .add(Restrictions.eq(Observation.OBSERVABLE_PROPERTY, oc.getObservableProperty()))
-                        .add(Restrictions.eq(Observation.PROCEDURE, oc.getProcedure()));
-        c.createCriteria(Observation.OFFERINGS).add(Restrictions.eq(Offering.ID, oc.getOffering().getOfferingId()));
-        return c;
+                        .createAlias(Observation.OFFERINGS, OFFERING_ALIAS);
+        if (request.isSetOffering()) {
+            c.add(Restrictions.in(OFFERING_ALIAS + "." + Offering.IDENTIFIER, request.getOfferings()));
+        }
+        if (request.isSetObservableProperty()) {
+            c.createCriteria(Observation.OBSERVABLE_PROPERTY).add(
+                    Restrictions.in(ObservableProperty.IDENTIFIER, request.getObservedProperties()));
+        }
+        if (request.isSetProcedure()) {
+            c.createCriteria(Observation.PROCEDURE)
+                    .add(Restrictions.in(Procedure.IDENTIFIER, request.getProcedures()));
+        }
+        final DetachedCriteria constellation =
+                DetachedCriteria.forClass(ObservationConstellation.class, "oc")
+                        .add(Restrictions.eq("oc." + ObservationConstellation.DELETED, false))
+                        .add(Restrictions.isNotNull("oc." + ObservationConstellation.OBSERVATION_TYPE))
+                        .add(Restrictions.eqProperty("oc." + ObservationConstellation.PROCEDURE, OBSERVATION_ALIAS
+                                + "." + Observation.PROCEDURE))
+                        .add(Restrictions.eqProperty("oc." + ObservationConstellation.OBSERVABLE_PROPERTY,
+                                OBSERVATION_ALIAS + "." + Observation.OBSERVABLE_PROPERTY))
+                        .add(Restrictions.eqProperty("oc." + ObservationConstellation.OFFERING, OFFERING_ALIAS + "."
+                                + Offering.ID)).setProjection(Projections.id());
+        return c.add(Subqueries.exists(constellation));
+    }
+
+    private ProjectionList getObservationConstellationKeyProjection() {
+        final ProjectionList projection = Projections.projectionList();
+        projection.add(Projections.property(OBSERVATION_ALIAS + "." + Observation.PROCEDURE + "." + Procedure.ID));
+        projection.add(Projections.property(OBSERVATION_ALIAS + "." + Observation.OBSERVABLE_PROPERTY + "."
+                + ObservableProperty.ID));
+        projection.add(Projections.property(OFFERING_ALIAS + "." + Offering.ID));
+        return projection;
     }
 
     protected Criterion getTemporalFilterCriterion(final GetObservationRequest request) throws OwsExceptionReport {
@@ -313,4 +926,52 @@ public class GetObservationDAO extends AbstractGetObservationDAO {
         }
         return null;
     }
+
+    /**
+     * Procedure, observable property and offering of an observation
+     * constellation
+     */
+    private static class ObservationConstellationKey {
+        private final long procedure;
+
+        private final long observableProperty;
+
+        private final long offering;
+
+        ObservationConstellationKey(final ObservationConstellation oc) {
+            this.procedure = oc.getProcedure().getProcedureId();
+            this.observableProperty = oc.getObservableProperty().getObservablePropertyId();
+            this.offering = oc.getOffering().getOfferingId();
+        }
+
+        /**
+         * @param record
+         *            the result of {@link GetObservationDAO#getObservationConstellationKeyProjection()}
+         */
+        ObservationConstellationKey(final Object[] record) {
+            this.procedure = (Long) record[0];
+            this.observableProperty = (Long) record[1];
+            this.offering = (Long) record[2];
+        }
+
+        @Override
+        public int hashCode() {
+            final int prime = 31;
+            int hash = 7;
+            hash = prime * hash + (int) (procedure ^ (procedure >>> 32));
+            hash = prime * hash + (int) (observableProperty ^ (observableProperty >>> 32));
+            hash = prime * hash + (int) (offering ^ (offering >>> 32));
+            return hash;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (obj instanceof ObservationConstellationKey) {
+                final ObservationConstellationKey other = (ObservationConstellationKey) obj;
+                return procedure == other.procedure && observableProperty == other.observableProperty
+                        && offering == other.offering;
+            }
+            return false;
+        }
+    }
 }
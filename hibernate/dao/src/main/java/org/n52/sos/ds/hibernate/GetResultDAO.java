@@ -23,18 +23,23 @@
  */
 package org.n52.sos.ds.hibernate;
 
-import static org.n52.sos.util.CollectionHelper.isEmpty;
 import static org.n52.sos.util.CollectionHelper.isNotEmpty;
 import static org.n52.sos.util.HTTPConstants.StatusCode.INTERNAL_SERVER_ERROR;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Set;
 
 import org.hibernate.Criteria;
 import org.hibernate.HibernateException;
 import org.hibernate.Session;
+import org.hibernate.criterion.Criterion;
 import org.hibernate.criterion.Order;
 import org.hibernate.criterion.Restrictions;
+import org.n52.sos.config.annotation.Configurable;
+import org.n52.sos.config.annotation.Setting;
 import org.n52.sos.ds.AbstractGetResultDAO;
 import org.n52.sos.ds.hibernate.dao.ResultTemplateDAO;
 import org.n52.sos.ds.hibernate.entities.FeatureOfInterest;
@@ -42,17 +47,21 @@ import org.n52.sos.ds.hibernate.entities.ObservableProperty;
 import org.n52.sos.ds.hibernate.entities.Observation;
 import org.n52.sos.ds.hibernate.entities.Offering;
 import org.n52.sos.ds.hibernate.entities.ResultTemplate;
+import org.n52.sos.ds.hibernate.util.DecodedResultTemplate;
 import org.n52.sos.ds.hibernate.util.QueryHelper;
+import org.n52.sos.ds.hibernate.util.QueryHelper.ChunkCriteriaFactory;
 import org.n52.sos.ds.hibernate.util.ResultHandlingHelper;
+import org.n52.sos.ds.hibernate.util.ResultTemplateCache;
 import org.n52.sos.ds.hibernate.util.TemporalRestrictions;
+import org.n52.sos.exception.ConfigurationException;
 import org.n52.sos.exception.ows.NoApplicableCodeException;
 import org.n52.sos.ogc.ows.OwsExceptionReport;
 import org.n52.sos.ogc.sos.SosConstants;
-import org.n52.sos.ogc.sos.SosResultEncoding;
-import org.n52.sos.ogc.sos.SosResultStructure;
 import org.n52.sos.request.GetResultRequest;
 import org.n52.sos.response.GetResultResponse;
+import org.n52.sos.util.Validation;
 
+@Configurable
 public class GetResultDAO extends AbstractGetResultDAO {
 
     private final HibernateSessionHolder sessionHolder = new HibernateSessionHolder();
@@ -61,6 +70,12 @@ public class GetResultDAO extends AbstractGetResultDAO {
         super(SosConstants.SOS);
     }
 
+    @Setting(ResultTemplateSettingDefinitionProvider.RESULT_TEMPLATE_CACHE_SIZE)
+    public void setResultTemplateCacheSize(final int size) throws ConfigurationException {
+        Validation.greaterEqualZero("Result template cache size", size);
+        ResultTemplateCache.getInstance().setCapacity(size);
+    }
+
     @Override
     public GetResultResponse getResult(final GetResultRequest request) throws OwsExceptionReport {
         Session session = null;
@@ -69,16 +84,19 @@ public class GetResultDAO extends AbstractGetResultDAO {
             final GetResultResponse response = new GetResultResponse();
             response.setService(request.getService());
             response.setVersion(request.getVersion());
-            final Set<String> featureIdentifier =
-                    QueryHelper.getFeatureIdentifier(request.getSpatialFilter(), request.getFeatureIdentifiers(),
-                            session);
-            final List<ResultTemplate> resultTemplates = queryResultTemplate(request, featureIdentifier, session);
+            final Criterion spatialFilterCriterion = QueryHelper.getSpatialFilterCriterion(request.getSpatialFilter());
+            final Set<String> features =
+                    QueryHelper.getFeatureIdentifierRestriction(request.getSpatialFilter(),
+                            request.getFeatureIdentifiers(), session);
+            final List<ResultTemplate> resultTemplates =
+                    queryResultTemplate(request, spatialFilterCriterion, features, session);
             if (isNotEmpty(resultTemplates)) {
-                final SosResultEncoding sosResultEncoding = new SosResultEncoding(resultTemplates.get(0).getResultEncoding());
-                final SosResultStructure sosResultStructure = new SosResultStructure(resultTemplates.get(0).getResultStructure());
-                final List<Observation> observations = queryObservation(request, featureIdentifier, session);
+                final DecodedResultTemplate resultTemplate =
+                        ResultTemplateCache.getInstance().get(resultTemplates.get(0));
+                final List<Observation> observations =
+                        queryObservation(request, spatialFilterCriterion, features, session);
                 response.setResultValues(ResultHandlingHelper.createResultValuesFromObservations(observations,
-                        sosResultEncoding, sosResultStructure));
+                        resultTemplate));
             }
             return response;
         } catch (final HibernateException he) {
@@ -91,11 +109,11 @@ public class GetResultDAO extends AbstractGetResultDAO {
         }
     }
 
-    private List<ResultTemplate> queryResultTemplate(final GetResultRequest request, final Set<String> featureIdentifier,
-            final Session session) {
+    private List<ResultTemplate> queryResultTemplate(final GetResultRequest request,
+            final Criterion spatialFilterCriterion, final Set<String> features, final Session session) {
         final List<ResultTemplate> resultTemplates =
                 new ResultTemplateDAO().getResultTemplateObject(request.getOffering(),
-                        request.getObservedProperty(), featureIdentifier, session);
+                        request.getObservedProperty(), spatialFilterCriterion, features, session);
         return resultTemplates;
     }
 
@@ -104,8 +122,11 @@ public class GetResultDAO extends AbstractGetResultDAO {
      * 
      * @param request
      *            GetObservation request
-     * @param featureIdentifiers
-     * 			Set of feature identifiers. If <tt>null</tt>, query filter will not be added. If <tt>empty</tt>, <tt>null</tt> will be returned.
+     * @param spatialFilterCriterion
+     * 			Spatial filter restriction of the features of interest. If <tt>null</tt>, query filter will not be added.
+     * @param features
+     * 			Identifiers of the features of interest. If <tt>null</tt>, query filter will not be added. Many
+     * 			identifiers are queried in chunks.
      * @param session
      *            Hibernate session
      * @return List of Observation objects
@@ -113,35 +134,54 @@ public class GetResultDAO extends AbstractGetResultDAO {
      *
      * @throws OwsExceptionReport If an error occurs.
      */
-    @SuppressWarnings("unchecked")
-	protected List<Observation> queryObservation(final GetResultRequest request, final Set<String> featureIdentifiers,
-                                                 final Session session) throws OwsExceptionReport {
-        final Criteria c = session.createCriteria(Observation.class)
-                .setResultTransformer(Criteria.DISTINCT_ROOT_ENTITY)
-                .add(Restrictions.eq(Observation.DELETED, false));
-
-        if (isEmpty(featureIdentifiers))
-        {
-        	return null; // because no features where found regarding the filters
-        } 
-        else if (isNotEmpty(featureIdentifiers)) {
-            c.createCriteria(Observation.FEATURE_OF_INTEREST)
-                    .add(Restrictions.in(FeatureOfInterest.IDENTIFIER, featureIdentifiers));
-        }
-        if (request.getObservedProperty() != null) {
-            c.createCriteria(Observation.OBSERVABLE_PROPERTY)
-                    .add(Restrictions.eq(ObservableProperty.IDENTIFIER, request.getObservedProperty()));
-        }
-        if (request.getOffering() != null) {
-            c.createCriteria(Observation.OFFERINGS)
-                    .add(Restrictions.eq(Offering.IDENTIFIER, request.getOffering()));
-
-        }
+	protected List<Observation> queryObservation(final GetResultRequest request,
+            final Criterion spatialFilterCriterion, final Set<String> features, final Session session)
+            throws OwsExceptionReport {
+        final Criterion temporalFilterCriterion;
         if (request.getTemporalFilter() != null && !request.getTemporalFilter().isEmpty()) {
-            c.add(TemporalRestrictions.filter(request.getTemporalFilter()));
+            temporalFilterCriterion = TemporalRestrictions.filter(request.getTemporalFilter());
+        } else {
+            temporalFilterCriterion = null;
         }
-        c.addOrder(Order.asc(Observation.PHENOMENON_TIME_START));
-        return c.list();
-
+        final List<Observation> observations =
+                QueryHelper.listInChunks(Collections.singletonList(features), new ChunkCriteriaFactory() {
+                    @Override
+                    public Criteria create(final List<Collection<?>> chunks) {
+                        final Criteria c = session.createCriteria(Observation.class)
+                                .setResultTransformer(Criteria.DISTINCT_ROOT_ENTITY)
+                                .add(Restrictions.eq(Observation.DELETED, false));
+                        if (spatialFilterCriterion != null || chunks.get(0) != null) {
+                            final Criteria foi = c.createCriteria(Observation.FEATURE_OF_INTEREST);
+                            if (spatialFilterCriterion != null) {
+                                foi.add(spatialFilterCriterion);
+                            }
+                            if (chunks.get(0) != null) {
+                                foi.add(QueryHelper.getInCriterion(FeatureOfInterest.IDENTIFIER, chunks.get(0)));
+                            }
+                        }
+                        if (request.getObservedProperty() != null) {
+                            c.createCriteria(Observation.OBSERVABLE_PROPERTY)
+                                    .add(Restrictions.eq(ObservableProperty.IDENTIFIER, request.getObservedProperty()));
+                        }
+                        if (request.getOffering() != null) {
+                            c.createCriteria(Observation.OFFERINGS)
+                                    .add(Restrictions.eq(Offering.IDENTIFIER, request.getOffering()));
+                        }
+                        if (temporalFilterCriterion != null) {
+                            c.add(temporalFilterCriterion);
+                        }
+                        return c.addOrder(Order.asc(Observation.PHENOMENON_TIME_START));
+                    }
+                });
+        if (QueryHelper.isSplit(Collections.singletonList(features))) {
+            // each chunk is ordered on its own
+            Collections.sort(observations, new Comparator<Observation>() {
+                @Override
+                public int compare(final Observation o1, final Observation o2) {
+                    return o1.getPhenomenonTimeStart().compareTo(o2.getPhenomenonTimeStart());
+                }
+            });
+        }
+        return observations;
     }
 }
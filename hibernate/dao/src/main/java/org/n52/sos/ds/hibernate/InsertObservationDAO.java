@@ -36,6 +36,7 @@ import org.n52.sos.ds.hibernate.dao.ObservationConstellationDAO;
 import org.n52.sos.ds.hibernate.dao.ObservationDAO;
 import org.n52.sos.ds.hibernate.entities.FeatureOfInterest;
 import org.n52.sos.ds.hibernate.entities.ObservationConstellation;
+import org.n52.sos.ds.hibernate.util.FirstLatestObservationIndex;
 import org.n52.sos.exception.ows.NoApplicableCodeException;
 import org.n52.sos.ogc.om.MultiObservationValues;
 import org.n52.sos.ogc.om.OmObservation;
@@ -111,6 +112,7 @@ public class InsertObservationDAO extends AbstractInsertObservationDAO {
             }
             session.flush();
             transaction.commit();
+            FirstLatestObservationIndex.getInstance().update(session);
         } catch (final HibernateException he) {
             if (transaction != null) {
                 transaction.rollback();
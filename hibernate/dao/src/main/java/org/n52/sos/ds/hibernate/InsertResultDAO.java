@@ -23,11 +23,9 @@
  */
 package org.n52.sos.ds.hibernate;
 
-import java.util.Arrays;
+import java.io.IOException;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 
 import org.hibernate.HibernateException;
@@ -43,8 +41,10 @@ import org.n52.sos.ds.hibernate.entities.FeatureOfInterest;
 import org.n52.sos.ds.hibernate.entities.ObservationConstellation;
 import org.n52.sos.ds.hibernate.entities.Procedure;
 import org.n52.sos.ds.hibernate.entities.ResultTemplate;
+import org.n52.sos.ds.hibernate.util.DecodedResultTemplate;
+import org.n52.sos.ds.hibernate.util.FirstLatestObservationIndex;
 import org.n52.sos.ds.hibernate.util.HibernateObservationUtilities;
-import org.n52.sos.ds.hibernate.util.ResultHandlingHelper;
+import org.n52.sos.ds.hibernate.util.ResultTemplateCache;
 import org.n52.sos.exception.ows.InvalidParameterValueException;
 import org.n52.sos.exception.ows.NoApplicableCodeException;
 import org.n52.sos.exception.ows.concrete.DateTimeParseException;
@@ -66,29 +66,20 @@ import org.n52.sos.ogc.sensorML.SensorML;
 import org.n52.sos.ogc.sos.Sos2Constants;
 import org.n52.sos.ogc.sos.SosConstants;
 import org.n52.sos.ogc.sos.SosProcedureDescription;
-import org.n52.sos.ogc.sos.SosResultEncoding;
-import org.n52.sos.ogc.sos.SosResultStructure;
-import org.n52.sos.ogc.swe.SweAbstractDataComponent;
 import org.n52.sos.ogc.swe.SweDataArray;
-import org.n52.sos.ogc.swe.SweDataRecord;
-import org.n52.sos.ogc.swe.SweField;
 import org.n52.sos.ogc.swe.encoding.SweAbstractEncoding;
 import org.n52.sos.ogc.swe.encoding.SweTextEncoding;
-import org.n52.sos.ogc.swe.simpleType.SweAbstractSimpleType;
-import org.n52.sos.ogc.swe.simpleType.SweQuantity;
 import org.n52.sos.request.InsertResultRequest;
 import org.n52.sos.response.InsertResultResponse;
 import org.n52.sos.service.Configurator;
 import org.n52.sos.util.CollectionHelper;
 import org.n52.sos.util.DateTimeHelper;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import org.n52.sos.util.StringHelper;
+import org.n52.sos.util.SweTextBlockTokenizer;
 
 public class InsertResultDAO extends AbstractInsertResultDAO {
 
-    private static final Logger LOGGER = LoggerFactory.getLogger(InsertResultDAO.class);
-
-    private static final int FLUSH_THRESHOLD = 50;
+    private static final String DECIMAL_POINT = ".";
 
     private HibernateSessionHolder sessionHolder = new HibernateSessionHolder();
 
@@ -123,19 +114,10 @@ public class InsertResultDAO extends AbstractInsertResultDAO {
                                             .getOfferingsForProcedure(resultTemplate.getProcedure().getIdentifier()),
                                     session));
 
-            int insertion = 0, size = observations.size();
-            LOGGER.debug("Start saving {} observations.", size);
-            for (OmObservation observation : observations) {
-                new ObservationDAO().insertObservationSingleValue(obsConsts, resultTemplate.getFeatureOfInterest(),
-                        observation, session);
-                if ((++insertion % FLUSH_THRESHOLD) == 0) {
-                    session.flush();
-                    session.clear();
-                    LOGGER.debug("Saved {}/{} observations.", insertion, size);
-                }
-            }
-            LOGGER.debug("Saved {} observations.", size);
+            new ObservationDAO().insertObservationSingleValues(obsConsts, resultTemplate.getFeatureOfInterest(),
+                    observations, session);
             transaction.commit();
+            FirstLatestObservationIndex.getInstance().update(session);
         } catch (HibernateException he) {
             if (transaction != null) {
                 transaction.rollback();
@@ -150,12 +132,8 @@ public class InsertResultDAO extends AbstractInsertResultDAO {
 
     private OmObservation getSingleObservationFromResultValues(String version, ResultTemplate resultTemplate,
             String resultValues, Session session) throws OwsExceptionReport {
-        SosResultEncoding resultEncoding = new SosResultEncoding(resultTemplate.getResultEncoding());
-        SosResultStructure resultStructure = new SosResultStructure(resultTemplate.getResultStructure());
-        String[] blockValues = getBlockValues(resultValues, resultEncoding.getEncoding());
-        OmObservation singleObservation =
-                getObservation(resultTemplate, blockValues, resultStructure.getResultStructure(),
-                        resultEncoding.getEncoding(), session);
+        DecodedResultTemplate decodedResultTemplate = ResultTemplateCache.getInstance().get(resultTemplate);
+        OmObservation singleObservation = getObservation(resultTemplate, decodedResultTemplate, resultValues, session);
         AbstractFeature feature = getSosAbstractFeature(resultTemplate.getFeatureOfInterest(), version, session);
         singleObservation.getObservationConstellation().setFeatureOfInterest(feature);
         return singleObservation;
@@ -201,37 +179,18 @@ public class InsertResultDAO extends AbstractInsertResultDAO {
         return procedure;
     }
 
-    private OmObservation getObservation(ResultTemplate resultTemplate, String[] blockValues,
-            SweAbstractDataComponent resultStructure, SweAbstractEncoding encoding, Session session)
-            throws OwsExceptionReport {
-        int resultTimeIndex = ResultHandlingHelper.hasResultTime(resultStructure);
-        int phenomenonTimeIndex = ResultHandlingHelper.hasPhenomenonTime(resultStructure);
-
-        SweDataRecord record = setRecordFrom(resultStructure);
-
-        Map<Integer, String> observedProperties = new HashMap<Integer, String>(record.getFields().size() - 1);
-        Map<Integer, String> units = new HashMap<Integer, String>(record.getFields().size() - 1);
-
-        int j = 0;
-        for (SweField swefield : record.getFields()) {
-            if (j != resultTimeIndex && j != phenomenonTimeIndex) {
-                Integer index = Integer.valueOf(j);
-                SweAbstractSimpleType<?> sweAbstractSimpleType = (SweAbstractSimpleType) swefield.getElement();
-                if (sweAbstractSimpleType instanceof SweQuantity) {
-                    /* TODO units for other SosSweSimpleTypes? */
-                    units.put(index, ((SweQuantity) sweAbstractSimpleType).getUom());
-                }
-                observedProperties.put(index, swefield.getElement().getDefinition());
-            }
-            ++j;
+    private OmObservation getObservation(ResultTemplate resultTemplate, DecodedResultTemplate decodedResultTemplate,
+            String resultValues, Session session) throws OwsExceptionReport {
+        if (!decodedResultTemplate.hasRecord()) {
+            throw new NoApplicableCodeException().withMessage("Unsupported ResultStructure!");
         }
 
         // TODO support for compositePhenomenon
-        // if (observedProperties.size() > 1) {
+        // if (decodedResultTemplate.getObservedProperties().size() > 1) {
         // }
 
         MultiObservationValues<SweDataArray> sosValues =
-                createObservationValueFrom(blockValues, record, encoding, resultTimeIndex, phenomenonTimeIndex);
+                createObservationValueFrom(resultValues, decodedResultTemplate);
 
         OmObservation observation = new OmObservation();
         observation.setObservationConstellation(getSosObservationConstellation(resultTemplate, session));
@@ -240,41 +199,56 @@ public class InsertResultDAO extends AbstractInsertResultDAO {
         return observation;
     }
 
-    private MultiObservationValues<SweDataArray> createObservationValueFrom(String[] blockValues,
-            SweAbstractDataComponent recordFromResultStructure, SweAbstractEncoding encoding, int resultTimeIndex,
-            int phenomenonTimeIndex) throws OwsExceptionReport {
+    /**
+     * Split the result values into blocks of tokens in a single pass with the
+     * separators of the text encoding. The decimal separator of the quantity
+     * tokens is replaced by a point.
+     */
+    private MultiObservationValues<SweDataArray> createObservationValueFrom(String resultValues,
+            DecodedResultTemplate decodedResultTemplate) throws OwsExceptionReport {
+        SweAbstractEncoding encoding = decodedResultTemplate.getEncoding();
+        if (!(encoding instanceof SweTextEncoding)) {
+            throw new NoApplicableCodeException().withMessage("Unsupported ResultEncoding!");
+        }
+        SweTextEncoding textEncoding = (SweTextEncoding) encoding;
         SweDataArray dataArray = new SweDataArray();
-        dataArray.setElementType(recordFromResultStructure);
+        // the decoded template is shared, the array gets its own record
+        dataArray.setElementType(decodedResultTemplate.getRecord());
         dataArray.setEncoding(encoding);
 
         SweDataArrayValue dataArrayValue = new SweDataArrayValue();
         dataArrayValue.setValue(dataArray);
 
-        for (String block : blockValues) {
-            String[] singleValues = getSingleValues(block, encoding);
-            if (singleValues != null && singleValues.length > 0) {
-                dataArrayValue.addBlock(Arrays.asList(singleValues));
+        String decimalSeparator = textEncoding.getDecimalSeparator();
+        boolean replaceDecimalSeparator =
+                StringHelper.isNotEmpty(decimalSeparator) && !DECIMAL_POINT.equals(decimalSeparator);
+        try {
+            SweTextBlockTokenizer tokenizer = new SweTextBlockTokenizer(resultValues, textEncoding);
+            List<String> block = tokenizer.nextBlock();
+            // skip the optional element count
+            if (block != null && block.size() == 1) {
+                block = tokenizer.nextBlock();
+            }
+            while (block != null) {
+                if (replaceDecimalSeparator) {
+                    // the units contain an entry for each quantity field
+                    for (Integer index : decodedResultTemplate.getUnits().keySet()) {
+                        if (index < block.size()) {
+                            block.set(index, block.get(index).replace(decimalSeparator, DECIMAL_POINT));
+                        }
+                    }
+                }
+                dataArrayValue.addBlock(block);
+                block = tokenizer.nextBlock();
             }
+        } catch (IOException ioe) {
+            throw new NoApplicableCodeException().causedBy(ioe).withMessage("Error while reading the resultValues!");
         }
         MultiObservationValues<SweDataArray> sosValues = new MultiObservationValues<SweDataArray>();
         sosValues.setValue(dataArrayValue);
         return sosValues;
     }
 
-    private SweDataRecord setRecordFrom(SweAbstractDataComponent resultStructure) throws OwsExceptionReport {
-        SweDataRecord record = null;
-        if (resultStructure instanceof SweDataArray
-                && ((SweDataArray) resultStructure).getElementType() instanceof SweDataRecord) {
-            SweDataArray array = (SweDataArray) resultStructure;
-            record = (SweDataRecord) array.getElementType();
-        } else if (resultStructure instanceof SweDataRecord) {
-            record = (SweDataRecord) resultStructure;
-        } else {
-            throw new NoApplicableCodeException().withMessage("Unsupported ResultStructure!");
-        }
-        return record;
-    }
-
     // TODO move to helper class
     private Time getPhenomenonTime(String timeString) throws OwsExceptionReport {
         try {
@@ -293,38 +267,4 @@ public class InsertResultDAO extends AbstractInsertResultDAO {
             throw dte.at("phenomenonTime");
         }
     }
-
-    private String[] getSingleValues(String block, SweAbstractEncoding encoding) {
-        if (encoding instanceof SweTextEncoding) {
-            SweTextEncoding textEncoding = (SweTextEncoding) encoding;
-            return separateValues(block, textEncoding.getTokenSeparator());
-        }
-        return null;
-    }
-
-    private String[] getBlockValues(String resultValues, SweAbstractEncoding encoding) {
-        if (encoding instanceof SweTextEncoding) {
-            SweTextEncoding textEncoding = (SweTextEncoding) encoding;
-            String[] blockValues = separateValues(resultValues, textEncoding.getBlockSeparator());
-            return checkForCountValue(blockValues, textEncoding.getTokenSeparator());
-        }
-        return null;
-    }
-
-    private String[] checkForCountValue(String[] blockValues, String tokenSeparator) {
-        if (blockValues != null && blockValues.length > 0) {
-            if (blockValues[0].contains(tokenSeparator)) {
-                return blockValues;
-            } else {
-                String[] blockValuesWithoutCount = new String[blockValues.length - 1];
-                System.arraycopy(blockValues, 1, blockValuesWithoutCount, 0, blockValuesWithoutCount.length);
-                return blockValuesWithoutCount;
-            }
-        }
-        return null;
-    }
-
-    private String[] separateValues(String values, String separator) {
-        return values.split(separator);
-    }
 }
@@ -31,7 +31,10 @@ import org.n52.sos.cache.WritableContentCache;
 import org.n52.sos.config.annotation.Configurable;
 import org.n52.sos.config.annotation.Setting;
 import org.n52.sos.ds.CacheFeederDAO;
+import org.n52.sos.ds.hibernate.cache.CompositeCacheUpdate;
+import org.n52.sos.ds.hibernate.cache.DeltaCacheUpdate;
 import org.n52.sos.ds.hibernate.cache.InitialCacheUpdate;
+import org.n52.sos.ds.hibernate.dao.ObservationDAO;
 import org.n52.sos.exception.ConfigurationException;
 import org.n52.sos.ogc.ows.CompositeOwsException;
 import org.n52.sos.ogc.ows.OwsExceptionReport;
@@ -41,12 +44,42 @@ import org.slf4j.LoggerFactory;
 
 /**
  * Implementation of the interface CacheFeederDAO
+ * <p/>
+ * Remembers the highest observation id of the last successful update, so an
+ * incremental update only has to query the offerings, procedures and features
+ * of the observations inserted since then.
+ * <p/>
+ * Observation ids are assigned when an observation is inserted, but the
+ * observation becomes visible only when its transaction commits, so a
+ * transaction holding a lower id may commit after a higher id was already
+ * applied. Each incremental update therefore scans again the observations
+ * above the watermark of the update before the last one, but at least the
+ * last {@value #OBSERVATION_ID_OVERLAP} ids below the current watermark. An
+ * observation is missed only if its transaction commits after both windows
+ * passed. Re-applying an observation does not change the cache.
+ * <p/>
+ * Deleted content is not seen by the watermark. An incremental update is
+ * refused if observations were removed from the start or the end of the id
+ * range, e.g. by a cleanup of old observations. Sensor deletions are applied
+ * to the cache directly and request a complete update from the cache
+ * controller. All other changes, like missed late commits or observations
+ * deleted in between, are only reflected by the next complete update, which
+ * the cache controller executes periodically even if incremental updates are
+ * enabled (setting <code>service.capabilitiesCacheCompleteUpdateInterval</code>).
+ * Without periodic complete updates these changes are not reflected until
+ * the cache is reloaded.
  *
  */
 @Configurable
 public class SosCacheFeederDAO extends HibernateSessionHolder implements CacheFeederDAO {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(SosCacheFeederDAO.class);
+
+    /**
+     * The minimal number of observation ids below the watermark that are
+     * scanned again by an incremental update.
+     */
+    private static final long OBSERVATION_ID_OVERLAP = 1000;
     
     /**
      * Defines the number of threads available in the thread pool of the cache
@@ -54,6 +87,22 @@ public class SosCacheFeederDAO extends HibernateSessionHolder implements CacheFe
      */
     private int cacheThreadCount = 5;
 
+    /**
+     * The highest observation id that was applied to the cache, {@code -1} if
+     * there was no complete update yet.
+     */
+    private volatile long lastObservationId = -1;
+
+    /**
+     * The watermark of the update before the last one.
+     */
+    private volatile long previousObservationId = -1;
+
+    /**
+     * The lowest observation id at the last update.
+     */
+    private volatile long firstObservationId = -1;
+
     public int getCacheThreadCount() {
         return cacheThreadCount;
     }
@@ -71,17 +120,18 @@ public class SosCacheFeederDAO extends HibernateSessionHolder implements CacheFe
         }
         CompositeOwsException errors = new CompositeOwsException();
         Session session = null;
-        //give procedure cache update 20% of the threads, the rest to offering cache update
-        int procedureCacheUpdateThreads = Math.max(Math.round(getCacheThreadCount() * 0.2f), 1);
-        int offeringCacheUpdateThreads = Math.max(getCacheThreadCount() - procedureCacheUpdateThreads, 1);
         try {
-            InitialCacheUpdate update = new InitialCacheUpdate(offeringCacheUpdateThreads,
-                    procedureCacheUpdateThreads);
             session = getSession();
-            update.setCache(cache);
-            update.setErrors(errors);
-            update.setSession(session);
-            update.execute();
+            ObservationDAO observationDAO = new ObservationDAO();
+            long maxObservationId = observationDAO.getMaxObservationId(session);
+            long minObservationId = observationDAO.getMinObservationId(session);
+            InitialCacheUpdate update = new InitialCacheUpdate(getProcedureCacheUpdateThreads());
+            execute(update, cache, errors, session);
+            if (!errors.hasExceptions()) {
+                this.previousObservationId = maxObservationId;
+                this.lastObservationId = maxObservationId;
+                this.firstObservationId = minObservationId;
+            }
         } catch (HibernateException he) {
             LOGGER.error("Error while updating ContentCache!", he);
         } finally {
@@ -89,4 +139,73 @@ public class SosCacheFeederDAO extends HibernateSessionHolder implements CacheFe
         }
         errors.throwIfNotEmpty();
     }
+
+    @Override
+    public boolean updateCacheIncrementally(WritableContentCache cache) throws OwsExceptionReport {
+        if (cache == null) {
+            throw new NullPointerException("cache is null");
+        }
+        long last = this.lastObservationId;
+        if (last < 0) {
+            LOGGER.debug("No complete cache update yet, incremental update not possible.");
+            return false;
+        }
+        CompositeOwsException errors = new CompositeOwsException();
+        Session session = null;
+        try {
+            session = getSession();
+            ObservationDAO observationDAO = new ObservationDAO();
+            long maxObservationId = observationDAO.getMaxObservationId(session);
+            if (maxObservationId < last) {
+                LOGGER.debug("Max observation id decreased from {} to {}, incremental update not possible.", last,
+                        maxObservationId);
+                return false;
+            }
+            long first = this.firstObservationId;
+            long minObservationId = observationDAO.getMinObservationId(session);
+            if (first > 0 && minObservationId > first) {
+                LOGGER.debug("Min observation id increased from {} to {}, incremental update not possible.", first,
+                        minObservationId);
+                return false;
+            }
+            long from = Math.max(0, Math.min(this.previousObservationId, last - OBSERVATION_ID_OVERLAP));
+            LOGGER.debug("Updating ContentCache with observations {} to {}", from + 1, maxObservationId);
+            DeltaCacheUpdate update = new DeltaCacheUpdate(getOfferingCacheUpdateThreads(),
+                    getProcedureCacheUpdateThreads(), from);
+            execute(update, cache, errors, session);
+            if (!errors.hasExceptions()) {
+                this.previousObservationId = last;
+                this.lastObservationId = maxObservationId;
+                if (first <= 0) {
+                    this.firstObservationId = minObservationId;
+                }
+            }
+        } catch (HibernateException he) {
+            LOGGER.error("Error while updating ContentCache!", he);
+        } finally {
+            returnSession(session);
+        }
+        errors.throwIfNotEmpty();
+        return true;
+    }
+
+    private void execute(CompositeCacheUpdate update, WritableContentCache cache, CompositeOwsException errors,
+            Session session) {
+        update.setCache(cache);
+        update.setErrors(errors);
+        update.setSession(session);
+        update.execute();
+    }
+
+    /**
+     * give procedure cache update 20% of the threads, the rest to offering
+     * cache update
+     */
+    private int getProcedureCacheUpdateThreads() {
+        return Math.max(Math.round(getCacheThreadCount() * 0.2f), 1);
+    }
+
+    private int getOfferingCacheUpdateThreads() {
+        return Math.max(getCacheThreadCount() - getProcedureCacheUpdateThreads(), 1);
+    }
 }
@@ -37,6 +37,7 @@ import org.hibernate.Transaction;
 import org.hibernate.jdbc.ReturningWork;
 import org.n52.sos.ds.GeneralQueryDAO;
 import org.n52.sos.ds.hibernate.HibernateSessionHolder;
+import org.n52.sos.ds.hibernate.util.FirstLatestObservationIndex;
 import org.n52.sos.util.SQLHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -104,6 +105,8 @@ public class HibernateGeneralQueryDAO implements GeneralQueryDAO {
             try {
                 QueryResult result = s.doReturningWork(work.setQuery(query));
                 t.commit();
+                // the statement may have modified the observations
+                FirstLatestObservationIndex.getInstance().invalidate();
                 return result;
             } catch (HibernateException e) {
                 t.rollback();
@@ -0,0 +1,54 @@
+/**
+ * Copyright (C) 2013
+ * by 52 North Initiative for Geospatial Open Source Software GmbH
+ *
+ * Contact: Andreas Wytzisk
+ * 52 North Initiative for Geospatial Open Source Software GmbH
+ * Martin-Luther-King-Weg 24
+ * 48155 Muenster, Germany
+ * info@52north.org
+ *
+ * This program is free software; you can redistribute and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the
+ * Free Software Foundation.
+ *
+ * This program is distributed WITHOUT ANY WARRANTY; even without the implied
+ * WARRANTY OF MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program (see gnu-gpl v2.txt). If not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA or
+ * visit the Free Software Foundation web page, http://www.fsf.org.
+ */
+package org.n52.sos.ds.hibernate.cache;
+
+import org.n52.sos.ds.hibernate.cache.base.FeatureOfInterestCacheUpdate;
+import org.n52.sos.ds.hibernate.cache.base.ObservablePropertiesCacheUpdate;
+import org.n52.sos.ds.hibernate.cache.base.ObservationIdentifiersCacheUpdate;
+import org.n52.sos.ds.hibernate.cache.base.ObservationTimeCacheUpdate;
+import org.n52.sos.ds.hibernate.cache.base.OfferingCacheUpdate;
+import org.n52.sos.ds.hibernate.cache.base.ProcedureCacheUpdate;
+
+/**
+ * Applies the observations inserted after a known observation to an existing cache.
+ * <p/>
+ * Only the offerings, procedures and features of interest of these observations are queried again, the global
+ * envelope is extended by the envelope of the features. Applying an observation again does not change the cache, so
+ * the known observation may be chosen below the last applied one to catch observations whose transaction committed
+ * late (see {@link org.n52.sos.ds.hibernate.SosCacheFeederDAO}). Deleted observations and entities are not detected,
+ * these require a complete {@link InitialCacheUpdate}.
+ *
+ * @since 4.0.0
+ */
+public class DeltaCacheUpdate extends CompositeCacheUpdate {
+
+    public DeltaCacheUpdate(int offeringThreads, int procedureThreads, long lastObservationId) {
+        super(new OfferingCacheUpdate(offeringThreads, lastObservationId),
+              new ProcedureCacheUpdate(procedureThreads, lastObservationId),
+              new ObservablePropertiesCacheUpdate(),
+              new FeatureOfInterestCacheUpdate(lastObservationId),
+              new ObservationIdentifiersCacheUpdate(lastObservationId),
+              new ObservationTimeCacheUpdate());
+    }
+}
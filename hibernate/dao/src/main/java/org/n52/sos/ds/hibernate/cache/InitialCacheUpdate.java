@@ -23,12 +23,12 @@
  */
 package org.n52.sos.ds.hibernate.cache;
 
+import org.n52.sos.ds.hibernate.cache.base.BulkOfferingCacheUpdate;
 import org.n52.sos.ds.hibernate.cache.base.CompositePhenomenonCacheUpdate;
 import org.n52.sos.ds.hibernate.cache.base.FeatureOfInterestCacheUpdate;
 import org.n52.sos.ds.hibernate.cache.base.ObservablePropertiesCacheUpdate;
 import org.n52.sos.ds.hibernate.cache.base.ObservationIdentifiersCacheUpdate;
 import org.n52.sos.ds.hibernate.cache.base.ObservationTimeCacheUpdate;
-import org.n52.sos.ds.hibernate.cache.base.OfferingCacheUpdate;
 import org.n52.sos.ds.hibernate.cache.base.ProcedureCacheUpdate;
 import org.n52.sos.ds.hibernate.cache.base.RelatedFeaturesCacheUpdate;
 import org.n52.sos.ds.hibernate.cache.base.ResultTemplateCacheUpdate;
@@ -43,7 +43,7 @@ import org.n52.sos.ds.hibernate.cache.base.SridCacheUpdate;
  * @see FeatureOfInterestCacheUpdate
  * @see ObservablePropertiesCacheUpdate
  * @see ObservationIdentifiersCacheUpdate
- * @see OfferingCacheUpdate
+ * @see BulkOfferingCacheUpdate
  * @see ProcedureCacheUpdate
  * @see RelatedFeaturesCacheUpdate
  * @see ResultTemplateCacheUpdate
@@ -52,8 +52,8 @@ import org.n52.sos.ds.hibernate.cache.base.SridCacheUpdate;
  */
 public class InitialCacheUpdate extends CompositeCacheUpdate {
 
-    public InitialCacheUpdate(int offeringThreads, int procedureThreads) {
-        super(new OfferingCacheUpdate(offeringThreads),
+    public InitialCacheUpdate(int procedureThreads) {
+        super(new BulkOfferingCacheUpdate(),
               new ProcedureCacheUpdate(procedureThreads),
               new ObservablePropertiesCacheUpdate(),
               new FeatureOfInterestCacheUpdate(),
@@ -0,0 +1,168 @@
+/**
+ * Copyright (C) 2013
+ * by 52 North Initiative for Geospatial Open Source Software GmbH
+ *
+ * Contact: Andreas Wytzisk
+ * 52 North Initiative for Geospatial Open Source Software GmbH
+ * Martin-Luther-King-Weg 24
+ * 48155 Muenster, Germany
+ * info@52north.org
+ *
+ * This program is free software; you can redistribute and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the
+ * Free Software Foundation.
+ *
+ * This program is distributed WITHOUT ANY WARRANTY; even without the implied
+ * WARRANTY OF MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program (see gnu-gpl v2.txt). If not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA or
+ * visit the Free Software Foundation web page, http://www.fsf.org.
+ */
+package org.n52.sos.ds.hibernate.cache.base;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.hibernate.criterion.Restrictions;
+import org.n52.sos.ds.FeatureQueryHandler;
+import org.n52.sos.ds.hibernate.cache.AbstractDatasourceCacheUpdate;
+import org.n52.sos.ds.hibernate.dao.ObservablePropertyDAO;
+import org.n52.sos.ds.hibernate.dao.ObservationDAO;
+import org.n52.sos.ds.hibernate.dao.OfferingDAO;
+import org.n52.sos.ds.hibernate.dao.OfferingDAO.OfferingTimeExtrema;
+import org.n52.sos.ds.hibernate.dao.ProcedureDAO;
+import org.n52.sos.ds.hibernate.entities.ObservationConstellation;
+import org.n52.sos.ds.hibernate.entities.Offering;
+import org.n52.sos.ds.hibernate.util.FeatureEnvelopeQueryHandler;
+import org.n52.sos.exception.ows.concrete.GenericThrowableWrapperException;
+import org.n52.sos.ogc.ows.OwsExceptionReport;
+import org.n52.sos.ogc.sos.SosEnvelope;
+import org.n52.sos.service.Configurator;
+import org.n52.sos.util.CollectionHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Updates the offering information of the cache for all offerings at once.
+ * Instead of querying the observation constellations, features, time extrema
+ * and envelopes for each offering separately, they are loaded with a single
+ * query each and grouped by offering. The procedures, observable properties
+ * and observation types of offerings without observation constellations are
+ * derived from their observations, again with one query for all of these
+ * offerings (one per observation sub class for the observation types).
+ * 
+ * @see OfferingCacheUpdate
+ * @since 4.0.0
+ */
+public class BulkOfferingCacheUpdate extends AbstractDatasourceCacheUpdate {
+    private static final Logger LOGGER = LoggerFactory.getLogger(BulkOfferingCacheUpdate.class);
+
+    @Override
+    public void execute() {
+        final OfferingDAO offeringDAO = new OfferingDAO();
+        final List<Offering> offerings = offeringDAO.getOfferingObjects(getSession());
+        final Map<String, List<ObservationConstellation>> observationConstellations = getObservationConstellations();
+        final Map<String, Set<String>> features = offeringDAO.getFeatureOfInterestIdentifiersForOfferings(getSession());
+        final Map<String, OfferingTimeExtrema> times = offeringDAO.getTimeExtremaForOfferings(getSession());
+        final Map<String, SosEnvelope> envelopes = getEnvelopes(features);
+        final Set<String> withoutConstellations = new HashSet<String>(0);
+        for (final Offering offering : offerings) {
+            if (CollectionHelper.isEmpty(observationConstellations.get(offering.getIdentifier()))) {
+                withoutConstellations.add(offering.getIdentifier());
+            }
+        }
+        Map<String, Set<String>> procedures = Collections.emptyMap();
+        Map<String, Set<String>> observableProperties = Collections.emptyMap();
+        Map<String, String> observationTypes = Collections.emptyMap();
+        if (!withoutConstellations.isEmpty()) {
+            procedures = new ProcedureDAO().getProcedureIdentifiersForOfferings(withoutConstellations, getSession());
+            observableProperties = new ObservablePropertyDAO()
+                    .getObservablePropertyIdentifiersForOfferings(withoutConstellations, getSession());
+            observationTypes = new ObservationDAO().getObservationTypesForOfferings(withoutConstellations, getSession());
+        }
+        for (final Offering offering : offerings) {
+            final List<ObservationConstellation> ocs = observationConstellations.get(offering.getIdentifier());
+            final OfferingTimeExtrema time = times.get(offering.getIdentifier());
+            if (ocs == null && time == null) {
+                LOGGER.debug("Offering '{}' contains deleted procedure and is skipped.", offering.getIdentifier());
+                continue;
+            }
+            final Set<String> featureIdentifiers = features.get(offering.getIdentifier());
+            final String observationType = observationTypes.get(offering.getIdentifier());
+            try {
+                final OfferingCacheUpdateTask task = new OfferingCacheUpdateTask()
+                        .setWritableContentCache(getCache())
+                        .setOffering(offering)
+                        .setObservationConstellations(
+                                ocs == null ? CollectionHelper.<ObservationConstellation> list() : ocs)
+                        .setProcedureIdentifiersFromObservations(
+                                nullToEmpty(procedures.get(offering.getIdentifier())))
+                        .setObservablePropertyIdentifiersFromObservations(
+                                nullToEmpty(observableProperties.get(offering.getIdentifier())))
+                        .setObservationTypesFromObservations(observationType == null ? Collections.<String> emptySet()
+                                : Collections.singleton(observationType));
+                if (envelopes != null) {
+                    task.setEnvelope(envelopes.get(offering.getIdentifier()));
+                }
+                task.addOfferingInformationToCacheMaps(
+                        featureIdentifiers == null ? Collections.<String> emptySet() : featureIdentifiers,
+                        time == null ? new OfferingTimeExtrema(null, null, null, null) : time, getSession());
+            } catch (final OwsExceptionReport owse) {
+                getErrors().add(owse);
+            } catch (final Exception e) {
+                getErrors().add(
+                        new GenericThrowableWrapperException(e)
+                                .withMessage("Error while processing offering cache update!"));
+            }
+        }
+    }
+
+    /**
+     * Query the envelopes of the features of all offerings at once.
+     * 
+     * @param features
+     *            the feature identifiers of each offering
+     * @return the envelope of each offering or <code>null</code> if the
+     *         feature query handler can only query them for each offering
+     */
+    protected Map<String, SosEnvelope> getEnvelopes(final Map<String, Set<String>> features) {
+        final FeatureQueryHandler handler = Configurator.getInstance().getFeatureQueryHandler();
+        if (handler instanceof FeatureEnvelopeQueryHandler) {
+            try {
+                return ((FeatureEnvelopeQueryHandler) handler).getEnvelopesForFeatureIDs(features, getSession());
+            } catch (final OwsExceptionReport owse) {
+                LOGGER.warn("Error while querying the offering envelopes, querying them for each offering.", owse);
+            }
+        }
+        return null;
+    }
+
+    private Set<String> nullToEmpty(final Set<String> set) {
+        return set == null ? Collections.<String> emptySet() : set;
+    }
+
+    @SuppressWarnings("unchecked")
+    protected Map<String, List<ObservationConstellation>> getObservationConstellations() {
+        final List<ObservationConstellation> list =
+                getSession().createCriteria(ObservationConstellation.class)
+                        .add(Restrictions.eq(ObservationConstellation.DELETED, false)).list();
+        final Map<String, List<ObservationConstellation>> grouped =
+                new HashMap<String, List<ObservationConstellation>>();
+        for (final ObservationConstellation oc : list) {
+            List<ObservationConstellation> ocs = grouped.get(oc.getOffering().getIdentifier());
+            if (ocs == null) {
+                ocs = CollectionHelper.list();
+                grouped.put(oc.getOffering().getIdentifier(), ocs);
+            }
+            ocs.add(oc);
+        }
+        return grouped;
+    }
+}
@@ -25,6 +25,7 @@ package org.n52.sos.ds.hibernate.cache.base;
 
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import org.n52.sos.ds.hibernate.cache.AbstractDatasourceCacheUpdate;
@@ -33,17 +34,60 @@ import org.n52.sos.ds.hibernate.dao.ProcedureDAO;
 import org.n52.sos.ds.hibernate.entities.FeatureOfInterest;
 import org.n52.sos.ds.hibernate.entities.TFeatureOfInterest;
 import org.n52.sos.ogc.ows.OwsExceptionReport;
+import org.n52.sos.ogc.sos.SosEnvelope;
 
 /**
  *
  * @author Christian Autermann <c.autermann@52north.org>
  */
 public class FeatureOfInterestCacheUpdate extends AbstractDatasourceCacheUpdate {
-    
+    private final long lastObservationId;
+
+    public FeatureOfInterestCacheUpdate() {
+        this(-1);
+    }
+
+    /**
+     * @param lastObservationId only features of observations inserted after this observation are updated and the
+     *                          global envelope is extended instead of being recomputed, a negative value updates all
+     *                          features
+     */
+    public FeatureOfInterestCacheUpdate(long lastObservationId) {
+        this.lastObservationId = lastObservationId;
+    }
+
     @Override
     public void execute() {
+        if (lastObservationId < 0) {
+            updateFeatures(new FeatureOfInterestDAO().getFeatureOfInterestObjects(getSession()));
+            try {
+                getCache().setGlobalEnvelope(getFeatureQueryHandler().getEnvelopeForFeatureIDs(
+                        getCache().getFeaturesOfInterest(), getSession()));
+            } catch (OwsExceptionReport ex) {
+                getErrors().add(ex);
+            }
+        } else {
+            List<FeatureOfInterest> features = new FeatureOfInterestDAO()
+                    .getFeatureOfInterestObjectsForObservationsAfter(lastObservationId, getSession());
+            Set<String> identifiers = updateFeatures(features);
+            if (!identifiers.isEmpty()) {
+                try {
+                    SosEnvelope envelope = getFeatureQueryHandler().getEnvelopeForFeatureIDs(identifiers, getSession());
+                    if (envelope != null && envelope.isSetEnvelope()) {
+                        getCache().updateGlobalEnvelope(envelope.getEnvelope());
+                    }
+                } catch (OwsExceptionReport ex) {
+                    getErrors().add(ex);
+                }
+            }
+        }
+    }
+
+    protected Set<String> updateFeatures(Collection<FeatureOfInterest> featuresOfInterest) {
+        Set<String> identifiers = new HashSet<String>(featuresOfInterest.size());
         // FIXME shouldn't the identifiers be translated using CacheHelper.addPrefixAndGetFeatureIdentifier()?
-        for (FeatureOfInterest featureOfInterest : new FeatureOfInterestDAO().getFeatureOfInterestObjects(getSession())) {
+        for (FeatureOfInterest featureOfInterest : featuresOfInterest) {
+            identifiers.add(featureOfInterest.getIdentifier());
             getCache().addFeatureOfInterest(featureOfInterest.getIdentifier());
             getCache().setProceduresForFeatureOfInterest(featureOfInterest.getIdentifier(),
                     new ProcedureDAO().getProceduresForFeatureOfInterest(getSession(), featureOfInterest));
@@ -52,12 +96,7 @@ public class FeatureOfInterestCacheUpdate extends AbstractDatasourceCacheUpdate
                                                getFeatureIdentifiers(((TFeatureOfInterest)featureOfInterest).getChilds()));
             }
         }
-        try {
-            getCache().setGlobalEnvelope(getFeatureQueryHandler().getEnvelopeForFeatureIDs(
-                    getCache().getFeaturesOfInterest(), getSession()));
-        } catch (OwsExceptionReport ex) {
-            getErrors().add(ex);
-        }
+        return identifiers;
     }
 
     protected Set<String> getFeatureIdentifiers(Collection<FeatureOfInterest> featuresOfInterest) {
@@ -31,9 +31,27 @@ import org.n52.sos.ds.hibernate.dao.ObservationDAO;
  * @author Christian Autermann <c.autermann@52north.org>
  */
 public class ObservationIdentifiersCacheUpdate extends AbstractDatasourceCacheUpdate {
+    private final long lastObservationId;
+
+    public ObservationIdentifiersCacheUpdate() {
+        this(-1);
+    }
+
+    /**
+     * @param lastObservationId only identifiers of observations inserted after this observation are added, a negative
+     *                          value adds all identifiers
+     */
+    public ObservationIdentifiersCacheUpdate(long lastObservationId) {
+        this.lastObservationId = lastObservationId;
+    }
 
     @Override
     public void execute() {
-        getCache().addObservationIdentifiers(new ObservationDAO().getObservationIdentifiers(getSession()));
+        if (lastObservationId < 0) {
+            getCache().addObservationIdentifiers(new ObservationDAO().getObservationIdentifiers(getSession()));
+        } else {
+            getCache().addObservationIdentifiers(
+                    new ObservationDAO().getObservationIdentifiersAfter(lastObservationId, getSession()));
+        }
     }
 }
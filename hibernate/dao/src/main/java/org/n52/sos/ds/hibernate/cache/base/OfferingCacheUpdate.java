@@ -44,9 +44,20 @@ import org.slf4j.LoggerFactory;
 public class OfferingCacheUpdate extends AbstractQueuingDatasourceCacheUpdate<Offering> {
     private static final Logger LOGGER = LoggerFactory.getLogger(OfferingCacheUpdate.class);    
     private static final String THREAD_GROUP_NAME = "offering-cache-update";
+    private final long lastObservationId;
 
     public OfferingCacheUpdate(int threads) {
+        this(threads, -1);
+    }
+
+    /**
+     * @param threads           the number of threads
+     * @param lastObservationId only offerings of observations inserted after this observation are updated, a negative
+     *                          value updates all offerings
+     */
+    public OfferingCacheUpdate(int threads, long lastObservationId) {
         super(threads);
+        this.lastObservationId = lastObservationId;
     }
 
     @Override
@@ -56,7 +67,10 @@ public class OfferingCacheUpdate extends AbstractQueuingDatasourceCacheUpdate<Of
 
     @Override
     protected List<Offering> getObjectsToQueue() {
-        return new OfferingDAO().getOfferingObjects(getSession());
+        if (lastObservationId < 0) {
+            return new OfferingDAO().getOfferingObjects(getSession());
+        }
+        return new OfferingDAO().getOfferingObjectsForObservationsAfter(lastObservationId, getSession());
     }    
 
     @Override    
@@ -39,6 +39,7 @@ import org.n52.sos.ds.hibernate.dao.FeatureOfInterestDAO;
 import org.n52.sos.ds.hibernate.dao.ObservablePropertyDAO;
 import org.n52.sos.ds.hibernate.dao.ObservationDAO;
 import org.n52.sos.ds.hibernate.dao.OfferingDAO;
+import org.n52.sos.ds.hibernate.dao.OfferingDAO.OfferingTimeExtrema;
 import org.n52.sos.ds.hibernate.dao.ProcedureDAO;
 import org.n52.sos.ds.hibernate.entities.ObservationConstellation;
 import org.n52.sos.ds.hibernate.entities.ObservationType;
@@ -76,6 +77,16 @@ class OfferingCacheUpdateTask extends RunnableAction {
 
     private List<ObservationConstellation> observationConstellations = CollectionHelper.list();
 
+    private Collection<String> procedureIdentifiersFromObservations;
+
+    private Collection<String> observablePropertyIdentifiersFromObservations;
+
+    private Set<String> observationTypesFromObservations;
+
+    private boolean envelopeLoaded = false;
+
+    private SosEnvelope envelope;
+
     OfferingCacheUpdateTask() {
     }
 
@@ -110,6 +121,47 @@ class OfferingCacheUpdateTask extends RunnableAction {
         return this;
     }
 
+    /**
+     * Set the procedure identifiers of the observations of the offering, if
+     * they were queried for all offerings at once. They are only used if the
+     * offering has no observation constellations.
+     */
+    protected OfferingCacheUpdateTask setProcedureIdentifiersFromObservations(Collection<String> procedureIdentifiers) {
+        this.procedureIdentifiersFromObservations = procedureIdentifiers;
+        return this;
+    }
+
+    /**
+     * Set the observable property identifiers of the observations of the
+     * offering, if they were queried for all offerings at once. They are only
+     * used if the offering has no observation constellations.
+     */
+    protected OfferingCacheUpdateTask setObservablePropertyIdentifiersFromObservations(
+            Collection<String> observablePropertyIdentifiers) {
+        this.observablePropertyIdentifiersFromObservations = observablePropertyIdentifiers;
+        return this;
+    }
+
+    /**
+     * Set the observation types of the observations of the offering, if they
+     * were queried for all offerings at once. They are only used if the
+     * offering has no observation constellations.
+     */
+    protected OfferingCacheUpdateTask setObservationTypesFromObservations(Set<String> observationTypes) {
+        this.observationTypesFromObservations = observationTypes;
+        return this;
+    }
+
+    /**
+     * Set the envelope of the features of the offering, if it was queried for
+     * all offerings at once.
+     */
+    protected OfferingCacheUpdateTask setEnvelope(SosEnvelope envelope) {
+        this.envelope = envelope;
+        this.envelopeLoaded = true;
+        return this;
+    }
+
     protected CountDownLatch getCountDownLatch() {
         return countDownLatch;
     }
@@ -136,6 +188,34 @@ class OfferingCacheUpdateTask extends RunnableAction {
 
     protected void getOfferingInformationFromDbAndAddItToCacheMaps(Session session) throws OwsExceptionReport {
         String dsOfferingId = getOffering().getIdentifier();
+        List<String> featureOfInterestIdentifiers =
+                new FeatureOfInterestDAO().getFeatureOfInterestIdentifiersForOffering(dsOfferingId, session);
+        OfferingDAO offeringDAO = new OfferingDAO();
+        OfferingTimeExtrema times =
+                new OfferingTimeExtrema(offeringDAO.getMinDate4Offering(dsOfferingId, session),
+                        offeringDAO.getMaxDate4Offering(dsOfferingId, session),
+                        offeringDAO.getMinResultTime4Offering(dsOfferingId, session),
+                        offeringDAO.getMaxResultTime4Offering(dsOfferingId, session));
+        addOfferingInformationToCacheMaps(featureOfInterestIdentifiers, times, session);
+    }
+
+    /**
+     * Adds the information of the offering to the cache. The feature
+     * identifiers and the time extrema are passed in, so they can be queried
+     * for all offerings at once.
+     * 
+     * @param featureOfInterestIdentifiers
+     *            the featureOfInterest identifiers of the offering
+     * @param times
+     *            the time extrema of the offering
+     * @param session
+     *            Hibernate session
+     * @throws OwsExceptionReport
+     *             If the envelope could not be queried
+     */
+    protected void addOfferingInformationToCacheMaps(Collection<String> featureOfInterestIdentifiers,
+            OfferingTimeExtrema times, Session session) throws OwsExceptionReport {
+        String dsOfferingId = getOffering().getIdentifier();
         String offeringId = CacheHelper.addPrefixOrGetOfferingIdentifier(dsOfferingId);
 
         getCache().addOffering(offeringId);
@@ -159,22 +239,16 @@ class OfferingCacheUpdateTask extends RunnableAction {
                     getObservationTypesFromObservationType(((TOffering) getOffering()).getObservationTypes()));
         }
         // Spatial Envelope
-        getCache().setEnvelopeForOffering(offeringId, getEnvelopeForOffering(dsOfferingId, session));
+        getCache().setEnvelopeForOffering(offeringId,
+                envelopeLoaded ? envelope : getEnvelopeForOffering(featureOfInterestIdentifiers, session));
         // Features of Interest
-        List<String> featureOfInterestIdentifiers =
-                new FeatureOfInterestDAO().getFeatureOfInterestIdentifiersForOffering(dsOfferingId, session);
         getCache().setFeaturesOfInterestForOffering(offeringId,
                 getValidFeaturesOfInterestFrom(featureOfInterestIdentifiers));
         // Temporal Envelope
-        OfferingDAO offeringDAO = new OfferingDAO();
-        getCache().setMinPhenomenonTimeForOffering(offeringId,
-                offeringDAO.getMinDate4Offering(dsOfferingId, session));
-        getCache().setMaxPhenomenonTimeForOffering(offeringId,
-                offeringDAO.getMaxDate4Offering(dsOfferingId, session));
-        getCache().setMinResultTimeForOffering(offeringId,
-                offeringDAO.getMinResultTime4Offering(dsOfferingId, session));
-        getCache().setMaxResultTimeForOffering(offeringId,
-                offeringDAO.getMaxResultTime4Offering(dsOfferingId, session));
+        getCache().setMinPhenomenonTimeForOffering(offeringId, times.getMinPhenomenonTime());
+        getCache().setMaxPhenomenonTimeForOffering(offeringId, times.getMaxPhenomenonTime());
+        getCache().setMinResultTimeForOffering(offeringId, times.getMinResultTime());
+        getCache().setMaxResultTimeForOffering(offeringId, times.getMaxResultTime());
     }
 
     protected Map<ProcedureFlag, Set<String>> getProcedureIdentifier(Session session) {
@@ -189,7 +263,10 @@ class OfferingCacheUpdateTask extends RunnableAction {
                 }
             }
         } else {
-            List<String> list = new ProcedureDAO().getProcedureIdentifiersForOffering(getOffering().getIdentifier(), session);
+            Collection<String> list = procedureIdentifiersFromObservations;
+            if (list == null) {
+                list = new ProcedureDAO().getProcedureIdentifiersForOffering(getOffering().getIdentifier(), session);
+            }
             if (list.size() > 1) {
                 throw new RuntimeException(String.format("There are more than one procedures defined for the offering '%s'!", getOffering().getIdentifier()));
             }
@@ -214,7 +291,7 @@ class OfferingCacheUpdateTask extends RunnableAction {
         return relatedFeatureList;
     }
 
-    protected Collection<String> getValidFeaturesOfInterestFrom(List<String> featureOfInterestIdentifiers) {
+    protected Collection<String> getValidFeaturesOfInterestFrom(Collection<String> featureOfInterestIdentifiers) {
         Set<String> features = new HashSet<String>(featureOfInterestIdentifiers.size());
         for (String featureIdentifier : featureOfInterestIdentifiers) {
             features.add(CacheHelper.addPrefixOrGetFeatureIdentifier(featureIdentifier));
@@ -227,7 +304,10 @@ class OfferingCacheUpdateTask extends RunnableAction {
             return DatasourceCacheUpdateHelper.getAllObservablePropertyIdentifiersFrom(getObservationConstellations());
         } else {
             Set<String> observableProperties = CollectionHelper.set();
-            List<String> list = new ObservablePropertyDAO().getObservablePropertyIdentifiersForOffering(getOffering().getIdentifier(), session);
+            Collection<String> list = observablePropertyIdentifiersFromObservations;
+            if (list == null) {
+                list = new ObservablePropertyDAO().getObservablePropertyIdentifiersForOffering(getOffering().getIdentifier(), session);
+            }
             for (String observablePropertyIdentifier : list) {
                 observableProperties.add(CacheHelper.addPrefixOrGetObservablePropertyIdentifier(observablePropertyIdentifier));
             }
@@ -244,6 +324,8 @@ class OfferingCacheUpdateTask extends RunnableAction {
                 }
             }
             return observationTypes;
+        } else if (observationTypesFromObservations != null) {
+            return observationTypesFromObservations;
         } else {
            return getObservationTypesFromObservations(session); 
         }
@@ -272,8 +354,8 @@ class OfferingCacheUpdateTask extends RunnableAction {
         return observationTypes;
     }
 
-    protected SosEnvelope getEnvelopeForOffering(String offeringID, Session session) throws OwsExceptionReport {
-        List<String> featureIDs = new FeatureOfInterestDAO().getFeatureOfInterestIdentifiersForOffering(offeringID, session);
+    protected SosEnvelope getEnvelopeForOffering(Collection<String> featureIDs, Session session)
+            throws OwsExceptionReport {
         if (featureIDs != null && !featureIDs.isEmpty()) {
             return Configurator.getInstance().getFeatureQueryHandler().getEnvelopeForFeatureIDs(featureIDs, session);
         }
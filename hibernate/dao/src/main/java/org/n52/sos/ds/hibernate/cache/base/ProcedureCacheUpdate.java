@@ -39,9 +39,20 @@ import org.slf4j.LoggerFactory;
 public class ProcedureCacheUpdate extends AbstractQueuingDatasourceCacheUpdate<Procedure> {   
     private static final Logger LOGGER = LoggerFactory.getLogger(ProcedureCacheUpdate.class);    
     private static final String THREAD_GROUP_NAME = "procedure-cache-update";
+    private final long lastObservationId;
     
     public ProcedureCacheUpdate(int threads) {
+        this(threads, -1);
+    }
+
+    /**
+     * @param threads           the number of threads
+     * @param lastObservationId only procedures of observations inserted after this observation are updated, a
+     *                          negative value updates all procedures
+     */
+    public ProcedureCacheUpdate(int threads, long lastObservationId) {
         super(threads);
+        this.lastObservationId = lastObservationId;
     }
 
     @Override
@@ -51,7 +62,10 @@ public class ProcedureCacheUpdate extends AbstractQueuingDatasourceCacheUpdate<P
 
     @Override
     protected List<Procedure> getObjectsToQueue() {
-        return new ProcedureDAO().getProcedureObjects(getSession());
+        if (lastObservationId < 0) {
+            return new ProcedureDAO().getProcedureObjects(getSession());
+        }
+        return new ProcedureDAO().getProcedureObjectsForObservationsAfter(lastObservationId, getSession());
     }
 
     @Override
@@ -0,0 +1,257 @@
+/**
+ * Copyright (C) 2013
+ * by 52 North Initiative for Geospatial Open Source Software GmbH
+ *
+ * Contact: Andreas Wytzisk
+ * 52 North Initiative for Geospatial Open Source Software GmbH
+ * Martin-Luther-King-Weg 24
+ * 48155 Muenster, Germany
+ * info@52north.org
+ *
+ * This program is free software; you can redistribute and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the
+ * Free Software Foundation.
+ *
+ * This program is distributed WITHOUT ANY WARRANTY; even without the implied
+ * WARRANTY OF MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program (see gnu-gpl v2.txt). If not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA or
+ * visit the Free Software Foundation web page, http://www.fsf.org.
+ */
+package org.n52.sos.ds.hibernate.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.n52.sos.ds.hibernate.entities.ResultTemplate;
+import org.n52.sos.ogc.ows.OwsExceptionReport;
+import org.n52.sos.ogc.sos.SosResultEncoding;
+import org.n52.sos.ogc.sos.SosResultStructure;
+import org.n52.sos.ogc.swe.SweAbstractDataComponent;
+import org.n52.sos.ogc.swe.SweDataArray;
+import org.n52.sos.ogc.swe.SweDataRecord;
+import org.n52.sos.ogc.swe.SweField;
+import org.n52.sos.ogc.swe.encoding.SweAbstractEncoding;
+import org.n52.sos.ogc.swe.simpleType.SweAbstractSimpleType;
+import org.n52.sos.ogc.swe.simpleType.SweQuantity;
+
+/**
+ * Result encoding and structure of a {@link ResultTemplate} that are decoded
+ * once, together with the field layout of the structure that is needed to
+ * parse or create result values.
+ * <p/>
+ * Instances are shared between requests by the {@link ResultTemplateCache},
+ * the decoded encoding and structure must not be modified. Use
+ * {@link #getRecord()} to get a record for new result values.
+ * 
+ * @since 4.0.0
+ */
+public class DecodedResultTemplate {
+
+    private final String identifier;
+
+    private final String resultEncodingXml;
+
+    private final String resultStructureXml;
+
+    private final SosResultEncoding resultEncoding;
+
+    private final SosResultStructure resultStructure;
+
+    private final SweDataRecord record;
+
+    private final int resultTimeIndex;
+
+    private final int phenomenonTimeIndex;
+
+    private final String tokenSeparator;
+
+    private final String blockSeparator;
+
+    private final SortedMap<Integer, String> valueOrder;
+
+    private final Map<Integer, String> observedProperties;
+
+    private final Map<Integer, String> units;
+
+    /**
+     * Decode the result encoding and structure of the result template
+     * 
+     * @param resultTemplate
+     *            the result template
+     * 
+     * @throws OwsExceptionReport
+     *             If the encoding or structure can not be decoded
+     */
+    public DecodedResultTemplate(final ResultTemplate resultTemplate) throws OwsExceptionReport {
+        this.identifier = resultTemplate.getIdentifier();
+        this.resultEncodingXml = resultTemplate.getResultEncoding();
+        this.resultStructureXml = resultTemplate.getResultStructure();
+        this.resultEncoding = new SosResultEncoding(resultEncodingXml);
+        this.resultStructure = new SosResultStructure(resultStructureXml);
+        final SweAbstractEncoding encoding = resultEncoding.getEncoding();
+        this.tokenSeparator = ResultHandlingHelper.getTokenSeparator(encoding);
+        this.blockSeparator = ResultHandlingHelper.getBlockSeparator(encoding);
+        final SweAbstractDataComponent structure = resultStructure.getResultStructure();
+        this.resultTimeIndex = ResultHandlingHelper.hasResultTime(structure);
+        this.phenomenonTimeIndex = ResultHandlingHelper.hasPhenomenonTime(structure);
+        this.record = getRecord(structure);
+        final SortedMap<Integer, String> order = new TreeMap<Integer, String>();
+        final Map<Integer, String> properties = new HashMap<Integer, String>();
+        final Map<Integer, String> uoms = new HashMap<Integer, String>();
+        if (record != null) {
+            final List<SweField> fields = record.getFields();
+            for (int i = 0; i < fields.size(); i++) {
+                final SweAbstractDataComponent element = fields.get(i).getElement();
+                if (element instanceof SweAbstractSimpleType && element.isSetDefinition()) {
+                    order.put(i, element.getDefinition());
+                }
+                if (i != resultTimeIndex && i != phenomenonTimeIndex) {
+                    properties.put(i, element.getDefinition());
+                    if (element instanceof SweQuantity) {
+                        /* TODO units for other SosSweSimpleTypes? */
+                        uoms.put(i, ((SweQuantity) element).getUom());
+                    }
+                }
+            }
+        }
+        this.valueOrder = Collections.unmodifiableSortedMap(order);
+        this.observedProperties = Collections.unmodifiableMap(properties);
+        this.units = Collections.unmodifiableMap(uoms);
+    }
+
+    private static SweDataRecord getRecord(final SweAbstractDataComponent structure) {
+        if (structure instanceof SweDataArray && ((SweDataArray) structure).getElementType() instanceof SweDataRecord) {
+            return (SweDataRecord) ((SweDataArray) structure).getElementType();
+        } else if (structure instanceof SweDataRecord) {
+            return (SweDataRecord) structure;
+        }
+        return null;
+    }
+
+    /**
+     * @return <code>true</code> if this was decoded from the current encoding
+     *         and structure of the result template
+     */
+    public boolean isDecodedFrom(final ResultTemplate resultTemplate) {
+        return identifier.equals(resultTemplate.getIdentifier())
+                && resultEncodingXml.equals(resultTemplate.getResultEncoding())
+                && resultStructureXml.equals(resultTemplate.getResultStructure());
+    }
+
+    public String getIdentifier() {
+        return identifier;
+    }
+
+    public SosResultEncoding getResultEncoding() {
+        return resultEncoding;
+    }
+
+    public SosResultStructure getResultStructure() {
+        return resultStructure;
+    }
+
+    public SweAbstractEncoding getEncoding() throws OwsExceptionReport {
+        return resultEncoding.getEncoding();
+    }
+
+    /**
+     * @return a copy of the record of the result structure or
+     *         <code>null</code> if the structure is neither a record nor an
+     *         array of records. The fields of the copy can be changed, the
+     *         elements of the fields are still shared and must not be
+     *         modified.
+     */
+    public SweDataRecord getRecord() {
+        if (record == null) {
+            return null;
+        }
+        final SweDataRecord copy = new SweDataRecord();
+        copyComponent(record, copy);
+        if (record.getFields() != null) {
+            final List<SweField> fields = new ArrayList<SweField>(record.getFields().size());
+            for (final SweField field : record.getFields()) {
+                final SweField fieldCopy = new SweField(field.getName(), field.getElement());
+                copyComponent(field, fieldCopy);
+                fields.add(fieldCopy);
+            }
+            copy.setFields(fields);
+        }
+        return copy;
+    }
+
+    private static void copyComponent(final SweAbstractDataComponent from, final SweAbstractDataComponent to) {
+        to.setDefinition(from.getDefinition());
+        to.setDescription(from.getDescription());
+        to.setLabel(from.getLabel());
+        to.setIdentifier(from.getIdentifier());
+        to.setXml(from.getXml());
+    }
+
+    /**
+     * @return <code>true</code> if the result structure is a record or an
+     *         array of records
+     */
+    public boolean hasRecord() {
+        return record != null;
+    }
+
+    /**
+     * @return the index of the result time field or <code>-1</code>
+     */
+    public int getResultTimeIndex() {
+        return resultTimeIndex;
+    }
+
+    /**
+     * @return the index of the phenomenon time field or <code>-1</code>
+     */
+    public int getPhenomenonTimeIndex() {
+        return phenomenonTimeIndex;
+    }
+
+    /**
+     * @return the token separator or <code>null</code> if the encoding is no
+     *         text encoding
+     */
+    public String getTokenSeparator() {
+        return tokenSeparator;
+    }
+
+    /**
+     * @return the block separator or <code>null</code> if the encoding is no
+     *         text encoding
+     */
+    public String getBlockSeparator() {
+        return blockSeparator;
+    }
+
+    /**
+     * @return the definitions of the simple fields by field index
+     */
+    public SortedMap<Integer, String> getValueOrder() {
+        return valueOrder;
+    }
+
+    /**
+     * @return the definitions of the value fields by field index
+     */
+    public Map<Integer, String> getObservedProperties() {
+        return observedProperties;
+    }
+
+    /**
+     * @return the units of measurement of the quantity fields by field index
+     */
+    public Map<Integer, String> getUnits() {
+        return units;
+    }
+}
@@ -78,11 +78,25 @@ public class ResultHandlingHelper {
     public static String createResultValuesFromObservations(final List<Observation> observations,
                                                             final SosResultEncoding sosResultEncoding,
                                                             final SosResultStructure sosResultStructure) throws OwsExceptionReport {
+        return createResultValuesFromObservations(observations, getTokenSeparator(sosResultEncoding.getEncoding()),
+                getBlockSeparator(sosResultEncoding.getEncoding()),
+                getValueOrderMap(sosResultStructure.getResultStructure()));
+    }
+
+    /**
+     * Create the result values with the separators and field layout of the
+     * decoded result template
+     */
+    public static String createResultValuesFromObservations(final List<Observation> observations,
+            final DecodedResultTemplate resultTemplate) throws OwsExceptionReport {
+        return createResultValuesFromObservations(observations, resultTemplate.getTokenSeparator(),
+                resultTemplate.getBlockSeparator(), resultTemplate.getValueOrder());
+    }
+
+    private static String createResultValuesFromObservations(final List<Observation> observations,
+            final String tokenSeparator, final String blockSeparator, final Map<Integer, String> valueOrder) {
         final StringBuilder builder = new StringBuilder();
         if (CollectionHelper.isNotEmpty(observations)) {
-            final String tokenSeparator = getTokenSeparator(sosResultEncoding.getEncoding());
-            final String blockSeparator = getBlockSeparator(sosResultEncoding.getEncoding());
-            final Map<Integer, String> valueOrder = getValueOrderMap(sosResultStructure.getResultStructure());
             addElementCount(builder,observations.size(),blockSeparator);
             for (final Observation observation : observations) {
                 for (final Integer intger : valueOrder.keySet()) {
@@ -0,0 +1,115 @@
+/**
+ * Copyright (C) 2013
+ * by 52 North Initiative for Geospatial Open Source Software GmbH
+ *
+ * Contact: Andreas Wytzisk
+ * 52 North Initiative for Geospatial Open Source Software GmbH
+ * Martin-Luther-King-Weg 24
+ * 48155 Muenster, Germany
+ * info@52north.org
+ *
+ * This program is free software; you can redistribute and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the
+ * Free Software Foundation.
+ *
+ * This program is distributed WITHOUT ANY WARRANTY; even without the implied
+ * WARRANTY OF MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program (see gnu-gpl v2.txt). If not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA or
+ * visit the Free Software Foundation web page, http://www.fsf.org.
+ */
+package org.n52.sos.ds.hibernate.util;
+
+import org.n52.sos.ds.hibernate.ResultTemplateSettingDefinitionProvider;
+import org.n52.sos.ds.hibernate.entities.ResultTemplate;
+import org.n52.sos.ogc.ows.OwsExceptionReport;
+import org.n52.sos.util.LruCache;
+
+/**
+ * Bounded cache of {@link DecodedResultTemplate}s by result template
+ * identifier, so that InsertResult and GetResult do not decode the result
+ * encoding and structure for every request. The templates are held in a
+ * {@link LruCache}, a capacity of <code>0</code> disables the cache.
+ * <p/>
+ * A cached template is only used if its encoding and structure equal the ones
+ * of the stored result template, so changes that are not signaled with
+ * {@link #invalidate(String)} are detected, too.
+ * 
+ * @since 4.0.0
+ */
+public class ResultTemplateCache {
+
+    private static final ResultTemplateCache INSTANCE = new ResultTemplateCache(
+            ResultTemplateSettingDefinitionProvider.RESULT_TEMPLATE_CACHE_SIZE_DEFINITION.getDefaultValue());
+
+    private final LruCache<String, DecodedResultTemplate> templates;
+
+    public static ResultTemplateCache getInstance() {
+        return INSTANCE;
+    }
+
+    ResultTemplateCache(final int capacity) {
+        this.templates = new LruCache<String, DecodedResultTemplate>(capacity);
+    }
+
+    /**
+     * Get the decoded result template, decodes and caches it if it is not
+     * cached or has changed
+     * 
+     * @param resultTemplate
+     *            the stored result template
+     * @return the decoded result template
+     * 
+     * @throws OwsExceptionReport
+     *             If the encoding or structure can not be decoded
+     */
+    public DecodedResultTemplate get(final ResultTemplate resultTemplate) throws OwsExceptionReport {
+        final String identifier = resultTemplate.getIdentifier();
+        final DecodedResultTemplate cached = templates.get(identifier);
+        if (cached != null && cached.isDecodedFrom(resultTemplate)) {
+            return cached;
+        }
+        // decode outside of the lock, concurrent decodings of the same
+        // template are harmless
+        final DecodedResultTemplate decoded = new DecodedResultTemplate(resultTemplate);
+        templates.put(identifier, decoded);
+        return decoded;
+    }
+
+    /**
+     * Remove the result template with the identifier from the cache
+     * 
+     * @param identifier
+     *            the result template identifier
+     */
+    public void invalidate(final String identifier) {
+        templates.remove(identifier);
+    }
+
+    /**
+     * Remove all result templates from the cache
+     */
+    public void invalidate() {
+        templates.clear();
+    }
+
+    public int getCapacity() {
+        return templates.getCapacity();
+    }
+
+    /**
+     * @param capacity
+     *            the maximum number of cached result templates, <code>0</code>
+     *            disables the cache
+     */
+    public void setCapacity(final int capacity) {
+        templates.setCapacity(capacity);
+    }
+
+    int size() {
+        return templates.size();
+    }
+}
@@ -0,0 +1,59 @@
+/**
+ * Copyright (C) 2013
+ * by 52 North Initiative for Geospatial Open Source Software GmbH
+ *
+ * Contact: Andreas Wytzisk
+ * 52 North Initiative for Geospatial Open Source Software GmbH
+ * Martin-Luther-King-Weg 24
+ * 48155 Muenster, Germany
+ * info@52north.org
+ *
+ * This program is free software; you can redistribute and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the
+ * Free Software Foundation.
+ *
+ * This program is distributed WITHOUT ANY WARRANTY; even without the implied
+ * WARRANTY OF MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program (see gnu-gpl v2.txt). If not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA or
+ * visit the Free Software Foundation web page, http://www.fsf.org.
+ */
+package org.n52.sos.ds.hibernate.util;
+
+import java.util.Collections;
+import java.util.Set;
+
+import org.n52.sos.event.ReliableSosEventListener;
+import org.n52.sos.event.SosEvent;
+import org.n52.sos.event.events.ResultTemplateInsertion;
+import org.n52.sos.util.StringHelper;
+
+/**
+ * Removes inserted result templates from the {@link ResultTemplateCache}.
+ * 
+ * @since 4.0.0
+ */
+public class ResultTemplateCacheInvalidator implements ReliableSosEventListener {
+
+    private static final Set<Class<? extends SosEvent>> TYPES = Collections
+            .<Class<? extends SosEvent>> singleton(ResultTemplateInsertion.class);
+
+    @Override
+    public Set<Class<? extends SosEvent>> getTypes() {
+        return TYPES;
+    }
+
+    @Override
+    public void handle(final SosEvent event) {
+        final ResultTemplateInsertion e = (ResultTemplateInsertion) event;
+        final String identifier = e.getResponse().getAcceptedTemplate();
+        if (StringHelper.isNotEmpty(identifier)) {
+            ResultTemplateCache.getInstance().invalidate(identifier);
+        } else {
+            ResultTemplateCache.getInstance().invalidate();
+        }
+    }
+}
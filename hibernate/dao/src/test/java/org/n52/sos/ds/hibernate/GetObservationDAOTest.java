@@ -0,0 +1,258 @@
+/**
+ * Copyright (C) 2013
+ * by 52 North Initiative for Geospatial Open Source Software GmbH
+ *
+ * Contact: Andreas Wytzisk
+ * 52 North Initiative for Geospatial Open Source Software GmbH
+ * Martin-Luther-King-Weg 24
+ * 48155 Muenster, Germany
+ * info@52north.org
+ *
+ * This program is free software; you can redistribute and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the
+ * Free Software Foundation.
+ *
+ * This program is distributed WITHOUT ANY WARRANTY; even without the implied
+ * WARRANTY OF MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program (see gnu-gpl v2.txt). If not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA or
+ * visit the Free Software Foundation web page, http://www.fsf.org.
+ */
+package org.n52.sos.ds.hibernate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.hibernate.HibernateException;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.n52.sos.ds.hibernate.entities.BooleanObservation;
+import org.n52.sos.ds.hibernate.entities.CategoryObservation;
+import org.n52.sos.ds.hibernate.entities.CountObservation;
+import org.n52.sos.ds.hibernate.entities.NumericObservation;
+import org.n52.sos.ds.hibernate.entities.Observation;
+import org.n52.sos.ds.hibernate.entities.ObservationConstellation;
+import org.n52.sos.ds.hibernate.entities.SweDataArrayObservation;
+import org.n52.sos.ds.hibernate.entities.TextObservation;
+import org.n52.sos.ds.hibernate.util.HibernateObservationBuilder;
+import org.n52.sos.ogc.om.OMConstants;
+import org.n52.sos.ogc.om.OmObservation;
+import org.n52.sos.ogc.om.values.BooleanValue;
+import org.n52.sos.ogc.om.values.CategoryValue;
+import org.n52.sos.ogc.om.values.CountValue;
+import org.n52.sos.ogc.om.values.QuantityValue;
+import org.n52.sos.ogc.om.values.SweDataArrayValue;
+import org.n52.sos.ogc.om.values.TextValue;
+import org.n52.sos.ogc.om.values.Value;
+import org.n52.sos.ogc.ows.OwsExceptionReport;
+import org.n52.sos.ogc.sos.Sos2Constants;
+import org.n52.sos.ogc.sos.SosConstants;
+import org.n52.sos.request.GetObservationRequest;
+
+/**
+ * Tests the projection query path of {@link GetObservationDAO} against
+ * observations of each value class that belong to two offerings.
+ * 
+ * @since 4.0.0
+ */
+public class GetObservationDAOTest extends HibernateTestCase {
+    private static final String DATA_ARRAY = "<swe:DataArray xmlns:swe=\"http://www.opengis.net/swe/2.0\">"
+            + "<swe:elementCount><swe:Count><swe:value>1</swe:value></swe:Count></swe:elementCount>"
+            + "<swe:elementType name=\"observation\"><swe:DataRecord><swe:field name=\"value\">"
+            + "<swe:Quantity definition=\"value\"><swe:uom code=\"m\"/></swe:Quantity></swe:field></swe:DataRecord>"
+            + "</swe:elementType><swe:encoding><swe:TextEncoding tokenSeparator=\",\" blockSeparator=\";\"/>"
+            + "</swe:encoding><swe:values>1.5;</swe:values></swe:DataArray>";
+
+    private static final DateTime TIME = new DateTime(2013, 1, 1, 0, 0, DateTimeZone.UTC);
+
+    private final GetObservationDAO dao = new GetObservationDAO();
+
+    @Before
+    public void fillObservations() {
+        Session session = getSession();
+        Transaction transaction = null;
+        try {
+            transaction = session.beginTransaction();
+            HibernateObservationBuilder b = new HibernateObservationBuilder(session);
+            b.createObservationConstellation();
+            NumericObservation numeric = new NumericObservation();
+            numeric.setValue(BigDecimal.valueOf(1.5));
+            b.createObservation(numeric, "numeric", TIME);
+            BooleanObservation bool = new BooleanObservation();
+            bool.setValue(true);
+            b.createObservation(bool, "boolean", TIME.plusHours(1));
+            CategoryObservation category = new CategoryObservation();
+            category.setValue("category");
+            b.createObservation(category, "category", TIME.plusHours(2));
+            CountObservation count = new CountObservation();
+            count.setValue(5);
+            b.createObservation(count, "count", TIME.plusHours(3));
+            TextObservation text = new TextObservation();
+            text.setValue("text");
+            b.createObservation(text, "text", TIME.plusHours(4));
+            SweDataArrayObservation dataArray = new SweDataArrayObservation();
+            dataArray.setValue(DATA_ARRAY);
+            b.createObservation(dataArray, "dataArray", TIME.plusHours(5));
+            transaction.commit();
+        } catch (HibernateException he) {
+            if (transaction != null) {
+                transaction.rollback();
+            }
+            throw he;
+        } finally {
+            returnSession(session);
+        }
+    }
+
+    @After
+    public void clearObservations() {
+        Session session = getSession();
+        Transaction transaction = null;
+        try {
+            transaction = session.beginTransaction();
+            for (Object o : session.createCriteria(Observation.class).list()) {
+                session.delete(o);
+            }
+            for (Object o : session.createCriteria(ObservationConstellation.class).list()) {
+                session.delete(o);
+            }
+            transaction.commit();
+        } catch (HibernateException he) {
+            if (transaction != null) {
+                transaction.rollback();
+            }
+            throw he;
+        } finally {
+            returnSession(session);
+        }
+    }
+
+    @Test
+    public void shouldSelectObservationsOfSeveralOfferingsOnce() throws OwsExceptionReport {
+        List<OmObservation> observations = queryObservationRows(request(null, HibernateObservationBuilder.OFFERING_1,
+                HibernateObservationBuilder.OFFERING_2));
+        assertThat(observations.size(), is(6));
+        Set<String> ids = new HashSet<String>();
+        for (OmObservation observation : observations) {
+            assertThat("duplicate observation " + observation.getObservationID(),
+                    ids.add(observation.getObservationID()), is(true));
+        }
+    }
+
+    @Test
+    public void shouldCreateValuesOfEachValueClass() throws OwsExceptionReport {
+        Map<String, OmObservation> observations =
+                byIdentifier(queryObservationRows(request(null, HibernateObservationBuilder.OFFERING_1)));
+        assertThat(observations.size(), is(6));
+        assertValue(observations.get("numeric"), QuantityValue.class, BigDecimal.valueOf(1.5));
+        assertValue(observations.get("boolean"), BooleanValue.class, true);
+        assertValue(observations.get("category"), CategoryValue.class, "category");
+        assertValue(observations.get("count"), CountValue.class, 5);
+        assertValue(observations.get("text"), TextValue.class, "text");
+        Value<?> dataArray = observations.get("dataArray").getValue().getValue();
+        assertThat(dataArray, is(instanceOf(SweDataArrayValue.class)));
+        assertThat(((SweDataArrayValue) dataArray).getValue().getValues().get(0).get(0), is("1.5"));
+        for (OmObservation observation : observations.values()) {
+            assertThat(observation.getIdentifier().getCodeSpace(), is(HibernateObservationBuilder.CODESPACE));
+            assertThat(observation.getObservationConstellation().getObservationType(),
+                    is(HibernateObservationBuilder.OBSERVATION_TYPE));
+        }
+    }
+
+    @Test
+    public void shouldOnlySelectObservationsOfTheResultModel() throws OwsExceptionReport {
+        List<OmObservation> observations = queryObservationRows(request(OMConstants.OBS_TYPE_MEASUREMENT));
+        assertThat(observations.size(), is(1));
+        assertThat(observations.get(0).getIdentifier().getValue(), is("numeric"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldCreateTheSameObservationsAsTheEntityPath() throws OwsExceptionReport {
+        GetObservationRequest request = request(null);
+        Session session = getSession();
+        try {
+            List<OmObservation> fromRows = dao.queryObservationRows(request, null, null, null, session);
+            session.clear();
+            List<Collection<?>> chunks = Arrays.<Collection<?>> asList(null, null, null, null);
+            List<Observation> entities = dao.createTemporalFilterLessCriteria(session, request, chunks, null).list();
+            Map<String, OmObservation> fromEntities =
+                    byIdentifier(dao.toSosObservation(entities, request.getVersion(), null, session));
+
+            assertThat(fromRows.size(), is(fromEntities.size()));
+            for (OmObservation expected : fromRows) {
+                OmObservation actual = fromEntities.get(expected.getIdentifier().getValue());
+                assertThat(actual.getObservationID(), is(expected.getObservationID()));
+                assertThat(actual.getIdentifier(), is(expected.getIdentifier()));
+                assertThat(actual.getPhenomenonTime(), is(expected.getPhenomenonTime()));
+                assertThat(actual.getResultTime(), is(expected.getResultTime()));
+                assertThat(actual.getObservationConstellation().getObservationType(),
+                        is(expected.getObservationConstellation().getObservationType()));
+                assertThat(actual.getObservationConstellation().getProcedure().getIdentifier(),
+                        is(expected.getObservationConstellation().getProcedure().getIdentifier()));
+                assertThat(actual.getObservationConstellation().getObservableProperty().getIdentifier(),
+                        is(expected.getObservationConstellation().getObservableProperty().getIdentifier()));
+                Value<?> expectedValue = expected.getValue().getValue();
+                Value<?> actualValue = actual.getValue().getValue();
+                assertThat(actualValue.getClass(), is((Object) expectedValue.getClass()));
+                assertThat(actualValue.getUnit(), is(expectedValue.getUnit()));
+                if (expectedValue instanceof SweDataArrayValue) {
+                    assertThat(((SweDataArrayValue) actualValue).getValue().getValues(),
+                            is(((SweDataArrayValue) expectedValue).getValue().getValues()));
+                } else {
+                    assertThat(actualValue.getValue(), is((Object) expectedValue.getValue()));
+                }
+            }
+        } finally {
+            returnSession(session);
+        }
+    }
+
+    private List<OmObservation> queryObservationRows(GetObservationRequest request) throws OwsExceptionReport {
+        Session session = getSession();
+        try {
+            return dao.queryObservationRows(request, null, null, null, session);
+        } finally {
+            returnSession(session);
+        }
+    }
+
+    private GetObservationRequest request(String resultModel, String... offerings) {
+        GetObservationRequest request = new GetObservationRequest();
+        request.setService(SosConstants.SOS);
+        request.setVersion(Sos2Constants.SERVICEVERSION);
+        request.setResultModel(resultModel);
+        request.setOfferings(new ArrayList<String>(Arrays.asList(offerings)));
+        return request;
+    }
+
+    private Map<String, OmObservation> byIdentifier(List<OmObservation> observations) {
+        Map<String, OmObservation> byIdentifier = new HashMap<String, OmObservation>(observations.size());
+        for (OmObservation observation : observations) {
+            byIdentifier.put(observation.getIdentifier().getValue(), observation);
+        }
+        return byIdentifier;
+    }
+
+    private void assertValue(OmObservation observation, Class<?> valueClass, Object value) {
+        Value<?> observationValue = observation.getValue().getValue();
+        assertThat(observationValue, is(instanceOf(valueClass)));
+        assertThat(observationValue.getValue(), is(value));
+        assertThat(observationValue.getUnit(), is(HibernateObservationBuilder.UNIT));
+    }
+}
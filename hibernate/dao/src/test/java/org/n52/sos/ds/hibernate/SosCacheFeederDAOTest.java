@@ -23,7 +23,9 @@
  */
 package org.n52.sos.ds.hibernate;
 
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -58,6 +60,16 @@ public class SosCacheFeederDAOTest extends HibernateTestCase {
         instance.updateCache(null);
     }
 
+    @Test
+    public void incrementalUpdateRequiresCompleteUpdate()
+            throws OwsExceptionReport {
+        WritableContentCache cache = new WritableCache();
+        assertFalse("incremental update without complete update", instance.updateCacheIncrementally(cache));
+        instance.updateCache(cache);
+        assertTrue("incremental update after complete update", instance.updateCacheIncrementally(cache));
+        testCacheResult(cache);
+    }
+
     /* HELPER */
     private void testCacheResult(WritableContentCache cache) {
         assertNotNull("cache is null", cache);
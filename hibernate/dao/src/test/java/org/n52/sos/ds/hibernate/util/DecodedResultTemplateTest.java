@@ -0,0 +1,115 @@
+/**
+ * Copyright (C) 2013
+ * by 52 North Initiative for Geospatial Open Source Software GmbH
+ *
+ * Contact: Andreas Wytzisk
+ * 52 North Initiative for Geospatial Open Source Software GmbH
+ * Martin-Luther-King-Weg 24
+ * 48155 Muenster, Germany
+ * info@52north.org
+ *
+ * This program is free software; you can redistribute and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the
+ * Free Software Foundation.
+ *
+ * This program is distributed WITHOUT ANY WARRANTY; even without the implied
+ * WARRANTY OF MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program (see gnu-gpl v2.txt). If not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA or
+ * visit the Free Software Foundation web page, http://www.fsf.org.
+ */
+package org.n52.sos.ds.hibernate.util;
+
+import org.junit.Test;
+import org.n52.sos.ds.hibernate.HibernateTestCase;
+import org.n52.sos.ds.hibernate.entities.ResultTemplate;
+import org.n52.sos.ogc.om.OMConstants;
+import org.n52.sos.ogc.ows.OwsExceptionReport;
+import org.n52.sos.ogc.swe.SweDataRecord;
+import org.n52.sos.ogc.swe.SweField;
+import org.n52.sos.ogc.swe.simpleType.SweText;
+
+/**
+ * @since 4.0.0
+ */
+public class DecodedResultTemplateTest extends HibernateTestCase {
+    static final String IDENTIFIER = "template";
+
+    static final String RESULT_ENCODING =
+            "<swe:TextEncoding xmlns:swe=\"http://www.opengis.net/swe/2.0\" tokenSeparator=\",\" blockSeparator=\";\"/>";
+
+    static final String RESULT_STRUCTURE = "<swe:DataRecord xmlns:swe=\"http://www.opengis.net/swe/2.0\" "
+            + "xmlns:xlink=\"http://www.w3.org/1999/xlink\"><swe:field name=\"phenomenonTime\">"
+            + "<swe:Time definition=\"" + OMConstants.PHENOMENON_TIME + "\">"
+            + "<swe:uom xlink:href=\"http://www.opengis.net/def/uom/ISO-8601/0/Gregorian\"/></swe:Time></swe:field>"
+            + "<swe:field name=\"value\"><swe:Quantity definition=\"value\"><swe:uom code=\"m\"/></swe:Quantity>"
+            + "</swe:field><swe:field name=\"comment\"><swe:Text definition=\"comment\"/></swe:field>"
+            + "</swe:DataRecord>";
+
+    private static final String QUANTITY_STRUCTURE = "<swe:Quantity xmlns:swe=\"http://www.opengis.net/swe/2.0\" "
+            + "definition=\"value\"><swe:uom code=\"m\"/></swe:Quantity>";
+
+    static ResultTemplate createResultTemplate(final String identifier, final String resultStructure) {
+        final ResultTemplate resultTemplate = new ResultTemplate();
+        resultTemplate.setIdentifier(identifier);
+        resultTemplate.setResultEncoding(RESULT_ENCODING);
+        resultTemplate.setResultStructure(resultStructure);
+        return resultTemplate;
+    }
+
+    @Test
+    public void shouldDecodeTheFieldsOfTheRecord() throws OwsExceptionReport {
+        final DecodedResultTemplate decoded =
+                new DecodedResultTemplate(createResultTemplate(IDENTIFIER, RESULT_STRUCTURE));
+        assertThat(decoded.getIdentifier(), is(IDENTIFIER));
+        assertThat(decoded.getTokenSeparator(), is(","));
+        assertThat(decoded.getBlockSeparator(), is(";"));
+        assertThat(decoded.getPhenomenonTimeIndex(), is(0));
+        assertThat(decoded.getResultTimeIndex(), is(-1));
+        assertThat(decoded.getValueOrder().keySet(), contains(0, 1, 2));
+        assertThat(decoded.getValueOrder().get(0), is(OMConstants.PHENOMENON_TIME));
+        assertThat(decoded.getObservedProperties().size(), is(2));
+        assertThat(decoded.getObservedProperties(), hasEntry(1, "value"));
+        assertThat(decoded.getObservedProperties(), hasEntry(2, "comment"));
+        assertThat(decoded.getUnits().size(), is(1));
+        assertThat(decoded.getUnits(), hasEntry(1, "m"));
+        assertThat(decoded.hasRecord(), is(true));
+    }
+
+    @Test
+    public void shouldDetectChangedResultTemplates() throws OwsExceptionReport {
+        final ResultTemplate resultTemplate = createResultTemplate(IDENTIFIER, RESULT_STRUCTURE);
+        final DecodedResultTemplate decoded = new DecodedResultTemplate(resultTemplate);
+        assertThat(decoded.isDecodedFrom(createResultTemplate(IDENTIFIER, RESULT_STRUCTURE)), is(true));
+        assertThat(decoded.isDecodedFrom(createResultTemplate("other", RESULT_STRUCTURE)), is(false));
+        assertThat(decoded.isDecodedFrom(createResultTemplate(IDENTIFIER, RESULT_STRUCTURE.replace("comment",
+                "remark"))), is(false));
+        resultTemplate.setResultEncoding(RESULT_ENCODING.replace(";", "@"));
+        assertThat(decoded.isDecodedFrom(resultTemplate), is(false));
+    }
+
+    @Test
+    public void shouldHandOutCopiesOfTheRecord() throws OwsExceptionReport {
+        final DecodedResultTemplate decoded =
+                new DecodedResultTemplate(createResultTemplate(IDENTIFIER, RESULT_STRUCTURE));
+        final SweDataRecord record = decoded.getRecord();
+        assertThat(record, is(not(sameInstance(decoded.getRecord()))));
+        assertThat(record, is(decoded.getRecord()));
+        record.addField(new SweField("added", new SweText()));
+        record.getFields().get(0).setName("changed");
+        assertThat(decoded.getRecord().getFields().size(), is(3));
+        assertThat(decoded.getRecord().getFields().get(0).getName(), is("phenomenonTime"));
+    }
+
+    @Test
+    public void shouldNotHaveARecordForOtherStructures() throws OwsExceptionReport {
+        final DecodedResultTemplate decoded =
+                new DecodedResultTemplate(createResultTemplate(IDENTIFIER, QUANTITY_STRUCTURE));
+        assertThat(decoded.hasRecord(), is(false));
+        assertThat(decoded.getRecord(), is(nullValue()));
+        assertThat(decoded.getValueOrder().isEmpty(), is(true));
+    }
+}
@@ -0,0 +1,73 @@
+/**
+ * Copyright (C) 2013
+ * by 52 North Initiative for Geospatial Open Source Software GmbH
+ *
+ * Contact: Andreas Wytzisk
+ * 52 North Initiative for Geospatial Open Source Software GmbH
+ * Martin-Luther-King-Weg 24
+ * 48155 Muenster, Germany
+ * info@52north.org
+ *
+ * This program is free software; you can redistribute and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the
+ * Free Software Foundation.
+ *
+ * This program is distributed WITHOUT ANY WARRANTY; even without the implied
+ * WARRANTY OF MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program (see gnu-gpl v2.txt). If not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA or
+ * visit the Free Software Foundation web page, http://www.fsf.org.
+ */
+package org.n52.sos.ds.hibernate.util;
+
+import static org.n52.sos.ds.hibernate.util.DecodedResultTemplateTest.IDENTIFIER;
+import static org.n52.sos.ds.hibernate.util.DecodedResultTemplateTest.RESULT_STRUCTURE;
+import static org.n52.sos.ds.hibernate.util.DecodedResultTemplateTest.createResultTemplate;
+
+import org.junit.Test;
+import org.n52.sos.ds.hibernate.HibernateTestCase;
+import org.n52.sos.ds.hibernate.entities.ResultTemplate;
+import org.n52.sos.ogc.ows.OwsExceptionReport;
+
+/**
+ * @since 4.0.0
+ */
+public class ResultTemplateCacheTest extends HibernateTestCase {
+
+    @Test
+    public void shouldReturnCachedTemplates() throws OwsExceptionReport {
+        final ResultTemplateCache cache = new ResultTemplateCache(10);
+        final DecodedResultTemplate decoded = cache.get(createResultTemplate(IDENTIFIER, RESULT_STRUCTURE));
+        assertThat(cache.get(createResultTemplate(IDENTIFIER, RESULT_STRUCTURE)), is(sameInstance(decoded)));
+        assertThat(cache.size(), is(1));
+    }
+
+    @Test
+    public void shouldDecodeChangedTemplates() throws OwsExceptionReport {
+        final ResultTemplateCache cache = new ResultTemplateCache(10);
+        final ResultTemplate resultTemplate = createResultTemplate(IDENTIFIER, RESULT_STRUCTURE);
+        final DecodedResultTemplate decoded = cache.get(resultTemplate);
+        resultTemplate.setResultStructure(RESULT_STRUCTURE.replace("comment", "remark"));
+        final DecodedResultTemplate changed = cache.get(resultTemplate);
+        assertThat(changed, is(not(sameInstance(decoded))));
+        assertThat(changed.getObservedProperties(), hasEntry(2, "remark"));
+        assertThat(cache.get(resultTemplate), is(sameInstance(changed)));
+        assertThat(cache.size(), is(1));
+    }
+
+    @Test
+    public void shouldDecodeInvalidatedTemplates() throws OwsExceptionReport {
+        final ResultTemplateCache cache = new ResultTemplateCache(10);
+        final ResultTemplate resultTemplate = createResultTemplate(IDENTIFIER, RESULT_STRUCTURE);
+        final DecodedResultTemplate decoded = cache.get(resultTemplate);
+        cache.get(createResultTemplate("other", RESULT_STRUCTURE));
+        cache.invalidate(IDENTIFIER);
+        assertThat(cache.size(), is(1));
+        assertThat(cache.get(resultTemplate), is(not(sameInstance(decoded))));
+        cache.invalidate();
+        assertThat(cache.size(), is(0));
+    }
+}
@@ -79,7 +79,8 @@ public class H2FileDatasource extends AbstractH2Datasource {
     @Override
     public Set<SettingDefinition<?, ?>> getSettingDefinitions() {
         return CollectionHelper
-                .<SettingDefinition<?, ?>>set(h2Database, getTransactionalDefiniton());
+                .<SettingDefinition<?, ?>>set(h2Database, getTransactionalDefiniton(),
+                        getSingleTableObservationsDefinition());
     }
 
     @Override
@@ -99,12 +100,13 @@ public class H2FileDatasource extends AbstractH2Datasource {
 
     @Override
     protected Map<String, Object> parseDatasourceProperties(Properties current) {
-        Map<String, Object> settings = new HashMap<String, Object>(2);
+        Map<String, Object> settings = new HashMap<String, Object>(3);
         Matcher matcher = JDBC_URL_PATTERN.matcher(current
                 .getProperty(HibernateConstants.CONNECTION_URL));
         matcher.find();
         settings.put(h2Database.getKey(), matcher.group(1));
         settings.put(TRANSACTIONAL_KEY, isTransactional(current));
+        settings.put(SINGLE_TABLE_OBSERVATIONS_KEY, isSingleTableObservations(current));
         return settings;
     }
 
@@ -54,7 +54,8 @@ public class H2InMemoryDatasource extends AbstractH2Datasource {
     @Override
     public Set<SettingDefinition<?, ?>> getSettingDefinitions() {
         return CollectionHelper
-                .<SettingDefinition<?, ?>>set(getTransactionalDefiniton());
+                .<SettingDefinition<?, ?>>set(getTransactionalDefiniton(),
+                        getSingleTableObservationsDefinition());
     }
 
     @Override
@@ -111,6 +112,8 @@ public class H2InMemoryDatasource extends AbstractH2Datasource {
         Map<String, Object> settings = new HashMap<String, Object>(2);
         settings.put(getTransactionalDefiniton().getKey(),
                      isTransactional(current));
+        settings.put(getSingleTableObservationsDefinition().getKey(),
+                     isSingleTableObservations(current));
         return settings;
     }
 
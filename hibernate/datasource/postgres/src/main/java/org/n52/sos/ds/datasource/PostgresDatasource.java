@@ -25,20 +25,32 @@ package org.n52.sos.ds.datasource;
 
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.Iterator;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.hibernate.dialect.Dialect;
+import org.hibernate.mapping.Column;
+import org.hibernate.mapping.ForeignKey;
+import org.hibernate.mapping.Index;
 import org.hibernate.mapping.Table;
+import org.hibernate.mapping.UniqueKey;
 import org.hibernate.spatial.dialect.postgis.PostgisDialect52N;
 import org.hibernate.tool.hbm2ddl.DatabaseMetadata;
+import org.n52.sos.config.SettingDefinition;
+import org.n52.sos.config.settings.IntegerSettingDefinition;
+import org.n52.sos.ds.PartitionableDatasource;
 import org.n52.sos.ds.hibernate.util.HibernateConstants;
 import org.n52.sos.exception.ConfigurationException;
 import org.n52.sos.util.StringHelper;
@@ -46,7 +58,7 @@ import org.n52.sos.util.StringHelper;
 /**
  * @author Christian Autermann <c.autermann@52north.org>
  */
-public class PostgresDatasource extends AbstractHibernateFullDBDatasource {
+public class PostgresDatasource extends AbstractHibernateFullDBDatasource implements PartitionableDatasource {
     private static final String DIALECT_NAME = "PostgreSQL/PostGIS";
 
     private static final String POSTGRES_DRIVER_CLASS = "org.postgresql.Driver";
@@ -79,6 +91,27 @@ public class PostgresDatasource extends AbstractHibernateFullDBDatasource {
 
     public static final String TAB_SPATIAL_REF_SYS = "spatial_ref_sys";
 
+    public static final String OBSERVATION_TABLE = "observation";
+
+    public static final String PARTITION_INTERVAL_KEY = "sos.partitionInterval";
+
+    public static final String PARTITION_INTERVAL_TITLE = "Observation Partition Interval";
+
+    public static final String PARTITION_INTERVAL_DESCRIPTION = "The number of months "
+            + "of phenomenon time stored in one partition of the observation table, "
+            + "e.g. 1 for monthly or 12 for yearly partitions. "
+            + "Set to 0 to store all observations in a single table. "
+            + "Partitioning is only applied if the tables are created. "
+            + "Observation ids and identifiers are only unique per partition.";
+
+    public static final int PARTITION_INTERVAL_DEFAULT_VALUE = 0;
+
+    public static final String PARTITION_PREFIX = OBSERVATION_TABLE + "_p";
+
+    public static final String PARTITION_PARENT_TABLE = OBSERVATION_TABLE + "_parent";
+
+    public static final String FUNC_DROP_OBSERVATION_PARTITIONS = "drop_observation_partitions";
+
 	public PostgresDatasource() {
 		super(USERNAME_DEFAULT_VALUE, USERNAME_DESCRIPTION,
 				PASSWORD_DEFAULT_VALUE, PASSWORD_DESCRIPTION,
@@ -191,6 +224,361 @@ public class PostgresDatasource extends AbstractHibernateFullDBDatasource {
         	    matcher.group(3) };
     }
 
+    @Override
+    public Set<SettingDefinition<?, ?>> getSettingDefinitions() {
+        Set<SettingDefinition<?, ?>> definitions =
+                new HashSet<SettingDefinition<?, ?>>(super.getSettingDefinitions());
+        definitions.add(createPartitionIntervalDefinition());
+        return definitions;
+    }
+
+    protected IntegerSettingDefinition createPartitionIntervalDefinition() {
+        return new IntegerSettingDefinition().setGroup(ADVANCED_GROUP).setOrder(3).setKey(PARTITION_INTERVAL_KEY)
+                .setTitle(PARTITION_INTERVAL_TITLE).setDescription(PARTITION_INTERVAL_DESCRIPTION)
+                .setDefaultValue(PARTITION_INTERVAL_DEFAULT_VALUE).setOptional(true);
+    }
+
+    @Override
+    public boolean isPartitioningRequested(Map<String, Object> settings) {
+        return getPartitionInterval(settings) > 0;
+    }
+
+    @Override
+    public String[] createSchema(Map<String, Object> settings) {
+        if (!isPartitioningRequested(settings)) {
+            return super.createSchema(settings);
+        }
+        List<String> script = new LinkedList<String>(Arrays.asList(super.createSchema(settings)));
+        script.addAll(getPartitioningScript(getPartitionInterval(settings), getConfig(settings), settings));
+        return script.toArray(new String[script.size()]);
+    }
+
+    private int getPartitionInterval(Map<String, Object> settings) {
+        Integer interval = (Integer) settings.get(PARTITION_INTERVAL_KEY);
+        return interval == null ? 0 : interval.intValue();
+    }
+
+    /**
+     * Partitions the observation table by inheritance. Each partition holds
+     * the observations of <code>months</code> months of phenomenon time
+     * (<code>observation_pYYYYMM</code>) with a check constraint, so queries
+     * restricting <code>phenomenonTimeStart</code> only scan the matching
+     * partitions (<code>constraint_exclusion = partition</code>).
+     * <p/>
+     * The mapped table is renamed to <code>observation_parent</code> and
+     * replaced by a view with <code>INSTEAD OF</code> triggers, so Hibernate
+     * gets the row counts it expects. The insert trigger writes the row
+     * directly into its partition. It is regenerated whenever partitions are
+     * created or dropped and contains a static insert per partition, so
+     * inserts into existing partitions neither look up the catalog nor leave
+     * dead rows in the parent table. Rows of missing partitions are passed to
+     * <code>observation_partition_create(timestamp)</code>, which creates the
+     * partition under an advisory lock. Updates and deletes are passed to the
+     * parent table. An update can not move an observation to another
+     * partition.
+     * <p/>
+     * Partitions do not inherit constraints and indexes, so the primary key,
+     * the unique constraints, the foreign keys and the indexes of the mapped
+     * observation table are created for each partition. As the
+     * <code>observationIdentity</code> constraint contains the phenomenon
+     * time start, enforcing it per partition enforces it for all
+     * observations. The observation id and other unique columns like the
+     * identifier are only unique per partition.
+     * <p/>
+     * PostgreSQL does not support foreign keys to inheritance hierarchies, so
+     * the foreign keys referencing the observation table, e.g. of the value
+     * and the offering tables, are replaced by triggers with the same names.
+     * They check that the referenced observation exists on insert and update,
+     * and each partition has a trigger that prevents deleting referenced
+     * observations.
+     * <p/>
+     * <code>SELECT drop_observation_partitions(timestamp)</code> drops the
+     * partitions that end before the given time, including the values and
+     * offering relations of their observations.
+     */
+    protected List<String> getPartitioningScript(int months, CustomConfiguration config, Map<String, Object> settings) {
+        final String schema = getSchema(settings);
+        final String view = schema + OBSERVATION_TABLE;
+        final String parent = schema + PARTITION_PARENT_TABLE;
+        final String schemaName =
+                isSetSchema(settings) ? "'" + settings.get(HibernateConstants.DEFAULT_SCHEMA) + "'"
+                        : "current_schema()";
+        final String partitionLength = String.format("%d * interval '1 month'", months);
+        final Table table = getObservationTable(config);
+        final List<String> script = new LinkedList<String>();
+        // constraints and indexes are not inherited
+        final StringBuilder constraints = new StringBuilder("PRIMARY KEY (observationId)");
+        final Iterator<?> uniqueKeys = table.getUniqueKeyIterator();
+        while (uniqueKeys.hasNext()) {
+            constraints.append(String.format(", UNIQUE (%s)",
+                    getColumnNames(((UniqueKey) uniqueKeys.next()).getColumnIterator())));
+        }
+        final Iterator<?> columns = table.getColumnIterator();
+        while (columns.hasNext()) {
+            final Column column = (Column) columns.next();
+            if (column.isUnique()) {
+                constraints.append(String.format(", UNIQUE (%s)", column.getName()));
+            }
+        }
+        final Iterator<?> foreignKeys = table.getForeignKeyIterator();
+        while (foreignKeys.hasNext()) {
+            final ForeignKey foreignKey = (ForeignKey) foreignKeys.next();
+            constraints.append(String.format(", FOREIGN KEY (%s) REFERENCES %s%s",
+                    getColumnNames(foreignKey.getColumnIterator()), schema,
+                    foreignKey.getReferencedTable().getName()));
+        }
+        final StringBuilder indexes = new StringBuilder();
+        final Iterator<?> tableIndexes = table.getIndexIterator();
+        while (tableIndexes.hasNext()) {
+            final Index index = (Index) tableIndexes.next();
+            indexes.append(String.format(
+                    "    EXECUTE 'CREATE INDEX ' || partition_table || '_%s ON ' || partition_name || ' (%s)';\n",
+                    index.getName().toLowerCase(Locale.ROOT), getColumnNames(index.getColumnIterator())));
+        }
+        // the references to the observation table are checked by triggers
+        final StringBuilder deleteReferences = new StringBuilder();
+        final StringBuilder restrictReferences = new StringBuilder();
+        script.add(String.format("CREATE OR REPLACE FUNCTION %1$sobservation_reference_check() RETURNS trigger AS $$\n"
+                + "DECLARE\n"
+                + "  id bigint;\n"
+                + "BEGIN\n"
+                + "  EXECUTE 'SELECT ($1).' || TG_ARGV[0] INTO id USING NEW;\n"
+                + "  IF id IS NOT NULL THEN\n"
+                + "    PERFORM 1 FROM %2$s WHERE observationId = id FOR SHARE;\n"
+                + "    IF NOT FOUND THEN\n"
+                + "      RAISE EXCEPTION USING ERRCODE = 'foreign_key_violation', MESSAGE = TG_NAME || ': observation '\n"
+                + "          || id || ' referenced by ' || TG_TABLE_NAME || ' does not exist';\n"
+                + "    END IF;\n"
+                + "  END IF;\n"
+                + "  RETURN NEW;\n"
+                + "END;\n"
+                + "$$ LANGUAGE plpgsql", schema, parent));
+        for (final ForeignKey foreignKey : getObservationReferences(config)) {
+            final String referencing = schema + foreignKey.getTable().getName();
+            final String column = getColumnNames(foreignKey.getColumnIterator());
+            script.add(String.format("ALTER TABLE %s DROP CONSTRAINT %s", referencing, foreignKey.getName()));
+            script.add(String.format("CREATE TRIGGER %s BEFORE INSERT OR UPDATE ON %s "
+                    + "FOR EACH ROW EXECUTE PROCEDURE %sobservation_reference_check('%s')", foreignKey.getName(),
+                    referencing, schema, column));
+            deleteReferences.append(String.format(
+                    "      EXECUTE 'DELETE FROM %s WHERE %s IN (SELECT observationId FROM ' || partition_name || ')';\n",
+                    referencing, column));
+            restrictReferences.append(String.format(
+                    "  IF EXISTS (SELECT 1 FROM %1$s WHERE %2$s = OLD.observationId) THEN\n"
+                    + "    RAISE EXCEPTION USING ERRCODE = 'foreign_key_violation', MESSAGE = 'observation '\n"
+                    + "        || OLD.observationId || ' is still referenced by %3$s';\n"
+                    + "  END IF;\n", referencing, column, foreignKey.getTable().getName()));
+        }
+        script.add(String.format("CREATE OR REPLACE FUNCTION %1$sobservation_reference_restrict() RETURNS trigger AS $$\n"
+                + "BEGIN\n"
+                + "%2$s"
+                + "  RETURN OLD;\n"
+                + "END;\n"
+                + "$$ LANGUAGE plpgsql", schema, restrictReferences));
+        // Hibernate works on a view of the parent table
+        script.add(String.format("ALTER TABLE %s RENAME TO %s", view, PARTITION_PARENT_TABLE));
+        script.add(String.format("CREATE VIEW %s AS SELECT * FROM %s", view, parent));
+        final Iterator<?> defaults = table.getColumnIterator();
+        while (defaults.hasNext()) {
+            final Column column = (Column) defaults.next();
+            if (column.getDefaultValue() != null) {
+                script.add(String.format("ALTER VIEW %s ALTER COLUMN %s SET DEFAULT %s", view, column.getName(),
+                        column.getDefaultValue()));
+            }
+        }
+        // replaces the insert trigger function with one route per partition
+        script.add(String.format("CREATE OR REPLACE FUNCTION %1$sobservation_partition_routes() RETURNS void AS $$\n"
+                + "DECLARE\n"
+                + "  p record;\n"
+                + "  partition_start timestamp;\n"
+                + "  routes text := '';\n"
+                + "BEGIN\n"
+                + "  FOR p IN SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid\n"
+                + "      WHERE i.inhparent = '%2$s'::regclass AND c.relname ~ '^%3$s[0-9]{6}$'\n"
+                + "      ORDER BY c.relname DESC LOOP\n"
+                + "    partition_start := to_timestamp(substr(p.relname, %4$d), 'YYYYMM');\n"
+                + "    routes := routes || ' ELSIF NEW.phenomenonTimeStart >= ' || quote_literal(partition_start)\n"
+                + "        || ' AND NEW.phenomenonTimeStart < ' || quote_literal(partition_start + %5$s)\n"
+                + "        || ' THEN INSERT INTO %1$s' || quote_ident(p.relname) || ' VALUES (NEW.*);';\n"
+                + "  END LOOP;\n"
+                + "  EXECUTE 'CREATE OR REPLACE FUNCTION %1$sobservation_partition_insert() RETURNS trigger AS $insert$'\n"
+                + "      || ' BEGIN IF FALSE THEN NULL;' || routes\n"
+                + "      || ' ELSE EXECUTE ''INSERT INTO '' || %1$sobservation_partition_create(NEW.phenomenonTimeStart)'\n"
+                + "      || ' || '' SELECT ($1).*'' USING NEW; END IF; RETURN NEW; END; $insert$ LANGUAGE plpgsql';\n"
+                + "END;\n"
+                + "$$ LANGUAGE plpgsql", schema, parent, PARTITION_PREFIX, PARTITION_PREFIX.length() + 1,
+                partitionLength));
+        script.add(String.format("CREATE OR REPLACE FUNCTION %1$sobservation_partition_create(phenomenon_time timestamp)"
+                + " RETURNS text AS $$\n"
+                + "DECLARE\n"
+                + "  months integer := extract(year from phenomenon_time)::integer * 12\n"
+                + "      + extract(month from phenomenon_time)::integer - 1;\n"
+                + "  partition_start timestamp;\n"
+                + "  partition_table text;\n"
+                + "  partition_name text;\n"
+                + "BEGIN\n"
+                + "  months := months - months %% %2$d;\n"
+                + "  partition_start := to_timestamp((months / 12) || '-' || (months %% 12 + 1), 'YYYY-MM');\n"
+                + "  partition_table := '%3$s' || to_char(partition_start, 'YYYYMM');\n"
+                + "  partition_name := '%1$s' || partition_table;\n"
+                + "  -- serializes concurrent creations and route replacements\n"
+                + "  PERFORM pg_advisory_xact_lock('%6$s'::regclass::oid::bigint);\n"
+                + "  IF NOT EXISTS (SELECT 1 FROM pg_tables WHERE schemaname = %4$s\n"
+                + "      AND tablename = partition_table) THEN\n"
+                + "    EXECUTE 'CREATE TABLE ' || partition_name || ' (CHECK (phenomenonTimeStart >= '\n"
+                + "        || quote_literal(partition_start) || ' AND phenomenonTimeStart < '\n"
+                + "        || quote_literal(partition_start + %5$s) || '), %7$s) INHERITS (%6$s)';\n"
+                + "%8$s"
+                + "    EXECUTE 'CREATE TRIGGER observation_reference_restrict BEFORE DELETE ON ' || partition_name\n"
+                + "        || ' FOR EACH ROW EXECUTE PROCEDURE %1$sobservation_reference_restrict()';\n"
+                + "    PERFORM %1$sobservation_partition_routes();\n"
+                + "  END IF;\n"
+                + "  RETURN partition_name;\n"
+                + "END;\n"
+                + "$$ LANGUAGE plpgsql", schema, months, PARTITION_PREFIX, schemaName, partitionLength,
+                parent, constraints, indexes));
+        script.add(String.format("SELECT %sobservation_partition_routes()", schema));
+        script.add(String.format("CREATE OR REPLACE FUNCTION %1$sobservation_partition_update() RETURNS trigger AS $$\n"
+                + "BEGIN\n"
+                + "  UPDATE %2$s SET (%3$s) = (%4$s) WHERE observationId = OLD.observationId;\n"
+                + "  IF NOT FOUND THEN\n"
+                + "    RETURN NULL;\n"
+                + "  END IF;\n"
+                + "  RETURN NEW;\n"
+                + "END;\n"
+                + "$$ LANGUAGE plpgsql", schema, parent, getColumnNames(table.getColumnIterator()),
+                getColumnNames(table.getColumnIterator(), "NEW.")));
+        script.add(String.format("CREATE OR REPLACE FUNCTION %1$sobservation_partition_delete() RETURNS trigger AS $$\n"
+                + "BEGIN\n"
+                + "  DELETE FROM %2$s WHERE observationId = OLD.observationId;\n"
+                + "  IF NOT FOUND THEN\n"
+                + "    RETURN NULL;\n"
+                + "  END IF;\n"
+                + "  RETURN OLD;\n"
+                + "END;\n"
+                + "$$ LANGUAGE plpgsql", schema, parent));
+        for (final String operation : new String[] { "insert", "update", "delete" }) {
+            script.add(String.format("CREATE TRIGGER observation_partition_%1$s INSTEAD OF %2$s ON %3$s "
+                    + "FOR EACH ROW EXECUTE PROCEDURE %4$sobservation_partition_%1$s()", operation,
+                    operation.toUpperCase(Locale.ROOT), view, schema));
+        }
+        script.add(String.format("CREATE OR REPLACE FUNCTION %1$s%2$s(end_time timestamp) RETURNS integer AS $$\n"
+                + "DECLARE\n"
+                + "  p record;\n"
+                + "  partition_name text;\n"
+                + "  dropped integer := 0;\n"
+                + "BEGIN\n"
+                + "  PERFORM pg_advisory_xact_lock('%3$s'::regclass::oid::bigint);\n"
+                + "  FOR p IN SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid\n"
+                + "      WHERE i.inhparent = '%3$s'::regclass AND c.relname ~ '^%4$s[0-9]{6}$' LOOP\n"
+                + "    IF to_timestamp(substr(p.relname, %5$d), 'YYYYMM') + %6$s <= end_time THEN\n"
+                + "      partition_name := '%1$s' || quote_ident(p.relname);\n"
+                + "%7$s"
+                + "      EXECUTE 'DROP TABLE ' || partition_name;\n"
+                + "      dropped := dropped + 1;\n"
+                + "    END IF;\n"
+                + "  END LOOP;\n"
+                + "  IF dropped > 0 THEN\n"
+                + "    PERFORM %1$sobservation_partition_routes();\n"
+                + "  END IF;\n"
+                + "  RETURN dropped;\n"
+                + "END;\n"
+                + "$$ LANGUAGE plpgsql", schema, FUNC_DROP_OBSERVATION_PARTITIONS, parent, PARTITION_PREFIX,
+                PARTITION_PREFIX.length() + 1, partitionLength, deleteReferences));
+        return script;
+    }
+
+    /**
+     * @return the mapped observation table
+     */
+    private Table getObservationTable(CustomConfiguration config) {
+        Iterator<Table> tables = config.getTableMappings();
+        while (tables.hasNext()) {
+            Table table = tables.next();
+            if (OBSERVATION_TABLE.equalsIgnoreCase(table.getName())) {
+                return table;
+            }
+        }
+        throw new ConfigurationException("The mapping contains no observation table");
+    }
+
+    /**
+     * @return the foreign keys of the tables referencing the observation
+     *         table, e.g. of the value tables
+     */
+    private List<ForeignKey> getObservationReferences(CustomConfiguration config) {
+        List<ForeignKey> foreignKeys = new LinkedList<ForeignKey>();
+        Iterator<Table> tables = config.getTableMappings();
+        while (tables.hasNext()) {
+            Iterator<?> keys = tables.next().getForeignKeyIterator();
+            while (keys.hasNext()) {
+                ForeignKey key = (ForeignKey) keys.next();
+                if (OBSERVATION_TABLE.equalsIgnoreCase(key.getReferencedTable().getName())) {
+                    foreignKeys.add(key);
+                }
+            }
+        }
+        return foreignKeys;
+    }
+
+    private String getColumnNames(Iterator<?> columns) {
+        return getColumnNames(columns, "");
+    }
+
+    private String getColumnNames(Iterator<?> columns, String prefix) {
+        StringBuilder names = new StringBuilder();
+        while (columns.hasNext()) {
+            if (names.length() > 0) {
+                names.append(", ");
+            }
+            names.append(prefix).append(((Column) columns.next()).getName());
+        }
+        return names.toString();
+    }
+
+    /**
+     * @return if the observation table of the database is partitioned
+     */
+    private boolean isPartitioned(Connection conn, Map<String, Object> settings) throws SQLException {
+        String schema = isSetSchema(settings) ? (String) settings.get(HibernateConstants.DEFAULT_SCHEMA) : null;
+        ResultSet tables = conn.getMetaData().getTables(null, schema, PARTITION_PARENT_TABLE, new String[] { "TABLE" });
+        try {
+            return tables.next();
+        } finally {
+            tables.close();
+        }
+    }
+
+    @Override
+    public String[] dropSchema(Map<String, Object> settings) {
+        String[] script = super.dropSchema(settings);
+        Connection conn = null;
+        try {
+            conn = openConnection(settings);
+            if (!isPartitioned(conn, settings)) {
+                return script;
+            }
+        } catch (SQLException ex) {
+            throw new ConfigurationException(ex);
+        } finally {
+            close(conn);
+        }
+        // the view, the partitions and the trigger functions are unknown to
+        // Hibernate, which drops the observation table only if it exists
+        String schema = getSchema(settings);
+        List<String> drop = new LinkedList<String>();
+        drop.add(String.format("DROP VIEW %s%s CASCADE", schema, OBSERVATION_TABLE));
+        for (String function : new String[] { "observation_partition_insert()", "observation_partition_update()",
+                "observation_partition_delete()", "observation_partition_routes()",
+                "observation_partition_create(timestamp)", FUNC_DROP_OBSERVATION_PARTITIONS + "(timestamp)",
+                "observation_reference_check()", "observation_reference_restrict()" }) {
+            drop.add(String.format("DROP FUNCTION IF EXISTS %s%s CASCADE", schema, function));
+        }
+        drop.add(String.format("DROP TABLE %s%s CASCADE", schema, PARTITION_PARENT_TABLE));
+        drop.addAll(Arrays.asList(script));
+        return drop.toArray(new String[drop.size()]);
+    }
+
     @Override
     public boolean supportsClear() {
         return true;
@@ -213,6 +601,15 @@ public class PostgresDatasource extends AbstractHibernateFullDBDatasource {
             Statement stmt = null;
             try {
                 conn = openConnection(settings);
+                if (isPartitioned(conn, settings)) {
+                    // the observation table is a view, the parent table
+                    // truncates its partitions, too
+                    for (int i = 0; i < names.size(); i++) {
+                        if (OBSERVATION_TABLE.equalsIgnoreCase(names.get(i))) {
+                            names.set(i, PARTITION_PARENT_TABLE);
+                        }
+                    }
+                }
                 stmt = conn.createStatement();
                 stmt.execute(String.format("truncate %s restart identity cascade", StringHelper.join(", ", names)));
             } catch (SQLException ex) {
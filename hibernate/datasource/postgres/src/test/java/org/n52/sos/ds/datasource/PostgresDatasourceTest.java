@@ -0,0 +1,196 @@
+/**
+ * Copyright (C) 2013
+ * by 52 North Initiative for Geospatial Open Source Software GmbH
+ *
+ * Contact: Andreas Wytzisk
+ * 52 North Initiative for Geospatial Open Source Software GmbH
+ * Martin-Luther-King-Weg 24
+ * 48155 Muenster, Germany
+ * info@52north.org
+ *
+ * This program is free software; you can redistribute and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the
+ * Free Software Foundation.
+ *
+ * This program is distributed WITHOUT ANY WARRANTY; even without the implied
+ * WARRANTY OF MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program (see gnu-gpl v2.txt). If not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA or
+ * visit the Free Software Foundation web page, http://www.fsf.org.
+ */
+package org.n52.sos.ds.datasource;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.hibernate.mapping.Column;
+import org.hibernate.mapping.ForeignKey;
+import org.hibernate.mapping.Index;
+import org.hibernate.mapping.Table;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.n52.sos.ds.hibernate.H2Configuration;
+import org.n52.sos.ds.hibernate.util.HibernateConstants;
+
+/**
+ * Checks the generated partitioning script, it is not executed as it needs a
+ * PostgreSQL database.
+ * 
+ * @since 4.0.0
+ */
+public class PostgresDatasourceTest {
+
+    private static CustomConfiguration config;
+
+    private static Table observationTable;
+
+    @BeforeClass
+    public static void createConfiguration() {
+        config = new CustomConfiguration();
+        config.configure("/sos-hibernate.cfg.xml");
+        for (final String resource : H2Configuration.getResources(H2Configuration.JOINED_OBSERVATION_MAPPING)) {
+            config.addResource(resource);
+        }
+        config.buildMappings();
+        final Iterator<Table> tables = config.getTableMappings();
+        while (tables.hasNext()) {
+            final Table table = tables.next();
+            if (PostgresDatasource.OBSERVATION_TABLE.equalsIgnoreCase(table.getName())) {
+                observationTable = table;
+            }
+        }
+    }
+
+    @Test
+    public void shouldReplaceTheObservationTableByAView() {
+        final List<String> script = getScript(Collections.<String, Object> emptyMap());
+        assertThat(script, hasItem("ALTER TABLE observation RENAME TO observation_parent"));
+        assertThat(script, hasItem("CREATE VIEW observation AS SELECT * FROM observation_parent"));
+        assertThat(script, hasItem("ALTER VIEW observation ALTER COLUMN deleted SET DEFAULT 'F'"));
+        assertThat(script.indexOf("ALTER TABLE observation RENAME TO observation_parent"),
+                is(lessThan(script.indexOf("CREATE VIEW observation AS SELECT * FROM observation_parent"))));
+    }
+
+    @Test
+    public void shouldChangeTheViewWithInsteadOfTriggers() {
+        final List<String> script = getScript(Collections.<String, Object> emptyMap());
+        for (final String operation : new String[] { "insert", "update", "delete" }) {
+            assertThat(script, hasItem(String.format("CREATE TRIGGER observation_partition_%1$s INSTEAD OF %2$s "
+                    + "ON observation FOR EACH ROW EXECUTE PROCEDURE observation_partition_%1$s()", operation,
+                    operation.toUpperCase())));
+        }
+        // the insert trigger function exists before the trigger
+        assertThat(script.indexOf("SELECT observation_partition_routes()"),
+                is(lessThan(script.indexOf("CREATE TRIGGER observation_partition_insert INSTEAD OF INSERT "
+                        + "ON observation FOR EACH ROW EXECUTE PROCEDURE observation_partition_insert()"))));
+        for (final String statement : script) {
+            assertThat(statement, not(containsString("AFTER INSERT")));
+            assertThat(statement, not(containsString("DELETE FROM ONLY")));
+        }
+    }
+
+    @Test
+    public void shouldRouteInsertsWithoutCatalogLookups() {
+        final List<String> script = getScript(Collections.<String, Object> emptyMap());
+        final String routes = getStatement(script, "FUNCTION observation_partition_routes()");
+        assertThat(routes, containsString("THEN INSERT INTO ' || quote_ident(p.relname) || ' VALUES (NEW.*);"));
+        assertThat(routes, containsString("observation_partition_create(NEW.phenomenonTimeStart)"));
+        assertThat(routes, containsString("partition_start + 12 * interval '1 month'"));
+        assertThat(routes, not(containsString("pg_tables")));
+        final String create = getStatement(script, "FUNCTION observation_partition_create(");
+        assertThat(create, containsString("pg_advisory_xact_lock"));
+        assertThat(create, containsString("pg_tables"));
+        assertThat(create, containsString("PERFORM observation_partition_routes()"));
+        assertThat(getStatement(script, "FUNCTION drop_observation_partitions("),
+                containsString("PERFORM observation_partition_routes()"));
+    }
+
+    @Test
+    public void shouldCreateTheConstraintsAndIndexesOfEachPartition() {
+        final String create = getStatement(getScript(Collections.<String, Object> emptyMap()),
+                "FUNCTION observation_partition_create(");
+        assertThat(create, containsString("PRIMARY KEY (observationId)"));
+        assertThat(create, containsString("INHERITS (observation_parent)"));
+        assertThat(create, containsString("CREATE TRIGGER observation_reference_restrict BEFORE DELETE ON"));
+        final Iterator<?> indexes = observationTable.getIndexIterator();
+        while (indexes.hasNext()) {
+            assertThat(create, containsString(String.format("CREATE INDEX ' || partition_table || '_%s ON ",
+                    ((Index) indexes.next()).getName().toLowerCase())));
+        }
+        final Iterator<?> foreignKeys = observationTable.getForeignKeyIterator();
+        while (foreignKeys.hasNext()) {
+            assertThat(create, containsString(String.format(" REFERENCES %s",
+                    ((ForeignKey) foreignKeys.next()).getReferencedTable().getName())));
+        }
+    }
+
+    @Test
+    public void shouldReplaceForeignKeysToTheObservationTableByTriggers() {
+        final List<String> script = getScript(Collections.<String, Object> emptyMap());
+        int references = 0;
+        final Iterator<Table> tables = config.getTableMappings();
+        while (tables.hasNext()) {
+            final Iterator<?> foreignKeys = tables.next().getForeignKeyIterator();
+            while (foreignKeys.hasNext()) {
+                final ForeignKey foreignKey = (ForeignKey) foreignKeys.next();
+                if (foreignKey.getReferencedTable() == observationTable) {
+                    final String table = foreignKey.getTable().getName();
+                    assertThat(script, hasItem(String.format("ALTER TABLE %s DROP CONSTRAINT %s", table,
+                            foreignKey.getName())));
+                    assertThat(script, hasItem(startsWith(String.format("CREATE TRIGGER %s BEFORE INSERT OR UPDATE "
+                            + "ON %s ", foreignKey.getName(), table))));
+                    references++;
+                }
+            }
+        }
+        assertThat(references, is(greaterThan(0)));
+        assertThat(getStatement(script, "FUNCTION observation_reference_check()"),
+                containsString("FROM observation_parent WHERE observationId = id"));
+    }
+
+    @Test
+    public void shouldUpdateEveryColumnOfTheParentTable() {
+        final String update = getStatement(getScript(Collections.<String, Object> emptyMap()),
+                "FUNCTION observation_partition_update()");
+        assertThat(update, containsString("UPDATE observation_parent SET ("));
+        final Iterator<?> columns = observationTable.getColumnIterator();
+        while (columns.hasNext()) {
+            assertThat(update, containsString("NEW." + ((Column) columns.next()).getName()));
+        }
+    }
+
+    @Test
+    public void shouldQualifyNamesWithTheSchema() {
+        final List<String> script =
+                getScript(Collections.<String, Object> singletonMap(HibernateConstants.DEFAULT_SCHEMA, "sos"));
+        assertThat(script, hasItem("ALTER TABLE sos.observation RENAME TO observation_parent"));
+        assertThat(script, hasItem("CREATE VIEW sos.observation AS SELECT * FROM sos.observation_parent"));
+        assertThat(script, hasItem("CREATE TRIGGER observation_partition_insert INSTEAD OF INSERT ON sos.observation "
+                + "FOR EACH ROW EXECUTE PROCEDURE sos.observation_partition_insert()"));
+        final String create = getStatement(script, "FUNCTION sos.observation_partition_create(");
+        assertThat(create, containsString("schemaname = 'sos'"));
+        assertThat(create, containsString("partition_name := 'sos.' || partition_table"));
+        assertThat(create, containsString("INHERITS (sos.observation_parent)"));
+    }
+
+    private List<String> getScript(final Map<String, Object> settings) {
+        return new PostgresDatasource().getPartitioningScript(12, config, settings);
+    }
+
+    private String getStatement(final List<String> script, final String part) {
+        for (final String statement : script) {
+            if (statement.contains(part)) {
+                return statement;
+            }
+        }
+        throw new AssertionError("No statement contains " + part);
+    }
+}
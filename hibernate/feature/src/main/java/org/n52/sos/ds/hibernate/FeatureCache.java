@@ -0,0 +1,239 @@
+/**
+ * Copyright (C) 2013
+ * by 52 North Initiative for Geospatial Open Source Software GmbH
+ *
+ * Contact: Andreas Wytzisk
+ * 52 North Initiative for Geospatial Open Source Software GmbH
+ * Martin-Luther-King-Weg 24
+ * 48155 Muenster, Germany
+ * info@52north.org
+ *
+ * This program is free software; you can redistribute and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the
+ * Free Software Foundation.
+ *
+ * This program is distributed WITHOUT ANY WARRANTY; even without the implied
+ * WARRANTY OF MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program (see gnu-gpl v2.txt). If not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA or
+ * visit the Free Software Foundation web page, http://www.fsf.org.
+ */
+package org.n52.sos.ds.hibernate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.n52.sos.ogc.om.features.AbstractFeature;
+import org.n52.sos.ogc.om.features.samplingFeatures.SamplingFeature;
+import org.n52.sos.ogc.ows.OwsExceptionReport;
+import org.n52.sos.util.LruCache;
+
+/**
+ * Process wide, bounded cache of the SOS features created by the
+ * {@link HibernateFeatureQueryHandler}, keyed by feature identifier, SOS
+ * version and response SRID. The features are held in a {@link LruCache}, a
+ * capacity of <code>0</code> disables the cache. The keys are indexed by
+ * feature identifier, so a feature is invalidated without scanning the cache.
+ * <p/>
+ * Features are mutable and may be changed by their consumers (e.g. encoders
+ * assigning gml:ids), so the cache stores and returns copies. Only the
+ * geometries are shared, they are not modified after their creation.
+ * 
+ * @since 4.0.0
+ */
+public class FeatureCache {
+
+    private static final FeatureCache INSTANCE = new FeatureCache();
+
+    /**
+     * The identifier index is guarded by the lock of the features.
+     */
+    private final Map<String, Set<Key>> keysByIdentifier = new HashMap<String, Set<Key>>();
+
+    private final LruCache<Key, SamplingFeature> features = new LruCache<Key, SamplingFeature>(
+            FeatureQuerySettingsProvider.FEATURE_CACHE_SIZE_DEFINITION.getDefaultValue()) {
+        @Override
+        protected void evicted(final Key key, final SamplingFeature feature) {
+            unindex(key);
+        }
+    };
+
+    public static FeatureCache getInstance() {
+        return INSTANCE;
+    }
+
+    FeatureCache() {
+    }
+
+    /**
+     * @param identifier
+     *            the feature identifier
+     * @param version
+     *            the SOS version the feature was created for
+     * @param srid
+     *            the response SRID
+     * @return a copy of the cached feature or <code>null</code> if it is not
+     *         cached
+     * @throws OwsExceptionReport
+     *             If the copy can not be created
+     */
+    public AbstractFeature get(final String identifier, final String version, final int srid)
+            throws OwsExceptionReport {
+        final SamplingFeature feature = features.get(new Key(identifier, version, srid));
+        return feature == null ? null : copy(feature);
+    }
+
+    /**
+     * Caches a copy of the feature. Features of other types than
+     * {@link SamplingFeature} are not cached.
+     * 
+     * @param identifier
+     *            the feature identifier
+     * @param version
+     *            the SOS version the feature was created for
+     * @param srid
+     *            the response SRID
+     * @param feature
+     *            the feature
+     * @throws OwsExceptionReport
+     *             If the copy can not be created
+     */
+    public void put(final String identifier, final String version, final int srid, final AbstractFeature feature)
+            throws OwsExceptionReport {
+        if (identifier != null && feature instanceof SamplingFeature && getCapacity() > 0) {
+            final SamplingFeature copy = copy((SamplingFeature) feature);
+            final Key key = new Key(identifier, version, srid);
+            synchronized (features) {
+                if (features.put(key, copy)) {
+                    Set<Key> keys = keysByIdentifier.get(identifier);
+                    if (keys == null) {
+                        keys = new HashSet<Key>(2);
+                        keysByIdentifier.put(identifier, keys);
+                    }
+                    keys.add(key);
+                }
+            }
+        }
+    }
+
+    /**
+     * Remove the feature with the identifier for all versions and SRIDs from
+     * the cache
+     * 
+     * @param identifier
+     *            the feature identifier
+     */
+    public void invalidate(final String identifier) {
+        synchronized (features) {
+            final Set<Key> keys = keysByIdentifier.remove(identifier);
+            if (keys != null) {
+                for (final Key key : keys) {
+                    features.remove(key);
+                }
+            }
+        }
+    }
+
+    /**
+     * Remove all features from the cache
+     */
+    public void invalidate() {
+        synchronized (features) {
+            features.clear();
+            keysByIdentifier.clear();
+        }
+    }
+
+    public int getCapacity() {
+        return features.getCapacity();
+    }
+
+    /**
+     * @param capacity
+     *            the maximum number of cached features, <code>0</code>
+     *            disables the cache
+     */
+    public void setCapacity(final int capacity) {
+        features.setCapacity(capacity);
+    }
+
+    /**
+     * Removes the key from the identifier index, the caller has to hold the
+     * lock of the features.
+     */
+    private void unindex(final Key key) {
+        final Set<Key> keys = keysByIdentifier.get(key.identifier);
+        if (keys != null && keys.remove(key) && keys.isEmpty()) {
+            keysByIdentifier.remove(key.identifier);
+        }
+    }
+
+    int size() {
+        return features.size();
+    }
+
+    private SamplingFeature copy(final SamplingFeature feature) throws OwsExceptionReport {
+        final SamplingFeature copy = new SamplingFeature(feature.getIdentifier(), feature.getGmlId());
+        copy.setName(feature.getName());
+        copy.setDescription(feature.getDescription());
+        copy.setXmlDescription(feature.getXmlDescription());
+        copy.setGeometry(feature.getGeometry());
+        copy.setFeatureType(feature.getFeatureType());
+        copy.setUrl(feature.getUrl());
+        copy.setEncode(feature.isEncode());
+        copy.setParameters(feature.getParameters());
+        if (feature.isSetSampledFeatures()) {
+            final List<AbstractFeature> sampledFeatures =
+                    new ArrayList<AbstractFeature>(feature.getSampledFeatures().size());
+            for (final AbstractFeature sampledFeature : feature.getSampledFeatures()) {
+                if (sampledFeature instanceof SamplingFeature) {
+                    sampledFeatures.add(copy((SamplingFeature) sampledFeature));
+                } else {
+                    sampledFeatures.add(sampledFeature);
+                }
+            }
+            copy.setSampledFeatures(sampledFeatures);
+        }
+        return copy;
+    }
+
+    private static class Key {
+        private final String identifier;
+
+        private final String version;
+
+        private final int srid;
+
+        Key(final String identifier, final String version, final int srid) {
+            this.identifier = identifier;
+            this.version = version;
+            this.srid = srid;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = 7;
+            hash = 31 * hash + identifier.hashCode();
+            hash = 31 * hash + (version != null ? version.hashCode() : 0);
+            hash = 31 * hash + srid;
+            return hash;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (obj instanceof Key) {
+                final Key other = (Key) obj;
+                return identifier.equals(other.identifier) && srid == other.srid
+                        && (version == null ? other.version == null : version.equals(other.version));
+            }
+            return false;
+        }
+    }
+}
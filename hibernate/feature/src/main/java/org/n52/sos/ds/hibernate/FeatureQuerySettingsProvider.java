@@ -48,6 +48,8 @@ public class FeatureQuerySettingsProvider implements SettingDefinitionProvider {
 
     public static final String SPATIAL_DATASOURCE = "service.SpatialDatasource";
 
+    public static final String FEATURE_CACHE_SIZE = "service.featureCacheSize";
+
     public static final StringSettingDefinition EPSG_CODES_WITH_REVERSED_AXIS_ORDER_DEFINITION =
                                                 new StringSettingDefinition()
             .setGroup(MiscSettings.GROUP)
@@ -82,10 +84,21 @@ public class FeatureQuerySettingsProvider implements SettingDefinitionProvider {
                     .setDescription(
                             "The underlying datasource supports spatial queries and geometry data types. If not, the SOS only supports Get... operations and only BBOX spatial filtering.");
 
+    public static final IntegerSettingDefinition FEATURE_CACHE_SIZE_DEFINITION = new IntegerSettingDefinition()
+            .setGroup(ServiceSettings.GROUP)
+            .setOrder(17)
+            .setKey(FEATURE_CACHE_SIZE)
+            .setDefaultValue(10000)
+            .setMinimum(0)
+            .setTitle("Feature cache size")
+            .setDescription("The maximum number of features of interest that are kept in memory to answer requests "
+                            + "without querying the database. Set to <code>0</code> (zero) to disable the cache.");
+
     private static final Set<SettingDefinition<?, ?>> DEFINITIONS = CollectionHelper.<SettingDefinition<?, ?>> set(
             EPSG_CODES_WITH_REVERSED_AXIS_ORDER_DEFINITION,
             DEFAULT_EPSG_DEFINITION,
-            SPATIAL_DATASOURCE_DEFINITION);
+            SPATIAL_DATASOURCE_DEFINITION,
+            FEATURE_CACHE_SIZE_DEFINITION);
 
     @Override
     public Set<SettingDefinition<?, ?>> getSettingDefinitions() {
@@ -0,0 +1,249 @@
+/**
+ * Copyright (C) 2013
+ * by 52 North Initiative for Geospatial Open Source Software GmbH
+ *
+ * Contact: Andreas Wytzisk
+ * 52 North Initiative for Geospatial Open Source Software GmbH
+ * Martin-Luther-King-Weg 24
+ * 48155 Muenster, Germany
+ * info@52north.org
+ *
+ * This program is free software; you can redistribute and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the
+ * Free Software Foundation.
+ *
+ * This program is distributed WITHOUT ANY WARRANTY; even without the implied
+ * WARRANTY OF MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program (see gnu-gpl v2.txt). If not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA or
+ * visit the Free Software Foundation web page, http://www.fsf.org.
+ */
+package org.n52.sos.ds.hibernate;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.index.strtree.STRtree;
+
+/**
+ * Process wide, in-memory STR-tree of the feature geometries used by the
+ * {@link HibernateFeatureQueryHandler} to evaluate spatial filters and feature
+ * envelopes for non spatial datasources without loading all features from the
+ * database.
+ * <p/>
+ * The index is built lazily from all features of the datasource, usually
+ * during the first content cache update, and is immutable afterwards. Inserted
+ * features are collected and replace the index by a rebuilt one on the next
+ * query, so a batch of insertions causes a single rebuild.
+ * {@link #invalidate()} forces a rebuild from the datasource on the next
+ * access.
+ * 
+ * @since 4.0.0
+ */
+public class FeatureSpatialIndex {
+
+    private static final FeatureSpatialIndex INSTANCE = new FeatureSpatialIndex();
+
+    private Snapshot snapshot;
+
+    private final Map<String, Geometry> inserted = new HashMap<String, Geometry>(0);
+
+    private long generation;
+
+    public static FeatureSpatialIndex getInstance() {
+        return INSTANCE;
+    }
+
+    FeatureSpatialIndex() {
+    }
+
+    /**
+     * @return <code>true</code> if the index is built and can be queried
+     */
+    public synchronized boolean isInitialized() {
+        return snapshot != null;
+    }
+
+    /**
+     * @return the generation to pass to {@link #initialize(long, Map)} when
+     *         the geometries are loaded
+     */
+    public synchronized long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Builds the index from the geometries. The geometries are ignored if the
+     * index was invalidated since the generation was obtained, as they may
+     * already be outdated.
+     * 
+     * @param generation
+     *            the generation obtained before the geometries were loaded
+     * @param geometries
+     *            the geometries of all features keyed by feature identifier
+     * @return <code>true</code> if the index was built
+     */
+    public boolean initialize(final long generation, final Map<String, Geometry> geometries) {
+        final Snapshot built = new Snapshot(geometries);
+        synchronized (this) {
+            if (generation != this.generation) {
+                return false;
+            }
+            snapshot = built;
+            inserted.clear();
+            return true;
+        }
+    }
+
+    /**
+     * Adds or replaces the geometry of a feature. Does nothing if the index is
+     * not built yet, the feature is contained once it is built. The index is
+     * rebuilt on the next query.
+     * 
+     * @param identifier
+     *            the feature identifier
+     * @param geometry
+     *            the feature geometry
+     */
+    public synchronized void put(final String identifier, final Geometry geometry) {
+        if (snapshot != null && identifier != null && geometry != null) {
+            inserted.put(identifier, geometry);
+        }
+    }
+
+    /**
+     * Removes all features from the index, it is rebuilt on the next access.
+     */
+    public synchronized void invalidate() {
+        snapshot = null;
+        inserted.clear();
+        ++generation;
+    }
+
+    /**
+     * @param filter
+     *            the filter geometry
+     * @return the identifiers of all features whose geometry is contained in
+     *         the filter geometry or <code>null</code> if the index is not
+     *         built
+     */
+    public Set<String> getContainedFeatures(final Geometry filter) {
+        final Snapshot s = getSnapshot();
+        if (s == null) {
+            return null;
+        }
+        final Set<String> identifiers = new HashSet<String>(0);
+        for (final Object candidate : s.tree.query(filter.getEnvelopeInternal())) {
+            final String identifier = (String) candidate;
+            if (filter.contains(s.geometries.get(identifier))) {
+                identifiers.add(identifier);
+            }
+        }
+        return identifiers;
+    }
+
+    /**
+     * @param identifiers
+     *            the feature identifiers
+     * @return the envelope of the features (a null envelope if none of them
+     *         has a geometry) or <code>null</code> if the index is not built
+     */
+    public Envelope getEnvelope(final Collection<String> identifiers) {
+        final Snapshot s = getSnapshot();
+        if (s == null) {
+            return null;
+        }
+        return getEnvelope(identifiers, s.geometries);
+    }
+
+    /**
+     * Evaluates the filter without index, e.g. on the geometries loaded for
+     * an index that could not be built.
+     * 
+     * @param filter
+     *            the filter geometry
+     * @param geometries
+     *            the geometries keyed by feature identifier
+     * @return the identifiers of all features whose geometry is contained in
+     *         the filter geometry
+     */
+    public static Set<String> getContainedFeatures(final Geometry filter, final Map<String, Geometry> geometries) {
+        final Set<String> identifiers = new HashSet<String>(0);
+        for (final Entry<String, Geometry> entry : geometries.entrySet()) {
+            if (entry.getValue() != null && filter.contains(entry.getValue())) {
+                identifiers.add(entry.getKey());
+            }
+        }
+        return identifiers;
+    }
+
+    /**
+     * @param identifiers
+     *            the feature identifiers
+     * @param geometries
+     *            the geometries keyed by feature identifier
+     * @return the envelope of the features, a null envelope if none of them
+     *         has a geometry
+     */
+    public static Envelope getEnvelope(final Collection<String> identifiers, final Map<String, Geometry> geometries) {
+        final Envelope envelope = new Envelope();
+        for (final String identifier : identifiers) {
+            final Geometry geometry = geometries.get(identifier);
+            if (geometry != null) {
+                envelope.expandToInclude(geometry.getEnvelopeInternal());
+            }
+        }
+        return envelope;
+    }
+
+    int size() {
+        final Snapshot s = getSnapshot();
+        return s == null ? 0 : s.geometries.size();
+    }
+
+    /**
+     * @return the current index, rebuilt with the features inserted since the
+     *         last query
+     */
+    private synchronized Snapshot getSnapshot() {
+        if (snapshot != null && !inserted.isEmpty()) {
+            final Map<String, Geometry> geometries = new HashMap<String, Geometry>(snapshot.geometries);
+            geometries.putAll(inserted);
+            snapshot = new Snapshot(geometries);
+            inserted.clear();
+        }
+        return snapshot;
+    }
+
+    /**
+     * Immutable pair of the geometries and the STR-tree of their envelopes.
+     */
+    private static class Snapshot {
+        private final Map<String, Geometry> geometries;
+
+        private final STRtree tree = new STRtree();
+
+        Snapshot(final Map<String, Geometry> geometries) {
+            final Map<String, Geometry> nonNull = new HashMap<String, Geometry>(geometries.size());
+            for (final Entry<String, Geometry> entry : geometries.entrySet()) {
+                if (entry.getValue() != null) {
+                    nonNull.put(entry.getKey(), entry.getValue());
+                    tree.insert(entry.getValue().getEnvelopeInternal(), entry.getKey());
+                }
+            }
+            this.geometries = Collections.unmodifiableMap(nonNull);
+            // build eagerly, the lazy build on the first query is not thread safe
+            tree.build();
+        }
+    }
+}
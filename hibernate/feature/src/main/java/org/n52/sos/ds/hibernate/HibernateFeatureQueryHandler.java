@@ -28,26 +28,36 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
 
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+
 import org.hibernate.Criteria;
 import org.hibernate.HibernateException;
 import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.hibernate.criterion.Criterion;
 import org.hibernate.criterion.Disjunction;
 import org.hibernate.criterion.Projections;
 import org.hibernate.criterion.Restrictions;
 import org.hibernate.spatial.criterion.SpatialProjections;
 import org.n52.sos.config.annotation.Configurable;
 import org.n52.sos.config.annotation.Setting;
-import org.n52.sos.ds.FeatureQueryHandler;
 import org.n52.sos.ds.hibernate.dao.CodespaceDAO;
 import org.n52.sos.ds.hibernate.dao.FeatureOfInterestDAO;
 import org.n52.sos.ds.hibernate.dao.FeatureOfInterestTypeDAO;
 import org.n52.sos.ds.hibernate.entities.FeatureOfInterest;
 import org.n52.sos.ds.hibernate.entities.TFeatureOfInterest;
+import org.n52.sos.ds.hibernate.util.FeatureEnvelopeQueryHandler;
+import org.n52.sos.ds.hibernate.util.QueryHelper;
+import org.n52.sos.ds.hibernate.util.QueryHelper.ChunkCriteriaFactory;
+import org.n52.sos.ds.hibernate.util.SpatialFilteringFeatureQueryHandler;
 import org.n52.sos.ds.hibernate.util.SpatialRestrictions;
 import org.n52.sos.exception.ConfigurationException;
 import org.n52.sos.exception.ows.InvalidParameterValueException;
@@ -62,6 +72,7 @@ import org.n52.sos.ogc.sos.Range;
 import org.n52.sos.ogc.sos.Sos2Constants;
 import org.n52.sos.ogc.sos.SosConstants;
 import org.n52.sos.ogc.sos.SosEnvelope;
+import org.n52.sos.util.CollectionHelper;
 import org.n52.sos.util.JTSHelper;
 import org.n52.sos.util.JavaHelper;
 import org.n52.sos.util.SosHelper;
@@ -73,10 +84,13 @@ import com.vividsolutions.jts.geom.Envelope;
 import com.vividsolutions.jts.geom.Geometry;
 
 /**
- * Feature handler class for features stored in the database
+ * Feature handler class for features stored in the database. Features queried
+ * by identifier are kept in the {@link FeatureCache}, spatial filters of non
+ * spatial datasources are evaluated with the {@link FeatureSpatialIndex}.
  */
 @Configurable
-public class HibernateFeatureQueryHandler implements FeatureQueryHandler {
+public class HibernateFeatureQueryHandler implements SpatialFilteringFeatureQueryHandler,
+        FeatureEnvelopeQueryHandler {
     private static final Logger LOGGER = LoggerFactory.getLogger(HibernateFeatureQueryHandler.class);
     private static final int EPSG_WGS84_3D = 4979;
     private static final int EPSG_WGS84 = 4326;
@@ -87,11 +101,17 @@ public class HibernateFeatureQueryHandler implements FeatureQueryHandler {
     @Override
     public AbstractFeature getFeatureByID(final String featureID, final Object connection, final String version, final int responeSrid)
             throws OwsExceptionReport {
+        final AbstractFeature cached = FeatureCache.getInstance().get(featureID, version, responeSrid);
+        if (cached != null) {
+            return cached;
+        }
         final Session session = HibernateSessionHolder.getSession(connection);
         try {
             final Criteria q = session.createCriteria(FeatureOfInterest.class).add(
                     Restrictions.eq(FeatureOfInterest.IDENTIFIER, featureID));
-            return createSosAbstractFeature((FeatureOfInterest) q.uniqueResult(), version);
+            final AbstractFeature feature = createSosAbstractFeature((FeatureOfInterest) q.uniqueResult(), version);
+            FeatureCache.getInstance().put(featureID, version, responeSrid, feature);
+            return feature;
         } catch (final HibernateException he) {
             throw new NoApplicableCodeException().causedBy(he)
                     .withMessage("An error occurs while querying feature data for a featureOfInterest identifier!");
@@ -115,15 +135,13 @@ public class HibernateFeatureQueryHandler implements FeatureQueryHandler {
             } else {
 
                 final List<String> identifiers = new LinkedList<String>();
-                final List<FeatureOfInterest> features = session.createCriteria(FeatureOfInterest.class).list();
                 if (filter != null) {
                     final Geometry envelope = getFilterForNonSpatialDatasource(filter);
-                    for (final FeatureOfInterest feature : features) {
-                        final Geometry geom = getGeomtery(feature);
-                        if (geom != null && envelope.contains(geom)) {
-                            identifiers.add(feature.getIdentifier());
-                        }
+                    Set<String> contained = FeatureSpatialIndex.getInstance().getContainedFeatures(envelope);
+                    if (contained == null) {
+                        contained = FeatureSpatialIndex.getContainedFeatures(envelope, initializeSpatialIndex(session));
                     }
+                    identifiers.addAll(contained);
                 }
                 return identifiers;
             }
@@ -133,13 +151,28 @@ public class HibernateFeatureQueryHandler implements FeatureQueryHandler {
         }
     }
 
+    /**
+     * @return the restriction on the geometry column or <code>null</code> if
+     *         the datasource is not spatial
+     */
+    @Override
+    public Criterion getSpatialFilterCriterion(final SpatialFilter filter) throws OwsExceptionReport {
+        if (isSpatialDatasource()) {
+            return SpatialRestrictions.filter(FeatureOfInterest.GEOMETRY, filter.getOperator(),
+                                              switchCoordinateAxisOrderIfNeeded(filter.getGeometry()));
+        }
+        return null;
+    }
+
     @Override
     public Map<String, AbstractFeature> getFeatures(final Collection<String> featureIDs,
             final List<SpatialFilter> spatialFilters, final Object connection, final String version, final int responeSrid)
             throws OwsExceptionReport {
         final Session session = HibernateSessionHolder.getSession(connection);
         try {
-            if (isSpatialDatasource()) {
+            if (CollectionHelper.isEmpty(spatialFilters) && CollectionHelper.isNotEmpty(featureIDs)) {
+                return getCachedFeatures(featureIDs, session, version, responeSrid);
+            } else if (isSpatialDatasource()) {
                 return getFeaturesForSpatialDatasource(featureIDs, spatialFilters, session, version);
             } else {
                 return getFeaturesForNonSpatialDatasource(featureIDs, spatialFilters, session, version);
@@ -150,6 +183,40 @@ public class HibernateFeatureQueryHandler implements FeatureQueryHandler {
         }
     }
 
+    /**
+     * Get the features from the {@link FeatureCache} and query the missing
+     * ones with a single query.
+     */
+    private Map<String, AbstractFeature> getCachedFeatures(final Collection<String> featureIDs,
+            final Session session, final String version, final int responseSrid) throws OwsExceptionReport {
+        final FeatureCache cache = FeatureCache.getInstance();
+        final Map<String, AbstractFeature> features = new HashMap<String, AbstractFeature>(featureIDs.size());
+        final Set<String> missing = new HashSet<String>(0);
+        for (final String featureID : featureIDs) {
+            final AbstractFeature cached = cache.get(featureID, version, responseSrid);
+            if (cached != null) {
+                features.put(featureID, cached);
+            } else {
+                missing.add(featureID);
+            }
+        }
+        if (!missing.isEmpty()) {
+            final Map<String, AbstractFeature> queried;
+            if (isSpatialDatasource()) {
+                queried = getFeaturesForSpatialDatasource(missing, null, session, version);
+            } else {
+                queried = getFeaturesForNonSpatialDatasource(missing, null, session, version);
+            }
+            for (final Entry<String, AbstractFeature> feature : queried.entrySet()) {
+                if (missing.contains(feature.getKey())) {
+                    cache.put(feature.getKey(), version, responseSrid, feature.getValue());
+                }
+            }
+            features.putAll(queried);
+        }
+        return features;
+    }
+
     @Override
     public SosEnvelope getEnvelopeForFeatureIDs(final Collection<String> featureIDs, final Object connection)
             throws OwsExceptionReport {
@@ -157,29 +224,32 @@ public class HibernateFeatureQueryHandler implements FeatureQueryHandler {
         if (featureIDs != null && !featureIDs.isEmpty()) {
             try {
                 if (isSpatialDatasource()) {
-                    Geometry geom = (Geometry) session.createCriteria(FeatureOfInterest.class)
-                            .add(Restrictions.in(FeatureOfInterest.IDENTIFIER, featureIDs))
-                            .setProjection(SpatialProjections.extent(FeatureOfInterest.GEOMETRY)).uniqueResult();
-                    geom = switchCoordinateAxisOrderIfNeeded(geom);
-                    if (geom != null) {
-                        return new SosEnvelope(geom.getEnvelopeInternal(), getDefaultEPSG());
-                    }
-                } else {
+                    final List<Geometry> extents =
+                            QueryHelper.listInChunks(Collections.singletonList(featureIDs),
+                                    new ChunkCriteriaFactory() {
+                                        @Override
+                                        public Criteria create(final List<Collection<?>> chunks) {
+                                            return session.createCriteria(FeatureOfInterest.class)
+                                                    .add(QueryHelper.getInCriterion(FeatureOfInterest.IDENTIFIER,
+                                                            chunks.get(0)))
+                                                    .setProjection(SpatialProjections.extent(
+                                                            FeatureOfInterest.GEOMETRY));
+                                        }
+                                    });
                     final Envelope envelope = new Envelope();
-                    final List<FeatureOfInterest> featuresOfInterest =
-                            new FeatureOfInterestDAO().getFeatureOfInterestObject(featureIDs, session);
-                    for (final FeatureOfInterest feature : featuresOfInterest) {
-                        try {
-                            final Geometry geom = getGeomtery(feature);
-                            if (geom != null) {
-                                envelope.expandToInclude(geom.getEnvelopeInternal());
-                            }
-                        } catch (final OwsExceptionReport owse) {
-                            LOGGER.warn(
-                                    String.format("Error while adding '%s' to envelope!",
-                                            feature.getFeatureOfInterestId()), owse);
+                    for (final Geometry extent : extents) {
+                        final Geometry geom = switchCoordinateAxisOrderIfNeeded(extent);
+                        if (geom != null) {
+                            envelope.expandToInclude(geom.getEnvelopeInternal());
                         }
-
+                    }
+                    if (!envelope.isNull()) {
+                        return new SosEnvelope(envelope, getDefaultEPSG());
+                    }
+                } else {
+                    Envelope envelope = FeatureSpatialIndex.getInstance().getEnvelope(featureIDs);
+                    if (envelope == null) {
+                        envelope = FeatureSpatialIndex.getEnvelope(featureIDs, initializeSpatialIndex(session));
                     }
                     if (!envelope.isNull()) {
                         return new SosEnvelope(envelope, getDefaultEPSG());
@@ -193,6 +263,66 @@ public class HibernateFeatureQueryHandler implements FeatureQueryHandler {
         return null;
     }
 
+    /**
+     * Queries the geometries of the features of all groups at once, the
+     * envelopes of non spatial datasources are evaluated by the
+     * {@link FeatureSpatialIndex} anyway.
+     */
+    @Override
+    public Map<String, SosEnvelope> getEnvelopesForFeatureIDs(final Map<String, ? extends Collection<String>> featureIDs,
+            final Object connection) throws OwsExceptionReport {
+        final Session session = HibernateSessionHolder.getSession(connection);
+        final Map<String, SosEnvelope> envelopes = new HashMap<String, SosEnvelope>(featureIDs.size());
+        if (!isSpatialDatasource()) {
+            for (final Entry<String, ? extends Collection<String>> group : featureIDs.entrySet()) {
+                envelopes.put(group.getKey(), getEnvelopeForFeatureIDs(group.getValue(), session));
+            }
+            return envelopes;
+        }
+        final Set<String> identifiers = new HashSet<String>();
+        for (final Collection<String> group : featureIDs.values()) {
+            identifiers.addAll(group);
+        }
+        final Map<String, Envelope> featureEnvelopes = new HashMap<String, Envelope>(identifiers.size());
+        if (!identifiers.isEmpty()) {
+            try {
+                final List<Object> results =
+                        QueryHelper.listInChunks(Collections.singletonList(identifiers), new ChunkCriteriaFactory() {
+                            @Override
+                            public Criteria create(final List<Collection<?>> chunks) {
+                                return session.createCriteria(FeatureOfInterest.class)
+                                        .add(QueryHelper.getInCriterion(FeatureOfInterest.IDENTIFIER, chunks.get(0)))
+                                        .add(Restrictions.isNotNull(FeatureOfInterest.GEOMETRY))
+                                        .setProjection(Projections.projectionList()
+                                                .add(Projections.property(FeatureOfInterest.IDENTIFIER))
+                                                .add(Projections.property(FeatureOfInterest.GEOMETRY)));
+                            }
+                        });
+                for (final Object result : results) {
+                    final Object[] record = (Object[]) result;
+                    final Geometry geom = switchCoordinateAxisOrderIfNeeded((Geometry) record[1]);
+                    featureEnvelopes.put((String) record[0], geom.getEnvelopeInternal());
+                }
+            } catch (final HibernateException he) {
+                throw new NoApplicableCodeException().causedBy(he)
+                        .withMessage("Exception thrown while requesting feature envelopes");
+            }
+        }
+        for (final Entry<String, ? extends Collection<String>> group : featureIDs.entrySet()) {
+            final Envelope envelope = new Envelope();
+            for (final String identifier : group.getValue()) {
+                final Envelope featureEnvelope = featureEnvelopes.get(identifier);
+                if (featureEnvelope != null) {
+                    envelope.expandToInclude(featureEnvelope);
+                }
+            }
+            if (!envelope.isNull()) {
+                envelopes.put(group.getKey(), new SosEnvelope(envelope, getDefaultEPSG()));
+            }
+        }
+        return envelopes;
+    }
+
     /*
      * (non-Javadoc)
      * @see org.n52.sos.ds.FeatureQueryHandler#insertFeature(org.n52.sos.ogc.om.features.samplingFeatures.SamplingFeature, java.lang.Object)
@@ -218,7 +348,11 @@ public class HibernateFeatureQueryHandler implements FeatureQueryHandler {
                                 + JavaHelper.generateID(samplingFeature.getXmlDescription());
                 samplingFeature.setIdentifier(new CodeWithAuthority(featureIdentifier));
             }
-            return insertFeatureOfInterest(samplingFeature, session);
+            final String insertedIdentifier = insertFeatureOfInterest(samplingFeature, session);
+            // the FeatureCacheInvalidator is notified only after the request
+            // and possibly asynchronously
+            FeatureCache.getInstance().invalidate(insertedIdentifier);
+            return insertedIdentifier;
         }
     }
 
@@ -342,6 +476,7 @@ public class HibernateFeatureQueryHandler implements FeatureQueryHandler {
 //            }
             session.save(feature);
             session.flush();
+            addToSpatialIndexAfterCommit(newId, getGeomtery(feature), session);
             return newId;
         } else {
             return feature.getIdentifier();
@@ -422,6 +557,65 @@ public class HibernateFeatureQueryHandler implements FeatureQueryHandler {
         return builder.toString();
     }
 
+    /**
+     * Adds the feature to the {@link FeatureSpatialIndex} once the current
+     * transaction is committed, so features of rolled back insertions are not
+     * indexed.
+     */
+    private void addToSpatialIndexAfterCommit(final String identifier, final Geometry geometry,
+            final Session session) {
+        final Transaction transaction = session.getTransaction();
+        if (transaction != null && transaction.isActive()) {
+            transaction.registerSynchronization(new Synchronization() {
+                @Override
+                public void beforeCompletion() {
+                }
+
+                @Override
+                public void afterCompletion(final int status) {
+                    if (status == Status.STATUS_COMMITTED) {
+                        FeatureSpatialIndex.getInstance().put(identifier, geometry);
+                    }
+                }
+            });
+        } else {
+            FeatureSpatialIndex.getInstance().put(identifier, geometry);
+        }
+    }
+
+    /**
+     * Loads the geometries of all features of the datasource and builds the
+     * {@link FeatureSpatialIndex} from them. The index is not built if it was
+     * invalidated while loading, the geometries are returned anyway, so the
+     * current request is evaluated without loading them again.
+     * 
+     * @param session
+     *            Hibernate session
+     * @return the geometries of all features keyed by feature identifier
+     */
+    @SuppressWarnings("unchecked")
+    protected Map<String, Geometry> initializeSpatialIndex(final Session session) {
+        final FeatureSpatialIndex index = FeatureSpatialIndex.getInstance();
+        final long generation = index.getGeneration();
+        final List<FeatureOfInterest> features = session.createCriteria(FeatureOfInterest.class).list();
+        final Map<String, Geometry> geometries = new HashMap<String, Geometry>(features.size());
+        for (final FeatureOfInterest feature : features) {
+            try {
+                final Geometry geom = getGeomtery(feature);
+                if (geom != null) {
+                    geometries.put(feature.getIdentifier(), geom);
+                }
+            } catch (final OwsExceptionReport owse) {
+                LOGGER.warn(String.format("Error while adding '%s' to spatial index!",
+                        feature.getFeatureOfInterestId()), owse);
+            }
+        }
+        if (index.initialize(generation, geometries)) {
+            LOGGER.debug("Built spatial index of {} features", geometries.size());
+        }
+        return geometries;
+    }
+
     protected Geometry getFilterForNonSpatialDatasource(final SpatialFilter filter) throws OwsExceptionReport {
         switch (filter.getOperator()) {
         case BBOX:
@@ -449,6 +643,8 @@ public class HibernateFeatureQueryHandler implements FeatureQueryHandler {
     public void setDefaultEpsg(final int epsgCode) throws ConfigurationException {
         Validation.greaterZero("Default EPSG Code", epsgCode);
         defaultEPSG = epsgCode;
+        FeatureCache.getInstance().invalidate();
+        FeatureSpatialIndex.getInstance().invalidate();
     }
 
     @Setting(FeatureQuerySettingsProvider.EPSG_CODES_WITH_REVERSED_AXIS_ORDER)
@@ -469,6 +665,8 @@ public class HibernateFeatureQueryHandler implements FeatureQueryHandler {
             }
             epsgsWithReversedAxisOrder.add(r);
         }
+        FeatureCache.getInstance().invalidate();
+        FeatureSpatialIndex.getInstance().invalidate();
     }
 
     private boolean isSpatialDatasource() {
@@ -480,6 +678,12 @@ public class HibernateFeatureQueryHandler implements FeatureQueryHandler {
         this.spatialDatasource = spatialDatasource;
     }
 
+    @Setting(FeatureQuerySettingsProvider.FEATURE_CACHE_SIZE)
+    public void setFeatureCacheSize(final int size) throws ConfigurationException {
+        Validation.greaterEqualZero("Feature cache size", size);
+        FeatureCache.getInstance().setCapacity(size);
+    }
+
     protected Map<String, AbstractFeature> getFeaturesForNonSpatialDatasource(final Collection<String> featureIDs,
                                                                                  final List<SpatialFilter> spatialFilters,
                                                                                  final Session session, final String version)
@@ -509,32 +713,39 @@ public class HibernateFeatureQueryHandler implements FeatureQueryHandler {
         return featureMap;
     }
 
-    @SuppressWarnings("unchecked")
     protected Map<String, AbstractFeature> getFeaturesForSpatialDatasource(final Collection<String> featureIDs,
                                                                               final List<SpatialFilter> spatialFilters,
                                                                               final Session session,
                                                                               final String version) throws OwsExceptionReport {
-        final Criteria c = session.createCriteria(FeatureOfInterest.class)
-                .setResultTransformer(Criteria.DISTINCT_ROOT_ENTITY);
-        boolean filtered = false;
-        if (featureIDs != null && !featureIDs.isEmpty()) {
-            c.add(Restrictions.in(FeatureOfInterest.IDENTIFIER, featureIDs));
-            filtered = true;
-        }
+        final Collection<String> identifiers = featureIDs != null && !featureIDs.isEmpty() ? featureIDs : null;
+        Disjunction spatialFilterDisjunction = null;
         if (spatialFilters != null && !spatialFilters.isEmpty()) {
-            final Disjunction disjunction = Restrictions.disjunction();
+            spatialFilterDisjunction = Restrictions.disjunction();
             for (final SpatialFilter filter : spatialFilters) {
-                disjunction.add(SpatialRestrictions.filter(FeatureOfInterest.GEOMETRY,
+                spatialFilterDisjunction.add(SpatialRestrictions.filter(FeatureOfInterest.GEOMETRY,
                                                            filter.getOperator(),
                                                            switchCoordinateAxisOrderIfNeeded(filter.getGeometry())));
             }
-            c.add(disjunction);
-            filtered = true;
         }
-        if (filtered) {
-            return createSosFeatures(c.list(), version);
-        } else {
+        if (identifiers == null && spatialFilterDisjunction == null) {
             return Collections.emptyMap();
         }
+        final Criterion spatialFilterCriterion = spatialFilterDisjunction;
+        final List<FeatureOfInterest> features =
+                QueryHelper.listInChunks(Collections.singletonList(identifiers), new ChunkCriteriaFactory() {
+                    @Override
+                    public Criteria create(final List<Collection<?>> chunks) {
+                        final Criteria c = session.createCriteria(FeatureOfInterest.class)
+                                .setResultTransformer(Criteria.DISTINCT_ROOT_ENTITY);
+                        if (chunks.get(0) != null) {
+                            c.add(QueryHelper.getInCriterion(FeatureOfInterest.IDENTIFIER, chunks.get(0)));
+                        }
+                        if (spatialFilterCriterion != null) {
+                            c.add(spatialFilterCriterion);
+                        }
+                        return c;
+                    }
+                });
+        return createSosFeatures(features, version);
     }
 }
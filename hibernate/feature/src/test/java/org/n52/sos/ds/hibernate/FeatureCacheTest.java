@@ -0,0 +1,108 @@
+/**
+ * Copyright (C) 2013
+ * by 52 North Initiative for Geospatial Open Source Software GmbH
+ *
+ * Contact: Andreas Wytzisk
+ * 52 North Initiative for Geospatial Open Source Software GmbH
+ * Martin-Luther-King-Weg 24
+ * 48155 Muenster, Germany
+ * info@52north.org
+ *
+ * This program is free software; you can redistribute and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the
+ * Free Software Foundation.
+ *
+ * This program is distributed WITHOUT ANY WARRANTY; even without the implied
+ * WARRANTY OF MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program (see gnu-gpl v2.txt). If not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA or
+ * visit the Free Software Foundation web page, http://www.fsf.org.
+ */
+package org.n52.sos.ds.hibernate;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.n52.sos.ogc.gml.CodeWithAuthority;
+import org.n52.sos.ogc.om.features.AbstractFeature;
+import org.n52.sos.ogc.om.features.samplingFeatures.SamplingFeature;
+import org.n52.sos.ogc.ows.OwsExceptionReport;
+import org.n52.sos.ogc.sos.Sos2Constants;
+
+/**
+ * @since 4.0.0
+ */
+public class FeatureCacheTest {
+
+    private static final String VERSION = Sos2Constants.SERVICEVERSION;
+
+    private FeatureCache cache;
+
+    @Before
+    public void setUp() {
+        cache = new FeatureCache();
+        cache.setCapacity(2);
+    }
+
+    @Test
+    public void shouldReturnCopiesOfCachedFeatures() throws OwsExceptionReport {
+        final SamplingFeature feature = createFeature("feature");
+        cache.put("feature", VERSION, -1, feature);
+        feature.setGmlId("changed");
+        final AbstractFeature first = cache.get("feature", VERSION, -1);
+        assertThat(first, is(notNullValue()));
+        assertThat(first.getGmlId(), is(nullValue()));
+        first.setGmlId("changed");
+        assertThat(cache.get("feature", VERSION, -1).getGmlId(), is(nullValue()));
+        assertThat(cache.get("feature", VERSION, -1), is(not(sameInstance(first))));
+    }
+
+    @Test
+    public void shouldDistinguishVersionAndSrid() throws OwsExceptionReport {
+        cache.put("feature", VERSION, -1, createFeature("feature"));
+        assertThat(cache.get("feature", "1.0.0", -1), is(nullValue()));
+        assertThat(cache.get("feature", VERSION, 4326), is(nullValue()));
+    }
+
+    @Test
+    public void shouldInvalidateFeaturesAfterEviction() throws OwsExceptionReport {
+        cache.put("feature1", VERSION, -1, createFeature("feature1"));
+        cache.put("feature1", "1.0.0", -1, createFeature("feature1"));
+        cache.put("feature2", VERSION, -1, createFeature("feature2"));
+        assertThat(cache.size(), is(2));
+        cache.invalidate("feature1");
+        assertThat(cache.size(), is(1));
+        assertThat(cache.get("feature2", VERSION, -1), is(notNullValue()));
+    }
+
+    @Test
+    public void shouldInvalidateAllVersionsOfFeature() throws OwsExceptionReport {
+        cache.put("feature", VERSION, -1, createFeature("feature"));
+        cache.put("feature", "1.0.0", -1, createFeature("feature"));
+        cache.invalidate("feature");
+        assertThat(cache.size(), is(0));
+    }
+
+    @Test
+    public void shouldInvalidateOnlyCachedVersionsOfFeature() throws OwsExceptionReport {
+        cache.put("feature1", VERSION, -1, createFeature("feature1"));
+        cache.put("feature1", "1.0.0", -1, createFeature("feature1"));
+        cache.put("feature2", VERSION, -1, createFeature("feature2"));
+        cache.invalidate("feature1");
+        assertThat(cache.size(), is(1));
+        assertThat(cache.get("feature2", VERSION, -1), is(notNullValue()));
+        cache.put("feature1", VERSION, -1, createFeature("feature1"));
+        cache.invalidate("feature1");
+        assertThat(cache.get("feature1", VERSION, -1), is(nullValue()));
+        assertThat(cache.get("feature2", VERSION, -1), is(notNullValue()));
+    }
+
+    private SamplingFeature createFeature(final String identifier) {
+        return new SamplingFeature(new CodeWithAuthority(identifier));
+    }
+}
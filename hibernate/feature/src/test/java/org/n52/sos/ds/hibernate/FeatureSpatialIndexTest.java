@@ -0,0 +1,130 @@
+/**
+ * Copyright (C) 2013
+ * by 52 North Initiative for Geospatial Open Source Software GmbH
+ *
+ * Contact: Andreas Wytzisk
+ * 52 North Initiative for Geospatial Open Source Software GmbH
+ * Martin-Luther-King-Weg 24
+ * 48155 Muenster, Germany
+ * info@52north.org
+ *
+ * This program is free software; you can redistribute and/or modify it under
+ * the terms of the GNU General Public License version 2 as published by the
+ * Free Software Foundation.
+ *
+ * This program is distributed WITHOUT ANY WARRANTY; even without the implied
+ * WARRANTY OF MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program (see gnu-gpl v2.txt). If not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA or
+ * visit the Free Software Foundation web page, http://www.fsf.org.
+ */
+package org.n52.sos.ds.hibernate;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.n52.sos.util.CollectionHelper;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+
+/**
+ * @since 4.0.0
+ */
+public class FeatureSpatialIndexTest {
+
+    private final GeometryFactory factory = new GeometryFactory();
+
+    private FeatureSpatialIndex index;
+
+    @Before
+    public void setUp() {
+        index = new FeatureSpatialIndex();
+        final Map<String, Geometry> geometries = new HashMap<String, Geometry>();
+        geometries.put("feature1", point(1, 1));
+        geometries.put("feature2", point(5, 5));
+        geometries.put("feature3", point(10, 10));
+        index.initialize(index.getGeneration(), geometries);
+    }
+
+    @Test
+    public void shouldReturnFeaturesContainedInFilter() {
+        final Geometry filter = factory.toGeometry(new Envelope(0, 6, 0, 6));
+        assertThat(index.getContainedFeatures(filter), is(CollectionHelper.set("feature1", "feature2")));
+    }
+
+    @Test
+    public void shouldReturnEnvelopeOfFeatures() {
+        assertThat(index.getEnvelope(Arrays.asList("feature1", "feature3", "unknown")),
+                is(new Envelope(1, 10, 1, 10)));
+        assertThat(index.getEnvelope(Arrays.asList("unknown")).isNull(), is(true));
+    }
+
+    @Test
+    public void shouldContainInsertedFeatures() {
+        index.put("feature4", point(2, 2));
+        assertThat(index.size(), is(4));
+        assertThat(index.getContainedFeatures(factory.toGeometry(new Envelope(0, 3, 0, 3))),
+                is(CollectionHelper.set("feature1", "feature4")));
+    }
+
+    @Test
+    public void shouldReplaceGeometriesOfInsertedFeatures() {
+        index.put("feature4", point(2, 2));
+        index.put("feature4", point(20, 20));
+        index.put("feature1", point(30, 30));
+        assertThat(index.size(), is(4));
+        assertThat(index.getContainedFeatures(factory.toGeometry(new Envelope(0, 6, 0, 6))),
+                is(CollectionHelper.set("feature2")));
+    }
+
+    @Test
+    public void shouldDiscardInsertedFeaturesOnInvalidation() {
+        index.put("feature4", point(2, 2));
+        index.invalidate();
+        index.initialize(index.getGeneration(), new HashMap<String, Geometry>());
+        assertThat(index.size(), is(0));
+    }
+
+    @Test
+    public void shouldEvaluateGeometriesWithoutIndex() {
+        final Map<String, Geometry> geometries = new HashMap<String, Geometry>();
+        geometries.put("feature1", point(1, 1));
+        geometries.put("feature2", point(5, 5));
+        assertThat(FeatureSpatialIndex.getContainedFeatures(factory.toGeometry(new Envelope(0, 3, 0, 3)), geometries),
+                is(CollectionHelper.set("feature1")));
+        assertThat(FeatureSpatialIndex.getEnvelope(Arrays.asList("feature1", "feature2"), geometries),
+                is(new Envelope(1, 5, 1, 5)));
+    }
+
+    @Test
+    public void shouldNotBeQueriedAfterInvalidation() {
+        index.invalidate();
+        assertThat(index.isInitialized(), is(false));
+        assertThat(index.getContainedFeatures(point(1, 1)), is(nullValue()));
+        assertThat(index.getEnvelope(Arrays.asList("feature1")), is(nullValue()));
+    }
+
+    @Test
+    public void shouldIgnoreGeometriesLoadedBeforeInvalidation() {
+        final long generation = index.getGeneration();
+        index.invalidate();
+        assertThat(index.initialize(generation, new HashMap<String, Geometry>()), is(false));
+        assertThat(index.isInitialized(), is(false));
+    }
+
+    private Geometry point(final double x, final double y) {
+        return factory.createPoint(new Coordinate(x, y));
+    }
+}
@@ -38,14 +38,18 @@ import org.apache.commons.io.FileUtils;
 import org.hibernate.HibernateException;
 import org.hibernate.MappingException;
 import org.hibernate.Session;
+import org.hibernate.SessionFactory;
 import org.hibernate.Transaction;
 import org.hibernate.cfg.Configuration;
+import org.hibernate.cfg.Environment;
 import org.hibernate.jdbc.Work;
 import org.hibernate.mapping.Table;
+import org.hibernate.service.ServiceRegistryBuilder;
 import org.hibernate.spatial.dialect.h2geodb.GeoDBDialect;
 import org.n52.sos.cache.ctrl.ScheduledContentCacheControllerSettings;
 import org.n52.sos.config.sqlite.SQLiteSessionFactory;
 import org.n52.sos.ds.ConnectionProviderException;
+import org.n52.sos.ds.hibernate.type.UtcTimestampType;
 import org.n52.sos.exception.ConfigurationException;
 import org.n52.sos.ogc.ows.OwsExceptionReport;
 import org.n52.sos.service.Configurator;
@@ -66,6 +70,10 @@ public class H2Configuration {
     private static final String H2_DRIVER = "org.h2.Driver";
     private static final String H2_CONNECTION_URL =
             "jdbc:h2:mem:sos;DB_CLOSE_DELAY=-1";
+    public static final String JOINED_OBSERVATION_MAPPING =
+            "mapping/observation/joined/Observation.hbm.xml";
+    public static final String SINGLE_TABLE_OBSERVATION_MAPPING =
+            "mapping/observation/single/Observation.hbm.xml";
     private static Properties properties = new Properties() {
         private static final long serialVersionUID = 3109256773218160485L;
 
@@ -73,34 +81,7 @@ public class H2Configuration {
             put(HIBERNATE_CONNECTION_URL, H2_CONNECTION_URL);
             put(HIBERNATE_CONNECTION_DRIVER_CLASS, H2_DRIVER);
             put(HIBERNATE_DIALECT, GeoDBDialect.class.getName());
-            put(SessionFactoryProvider.HIBERNATE_RESOURCES, getResources());
-        }
-
-        private List<String> getResources() {
-            List<String> resources = CollectionHelper.list();
-            // core
-            resources.add("mapping/core/Codespace.hbm.xml");
-            resources.add("mapping/core/FeatureOfInterest.hbm.xml");
-            resources.add("mapping/core/FeatureOfInterestType.hbm.xml");
-            resources.add("mapping/core/ObservableProperty.hbm.xml");
-            resources.add("mapping/core/Observation.hbm.xml");
-            resources.add("mapping/core/Offering.hbm.xml");
-            resources.add("mapping/core/Procedure.hbm.xml");
-            resources.add("mapping/core/ProcedureDescriptionFormat.hbm.xml");
-            resources.add("mapping/core/Unit.hbm.xml");
-            // transactional module
-            resources
-                    .add("mapping/transactional/ObservationConstellation.hbm.xml");
-            resources.add("mapping/transactional/ObservationType.hbm.xml");
-            resources.add("mapping/transactional/RelatedFeature.hbm.xml");
-            resources.add("mapping/transactional/RelatedFeatureRole.hbm.xml");
-            resources.add("mapping/transactional/ResultTemplate.hbm.xml");
-            resources.add("mapping/transactional/ValidProcedureTime.hbm.xml");
-            resources.add("mapping/transactional/TFeatureOfInterest.hbm.xml");
-            resources.add("mapping/transactional/TObservableProperty.hbm.xml");
-            resources.add("mapping/transactional/TOffering.hbm.xml");
-            resources.add("mapping/transactional/TProcedure.hbm.xml");
-            return resources;
+            put(SessionFactoryProvider.HIBERNATE_RESOURCES, getResources(JOINED_OBSERVATION_MAPPING));
         }
     };
     private static final Object LOCK = new Object();
@@ -341,6 +322,66 @@ public class H2Configuration {
         createConfigurator();
     }
 
+    /**
+     * @param observationMapping
+     *            the mapping of the observations, {@link #JOINED_OBSERVATION_MAPPING} or
+     *            {@link #SINGLE_TABLE_OBSERVATION_MAPPING}
+     * @return the core and transactional mapping resources of the test database
+     */
+    public static List<String> getResources(final String observationMapping) {
+        List<String> resources = CollectionHelper.list();
+        // core
+        resources.add("mapping/core/Codespace.hbm.xml");
+        resources.add("mapping/core/FeatureOfInterest.hbm.xml");
+        resources.add("mapping/core/FeatureOfInterestType.hbm.xml");
+        resources.add("mapping/core/ObservableProperty.hbm.xml");
+        resources.add(observationMapping);
+        resources.add("mapping/core/Offering.hbm.xml");
+        resources.add("mapping/core/Procedure.hbm.xml");
+        resources.add("mapping/core/ProcedureDescriptionFormat.hbm.xml");
+        resources.add("mapping/core/Unit.hbm.xml");
+        // transactional module
+        resources
+                .add("mapping/transactional/ObservationConstellation.hbm.xml");
+        resources.add("mapping/transactional/ObservationType.hbm.xml");
+        resources.add("mapping/transactional/RelatedFeature.hbm.xml");
+        resources.add("mapping/transactional/RelatedFeatureRole.hbm.xml");
+        resources.add("mapping/transactional/ResultTemplate.hbm.xml");
+        resources.add("mapping/transactional/ValidProcedureTime.hbm.xml");
+        resources.add("mapping/transactional/TFeatureOfInterest.hbm.xml");
+        resources.add("mapping/transactional/TObservableProperty.hbm.xml");
+        resources.add("mapping/transactional/TOffering.hbm.xml");
+        resources.add("mapping/transactional/TProcedure.hbm.xml");
+        return resources;
+    }
+
+    /**
+     * Create a session factory for a separate in memory database, e.g. to use
+     * another observation mapping than the database of the
+     * {@link Configurator}. The session factory creates the schema, the
+     * database is dropped with the last closed connection.
+     * 
+     * @param name
+     *            the name of the in memory database
+     * @param observationMapping
+     *            the mapping of the observations
+     * @return the session factory, has to be closed by the caller
+     */
+    public static SessionFactory createSessionFactory(final String name, final String observationMapping) {
+        final Configuration configuration = new Configuration().configure("/sos-hibernate.cfg.xml");
+        for (final String resource : getResources(observationMapping)) {
+            configuration.addResource(resource);
+        }
+        configuration.setProperty(HIBERNATE_CONNECTION_URL, "jdbc:h2:mem:" + name
+                + ";INIT=create domain if not exists geometry as blob");
+        configuration.setProperty(HIBERNATE_CONNECTION_DRIVER_CLASS, H2_DRIVER);
+        configuration.setProperty(HIBERNATE_DIALECT, GeoDBDialect.class.getName());
+        configuration.setProperty(Environment.HBM2DDL_AUTO, "create");
+        configuration.registerTypeOverride(new UtcTimestampType());
+        return configuration.buildSessionFactory(new ServiceRegistryBuilder().applySettings(
+                configuration.getProperties()).buildServiceRegistry());
+    }
+
     public Configuration getConfiguration() {
         return configuration;
     }
@@ -55,6 +55,8 @@ public class SessionFactoryProvider implements DataConnectionProvider {
     public static final String HIBERNATE_RESOURCES = "HIBERNATE_RESOURCES";
     public static final String HIBERNATE_DIRECTORY = "HIBERNATE_DIRECTORY";
     public static final String PATH_SEPERATOR = ";";
+    private static final String OBSERVATION_MAPPINGS_PATH = "/mapping/observation";
+    private static final String JOINED_OBSERVATION_MAPPINGS_PATH = OBSERVATION_MAPPINGS_PATH + "/joined";
     /**
      * SessionFactory instance
      */
@@ -153,10 +155,18 @@ public class SessionFactoryProvider implements DataConnectionProvider {
                 for (String directory : directories.split(PATH_SEPERATOR)) {
                     configuration.addDirectory(new File(directory));
                 }
+                // configurations created before the observation mappings
+                // were moved out of the core mappings
+                if (!directories.contains(OBSERVATION_MAPPINGS_PATH)) {
+                    configuration.addDirectory(new File(getClass()
+                            .getResource(JOINED_OBSERVATION_MAPPINGS_PATH).toURI()));
+                }
             } else {
                 //FIXME keep this as fallback?
                 configuration.addDirectory(new File(getClass()
                         .getResource("/mapping/core").toURI()));
+                configuration.addDirectory(new File(getClass()
+                        .getResource(JOINED_OBSERVATION_MAPPINGS_PATH).toURI()));
                 configuration.addDirectory(new File(getClass()
                         .getResource("/mapping/transactional").toURI()));
             }
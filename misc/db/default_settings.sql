@@ -126,12 +126,27 @@ INSERT INTO "settings" VALUES('misc.tupleSeparator');
 INSERT INTO "settings" VALUES('service.blockGetObservationRequestsWithoutRestriction');
 INSERT INTO "settings" VALUES('service.cacheThreadCount');
 INSERT INTO "settings" VALUES('service.capabilitiesCacheUpdateInterval');
+INSERT INTO "settings" VALUES('service.capabilitiesCachePersistenceDelay');
+INSERT INTO "settings" VALUES('service.capabilitiesCacheIncrementalUpdate');
+INSERT INTO "settings" VALUES('service.capabilitiesCacheCoalescingWindow');
+INSERT INTO "settings" VALUES('service.capabilitiesCacheCompleteUpdateInterval');
+INSERT INTO "settings" VALUES('service.eventBusAsynchronous');
+INSERT INTO "settings" VALUES('service.eventBusQueueCapacity');
+INSERT INTO "settings" VALUES('service.eventBusBlockWhenFull');
+INSERT INTO "settings" VALUES('service.eventBusBatchSize');
 INSERT INTO "settings" VALUES('service.configurationFiles');
 INSERT INTO "settings" VALUES('service.defaultEpsg');
 INSERT INTO "settings" VALUES('service.lease');
+INSERT INTO "settings" VALUES('service.featureCacheSize');
+INSERT INTO "settings" VALUES('service.resultTemplateCacheSize');
+INSERT INTO "settings" VALUES('procedureDesc.DESCRIPTION_CACHE_SIZE');
 INSERT INTO "settings" VALUES('service.maxGetObservationResults');
 INSERT INTO "settings" VALUES('service.minimumGzipSize');
 INSERT INTO "settings" VALUES('service.sensorDirectory');
+INSERT INTO "settings" VALUES('service.streamingFetchSize');
+INSERT INTO "settings" VALUES('service.streamingGetObservation');
+INSERT INTO "settings" VALUES('service.observationEncodingThreads');
+INSERT INTO "settings" VALUES('service.parallelObservationEncodingThreshold');
 INSERT INTO "settings" VALUES('service.skipDuplicateObservations');
 INSERT INTO "settings" VALUES('service.sosUrl');
 INSERT INTO "settings" VALUES('service.supportsQuality');
@@ -168,6 +183,10 @@ INSERT INTO "boolean_settings" VALUES(1,'service.skipDuplicateObservations');
 INSERT INTO "boolean_settings" VALUES(0,'service.blockGetObservationRequestsWithoutRestriction');
 INSERT INTO "boolean_settings" VALUES(0,'service.useDefaultPrefixes');
 INSERT INTO "boolean_settings" VALUES(1,'service.encodeFullChildrenInDescribeSensor');
+INSERT INTO "boolean_settings" VALUES(0,'service.streamingGetObservation');
+INSERT INTO "boolean_settings" VALUES(0,'service.capabilitiesCacheIncrementalUpdate');
+INSERT INTO "boolean_settings" VALUES(0,'service.eventBusAsynchronous');
+INSERT INTO "boolean_settings" VALUES(1,'service.eventBusBlockWhenFull');
 
 INSERT INTO "file_settings" VALUES(NULL,'serviceIdentification.file');
 INSERT INTO "file_settings" VALUES(NULL,'serviceProvider.file');
@@ -175,9 +194,20 @@ INSERT INTO "file_settings" VALUES(NULL,'serviceProvider.file');
 INSERT INTO "integer_settings" VALUES(600,'service.lease');
 INSERT INTO "integer_settings" VALUES(0,'service.maxGetObservationResults');
 INSERT INTO "integer_settings" VALUES(4326,'service.defaultEpsg');
+INSERT INTO "integer_settings" VALUES(10000,'service.featureCacheSize');
+INSERT INTO "integer_settings" VALUES(256,'service.resultTemplateCacheSize');
+INSERT INTO "integer_settings" VALUES(256,'procedureDesc.DESCRIPTION_CACHE_SIZE');
 INSERT INTO "integer_settings" VALUES(1048576,'service.minimumGzipSize');
+INSERT INTO "integer_settings" VALUES(1000,'service.streamingFetchSize');
+INSERT INTO "integer_settings" VALUES(1,'service.observationEncodingThreads');
+INSERT INTO "integer_settings" VALUES(100,'service.parallelObservationEncodingThreshold');
 INSERT INTO "integer_settings" VALUES(5,'service.cacheThreadCount');
 INSERT INTO "integer_settings" VALUES(5,'service.capabilitiesCacheUpdateInterval');
+INSERT INTO "integer_settings" VALUES(30,'service.capabilitiesCachePersistenceDelay');
+INSERT INTO "integer_settings" VALUES(0,'service.capabilitiesCacheCoalescingWindow');
+INSERT INTO "integer_settings" VALUES(1440,'service.capabilitiesCacheCompleteUpdateInterval');
+INSERT INTO "integer_settings" VALUES(10000,'service.eventBusQueueCapacity');
+INSERT INTO "integer_settings" VALUES(100,'service.eventBusBatchSize');
 
 
 INSERT INTO "string_settings" VALUES('+49(0)251/396 371-0','serviceProvider.phone');
@@ -0,0 +1,55 @@
+--
+-- Copyright (C) 2013
+-- by 52 North Initiative for Geospatial Open Source Software GmbH
+--
+-- Contact: Andreas Wytzisk
+-- 52 North Initiative for Geospatial Open Source Software GmbH
+-- Martin-Luther-King-Weg 24
+-- 48155 Muenster, Germany
+-- info@52north.org
+--
+-- This program is free software; you can redistribute and/or modify it under
+-- the terms of the GNU General Public License version 2 as published by the
+-- Free Software Foundation.
+--
+-- This program is distributed WITHOUT ANY WARRANTY; even without the implied
+-- WARRANTY OF MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+-- General Public License for more details.
+--
+-- You should have received a copy of the GNU General Public License along with
+-- this program (see gnu-gpl v2.txt). If not, write to the Free Software
+-- Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA 02111-1307, USA or
+-- visit the Free Software Foundation web page, http://www.fsf.org.
+--
+
+-- Migrates an existing PostgreSQL database from the joined value tables to the
+-- single table observation mapping (/mapping/observation/single). Activate the
+-- "single table observations" setting after running this script.
+
+BEGIN;
+
+ALTER TABLE observation ADD COLUMN valueType varchar(20);
+ALTER TABLE observation ADD COLUMN blobValue oid;
+ALTER TABLE observation ADD COLUMN booleanValue char(1) CHECK (booleanValue in ('T','F'));
+ALTER TABLE observation ADD COLUMN categoryValue varchar(255);
+ALTER TABLE observation ADD COLUMN countValue int4;
+ALTER TABLE observation ADD COLUMN geometryValue GEOMETRY;
+ALTER TABLE observation ADD COLUMN numericValue numeric(19, 2);
+ALTER TABLE observation ADD COLUMN textValue text;
+ALTER TABLE observation ADD COLUMN sweDataArrayValue text;
+
+UPDATE observation o SET valueType = 'blob', blobValue = v.value FROM blobValue v WHERE v.observationId = o.observationId;
+UPDATE observation o SET valueType = 'boolean', booleanValue = v.value FROM booleanValue v WHERE v.observationId = o.observationId;
+UPDATE observation o SET valueType = 'category', categoryValue = v.value FROM categoryValue v WHERE v.observationId = o.observationId;
+UPDATE observation o SET valueType = 'count', countValue = v.value FROM countValue v WHERE v.observationId = o.observationId;
+UPDATE observation o SET valueType = 'geometry', geometryValue = v.value FROM geometryValue v WHERE v.observationId = o.observationId;
+UPDATE observation o SET valueType = 'numeric', numericValue = v.value FROM numericValue v WHERE v.observationId = o.observationId;
+UPDATE observation o SET valueType = 'text', textValue = v.value FROM textValue v WHERE v.observationId = o.observationId;
+UPDATE observation o SET valueType = 'sweDataArray', sweDataArrayValue = v.value FROM sweDataArrayValue v WHERE v.observationId = o.observationId;
+UPDATE observation SET valueType = 'observation' WHERE valueType IS NULL;
+
+ALTER TABLE observation ALTER COLUMN valueType SET NOT NULL;
+
+DROP TABLE blobValue, booleanValue, categoryValue, countValue, geometryValue, numericValue, textValue, sweDataArrayValue;
+
+COMMIT;
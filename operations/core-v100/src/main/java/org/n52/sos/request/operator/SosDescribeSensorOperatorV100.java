@@ -23,15 +23,12 @@
  */
 package org.n52.sos.request.operator;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
 import java.util.Collections;
 import java.util.Set;
 
 import org.apache.xmlbeans.XmlObject;
 import org.n52.sos.ds.AbstractDescribeSensorDAO;
 import org.n52.sos.encode.Encoder;
-import org.n52.sos.exception.ows.concrete.ErrorWhileSavingResponseToOutputStreamException;
 import org.n52.sos.exception.ows.concrete.InvalidOutputFormatException;
 import org.n52.sos.exception.ows.concrete.NoEncoderForKeyException;
 import org.n52.sos.ogc.ows.CompositeOwsException;
@@ -42,11 +39,11 @@ import org.n52.sos.ogc.sos.SosProcedureDescription;
 import org.n52.sos.request.DescribeSensorRequest;
 import org.n52.sos.response.DescribeSensorResponse;
 import org.n52.sos.response.ServiceResponse;
+import org.n52.sos.response.XmlObjectResponseWriter;
 import org.n52.sos.util.CodingHelper;
 import org.n52.sos.util.CollectionHelper;
 import org.n52.sos.util.N52XmlHelper;
 import org.n52.sos.util.SosHelper;
-import org.n52.sos.util.XmlOptionsHelper;
 
 /**
  * class handles the DescribeSensor request
@@ -87,13 +84,8 @@ public class SosDescribeSensorOperatorV100 extends
         
         XmlObject encodedObject = encoder.encode(response.getSensorDescription());
         N52XmlHelper.setSchemaLocationsToDocument(encodedObject, CollectionHelper.set(N52XmlHelper.getSchemaLocationForSML101(), N52XmlHelper.getSchemaLocationForSWE101()));
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        try {
-            encodedObject.save(baos, XmlOptionsHelper.getInstance().getXmlOptions());
-        } catch (IOException ioe) {
-            throw new ErrorWhileSavingResponseToOutputStreamException(ioe);
-        }
-        return new ServiceResponse(baos, SosConstants.CONTENT_TYPE_XML, applyZIPcomp, true);
+        return new ServiceResponse(new XmlObjectResponseWriter(encodedObject),
+                SosConstants.CONTENT_TYPE_XML, applyZIPcomp, true);
     }
 
     private void checkRequestedParameters(DescribeSensorRequest sosRequest) throws OwsExceptionReport {
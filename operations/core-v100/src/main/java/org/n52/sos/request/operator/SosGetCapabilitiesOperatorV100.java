@@ -23,8 +23,6 @@
  */
 package org.n52.sos.request.operator;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
@@ -32,16 +30,15 @@ import java.util.Set;
 import org.apache.xmlbeans.XmlObject;
 import org.n52.sos.ds.AbstractGetCapabilitiesDAO;
 import org.n52.sos.exception.ows.InvalidParameterValueException;
-import org.n52.sos.exception.ows.concrete.ErrorWhileSavingResponseToOutputStreamException;
 import org.n52.sos.ogc.ows.OwsExceptionReport;
 import org.n52.sos.ogc.sos.Sos1Constants;
 import org.n52.sos.ogc.sos.SosConstants;
 import org.n52.sos.request.GetCapabilitiesRequest;
 import org.n52.sos.response.GetCapabilitiesResponse;
 import org.n52.sos.response.ServiceResponse;
+import org.n52.sos.response.XmlObjectResponseWriter;
 import org.n52.sos.util.CodingHelper;
 import org.n52.sos.util.SosHelper;
-import org.n52.sos.util.XmlOptionsHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -78,17 +75,10 @@ public class SosGetCapabilitiesOperatorV100 extends AbstractV1RequestOperator<Ab
         GetCapabilitiesResponse response = getDao().getCapabilities(sosRequest);
 
         String contentType = SosConstants.CONTENT_TYPE_XML;
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
         // XmlOptions xmlOptions;
-        try {
-            // TODO check for SOS 1.0.0
-            XmlObject encodedObject = CodingHelper.encodeObjectToXml(Sos1Constants.NS_SOS, response);
-            encodedObject.save(baos, XmlOptionsHelper.getInstance().getXmlOptions());
-            return new ServiceResponse(baos, contentType, zipCompr, true);
-
-        } catch (IOException ioe) {
-            throw new ErrorWhileSavingResponseToOutputStreamException(ioe);
-        }
+        // TODO check for SOS 1.0.0
+        XmlObject encodedObject = CodingHelper.encodeObjectToXml(Sos1Constants.NS_SOS, response);
+        return new ServiceResponse(new XmlObjectResponseWriter(encodedObject), contentType, zipCompr, true);
     }
 
     private boolean checkAcceptFormats(List<String> formats) throws OwsExceptionReport {
@@ -23,8 +23,6 @@
  */
 package org.n52.sos.request.operator;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -33,7 +31,6 @@ import java.util.Set;
 import org.apache.xmlbeans.XmlObject;
 import org.n52.sos.ds.AbstractGetFeatureOfInterestDAO;
 import org.n52.sos.encode.Encoder;
-import org.n52.sos.exception.ows.concrete.ErrorWhileSavingResponseToOutputStreamException;
 import org.n52.sos.exception.ows.concrete.NoEncoderForResponseException;
 import org.n52.sos.ogc.gml.GMLConstants;
 import org.n52.sos.ogc.om.features.SFConstants;
@@ -47,10 +44,10 @@ import org.n52.sos.ogc.sos.SosConstants;
 import org.n52.sos.request.GetFeatureOfInterestRequest;
 import org.n52.sos.response.GetFeatureOfInterestResponse;
 import org.n52.sos.response.ServiceResponse;
+import org.n52.sos.response.XmlObjectResponseWriter;
 import org.n52.sos.util.CodingHelper;
 import org.n52.sos.util.CollectionHelper;
 import org.n52.sos.util.N52XmlHelper;
-import org.n52.sos.util.XmlOptionsHelper;
 
 public class SosGetFeatureOfInterestOperatorV100 extends
         AbstractV1RequestOperator<AbstractGetFeatureOfInterestDAO, GetFeatureOfInterestRequest> {
@@ -91,27 +88,21 @@ public class SosGetFeatureOfInterestOperatorV100 extends
         checkFeatureOfInterestIdentifiers(sosRequest.getFeatureIdentifiers(),
                 Sos1Constants.GetFeatureOfInterestParams.featureOfInterestID.name());
 
-        try {
-            GetFeatureOfInterestResponse response = getDao().getFeatureOfInterest(sosRequest);
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            Encoder<XmlObject, AbstractFeature> encoder =
-                    CodingHelper.getEncoder(GMLConstants.NS_GML, response.getAbstractFeature());
-            if (encoder != null) {
-                String contentType = encoder.getContentType();
+        GetFeatureOfInterestResponse response = getDao().getFeatureOfInterest(sosRequest);
+        Encoder<XmlObject, AbstractFeature> encoder =
+                CodingHelper.getEncoder(GMLConstants.NS_GML, response.getAbstractFeature());
+        if (encoder != null) {
+            String contentType = encoder.getContentType();
 
-                XmlObject encodedObject = encoder.encode(response.getAbstractFeature());
-                N52XmlHelper.setSchemaLocationsToDocument(
-                        encodedObject,
-                        CollectionHelper.set(N52XmlHelper.getSchemaLocationForSOS100(),
-                        N52XmlHelper.getSchemaLocationForGML311(),
-                        N52XmlHelper.getSchemaLocationForSA100()));
-                encodedObject.save(baos, XmlOptionsHelper.getInstance().getXmlOptions());
-                return new ServiceResponse(baos, contentType, applyZIPcomp, true);
-            } else {
-                throw new NoEncoderForResponseException();
-            }
-        } catch (IOException ioe) {
-            throw new ErrorWhileSavingResponseToOutputStreamException(ioe);
+            XmlObject encodedObject = encoder.encode(response.getAbstractFeature());
+            N52XmlHelper.setSchemaLocationsToDocument(
+                    encodedObject,
+                    CollectionHelper.set(N52XmlHelper.getSchemaLocationForSOS100(),
+                    N52XmlHelper.getSchemaLocationForGML311(),
+                    N52XmlHelper.getSchemaLocationForSA100()));
+            return new ServiceResponse(new XmlObjectResponseWriter(encodedObject), contentType, applyZIPcomp, true);
+        } else {
+            throw new NoEncoderForResponseException();
         }
     }
 }
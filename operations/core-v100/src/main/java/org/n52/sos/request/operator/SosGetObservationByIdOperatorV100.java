@@ -23,8 +23,6 @@
  */
 package org.n52.sos.request.operator;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
 import java.util.Collections;
 import java.util.Set;
 
@@ -32,7 +30,6 @@ import org.apache.xmlbeans.XmlObject;
 import org.n52.sos.ds.AbstractGetObservationByIdDAO;
 import org.n52.sos.encode.Encoder;
 import org.n52.sos.exception.ows.NoApplicableCodeException;
-import org.n52.sos.exception.ows.concrete.ErrorWhileSavingResponseToOutputStreamException;
 import org.n52.sos.exception.ows.concrete.MissingResponseFormatParameterException;
 import org.n52.sos.exception.ows.concrete.NoEncoderForResponseException;
 import org.n52.sos.ogc.ows.OwsExceptionReport;
@@ -41,8 +38,8 @@ import org.n52.sos.ogc.sos.SosConstants;
 import org.n52.sos.request.GetObservationByIdRequest;
 import org.n52.sos.response.GetObservationByIdResponse;
 import org.n52.sos.response.ServiceResponse;
+import org.n52.sos.response.XmlObjectResponseWriter;
 import org.n52.sos.util.CodingHelper;
-import org.n52.sos.util.XmlOptionsHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -99,23 +96,18 @@ public class SosGetObservationByIdOperatorV100 extends
 
         checkRequestedParameters(sosRequest);
 
-        try {
-            GetObservationByIdResponse response = getDao().getObservationById(sosRequest);
+        GetObservationByIdResponse response = getDao().getObservationById(sosRequest);
+        
+        String contentType = SosConstants.CONTENT_TYPE_XML;
+        Encoder<XmlObject, GetObservationByIdResponse> encoder = CodingHelper.getEncoder(sosRequest.getResponseFormat(), response);
+        if (encoder != null) {
+            contentType = encoder.getContentType();
+            return new ServiceResponse(new XmlObjectResponseWriter(encoder.encode(response)),
+                    contentType, applyZIPcomp, true);
             
-            String contentType = SosConstants.CONTENT_TYPE_XML;
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            Encoder<XmlObject, GetObservationByIdResponse> encoder = CodingHelper.getEncoder(sosRequest.getResponseFormat(), response);
-            if (encoder != null) {
-                contentType = encoder.getContentType();
-                encoder.encode(response).save(baos, XmlOptionsHelper.getInstance().getXmlOptions());
-                return new ServiceResponse(baos, contentType, applyZIPcomp, true);
-                
-            } else {
-                // complain check missing params throw exception
-                throw new NoEncoderForResponseException();
-            }
-        } catch (IOException ioe) {
-            throw new ErrorWhileSavingResponseToOutputStreamException(ioe);
+        } else {
+            // complain check missing params throw exception
+            throw new NoEncoderForResponseException();
         }
     }
 }
@@ -23,8 +23,6 @@
  */
 package org.n52.sos.request.operator;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
@@ -39,7 +37,6 @@ import org.n52.sos.encode.Encoder;
 import org.n52.sos.encode.ObservationEncoder;
 import org.n52.sos.exception.ows.InvalidParameterValueException;
 import org.n52.sos.exception.ows.concrete.EncoderResponseUnsupportedException;
-import org.n52.sos.exception.ows.concrete.ErrorWhileSavingResponseToOutputStreamException;
 import org.n52.sos.exception.ows.concrete.InvalidObservedPropertyParameterException;
 import org.n52.sos.exception.ows.concrete.InvalidOfferingParameterException;
 import org.n52.sos.exception.ows.concrete.InvalidResponseFormatParameterException;
@@ -57,6 +54,7 @@ import org.n52.sos.ogc.sos.SosConstants;
 import org.n52.sos.request.GetObservationRequest;
 import org.n52.sos.response.GetObservationResponse;
 import org.n52.sos.response.ServiceResponse;
+import org.n52.sos.response.XmlObjectResponseWriter;
 import org.n52.sos.service.CodingRepository;
 import org.n52.sos.service.Configurator;
 import org.n52.sos.util.CodingHelper;
@@ -64,7 +62,6 @@ import org.n52.sos.util.CollectionHelper;
 import org.n52.sos.util.OMHelper;
 import org.n52.sos.util.SosHelper;
 import org.n52.sos.util.StringHelper;
-import org.n52.sos.util.XmlOptionsHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -107,26 +104,21 @@ public class SosGetObservationOperatorV100 extends
         checkRequestedParameters(sosRequest);
         boolean zipCompression = checkResponseFormat(sosRequest);
         String responseFormat = sosRequest.getResponseFormat();
-        try {
-            GetObservationResponse response = getDao().getObservation(sosRequest);
-            Encoder<XmlObject, GetObservationResponse> encoder = CodingHelper.getEncoder(responseFormat, response);
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            if (encoder != null) {
-                Object encodedObject = encoder.encode(response);
-                String contentType = encoder.getContentType();
-                if (encodedObject instanceof XmlObject) {
-                    ((XmlObject) encodedObject).save(baos, XmlOptionsHelper.getInstance().getXmlOptions());
-                    return new ServiceResponse(baos, contentType, zipCompression, true);
-                } else if (encodedObject instanceof ServiceResponse) {
-                    return (ServiceResponse) encodedObject;
-                } else {
-                    throw new EncoderResponseUnsupportedException();
-                }
+        GetObservationResponse response = getDao().getObservation(sosRequest);
+        Encoder<XmlObject, GetObservationResponse> encoder = CodingHelper.getEncoder(responseFormat, response);
+        if (encoder != null) {
+            Object encodedObject = encoder.encode(response);
+            String contentType = encoder.getContentType();
+            if (encodedObject instanceof XmlObject) {
+                return new ServiceResponse(new XmlObjectResponseWriter((XmlObject) encodedObject),
+                        contentType, zipCompression, true);
+            } else if (encodedObject instanceof ServiceResponse) {
+                return (ServiceResponse) encodedObject;
             } else {
-                throw new InvalidResponseFormatParameterException(responseFormat);
+                throw new EncoderResponseUnsupportedException();
             }
-        } catch (IOException ioe) {
-            throw new ErrorWhileSavingResponseToOutputStreamException(ioe);
+        } else {
+            throw new InvalidResponseFormatParameterException(responseFormat);
         }
     }
 
@@ -23,8 +23,6 @@
  */
 package org.n52.sos.request.operator;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
 import java.util.Collections;
 import java.util.Set;
 
@@ -33,7 +31,6 @@ import org.n52.sos.ds.AbstractDescribeSensorDAO;
 import org.n52.sos.encode.Encoder;
 import org.n52.sos.exception.ows.OptionNotSupportedException;
 import org.n52.sos.exception.ows.concrete.EncoderResponseUnsupportedException;
-import org.n52.sos.exception.ows.concrete.ErrorWhileSavingResponseToOutputStreamException;
 import org.n52.sos.exception.ows.concrete.NoEncoderForKeyException;
 import org.n52.sos.exception.ows.concrete.NoEncoderForResponseException;
 import org.n52.sos.ogc.ows.CompositeOwsException;
@@ -45,9 +42,9 @@ import org.n52.sos.ogc.swe.SWEConstants;
 import org.n52.sos.request.DescribeSensorRequest;
 import org.n52.sos.response.DescribeSensorResponse;
 import org.n52.sos.response.ServiceResponse;
+import org.n52.sos.response.XmlObjectResponseWriter;
 import org.n52.sos.util.CodingHelper;
 import org.n52.sos.util.SosHelper;
-import org.n52.sos.util.XmlOptionsHelper;
 import org.n52.sos.wsdl.WSDLConstants;
 import org.n52.sos.wsdl.WSDLOperation;
 
@@ -89,13 +86,8 @@ public class SosDescribeSensorOperatorV20 extends AbstractV2RequestOperator<Abst
 
         Object encodedObject = encoder.encode(response);
         if (encodedObject instanceof XmlObject) {
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            try {
-                ((XmlObject) encodedObject).save(baos, XmlOptionsHelper.getInstance().getXmlOptions());
-            } catch (IOException ioe) {
-                throw new ErrorWhileSavingResponseToOutputStreamException(ioe);
-            }
-            return new ServiceResponse(baos, SosConstants.CONTENT_TYPE_XML, applyZIPcomp, true);
+            return new ServiceResponse(new XmlObjectResponseWriter((XmlObject) encodedObject),
+                    SosConstants.CONTENT_TYPE_XML, applyZIPcomp, true);
         } else if (encodedObject instanceof ServiceResponse) {
             return (ServiceResponse) encodedObject;
         } else {
@@ -23,8 +23,6 @@
  */
 package org.n52.sos.request.operator;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
@@ -34,7 +32,6 @@ import org.n52.sos.ds.AbstractGetCapabilitiesDAO;
 import org.n52.sos.encode.Encoder;
 import org.n52.sos.exception.ows.InvalidParameterValueException;
 import org.n52.sos.exception.ows.concrete.EncoderResponseUnsupportedException;
-import org.n52.sos.exception.ows.concrete.ErrorWhileSavingResponseToOutputStreamException;
 import org.n52.sos.exception.ows.concrete.VersionNotSupportedException;
 import org.n52.sos.ogc.ows.OwsExceptionReport;
 import org.n52.sos.ogc.sos.ConformanceClasses;
@@ -43,10 +40,10 @@ import org.n52.sos.ogc.sos.SosConstants;
 import org.n52.sos.request.GetCapabilitiesRequest;
 import org.n52.sos.response.GetCapabilitiesResponse;
 import org.n52.sos.response.ServiceResponse;
+import org.n52.sos.response.XmlObjectResponseWriter;
 import org.n52.sos.service.CodingRepository;
 import org.n52.sos.util.CodingHelper;
 import org.n52.sos.util.SosHelper;
-import org.n52.sos.util.XmlOptionsHelper;
 import org.n52.sos.wsdl.WSDLConstants;
 import org.n52.sos.wsdl.WSDLOperation;
 
@@ -83,27 +80,21 @@ public class SosGetCapabilitiesOperatorV20 extends
 
         GetCapabilitiesResponse response = getDao().getCapabilities(sosRequest);
         String contentType = SosConstants.CONTENT_TYPE_XML;
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
         // XmlOptions xmlOptions;
-        try {
-            Encoder<?, GetCapabilitiesResponse> encoder = CodingRepository.getInstance().getEncoder(
-            		CodingHelper.getEncoderKey(Sos2Constants.NS_SOS_20, response));
-            if (encoder != null) {
-                Object encodedObject = encoder.encode(response);
-                if (encodedObject instanceof XmlObject) {
-                    ((XmlObject) encodedObject).save(baos, XmlOptionsHelper.getInstance().getXmlOptions());
-                    return new ServiceResponse(baos, contentType, zipCompr, true);
-                } else if (encodedObject instanceof ServiceResponse) {
-                    return (ServiceResponse) encodedObject;
-                } else {
-                    throw new EncoderResponseUnsupportedException();
-                }
+        Encoder<?, GetCapabilitiesResponse> encoder = CodingRepository.getInstance().getEncoder(
+        		CodingHelper.getEncoderKey(Sos2Constants.NS_SOS_20, response));
+        if (encoder != null) {
+            Object encodedObject = encoder.encode(response);
+            if (encodedObject instanceof XmlObject) {
+                return new ServiceResponse(new XmlObjectResponseWriter((XmlObject) encodedObject),
+                        contentType, zipCompr, true);
+            } else if (encodedObject instanceof ServiceResponse) {
+                return (ServiceResponse) encodedObject;
             } else {
-                throw new VersionNotSupportedException();
+                throw new EncoderResponseUnsupportedException();
             }
-
-        } catch (IOException ioe) {
-            throw new ErrorWhileSavingResponseToOutputStreamException(ioe);
+        } else {
+            throw new VersionNotSupportedException();
         }
     }
 
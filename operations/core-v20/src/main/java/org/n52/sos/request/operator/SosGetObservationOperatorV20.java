@@ -23,8 +23,8 @@
  */
 package org.n52.sos.request.operator;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -37,7 +37,7 @@ import org.n52.sos.config.annotation.Setting;
 import org.n52.sos.ds.AbstractGetObservationDAO;
 import org.n52.sos.encode.Encoder;
 import org.n52.sos.encode.ObservationEncoder;
-import org.n52.sos.exception.ows.concrete.ErrorWhileSavingResponseToOutputStreamException;
+import org.n52.sos.encode.StreamingEncoder;
 import org.n52.sos.exception.ows.concrete.InvalidObservedPropertyParameterException;
 import org.n52.sos.exception.ows.concrete.InvalidOfferingParameterException;
 import org.n52.sos.exception.ows.concrete.InvalidResponseFormatParameterException;
@@ -57,12 +57,14 @@ import org.n52.sos.ogc.sos.Sos2Constants;
 import org.n52.sos.ogc.sos.SosConstants;
 import org.n52.sos.request.GetObservationRequest;
 import org.n52.sos.response.GetObservationResponse;
+import org.n52.sos.response.ResponseWriter;
 import org.n52.sos.response.ServiceResponse;
+import org.n52.sos.response.XmlObjectResponseWriter;
 import org.n52.sos.service.CodingRepository;
 import org.n52.sos.service.Configurator;
+import org.n52.sos.service.ServiceConfiguration;
 import org.n52.sos.util.CodingHelper;
 import org.n52.sos.util.SosHelper;
-import org.n52.sos.util.XmlOptionsHelper;
 import org.n52.sos.wsdl.WSDLConstants;
 import org.n52.sos.wsdl.WSDLOperation;
 
@@ -91,35 +93,76 @@ public class SosGetObservationOperatorV20 extends AbstractV2RequestOperator<Abst
         checkRequestedParameters(sosRequest);
         final boolean zipCompression = checkResponseFormat(sosRequest);
         final String responseFormat = sosRequest.getResponseFormat();
+        String namespace = responseFormat;
+        if (sosRequest.getVersion().equals(Sos2Constants.SERVICEVERSION)
+                && checkForObservationAndMeasurementV20Type(responseFormat)) {
+            namespace = Sos2Constants.NS_SOS_20;
+        }
+
+        final Encoder<XmlObject, GetObservationResponse> encoder;
         try {
-            String namespace = responseFormat;
-            if (sosRequest.getVersion().equals(Sos2Constants.SERVICEVERSION)
-                    && checkForObservationAndMeasurementV20Type(responseFormat)) {
-                namespace = Sos2Constants.NS_SOS_20;
-            }
+            encoder = CodingHelper.getEncoder(namespace, new GetObservationResponse());
+        } catch (final OwsExceptionReport e) {
+            throw new InvalidResponseFormatParameterException(responseFormat).causedBy(e);
+        }
 
-            final GetObservationResponse response = getDao().getObservation(sosRequest);
-            // TODO check for correct merging, add merge if swes:extension is set
-            if ((!responseFormat.equals(OMConstants.RESPONSE_FORMAT_OM_2)) || Configurator.getInstance().getProfileHandler().getActiveProfile().isMergeValues()) {
-                response.mergeObservationsWithSameX();
+        // TODO check for correct merging, add merge if swes:extension is set
+        final boolean merge =
+                (!responseFormat.equals(OMConstants.RESPONSE_FORMAT_OM_2))
+                        || Configurator.getInstance().getProfileHandler().getActiveProfile().isMergeValues();
+        if (!merge && ServiceConfiguration.getInstance().isStreamingGetObservation()
+                && encoder instanceof StreamingEncoder) {
+            final GetObservationResponse response = getDao().getObservationAsStream(sosRequest);
+            if (response.isStreaming()) {
+                return createStreamingResponse(response, encoder, zipCompression);
             }
+            return encodeResponse(response, encoder, zipCompression);
+        }
+        final GetObservationResponse response = getDao().getObservation(sosRequest);
+        if (merge) {
+            response.mergeObservationsWithSameX();
+        }
+        return encodeResponse(response, encoder, zipCompression);
+    }
 
-            Encoder<XmlObject, GetObservationResponse> encoder;
-            try {
-                encoder = CodingHelper.getEncoder(namespace, response);
-            } catch (final OwsExceptionReport e) {
-                throw new InvalidResponseFormatParameterException(responseFormat).causedBy(e);
-            }
+    private ServiceResponse encodeResponse(final GetObservationResponse response,
+            final Encoder<XmlObject, GetObservationResponse> encoder, final boolean zipCompression)
+            throws OwsExceptionReport {
+        return new ServiceResponse(new XmlObjectResponseWriter(encoder.encode(response)), encoder.getContentType(),
+                zipCompression, true);
+    }
 
-            final ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            final XmlObject encodedObject = encoder.encode(response);
-            final String contentType = encoder.getContentType();
-            encodedObject.save(baos, XmlOptionsHelper.getInstance().getXmlOptions());
-            return new ServiceResponse(baos, contentType, zipCompression, true);
-        } catch (final IOException ioe) {
-            throw new ErrorWhileSavingResponseToOutputStreamException(ioe);
-        }
+    /**
+     * Creates a {@link ServiceResponse} that encodes the observations of the
+     * response while they are written to the client. The observations can
+     * only be written once, a second write fails without writing anything.
+     * <p/>
+     * Errors occurring after the response is committed can not be reported as
+     * exception report anymore. They are propagated as {@link IOException}, so
+     * the servlet container aborts the response instead of completing a
+     * truncated document.
+     */
+    @SuppressWarnings("unchecked")
+    private ServiceResponse createStreamingResponse(final GetObservationResponse response,
+            final Encoder<XmlObject, GetObservationResponse> encoder, final boolean zipCompression) {
+        final StreamingEncoder<XmlObject, GetObservationResponse> streamingEncoder =
+                (StreamingEncoder<XmlObject, GetObservationResponse>) encoder;
+        return new ServiceResponse(new ResponseWriter() {
+            private boolean written;
 
+            @Override
+            public synchronized void write(final OutputStream outputStream) throws IOException {
+                if (written) {
+                    throw new IOException("The streamed GetObservation response was already written");
+                }
+                written = true;
+                try {
+                    streamingEncoder.encodeToStream(response, outputStream);
+                } catch (final OwsExceptionReport owse) {
+                    throw new IOException("Error while streaming GetObservation response", owse);
+                }
+            }
+        }, encoder.getContentType(), zipCompression, true);
     }
 
     private void checkRequestedParameters(final GetObservationRequest sosRequest) throws OwsExceptionReport {
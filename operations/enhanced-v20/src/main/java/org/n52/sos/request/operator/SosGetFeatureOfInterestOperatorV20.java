@@ -23,8 +23,6 @@
  */
 package org.n52.sos.request.operator;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
@@ -33,7 +31,6 @@ import org.apache.xmlbeans.XmlObject;
 import org.n52.sos.ds.AbstractGetFeatureOfInterestDAO;
 import org.n52.sos.exception.ows.InvalidParameterValueException;
 import org.n52.sos.exception.ows.concrete.EncoderResponseUnsupportedException;
-import org.n52.sos.exception.ows.concrete.ErrorWhileSavingResponseToOutputStreamException;
 import org.n52.sos.ogc.ows.CompositeOwsException;
 import org.n52.sos.ogc.ows.OWSConstants;
 import org.n52.sos.ogc.ows.OwsExceptionReport;
@@ -44,8 +41,8 @@ import org.n52.sos.ogc.sos.SosConstants;
 import org.n52.sos.request.GetFeatureOfInterestRequest;
 import org.n52.sos.response.GetFeatureOfInterestResponse;
 import org.n52.sos.response.ServiceResponse;
+import org.n52.sos.response.XmlObjectResponseWriter;
 import org.n52.sos.util.CodingHelper;
-import org.n52.sos.util.XmlOptionsHelper;
 import org.n52.sos.wsdl.WSDLConstants;
 import org.n52.sos.wsdl.WSDLOperation;
 
@@ -69,30 +66,24 @@ public class SosGetFeatureOfInterestOperatorV20 extends AbstractV2RequestOperato
 
         GetFeatureOfInterestResponse response = getDao().getFeatureOfInterest(sosRequest);
         String contentType = SosConstants.CONTENT_TYPE_XML;
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
 
-        try {
-            // check SOS version for response encoding
-            String namespace;
-            if (sosRequest.getVersion().equalsIgnoreCase(Sos1Constants.SERVICEVERSION)) {
-                namespace = Sos1Constants.NS_SOS;
-            } else if (sosRequest.getVersion().equalsIgnoreCase(Sos2Constants.SERVICEVERSION)) {
-                namespace = Sos2Constants.NS_SOS_20;
-            } else {
-                throw new InvalidParameterValueException(OWSConstants.RequestParams.version, sosRequest.getVersion());
-            }
+        // check SOS version for response encoding
+        String namespace;
+        if (sosRequest.getVersion().equalsIgnoreCase(Sos1Constants.SERVICEVERSION)) {
+            namespace = Sos1Constants.NS_SOS;
+        } else if (sosRequest.getVersion().equalsIgnoreCase(Sos2Constants.SERVICEVERSION)) {
+            namespace = Sos2Constants.NS_SOS_20;
+        } else {
+            throw new InvalidParameterValueException(OWSConstants.RequestParams.version, sosRequest.getVersion());
+        }
 
-            XmlObject encodedObject = CodingHelper.encodeObjectToXml(namespace, response);
-            if (encodedObject instanceof XmlObject) {
-                encodedObject.save(baos, XmlOptionsHelper.getInstance().getXmlOptions());
-                return new ServiceResponse(baos, contentType, false, true);
-            } else if (encodedObject instanceof ServiceResponse) {
-                return (ServiceResponse) encodedObject;
-            } else {
-                throw new EncoderResponseUnsupportedException();
-            }
-        } catch (IOException ioe) {
-            throw new ErrorWhileSavingResponseToOutputStreamException(ioe);
+        XmlObject encodedObject = CodingHelper.encodeObjectToXml(namespace, response);
+        if (encodedObject instanceof XmlObject) {
+            return new ServiceResponse(new XmlObjectResponseWriter(encodedObject), contentType, false, true);
+        } else if (encodedObject instanceof ServiceResponse) {
+            return (ServiceResponse) encodedObject;
+        } else {
+            throw new EncoderResponseUnsupportedException();
         }
     }
 
@@ -23,15 +23,12 @@
  */
 package org.n52.sos.request.operator;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
 import java.util.Collections;
 import java.util.Set;
 
 import org.apache.xmlbeans.XmlObject;
 import org.n52.sos.ds.AbstractGetObservationByIdDAO;
 import org.n52.sos.exception.ows.InvalidParameterValueException;
-import org.n52.sos.exception.ows.concrete.ErrorWhileSavingResponseToOutputStreamException;
 import org.n52.sos.exception.ows.concrete.MissingResponseFormatParameterException;
 import org.n52.sos.ogc.om.OMConstants;
 import org.n52.sos.ogc.ows.CompositeOwsException;
@@ -43,10 +40,10 @@ import org.n52.sos.ogc.sos.SosConstants;
 import org.n52.sos.request.GetObservationByIdRequest;
 import org.n52.sos.response.GetObservationByIdResponse;
 import org.n52.sos.response.ServiceResponse;
+import org.n52.sos.response.XmlObjectResponseWriter;
 import org.n52.sos.service.Configurator;
 import org.n52.sos.util.CodingHelper;
 import org.n52.sos.util.SosHelper;
-import org.n52.sos.util.XmlOptionsHelper;
 import org.n52.sos.wsdl.WSDLConstants;
 import org.n52.sos.wsdl.WSDLOperation;
 
@@ -82,47 +79,41 @@ public class SosGetObservationByIdOperatorV20 extends AbstractV2RequestOperator<
         GetObservationByIdResponse response = getDao().getObservationById(sosRequest);
         String responseFormat = response.getResponseFormat();
         String contentType = SosConstants.CONTENT_TYPE_XML;
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
         // XmlOptions xmlOptions;
 
-        try {
-            if (responseFormat == null) {
-                throw new MissingResponseFormatParameterException();
-            }
-            // check SOS version for response encoding
-            final String namespace;
-            // O&M 1.0.0
-            if (responseFormat.equals(OMConstants.CONTENT_TYPE_OM)
-                    || responseFormat.equals(OMConstants.RESPONSE_FORMAT_OM)) {
-                namespace = responseFormat;
-                // xmlOptions =
-                // SosXmlOptionsUtility.getInstance().getXmlOptions();
-                contentType = OMConstants.CONTENT_TYPE_OM;
-            }
-            // O&M 2.0 non SOS 1.0
-            else if (!sosRequest.getVersion().equals(Sos2Constants.SERVICEVERSION)
-                    && (responseFormat.equals(OMConstants.CONTENT_TYPE_OM_2)
-                        || responseFormat .equals(OMConstants.RESPONSE_FORMAT_OM_2))) {
-                namespace = responseFormat;
-                // xmlOptions =
-                // SosXmlOptionsUtility.getInstance().getXmlOptions4Sos2Swe200();
-                contentType = OMConstants.CONTENT_TYPE_OM_2;
-            }
-            // O&M 2.0 for SOS 2.0
-            else if (sosRequest.getVersion().equals(Sos2Constants.SERVICEVERSION)
-                    && responseFormat.equals(OMConstants.RESPONSE_FORMAT_OM_2)) {
-                namespace = Sos2Constants.NS_SOS_20;
-                // xmlOptions =
-                // SosXmlOptionsUtility.getInstance().getXmlOptions4Sos2Swe200();
-            } else {
-                throw new InvalidParameterValueException(OWSConstants.RequestParams.version, sosRequest.getVersion());
-            }
-            XmlObject encodedObject = CodingHelper.encodeObjectToXml(namespace, response);
-            encodedObject.save(baos, XmlOptionsHelper.getInstance().getXmlOptions());
-            return new ServiceResponse(baos, contentType, false, true);
-        } catch (IOException ioe) {
-            throw new ErrorWhileSavingResponseToOutputStreamException(ioe);
+        if (responseFormat == null) {
+            throw new MissingResponseFormatParameterException();
+        }
+        // check SOS version for response encoding
+        final String namespace;
+        // O&M 1.0.0
+        if (responseFormat.equals(OMConstants.CONTENT_TYPE_OM)
+                || responseFormat.equals(OMConstants.RESPONSE_FORMAT_OM)) {
+            namespace = responseFormat;
+            // xmlOptions =
+            // SosXmlOptionsUtility.getInstance().getXmlOptions();
+            contentType = OMConstants.CONTENT_TYPE_OM;
+        }
+        // O&M 2.0 non SOS 1.0
+        else if (!sosRequest.getVersion().equals(Sos2Constants.SERVICEVERSION)
+                && (responseFormat.equals(OMConstants.CONTENT_TYPE_OM_2)
+                    || responseFormat .equals(OMConstants.RESPONSE_FORMAT_OM_2))) {
+            namespace = responseFormat;
+            // xmlOptions =
+            // SosXmlOptionsUtility.getInstance().getXmlOptions4Sos2Swe200();
+            contentType = OMConstants.CONTENT_TYPE_OM_2;
+        }
+        // O&M 2.0 for SOS 2.0
+        else if (sosRequest.getVersion().equals(Sos2Constants.SERVICEVERSION)
+                && responseFormat.equals(OMConstants.RESPONSE_FORMAT_OM_2)) {
+            namespace = Sos2Constants.NS_SOS_20;
+            // xmlOptions =
+            // SosXmlOptionsUtility.getInstance().getXmlOptions4Sos2Swe200();
+        } else {
+            throw new InvalidParameterValueException(OWSConstants.RequestParams.version, sosRequest.getVersion());
         }
+        XmlObject encodedObject = CodingHelper.encodeObjectToXml(namespace, response);
+        return new ServiceResponse(new XmlObjectResponseWriter(encodedObject), contentType, false, true);
     }
 
     private void checkRequestedParameter(GetObservationByIdRequest sosRequest) throws OwsExceptionReport {
@@ -23,8 +23,6 @@
  */
 package org.n52.sos.request.operator;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
 import java.util.Collections;
 import java.util.Set;
 
@@ -32,7 +30,6 @@ import org.apache.xmlbeans.XmlObject;
 import org.n52.sos.ds.AbstractGetResultTemplateDAO;
 import org.n52.sos.encode.Encoder;
 import org.n52.sos.exception.ows.concrete.EncoderResponseUnsupportedException;
-import org.n52.sos.exception.ows.concrete.ErrorWhileSavingResponseToOutputStreamException;
 import org.n52.sos.exception.ows.concrete.InvalidObservedPropertyParameterException;
 import org.n52.sos.exception.ows.concrete.InvalidOfferingParameterException;
 import org.n52.sos.exception.ows.concrete.MissingObservedPropertyParameterException;
@@ -46,10 +43,10 @@ import org.n52.sos.ogc.sos.SosConstants;
 import org.n52.sos.request.GetResultTemplateRequest;
 import org.n52.sos.response.GetResultTemplateResponse;
 import org.n52.sos.response.ServiceResponse;
+import org.n52.sos.response.XmlObjectResponseWriter;
 import org.n52.sos.service.CodingRepository;
 import org.n52.sos.service.Configurator;
 import org.n52.sos.util.CodingHelper;
-import org.n52.sos.util.XmlOptionsHelper;
 import org.n52.sos.wsdl.WSDLConstants;
 import org.n52.sos.wsdl.WSDLOperation;
 
@@ -72,25 +69,20 @@ public class SosGetResultTemplateOperatorV20 extends AbstractV2RequestOperator<A
         checkRequestedParameter(sosRequest);
         GetResultTemplateResponse response = getDao().getResultTemplate(sosRequest);
         String contentType = SosConstants.CONTENT_TYPE_XML;
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        try {
-            Encoder<?, GetResultTemplateResponse> encoder = CodingRepository.getInstance()
-                    .getEncoder(CodingHelper.getEncoderKey(Sos2Constants.NS_SOS_20, response));
-            if (encoder != null) {
-                Object encodedObject = encoder.encode(response);
-                if (encodedObject instanceof XmlObject) {
-                    ((XmlObject) encodedObject).save(baos, XmlOptionsHelper.getInstance().getXmlOptions());
-                    return new ServiceResponse(baos, contentType, false, true);
-                } else if (encodedObject instanceof ServiceResponse) {
-                    return (ServiceResponse) encodedObject;
-                } else {
-                    throw new EncoderResponseUnsupportedException();
-                }
+        Encoder<?, GetResultTemplateResponse> encoder = CodingRepository.getInstance()
+                .getEncoder(CodingHelper.getEncoderKey(Sos2Constants.NS_SOS_20, response));
+        if (encoder != null) {
+            Object encodedObject = encoder.encode(response);
+            if (encodedObject instanceof XmlObject) {
+                return new ServiceResponse(new XmlObjectResponseWriter((XmlObject) encodedObject),
+                        contentType, false, true);
+            } else if (encodedObject instanceof ServiceResponse) {
+                return (ServiceResponse) encodedObject;
             } else {
-                throw new NoEncoderForResponseException();
+                throw new EncoderResponseUnsupportedException();
             }
-        } catch (IOException ioe) {
-            throw new ErrorWhileSavingResponseToOutputStreamException(ioe);
+        } else {
+            throw new NoEncoderForResponseException();
         }
     }
 
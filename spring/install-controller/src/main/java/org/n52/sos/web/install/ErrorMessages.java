@@ -70,4 +70,6 @@ public interface ErrorMessages {
     String COULD_NOT_CHECK_IF_TABLE_EXISTS = "Could not check if table '%s' exists: %s";
     String COULD_NOT_CHECK_IF_SCHEMA_EXISTS = "Could not check if schema '%s' exists: %s";
     String SCHEMA_DOES_NOT_EXIST = "Schema %s does not exist";
+    String PARTITIONING_NEEDS_SCHEMA_CREATION = "The observation table can only be partitioned "
+                                                          + "if the tables are created.";
 }
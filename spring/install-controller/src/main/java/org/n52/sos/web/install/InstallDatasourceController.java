@@ -31,6 +31,7 @@ import java.util.Set;
 import org.n52.sos.config.SettingDefinition;
 import org.n52.sos.config.SettingValue;
 import org.n52.sos.ds.Datasource;
+import org.n52.sos.ds.PartitionableDatasource;
 import org.n52.sos.exception.ConfigurationException;
 import org.n52.sos.util.CollectionHelper;
 import org.n52.sos.web.ControllerConstants;
@@ -66,7 +67,7 @@ public class InstallDatasourceController extends AbstractProcessingInstallationC
                                                           parameters));
             datasource.validateConnection(c.getDatabaseSettings());
             datasource.validatePrerequisites(c.getDatabaseSettings());
-
+            checkPartitioning(datasource, createTables, c);
 
 
             if (datasource.needsSchema()) {
@@ -131,6 +132,17 @@ public class InstallDatasourceController extends AbstractProcessingInstallationC
         return createTables;
     }
 
+    protected void checkPartitioning(Datasource datasource,
+                                     boolean createTables,
+                                     InstallationConfiguration settings)
+            throws InstallationSettingsError {
+        if (datasource instanceof PartitionableDatasource && !createTables
+            && ((PartitionableDatasource) datasource)
+                .isPartitioningRequested(settings.getDatabaseSettings())) {
+            throw new InstallationSettingsError(settings, ErrorMessages.PARTITIONING_NEEDS_SCHEMA_CREATION);
+        }
+    }
+
     protected boolean checkCreateTestData(Datasource datasource,
                                           Map<String, String> parameters,
                                           InstallationConfiguration settings) {